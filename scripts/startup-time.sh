@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+# Time to first request and resident memory of fresh instances, the median of several starts.
+#
+#   scripts/startup-time.sh [regular|fast-start] [runs]
+#
+# regular starts target/app-*.jar (mvn package); fast-start starts the AOT-processed jar with its class data
+# sharing archive from target/fast-start (mvn -P fast-start package). Each run starts a new JVM, polls URL until it
+# answers 200, then reads the process' VmRSS and stops it. The database must be up and migrated, e.g. with
+# docker compose -f src/main/resources/docker-compose.yml up -d and one regular start.
+#
+# Environment: JAVA_HOME, URL (default: a one-patient page), JAVA_OPTS (e.g. -Xmx512m), TIMEOUT in seconds (default 120).
+set -euo pipefail
+
+MODE=${1:-regular}
+RUNS=${2:-5}
+URL=${URL:-http://localhost:8000/patient-api/api/v1/patients?limit=1}
+TIMEOUT=${TIMEOUT:-120}
+JAVA_OPTS=${JAVA_OPTS:-}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+cd "$(dirname "$0")/.."
+
+case "$MODE" in
+  regular)
+    JAR=$(ls target/app-*.jar | grep -v -- '-plain' | head -1)
+    COMMAND=("$JAVA" $JAVA_OPTS -jar "$JAR")
+    ;;
+  fast-start)
+    JAR=$(ls target/fast-start/app-*.jar | head -1)
+    COMMAND=("$JAVA" $JAVA_OPTS -XX:SharedArchiveFile=target/fast-start/app.jsa -Dspring.aot.enabled=true
+             -Dspring.profiles.active=fast-start -jar "$JAR")
+    ;;
+  *)
+    echo "usage: $0 [regular|fast-start] [runs]" >&2
+    exit 2
+    ;;
+esac
+
+if curl -s -o /dev/null "$URL"; then
+  echo "Something already answers on $URL; stop it first" >&2
+  exit 1
+fi
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+MILLIS=()
+RSS=()
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  "${COMMAND[@]}" > "target/startup-time-$MODE-$run.log" 2>&1 &
+  pid=$!
+  status=000
+  until [ "$status" = 200 ]; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Run $run: the application exited, see target/startup-time-$MODE-$run.log" >&2
+      exit 1
+    fi
+    if [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge "$TIMEOUT" ]; then
+      kill "$pid"
+      echo "Run $run: no 200 from $URL within ${TIMEOUT}s" >&2
+      exit 1
+    fi
+    status=$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)
+    [ "$status" = 200 ] || sleep 0.01
+  done
+  millis=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss=$(awk '/^VmRSS:/ { print int($2 / 1024) }' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "Run $run: first request after ${millis} ms, RSS ${rss} MB"
+  MILLIS+=("$millis")
+  RSS+=("$rss")
+done
+
+echo "$MODE, median of $RUNS runs: first request after $(printf '%s\n' "${MILLIS[@]}" | median) ms," \
+  "RSS $(printf '%s\n' "${RSS[@]}" | median) MB"
@@ -0,0 +1,79 @@
+package com.patient.app.patient.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.patient.app.patient.model.Patient;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic patient data shared by the benchmarks.
+ */
+final class BenchmarkPatients {
+
+    private static final String[] FIRST_NAMES = {"Ann", "Bob", "Cid", "Dana", "Eli", "Fay", "Gus", "Hana"};
+    private static final String[] LAST_NAMES = {"Lee", "Perera", "Smith", "Silva", "Nguyen", "Garcia", "Khan", "Brown"};
+    private static final String[] CITIES = {"Springfield", "Colombo", "Austin", "Denver", "Portland", "Madison"};
+    private static final String[] STATES = {"IL", "WP", "TX", "CO", "OR", "WI"};
+
+    private BenchmarkPatients() {
+    }
+
+    /**
+     * Build a valid, persisted-looking patient whose fields vary with the index.
+     * @param index seed of the patient, also used as id
+     * @return patient with every field populated
+     */
+    static Patient patient(int index) {
+        return Patient.builder()
+                .id(index)
+                .firstName(FIRST_NAMES[index % FIRST_NAMES.length])
+                .lastName(LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length])
+                .address(index + " Main Street")
+                .city(CITIES[index % CITIES.length])
+                .state(STATES[index % STATES.length])
+                .zipCode(String.format("%05d", index % 100000))
+                .phoneNumber(String.format("555-%03d-%04d", (index / 10000) % 1000, index % 10000))
+                .email("patient" + index + "@example.com")
+                .version(0L)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 8, 0))
+                .updatedAt(LocalDateTime.of(2024, 6, 1, 8, 0))
+                .build();
+    }
+
+    /**
+     * Build a new, not yet persisted patient.
+     * @param index seed of the patient, must be unique per run to keep emails unique
+     * @param prefix email prefix distinguishing callers
+     * @return patient without id or timestamps
+     */
+    static Patient newPatient(int index, String prefix) {
+        Patient patient = patient(index);
+        patient.setId(null);
+        patient.setVersion(null);
+        patient.setCreatedAt(null);
+        patient.setUpdatedAt(null);
+        patient.setEmail(prefix + index + "@example.com");
+        return patient;
+    }
+
+    static List<Patient> patients(int count) {
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            patients.add(patient(i));
+        }
+        return patients;
+    }
+
+    /**
+     * Object mapper configured like the one Spring Boot builds for the application.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.patient.app.patient.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.patient.app.patient.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization and deserialization of single patients and patient lists,
+ * as done for every patient API request and response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientJsonBenchmark {
+
+    @Param({"10", "1000"})
+    public int listSize;
+
+    private ObjectWriter patientWriter;
+    private ObjectReader patientReader;
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+
+    private Patient patient;
+    private byte[] patientJson;
+    private List<Patient> patients;
+    private byte[] patientsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkPatients.objectMapper();
+        TypeReference<List<Patient>> listType = new TypeReference<>() {
+        };
+        patientWriter = objectMapper.writerFor(Patient.class);
+        patientReader = objectMapper.readerFor(Patient.class);
+        listWriter = objectMapper.writerFor(listType);
+        listReader = objectMapper.readerFor(listType);
+
+        patient = BenchmarkPatients.patient(42);
+        patientJson = patientWriter.writeValueAsBytes(patient);
+        patients = BenchmarkPatients.patients(listSize);
+        patientsJson = listWriter.writeValueAsBytes(patients);
+    }
+
+    @Benchmark
+    public byte[] serializePatient() throws IOException {
+        return patientWriter.writeValueAsBytes(patient);
+    }
+
+    @Benchmark
+    public Patient deserializePatient() throws IOException {
+        return patientReader.readValue(patientJson);
+    }
+
+    @Benchmark
+    public byte[] serializePatientList() throws IOException {
+        return listWriter.writeValueAsBytes(patients);
+    }
+
+    @Benchmark
+    public List<Patient> deserializePatientList() throws IOException {
+        return listReader.readValue(patientsJson);
+    }
+}
@@ -0,0 +1,108 @@
+package com.patient.app.patient.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.patient.app.patient.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of the request-path log statements, before and after the logging overhaul: the old
+ * concatenated messages (built, including Patient.toString(), even when the level is off) against parameterized
+ * ones, written through a synchronous appender or the asynchronous one of the perf-logging profile.
+ * Output is discarded, so the numbers are formatting and hand-off cost; a real console or file adds I/O to the
+ * synchronous appender only. The asynchronous appender never blocks and drops INFO events when its queue is full,
+ * as in perf-logging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientLoggingBenchmark {
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    private LoggerContext context;
+    private Logger log;
+    private Patient patient;
+    private int id;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] [%X{requestId:-}] %-40.40logger{39} : %m%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(context);
+        output.setEncoder(encoder);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        output.start();
+
+        Appender<ILoggingEvent> root = output;
+        if (appender.equals("async")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(output);
+            async.start();
+            root = async;
+        }
+        log = context.getLogger("com.patient.app.patient.service.PatientServiceImpl");
+        log.setLevel(Level.INFO);
+        log.setAdditive(false);
+        log.addAppender(root);
+        patient = BenchmarkPatients.patient(42);
+        id = patient.getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    /** Before: createPatient's INFO line with the whole patient concatenated. */
+    @Benchmark
+    public void concatenatedPatientInfo() {
+        log.info("Request received for patient: {}" + patient);
+    }
+
+    /** After: the same line at DEBUG with the email only, with DEBUG off. */
+    @Benchmark
+    public void parameterizedPatientDebugOff() {
+        log.debug("Request received for patient with email: {}", patient.getEmail());
+    }
+
+    /** Before: getPatientById's INFO line with the id concatenated. */
+    @Benchmark
+    public void concatenatedIdInfo() {
+        log.info("Request received for id: {}" + id);
+    }
+
+    /** After: parameterized, still at INFO. */
+    @Benchmark
+    public void parameterizedIdInfo() {
+        log.info("Request received for id: {}", id);
+    }
+
+    /** After: parameterized at DEBUG with DEBUG off, as in the service now. */
+    @Benchmark
+    public void parameterizedIdDebugOff() {
+        log.debug("Request received for id: {}", id);
+    }
+}
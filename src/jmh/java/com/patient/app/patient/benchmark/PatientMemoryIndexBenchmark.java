@@ -0,0 +1,123 @@
+package com.patient.app.patient.benchmark;
+
+import com.patient.app.patient.index.PatientStore;
+import com.patient.app.patient.model.Patient;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap footprint and lookup latency of the in-memory patient index ({@link PatientStore}) against
+ * holding the same rows as Patient entities in id and email hash maps.
+ * Footprint is printed during setup twice: measured with JOL on a sample of rows, and as the heap
+ * growth after loading all rows. The 10M rows entity layout needs a large heap, hence -Xmx16g.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class PatientMemoryIndexBenchmark {
+
+    private static final int LOOKUPS = 1 << 16;
+    private static final int JOL_SAMPLE = 100_000;
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    @Param({"entity", "store"})
+    private String layout;
+
+    private Map<Integer, Patient> entitiesById;
+    private Map<String, Patient> entitiesByEmail;
+    private PatientStore store;
+    private int[] ids;
+    private String[] emails;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long sampleBytes = GraphLayout.parseInstance(load(Math.min(rows, JOL_SAMPLE))).totalSize();
+        System.out.printf("%n%s: %d bytes/patient (JOL, %d rows)%n", layout, sampleBytes / Math.min(rows, JOL_SAMPLE),
+                Math.min(rows, JOL_SAMPLE));
+
+        long before = usedHeap();
+        Object loaded = load(rows);
+        long after = usedHeap();
+        System.out.printf("%s: %d bytes/patient, %d MiB for %d rows (heap growth)%n", layout, (after - before) / rows,
+                (after - before) >> 20, rows);
+        if (loaded instanceof PatientStore patientStore) {
+            store = patientStore;
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new int[LOOKUPS];
+        emails = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = random.nextInt(1, rows + 1);
+            emails[i] = "patient" + ids[i] + "@example.com";
+        }
+    }
+
+    private Object load(int count) {
+        if ("store".equals(layout)) {
+            PatientStore patientStore = new PatientStore(1024);
+            for (int i = 1; i <= count; i++) {
+                patientStore.put(BenchmarkPatients.patient(i));
+            }
+            return patientStore;
+        }
+        entitiesById = new HashMap<>();
+        entitiesByEmail = new HashMap<>();
+        for (int i = 1; i <= count; i++) {
+            Patient patient = detached(BenchmarkPatients.patient(i));
+            entitiesById.put(patient.getId(), patient);
+            entitiesByEmail.put(patient.getEmail(), patient);
+        }
+        return new Object[]{entitiesById, entitiesByEmail};
+    }
+
+    /**
+     * Copy every String, as rows read through JDBC do not share instances with each other.
+     */
+    private static Patient detached(Patient patient) {
+        return Patient.builder()
+                .id(patient.getId())
+                .firstName(new String(patient.getFirstName()))
+                .lastName(new String(patient.getLastName()))
+                .address(new String(patient.getAddress()))
+                .city(new String(patient.getCity()))
+                .state(new String(patient.getState()))
+                .zipCode(new String(patient.getZipCode()))
+                .phoneNumber(new String(patient.getPhoneNumber()))
+                .email(new String(patient.getEmail()))
+                .createdAt(patient.getCreatedAt())
+                .updatedAt(patient.getUpdatedAt())
+                .build();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public Patient getById() {
+        int id = ids[next++ & (LOOKUPS - 1)];
+        return store != null ? store.get(id) : entitiesById.get(id);
+    }
+
+    @Benchmark
+    public int findIdByEmail() {
+        String email = emails[next++ & (LOOKUPS - 1)];
+        return store != null ? store.findIdByEmail(email) : entitiesByEmail.get(email).getId();
+    }
+}
@@ -0,0 +1,75 @@
+package com.patient.app.patient.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.patient.app.patient.config.PatientJsonCacheProperties;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.json.PatientJsonCache;
+import com.patient.app.patient.json.PatientJsonModule;
+import com.patient.app.patient.model.Patient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization paths for a single patient and a page of patients:
+ * the JPA entity, the response record, the record with Blackbird, and the record copied from pre-encoded
+ * JSON (cache warm, as for patients read repeatedly). The record paths include mapping the entities to records,
+ * as the controller does for every response. Run with {@code -prof gc} to compare allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientResponseJsonBenchmark {
+
+    @Param({"entity", "record", "blackbird", "pre-encoded"})
+    public String path;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private Patient patient;
+    private CursorPage<Patient> page;
+    private boolean records;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Patient> patients = BenchmarkPatients.patients(pageSize);
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (path) {
+            case "entity", "record" -> {
+            }
+            case "blackbird" -> builder.modulesToInstall(new BlackbirdModule());
+            case "pre-encoded" -> builder.modulesToInstall(new BlackbirdModule(),
+                    new PatientJsonModule(new PatientJsonCache(new PatientJsonCacheProperties(true, 10_000))));
+            default -> throw new IllegalArgumentException(path);
+        }
+        ObjectMapper objectMapper = builder.build();
+        writer = objectMapper.writer();
+
+        records = !path.equals("entity");
+        patient = patients.getFirst();
+        page = new CursorPage<>(patients, pageSize);
+        // Fill the JSON cache; a no-op for the other paths
+        serializePage();
+    }
+
+    @Benchmark
+    public byte[] serializePatient() throws IOException {
+        return writer.writeValueAsBytes(records ? PatientResponse.of(patient) : patient);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return writer.writeValueAsBytes(records ? page.map(PatientResponse::of) : page);
+    }
+}
@@ -0,0 +1,100 @@
+package com.patient.app.patient.benchmark;
+
+import com.patient.app.AppApplication;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientBatchWriter;
+import com.patient.app.patient.service.PatientService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PatientServiceImpl create/get/update/list through the full Spring, Hibernate and Hikari stack,
+ * against the embedded H2 database of the test profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PatientServiceBenchmark {
+
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private PatientService patientService;
+    private int[] ids;
+    private String[] emails;
+    private final AtomicInteger createSequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AppApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN",
+                        "patient.cache.enabled=" + cacheEnabled)
+                .run();
+        patientService = context.getBean(PatientService.class);
+        seed(context.getBean(PatientBatchWriter.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void seed(PatientBatchWriter batchWriter) {
+        ids = new int[rows];
+        emails = new String[rows];
+        for (int start = 0; start < rows; start += SEED_BATCH) {
+            List<Patient> batch = new ArrayList<>(SEED_BATCH);
+            for (int i = start; i < Math.min(rows, start + SEED_BATCH); i++) {
+                batch.add(BenchmarkPatients.newPatient(i, "seed"));
+            }
+            List<PatientBatchWriter.WriteResult> results = batchWriter.writeAll(batch);
+            for (int i = 0; i < results.size(); i++) {
+                ids[start + i] = results.get(i).id();
+                emails[start + i] = batch.get(i).getEmail();
+            }
+        }
+    }
+
+    @Benchmark
+    public Patient getPatientById() {
+        return patientService.getPatientById(ids[ThreadLocalRandom.current().nextInt(rows)]);
+    }
+
+    @Benchmark
+    public CursorPage<Patient> getPatientListPage() {
+        return patientService.getPatientList(ids[ThreadLocalRandom.current().nextInt(rows)], 50);
+    }
+
+    @Benchmark
+    public Patient createPatient() {
+        return patientService.createPatient(BenchmarkPatients.newPatient(createSequence.incrementAndGet(), "bench"));
+    }
+
+    @Benchmark
+    public Patient updatePatient() {
+        int index = ThreadLocalRandom.current().nextInt(rows);
+        Patient details = BenchmarkPatients.newPatient(index + ThreadLocalRandom.current().nextInt(1000), "seed");
+        details.setEmail(emails[index]);
+        return patientService.updatePatient(ids[index], details, null);
+    }
+}
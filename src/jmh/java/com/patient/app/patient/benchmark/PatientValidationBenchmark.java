@@ -0,0 +1,70 @@
+package com.patient.app.patient.benchmark;
+
+import com.patient.app.patient.model.Patient;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation cost of the Patient constraints, in particular the @Pattern (ZIP code, phone number)
+ * and @Email checks run for every create and update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Patient validPatient;
+    private Patient invalidPatient;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validPatient = BenchmarkPatients.newPatient(42, "valid");
+        invalidPatient = BenchmarkPatients.newPatient(43, "invalid");
+        invalidPatient.setZipCode("1234");
+        invalidPatient.setPhoneNumber("12-34");
+        invalidPatient.setEmail("not-an-email");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> validateValidPatient() {
+        return validator.validate(validPatient);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> validateInvalidPatient() {
+        return validator.validate(invalidPatient);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> validateZipCodePattern() {
+        return validator.validateProperty(validPatient, "zipCode");
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> validatePhoneNumberPattern() {
+        return validator.validateProperty(validPatient, "phoneNumber");
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> validateEmail() {
+        return validator.validateProperty(validPatient, "email");
+    }
+}
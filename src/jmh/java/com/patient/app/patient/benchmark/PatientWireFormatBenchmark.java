@@ -0,0 +1,110 @@
+package com.patient.app.patient.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode and decode cost of a page of patients in each wire format: JSON, JSON gzipped as the server compresses it,
+ * Smile, and the length-prefixed Smile stream of the bulk endpoint. The payload size of each format is printed
+ * during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientWireFormatBenchmark {
+
+    private static final TypeReference<CursorPage<PatientResponse>> PAGE = new TypeReference<>() {
+    };
+
+    @Param({"json", "json-gzip", "smile", "smile-stream"})
+    public String format;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private CursorPage<PatientResponse> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper json = BenchmarkPatients.objectMapper();
+        ObjectMapper mapper = format.startsWith("smile") ? json.copyWith(new SmileFactory()) : json;
+        boolean stream = format.equals("smile-stream");
+        writer = stream ? mapper.writerFor(PatientResponse.class) : mapper.writerFor(PAGE);
+        reader = stream ? mapper.readerFor(PatientResponse.class) : mapper.readerFor(PAGE);
+        page = new CursorPage<>(BenchmarkPatients.patients(pageSize), pageSize).map(PatientResponse::of);
+
+        encoded = encode();
+        System.out.printf("%n%s: %d bytes for %d patients%n", format, encoded.length, pageSize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        switch (format) {
+            case "json", "smile" -> writer.writeValue(out, page);
+            case "json-gzip" -> {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    writer.writeValue(gzip, page);
+                }
+            }
+            case "smile-stream" -> {
+                DataOutputStream frames = new DataOutputStream(out);
+                ByteArrayOutputStream frame = new ByteArrayOutputStream(512);
+                for (PatientResponse patient : page.items()) {
+                    writer.writeValue(frame, patient);
+                    frames.writeInt(frame.size());
+                    frame.writeTo(frames);
+                    frame.reset();
+                }
+            }
+            default -> throw new IllegalArgumentException(format);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return switch (format) {
+            case "json", "smile" -> reader.readValue(encoded);
+            case "json-gzip" -> {
+                try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+                    yield reader.readValue(gzip);
+                }
+            }
+            case "smile-stream" -> {
+                DataInputStream frames = new DataInputStream(new ByteArrayInputStream(encoded));
+                List<PatientResponse> patients = new ArrayList<>(pageSize);
+                while (frames.available() > 0) {
+                    byte[] frame = new byte[frames.readInt()];
+                    frames.readFully(frame);
+                    patients.add(reader.readValue(frame));
+                }
+                yield patients;
+            }
+            default -> throw new IllegalArgumentException(format);
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.patient.app.patient.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.patient.app.AppApplication;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.json.PatientMediaTypes;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientBatchWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Requests per second a service-to-service client gets over HTTP from the running application, with gzipped JSON
+ * against Smile: a page of patients, and the bulk stream of every patient (NDJSON, which the server does not
+ * compress, against length-prefixed Smile). The times include the client decoding the responses, against the
+ * embedded H2 database of the test profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+@Fork(1)
+public class PatientWireThroughputBenchmark {
+
+    private static final TypeReference<CursorPage<PatientResponse>> PAGE = new TypeReference<>() {
+    };
+
+    @Param({"json-gzip", "smile"})
+    public String format;
+
+    @Param({"2000"})
+    public int rows;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private int[] ids;
+    private ObjectReader pageReader;
+    private ObjectReader patientReader;
+    private boolean smile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AppApplication.class)
+                .profiles("test")
+                .properties("logging.level.root=WARN", "server.port=0")
+                .run();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                + context.getEnvironment().getProperty("server.servlet.context-path", "") + "/api/v1/patients";
+        seed(context.getBean(PatientBatchWriter.class));
+
+        smile = format.equals("smile");
+        ObjectMapper json = BenchmarkPatients.objectMapper();
+        ObjectMapper mapper = smile ? json.copyWith(new SmileFactory()) : json;
+        pageReader = mapper.readerFor(PAGE);
+        patientReader = mapper.readerFor(PatientResponse.class);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void seed(PatientBatchWriter batchWriter) {
+        List<Patient> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(BenchmarkPatients.newPatient(i, "wire"));
+        }
+        ids = batchWriter.writeAll(batch).stream().mapToInt(PatientBatchWriter.WriteResult::id).toArray();
+    }
+
+    @Benchmark
+    public CursorPage<PatientResponse> getPatientListPage() throws IOException, InterruptedException {
+        int after = ids[ThreadLocalRandom.current().nextInt(rows - pageSize)] - 1;
+        try (InputStream body = get("?limit=" + pageSize + "&after=" + after,
+                smile ? PatientMediaTypes.SMILE_VALUE : "application/json")) {
+            return pageReader.readValue(body);
+        }
+    }
+
+    @Benchmark
+    public int streamAllPatients() throws IOException, InterruptedException {
+        int count = 0;
+        if (smile) {
+            try (DataInputStream frames = new DataInputStream(get("", PatientMediaTypes.SMILE_STREAM_VALUE))) {
+                byte[] frame = new byte[1024];
+                int length;
+                while ((length = readLength(frames)) >= 0) {
+                    if (length > frame.length) {
+                        frame = new byte[length];
+                    }
+                    frames.readFully(frame, 0, length);
+                    patientReader.readValue(frame, 0, length);
+                    count++;
+                }
+            }
+        } else {
+            try (var patients = patientReader.readValues(get("", "application/x-ndjson"))) {
+                while (patients.hasNext()) {
+                    patients.next();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private InputStream get(String query, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + query))
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip")
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + query + " answered " + response.statusCode());
+        }
+        boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static int readLength(DataInputStream frames) throws IOException {
+        int first = frames.read();
+        if (first < 0) {
+            return -1;
+        }
+        return (first << 24) | (frames.readUnsignedByte() << 16) | (frames.readUnsignedByte() << 8) | frames.readUnsignedByte();
+    }
+}
@@ -0,0 +1,35 @@
+package com.patient.app.patient.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs every {@link com.patient.app.patient.service.PatientService} call through the admission limiter.
+ * Ordered first so a shed call never opens a transaction or touches the connection pool.
+ * */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class PatientAdmissionAspect {
+
+    private final PatientAdmissionLimiter limiter;
+
+    @Around("execution(* com.patient.app.patient.service.PatientService.*(..)) && !execution(* getCacheStats(..))")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!limiter.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        limiter.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            limiter.release();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.patient.app.patient.admission;
+
+import com.patient.app.patient.config.PatientAdmissionProperties;
+import com.patient.app.patient.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of patient service calls doing database work at once to the size of the connection pool.
+ * Callers that cannot get a permit within the configured wait are rejected with
+ * {@link ServiceOverloadedException} instead of queueing on the pool for the full connection timeout.
+ * */
+@Component
+@Slf4j
+public class PatientAdmissionLimiter {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final boolean enabled;
+    private final int permits;
+    private final long maxWaitNanos;
+    private final Duration retryAfter;
+    private final Semaphore semaphore;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public PatientAdmissionLimiter(PatientAdmissionProperties properties, Environment environment, MeterRegistry registry) {
+        this.enabled = properties.enabled();
+        this.permits = properties.maxConcurrent() > 0 ? properties.maxConcurrent()
+                : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, DEFAULT_POOL_SIZE);
+        this.maxWaitNanos = properties.maxWait().toNanos();
+        this.retryAfter = properties.retryAfter();
+        this.semaphore = new Semaphore(permits);
+        this.admitted = Counter.builder("patient.admission.calls").tag("result", "admitted")
+                .description("Patient service calls admitted or shed by admission control").register(registry);
+        this.rejected = Counter.builder("patient.admission.calls").tag("result", "rejected")
+                .description("Patient service calls admitted or shed by admission control").register(registry);
+        Gauge.builder("patient.admission.in.flight", () -> permits - semaphore.availablePermits())
+                .description("Patient service calls currently holding a permit").register(registry);
+        log.info("Patient admission control {} with {} permits", enabled ? "enabled" : "disabled", permits);
+    }
+
+    /**
+     * Whether calls should be routed through {@link #acquire()} at all.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wait up to the configured time for a permit.
+     * @throws ServiceOverloadedException if no permit became available in time
+     */
+    public void acquire() {
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Patient service is at capacity, retry later", retryAfter);
+        }
+        admitted.increment();
+    }
+
+    /**
+     * Return a permit obtained with {@link #acquire()}.
+     */
+    public void release() {
+        semaphore.release();
+    }
+}
@@ -0,0 +1,21 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for admission control in front of the patient service.
+ * @param enabled whether service calls are admitted through the limiter at all
+ * @param maxConcurrent service calls allowed to run at once; 0 means the Hikari maximum pool size
+ * @param maxWait how long a call may wait for a permit before it is shed
+ * @param retryAfter value of the Retry-After header sent with 503 responses
+ */
+@ConfigurationProperties(prefix = "patient.admission")
+public record PatientAdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0") int maxConcurrent,
+        @DefaultValue("50ms") Duration maxWait,
+        @DefaultValue("1s") Duration retryAfter) {
+}
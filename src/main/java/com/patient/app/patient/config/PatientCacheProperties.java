@@ -0,0 +1,19 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process patient cache used by getPatientById.
+ * @param enabled whether reads go through the cache at all
+ * @param maxSize maximum number of cached patients before size-based eviction
+ * @param ttl time after a write at which an entry expires
+ */
+@ConfigurationProperties(prefix = "patient.cache")
+public record PatientCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maxSize,
+        @DefaultValue("10m") Duration ttl) {
+}
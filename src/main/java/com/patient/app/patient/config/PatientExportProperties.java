@@ -0,0 +1,19 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for patient exports.
+ * @param directory where export jobs write their files and progress manifests; the temp directory when not set
+ * @param concurrency number of export jobs running at the same time; each holds one database connection
+ * @param checkpointRows rows written between checkpoints; a resumed job continues from the last checkpoint
+ */
+@ConfigurationProperties(prefix = "patient.export")
+public record PatientExportProperties(
+        Path directory,
+        @DefaultValue("2") int concurrency,
+        @DefaultValue("10000") int checkpointRows) {
+}
@@ -0,0 +1,12 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for bulk patient imports.
+ * @param chunkSize number of rows validated, checked for duplicates and inserted per transaction
+ */
+@ConfigurationProperties(prefix = "patient.bulk-import")
+public record PatientImportProperties(@DefaultValue("1000") int chunkSize) {
+}
@@ -0,0 +1,34 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for asynchronous patient ingestion.
+ * @param enabled whether creates can be queued for asynchronous ingestion at all
+ * @param queueCapacity creates held in memory waiting for the writer; further creates are shed with 503
+ * @param batchSize most creates inserted together in one transaction
+ * @param maxWait how long the writer waits for a batch to fill up once it holds at least one create
+ * @param retryAfter value of the Retry-After header sent when the queue is full
+ * @param statusRetention how long the outcome of a create can be polled after it was written
+ * @param statusMaxSize most outcomes kept for polling; should be well above the queue capacity
+ * @param callbackOrigins origins (scheme://host[:port]) outcomes may be posted to; callbacks are refused when empty
+ * @param callbackTimeout connect and read timeout of a callback
+ * @param shutdownTimeout how long shutdown waits for queued creates to be written
+ */
+@ConfigurationProperties(prefix = "patient.ingest")
+public record PatientIngestProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("10ms") Duration maxWait,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue("15m") Duration statusRetention,
+        @DefaultValue("100000") int statusMaxSize,
+        @DefaultValue List<String> callbackOrigins,
+        @DefaultValue("5s") Duration callbackTimeout,
+        @DefaultValue("30s") Duration shutdownTimeout) {
+}
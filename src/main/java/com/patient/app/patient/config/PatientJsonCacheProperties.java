@@ -0,0 +1,15 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the cache of pre-encoded patient JSON.
+ * @param enabled whether patient responses are assembled from cached JSON bytes
+ * @param maxSize maximum number of patients whose JSON is cached
+ */
+@ConfigurationProperties(prefix = "patient.json-cache")
+public record PatientJsonCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") long maxSize) {
+}
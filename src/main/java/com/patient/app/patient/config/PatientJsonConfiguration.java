@@ -0,0 +1,40 @@
+package com.patient.app.patient.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.patient.app.patient.json.PatientJsonCache;
+import com.patient.app.patient.json.PatientJsonModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Jackson tuning of the patient API; Spring Boot registers these modules with its ObjectMapper.
+ * Smile responses share the mapper's configuration.
+ * */
+@Configuration(proxyBeanMethods = false)
+public class PatientJsonConfiguration {
+
+    /**
+     * Replaces reflective getter and constructor calls with generated lambdas.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public Module patientJsonModule(PatientJsonCache cache) {
+        return new PatientJsonModule(cache);
+    }
+
+    /**
+     * Serves and accepts Smile with the same modules and settings as JSON; Spring Boot adds it to the message converters.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the patient listing endpoints.
+ * @param defaultLimit page size used when the client does not send one
+ * @param maxLimit largest page size a client may request
+ * @param fetchSize JDBC fetch size used by the streaming cursor
+ */
+@ConfigurationProperties(prefix = "patient.list")
+public record PatientListProperties(
+        @DefaultValue("50") int defaultLimit,
+        @DefaultValue("500") int maxLimit,
+        @DefaultValue("500") int fetchSize) {
+}
@@ -0,0 +1,21 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for reading patients by id: the batch endpoint and the coalescing of concurrent single-patient lookups.
+ * @param maxIds ids one batch request may ask for at most
+ * @param coalesce whether concurrent lookups that miss the patient cache are read together
+ * @param window time the first lookup of a batch waits for others to join
+ * @param maxBatchSize ids read per coalesced query at most; a full batch is read without waiting out the window
+ */
+@ConfigurationProperties(prefix = "patient.lookup")
+public record PatientLookupProperties(
+        @DefaultValue("100") int maxIds,
+        @DefaultValue("true") boolean coalesce,
+        @DefaultValue("2ms") Duration window,
+        @DefaultValue("100") int maxBatchSize) {
+}
@@ -0,0 +1,32 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for duplicate patient detection.
+ * @param onCreate what creating a patient with probable duplicates does
+ * @param threshold score from which two patients are probably the same person
+ * @param maxCandidates existing patients read and scored per pre-check at most
+ * @param maxMatches probable matches returned per pre-check at most
+ * @param maxBlockSize blocks with more patients are skipped by the duplicate report, e.g. a shared clinic phone number
+ * @param reportParallelism threads comparing blocks for the duplicate report; 0 = number of processors
+ */
+@ConfigurationProperties(prefix = "patient.matching")
+public record PatientMatchingProperties(
+        @DefaultValue("WARN") OnCreate onCreate,
+        @DefaultValue("0.9") double threshold,
+        @DefaultValue("500") int maxCandidates,
+        @DefaultValue("10") int maxMatches,
+        @DefaultValue("1000") int maxBlockSize,
+        @DefaultValue("0") int reportParallelism) {
+
+    public enum OnCreate {
+        /** Create without checking */
+        OFF,
+        /** Create, and list the probable duplicates in the Probable-Duplicates response header */
+        WARN,
+        /** Refuse with 409 and the probable duplicates unless the client confirms with ?confirmed=true */
+        REJECT
+    }
+}
@@ -0,0 +1,15 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the optional in-memory patient index.
+ * @param enabled whether all patients are loaded into memory at startup and reads by id and email are served from it
+ * @param loadBatchSize number of rows applied to the index per lock acquisition while loading
+ */
+@ConfigurationProperties(prefix = "patient.memory-index")
+public record PatientMemoryIndexProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1000") int loadBatchSize) {
+}
@@ -0,0 +1,54 @@
+package com.patient.app.patient.config;
+
+import com.patient.app.patient.metrics.RequestLogFilter;
+import com.patient.app.patient.metrics.RequestSqlMetricsFilter;
+import com.patient.app.patient.metrics.SqlStatementCounter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Wiring of the patient API instrumentation: method timers, SQL statement counting and sampled logs per request.
+ * */
+@Configuration(proxyBeanMethods = false)
+public class PatientMetricsConfiguration {
+
+    /**
+     * Enables {@link io.micrometer.core.annotation.Timed} on Spring beans such as the patient service.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestSqlMetricsFilter> requestSqlMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<RequestSqlMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestSqlMetricsFilter(registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    /**
+     * Runs first, so the correlation id is in the MDC for everything else the request logs.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestLogFilter> requestLogFilter(PatientRequestLogProperties properties) {
+        FilterRegistrationBean<RequestLogFilter> registration =
+                new FilterRegistrationBean<>(new RequestLogFilter(properties.sampleRate(), properties.header()));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setEnabled(properties.enabled());
+        return registration;
+    }
+}
@@ -0,0 +1,27 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the patient change outbox and the change feed served from it.
+ * @param relayInterval pause between relay runs that publish new outbox rows
+ * @param relayBatchSize maximum number of outbox rows published per relay transaction
+ * @param retention age after which a change superseded by a later change of the same patient is compacted away
+ * @param tombstoneRetention age after which the delete event of a patient is removed as well
+ * @param compactionInterval pause between compaction runs
+ * @param streamTimeout lifetime of one Server-Sent Events connection before the client has to reconnect
+ * @param heartbeat interval of keep-alive comments on idle Server-Sent Events connections
+ */
+@ConfigurationProperties(prefix = "patient.outbox")
+public record PatientOutboxProperties(
+        @DefaultValue("200ms") Duration relayInterval,
+        @DefaultValue("500") int relayBatchSize,
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("30d") Duration tombstoneRetention,
+        @DefaultValue("1h") Duration compactionInterval,
+        @DefaultValue("30m") Duration streamTimeout,
+        @DefaultValue("15s") Duration heartbeat) {
+}
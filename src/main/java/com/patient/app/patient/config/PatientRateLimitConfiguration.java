@@ -0,0 +1,41 @@
+package com.patient.app.patient.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patient.app.patient.ratelimit.PatientRateLimitFilter;
+import com.patient.app.patient.ratelimit.PatientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Set;
+
+/**
+ * Wiring of per-client rate limits on the patient API. Only active with patient.rate-limit.enabled.
+ * */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "patient.rate-limit", name = "enabled", havingValue = "true")
+public class PatientRateLimitConfiguration {
+
+    @Bean
+    public PatientRateLimiter patientRateLimiter(PatientRateLimitProperties properties) {
+        return new PatientRateLimiter(properties);
+    }
+
+    /**
+     * Runs right after the request log, so refused requests are still logged with their correlation id,
+     * and before anything that reads the body or touches the database.
+     */
+    @Bean
+    public FilterRegistrationBean<PatientRateLimitFilter> patientRateLimitFilter(PatientRateLimiter limiter,
+                                                                                 PatientRateLimitProperties properties,
+                                                                                 ObjectMapper objectMapper, MeterRegistry registry) {
+        FilterRegistrationBean<PatientRateLimitFilter> registration = new FilterRegistrationBean<>(new PatientRateLimitFilter(
+                limiter, properties.apiKeyHeader(), Set.copyOf(properties.apiKeys()), objectMapper, registry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
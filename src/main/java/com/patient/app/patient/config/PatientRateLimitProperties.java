@@ -0,0 +1,42 @@
+package com.patient.app.patient.config;
+
+import com.patient.app.patient.ratelimit.PatientOperation;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings for per-client rate limits and concurrency quotas on the patient API.
+ * Clients are told apart by API key when they send a listed one, and by source address otherwise
+ * (behind a proxy, set server.forward-headers-strategy so it is the client's address).
+ * @param enabled whether requests to /api/* are limited
+ * @param apiKeyHeader request header carrying the client's API key
+ * @param apiKeys API keys that get a budget of their own; unlisted keys are limited by source address
+ * @param budgets budget of each operation; operations without one are not limited
+ * @param idleTimeout a client's limiter state is dropped after this long without requests
+ * @param maxClients clients whose limiter state is kept at most
+ */
+@ConfigurationProperties(prefix = "patient.rate-limit")
+public record PatientRateLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("X-Api-Key") String apiKeyHeader,
+        @DefaultValue List<String> apiKeys,
+        @DefaultValue Map<PatientOperation, Budget> budgets,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("100000") long maxClients) {
+
+    /**
+     * What one client may spend on one operation.
+     * @param requests requests per period, which may also be spent at once as a burst
+     * @param period time in which the full number of requests becomes available again
+     * @param concurrent requests in progress at the same time at most; 0 = unlimited
+     */
+    public record Budget(
+            @DefaultValue("100") int requests,
+            @DefaultValue("1s") Duration period,
+            @DefaultValue("0") int concurrent) {
+    }
+}
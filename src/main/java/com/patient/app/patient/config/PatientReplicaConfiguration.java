@@ -0,0 +1,92 @@
+package com.patient.app.patient.config;
+
+import com.patient.app.patient.config.PatientReplicaProperties.Replica;
+import com.patient.app.patient.replica.PatientReplicaRouter;
+import com.patient.app.patient.replica.PatientReplicaStickinessFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+
+/**
+ * Wiring of read replicas: spring.datasource stays the primary, and a lazy proxy in front of it takes the
+ * connection of a read-only transaction from the replica router instead. The connection is only fetched when the
+ * transaction first touches the database, after Spring has marked it read-only. Only active with
+ * patient.replicas.enabled; cannot be combined with sharding, which defines its own data source.
+ * */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "patient.replicas", name = "enabled", havingValue = "true")
+public class PatientReplicaConfiguration {
+
+    /**
+     * The primary pool, configured like Spring Boot's own from spring.datasource.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource patientPrimaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public PatientReplicaRouter patientReplicaRouter(PatientReplicaProperties properties, HikariDataSource patientPrimaryDataSource,
+                                                     MeterRegistry registry) {
+        if (properties.replicas().isEmpty()) {
+            throw new IllegalStateException("patient.replicas.replicas must list at least one replica");
+        }
+        LinkedHashMap<String, DataSource> replicas = new LinkedHashMap<>();
+        for (Replica replica : properties.replicas()) {
+            HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(replica.url()).username(replica.username()).password(replica.password())
+                    .build();
+            pool.setPoolName("patient-replica-" + replica.name());
+            pool.setMaximumPoolSize(replica.maximumPoolSize());
+            pool.setReadOnly(true);
+            pool.setMetricRegistry(registry);
+            if (replicas.put(replica.name(), pool) != null) {
+                throw new IllegalStateException("Patient replica " + replica.name() + " is configured twice");
+            }
+        }
+        return new PatientReplicaRouter(patientPrimaryDataSource, replicas, properties.maxLag(), properties.lagQuery(), registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource patientPrimaryDataSource, PatientReplicaRouter router) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(patientPrimaryDataSource);
+        dataSource.setReadOnlyDataSource(router.readDataSource());
+        return dataSource;
+    }
+
+    /**
+     * The second-level and query caches are filled by whichever connection loads, and updates evict the whole patient
+     * region: a replica's load right after an update would cache the patient as it was until the next write. Both
+     * caches are off; the patient cache keeps its write-through entries.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<PatientReplicaStickinessFilter> patientReplicaStickinessFilter(PatientReplicaProperties properties) {
+        FilterRegistrationBean<PatientReplicaStickinessFilter> registration =
+                new FilterRegistrationBean<>(new PatientReplicaStickinessFilter(properties.stickiness()));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,39 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for serving read-only transactions from read replicas of spring.datasource.
+ * @param enabled whether read-only transactions may use the replicas
+ * @param replicas read replicas, used in turn
+ * @param stickiness how long a client's reads stay on the primary after it wrote, so it reads its own writes
+ * @param maxLag replicas lagging further behind the primary are skipped until they catch up
+ * @param lagCheckInterval how often the lag of every replica is measured
+ * @param lagQuery query run on a replica returning its lag in seconds; the default suits PostgreSQL streaming replicas
+ */
+@ConfigurationProperties(prefix = "patient.replicas")
+public record PatientReplicaProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<Replica> replicas,
+        @DefaultValue("5s") Duration stickiness,
+        @DefaultValue("1s") Duration maxLag,
+        @DefaultValue("1s") Duration lagCheckInterval,
+        @DefaultValue("select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+                + " else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end") String lagQuery) {
+
+    /**
+     * One read replica, with its own connection pool.
+     * @param name stable name of the replica, used in metrics
+     * @param url JDBC URL
+     * @param username database user
+     * @param password database password
+     * @param maximumPoolSize connections in the replica's pool
+     */
+    public record Replica(String name, String url, String username, String password,
+                          @DefaultValue("10") int maximumPoolSize) {
+    }
+}
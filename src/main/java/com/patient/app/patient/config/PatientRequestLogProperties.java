@@ -0,0 +1,17 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the per-request log of the patient API.
+ * @param enabled whether requests get a correlation id and a sampled request log line
+ * @param sampleRate share of requests logged, from 0 to 1; server errors are always logged
+ * @param header request and response header carrying the correlation id
+ */
+@ConfigurationProperties(prefix = "patient.request-log")
+public record PatientRequestLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.01") double sampleRate,
+        @DefaultValue("X-Request-Id") String header) {
+}
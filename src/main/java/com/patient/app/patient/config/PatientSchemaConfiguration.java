@@ -0,0 +1,36 @@
+package com.patient.app.patient.config;
+
+import org.flywaydb.core.api.Location;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Flyway setup of the patient schema beyond spring.flyway: the optional partitioning migration.
+ * */
+@Configuration(proxyBeanMethods = false)
+public class PatientSchemaConfiguration {
+
+    static final String PARTITIONING_LOCATION = "classpath:db/partitioning";
+
+    /**
+     * Adds the hash partitioning migration when partitions are configured.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer patientPartitioningCustomizer(PatientSchemaProperties properties) {
+        return configuration -> {
+            Map<String, String> placeholders = new HashMap<>(configuration.getPlaceholders());
+            placeholders.put("patientPartitions", Integer.toString(properties.partitions()));
+            configuration.placeholders(placeholders);
+            if (properties.partitions() > 0) {
+                configuration.locations(Stream.concat(Arrays.stream(configuration.getLocations()),
+                        Stream.of(new Location(PARTITIONING_LOCATION))).toArray(Location[]::new));
+            }
+        };
+    }
+}
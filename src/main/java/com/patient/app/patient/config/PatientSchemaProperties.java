@@ -0,0 +1,13 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the schema migrations.
+ * @param partitions number of hash partitions of the patients table by id; 0 keeps it a plain table.
+ *                   PostgreSQL only, and only takes effect when the partitioning migration has not run yet
+ */
+@ConfigurationProperties(prefix = "patient.schema")
+public record PatientSchemaProperties(@DefaultValue("0") int partitions) {
+}
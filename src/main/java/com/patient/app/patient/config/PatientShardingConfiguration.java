@@ -0,0 +1,107 @@
+package com.patient.app.patient.config;
+
+import com.patient.app.patient.config.PatientShardingProperties.Shard;
+import com.patient.app.patient.shard.PatientShardAspect;
+import com.patient.app.patient.shard.PatientShardDirectory;
+import com.patient.app.patient.shard.PatientShardRebalancer;
+import com.patient.app.patient.shard.PatientShardRoutingDataSource;
+import com.patient.app.patient.shard.PatientShardTenantResolver;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+
+/**
+ * Wiring of patient sharding: one pool per shard behind a routing data source, migrations on every shard
+ * and the aspect routing service calls. Only active with patient.sharding.enabled.
+ * */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "patient.sharding", name = "enabled", havingValue = "true")
+public class PatientShardingConfiguration {
+
+    @Bean
+    public PatientShardDirectory patientShardDirectory(PatientShardingProperties properties,
+                                                       PatientMemoryIndexProperties memoryIndexProperties,
+                                                       MeterRegistry registry) {
+        if (properties.shards().isEmpty()) {
+            throw new IllegalStateException("patient.sharding.shards must list at least one shard");
+        }
+        if (memoryIndexProperties.enabled()) {
+            throw new IllegalStateException("The patient memory index loads from a single database and cannot be used with sharding");
+        }
+        LinkedHashMap<String, DataSource> shards = new LinkedHashMap<>();
+        for (Shard shard : properties.shards()) {
+            HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(shard.url()).username(shard.username()).password(shard.password())
+                    .build();
+            pool.setPoolName("patient-shard-" + shard.name());
+            pool.setMaximumPoolSize(shard.maximumPoolSize());
+            pool.setMetricRegistry(registry);
+            if (shards.put(shard.name(), pool) != null) {
+                throw new IllegalStateException("Patient shard " + shard.name() + " is configured twice");
+            }
+        }
+        return new PatientShardDirectory(shards, properties.rangeSize());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(PatientShardDirectory directory) {
+        return new PatientShardRoutingDataSource(new LinkedHashMap<>(directory.dataSources()));
+    }
+
+    /**
+     * Runs the configured migrations on every shard rather than on the routing data source.
+     */
+    @Bean
+    public FlywayMigrationStrategy patientShardMigrationStrategy(PatientShardDirectory directory) {
+        return flyway -> {
+            for (DataSource shard : directory.dataSources().values()) {
+                Flyway.configure().configuration(flyway.getConfiguration()).dataSource(shard).load().migrate();
+            }
+        };
+    }
+
+    /**
+     * Sets up the directory once all singletons exist, so after the migrations when Flyway runs, and before the web
+     * server takes requests. Does not depend on Flyway, which instances started with the fast-start profile leave out.
+     */
+    @Bean
+    public SmartInitializingSingleton patientShardDirectoryInitializer(PatientShardDirectory directory) {
+        return directory::initialize;
+    }
+
+    /**
+     * Sessions are opened under the shard name so id allocation stays per shard. Cached query results are
+     * keyed without the shard, so one shard's answer would be served for another's: the query cache is off.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardHibernateCustomizer(PatientShardDirectory directory) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER,
+                    new PatientShardTenantResolver(directory.shards().get(0)));
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+        };
+    }
+
+    @Bean
+    public PatientShardAspect patientShardAspect(PatientShardDirectory directory, PatientShardRebalancer rebalancer) {
+        return new PatientShardAspect(directory, rebalancer);
+    }
+
+    @Bean
+    public PatientShardRebalancer patientShardRebalancer(PatientShardDirectory directory, PatientShardingProperties properties) {
+        return new PatientShardRebalancer(directory, properties.directoryRefresh());
+    }
+}
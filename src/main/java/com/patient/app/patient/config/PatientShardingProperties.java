@@ -0,0 +1,34 @@
+package com.patient.app.patient.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for spreading patients over several databases.
+ * @param enabled whether patients are sharded; spring.datasource is not used then
+ * @param shards databases holding patients; the first also holds the shard directory
+ * @param rangeSize ids a shard allocates new patients from before it would run into the next shard's range
+ * @param directoryRefresh how often the shard directory is re-read, to pick up moves made by other instances
+ */
+@ConfigurationProperties(prefix = "patient.sharding")
+public record PatientShardingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<Shard> shards,
+        @DefaultValue("100000000") int rangeSize,
+        @DefaultValue("10s") Duration directoryRefresh) {
+
+    /**
+     * One database holding patients, with its own connection pool.
+     * @param name stable name of the shard, stored in the shard directory
+     * @param url JDBC URL
+     * @param username database user
+     * @param password database password
+     * @param maximumPoolSize connections in the shard's pool
+     */
+    public record Shard(String name, String url, String username, String password,
+                        @DefaultValue("10") int maximumPoolSize) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.config.PatientLookupProperties;
+import com.patient.app.patient.dto.PatientBatch;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/patients")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientBatchController {
+
+    private final PatientService patientService;
+    private final PatientLookupProperties lookupProperties;
+
+    /**
+     * Get several patients by Id with one request
+     * @param ids patient Ids, comma separated or repeated
+     * @return the patients found in the order of their Ids and the Ids without a patient, with 200 OK
+     */
+    @Operation(summary = "Get patients by Ids", description = "Retrieve up to patient.lookup.max-ids patients at once; "
+            + "patients not served from a cache are read with one query")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patients retrieved; unknown Ids are listed as missing"),
+            @ApiResponse(responseCode = "400", description = "No Ids or too many Ids", content = @Content)
+    })
+    @GetMapping("/batch")
+    public ResponseEntity<PatientBatch> getPatientsByIds(
+            @Parameter(description = "Ids of the patients to be retrieved", example = "1,2,3") @RequestParam List<Integer> ids) {
+        Set<Integer> distinct = new LinkedHashSet<>(ids);
+        if (distinct.isEmpty() || distinct.size() > lookupProperties.maxIds()) {
+            throw new InvalidPatientRequestException("Between 1 and " + lookupProperties.maxIds() + " ids can be read at once");
+        }
+        log.info("Get {} patients by id", distinct.size());
+
+        List<Patient> patients = patientService.getPatientsByIds(distinct);
+        patients.forEach(patient -> distinct.remove(patient.getId()));
+        PatientBatch batch = new PatientBatch(patients.stream().map(PatientResponse::of).toList(), List.copyOf(distinct));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(batch);
+    }
+}
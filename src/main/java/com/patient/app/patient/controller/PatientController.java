@@ -1,6 +1,25 @@
 package com.patient.app.patient.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.patient.app.patient.config.PatientListProperties;
+import com.patient.app.patient.config.PatientMatchingProperties;
+import com.patient.app.patient.config.PatientMatchingProperties.OnCreate;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientCacheStats;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.exception.ProbableDuplicatePatientException;
+import com.patient.app.patient.json.PatientJsonCache;
+import com.patient.app.patient.json.PatientMediaTypes;
 import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientMatchingService;
 import com.patient.app.patient.service.PatientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,11 +31,24 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/patients")
@@ -25,101 +57,333 @@ import java.util.List;
 @Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
 public class PatientController {
 
+    // Patient data may be stored by the client but must be revalidated before each use
+    // Readable responses come as JSON or Smile, so they vary by Accept besides being revalidated
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    static final String PROBABLE_DUPLICATES = "Probable-Duplicates";
+
     private final PatientService patientService;
+    private final PatientListProperties listProperties;
+    private final PatientMatchingService patientMatchingService;
+    private final PatientMatchingProperties matchingProperties;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    /**
+     * Get one page of patients using keyset pagination on id
+     * @param limit maximum number of patients to return, clamped to the configured range
+     * @param after cursor returned as nextCursor by the previous page
+     * @return page of patients with the next cursor with 200 OK, or 304 if no patient changed since the If-None-Match ETag
+     * */
+    @Operation(summary = "Get all patients", description = "Retrieve patients page by page, ordered by id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved patients", content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE),
+                    @Content(mediaType = PatientMediaTypes.SMILE_VALUE)}),
+            @ApiResponse(responseCode = "304", description = "No patient changed since the If-None-Match ETag", content = @Content)
+    })
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, PatientMediaTypes.SMILE_VALUE})
+    public ResponseEntity<CursorPage<PatientResponse>> getAllPatients(
+            @Parameter(description = "Maximum number of patients to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Return patients after this id (nextCursor of the previous page)") @RequestParam(required = false) Integer after,
+            WebRequest request) {
+        log.info("Get patients after {} limit {}", after, limit);
+
+        return collection(request, () -> patientService.getPatientList(after, pageSize(limit)).map(PatientResponse::of),
+                patient -> patient.id() + "-" + patient.version());
+    }
+
+    /**
+     * Search patients by combinable filters using keyset pagination on id
+     * @return page of matching patient summaries with the next cursor with 200 OK, or 304 if no patient changed
+     * since the If-None-Match ETag
+     * */
+    @Operation(summary = "Search patients", description = "Find patients by last name, name prefix, city/state, ZIP code and phone. "
+            + "Filters are combined with AND; results are ordered by id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully searched patients", content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE),
+                    @Content(mediaType = PatientMediaTypes.SMILE_VALUE)}),
+            @ApiResponse(responseCode = "304", description = "No patient changed since the If-None-Match ETag", content = @Content)
+    })
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, PatientMediaTypes.SMILE_VALUE})
+    public ResponseEntity<CursorPage<PatientSummary>> searchPatients(
+            @Parameter(description = "Last name, case-insensitive") @RequestParam(required = false) String lastName,
+            @Parameter(description = "Last name prefix, or 'Last, First' prefix", example = "Smi") @RequestParam(required = false) String namePrefix,
+            @Parameter(description = "City") @RequestParam(required = false) String city,
+            @Parameter(description = "State code") @RequestParam(required = false) String state,
+            @Parameter(description = "ZIP code") @RequestParam(required = false) String zipCode,
+            @Parameter(description = "Phone number in any format") @RequestParam(required = false) String phone,
+            @Parameter(description = "Maximum number of patients to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Return patients after this id (nextCursor of the previous page)") @RequestParam(required = false) Integer after,
+            WebRequest request) {
+        log.info("Search patients after {} limit {}", after, limit);
+
+        PatientSearchCriteria criteria = new PatientSearchCriteria(lastName, namePrefix, city, state, zipCode, phone);
+        return collection(request, () -> patientService.searchPatients(criteria, after, pageSize(limit)), PatientSummary::toString);
+    }
+
+    private int pageSize(Integer limit) {
+        return limit == null ? listProperties.defaultLimit() : Math.max(1, Math.min(limit, listProperties.maxLimit()));
+    }
+
+    /**
+     * Answer a list or search request. Only conditional requests pay for the table watermark: it is checked first and
+     * its ETag is sent back, so the next revalidation of the client is answered without reading the page. Plain requests
+     * get an ETag derived from the page itself, which a later conditional request still matches while the page is unchanged.
+     * No Last-Modified is sent: deletes do not advance the latest update time, only the ETags see them.
+     */
+    private <T> ResponseEntity<CursorPage<T>> collection(WebRequest request, Supplier<CursorPage<T>> loader,
+                                                         Function<T, String> itemKey) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        // Sets the watermark ETag on the response whether or not the patients changed
+        if (ifNoneMatch != null && request.checkNotModified(eTag(request, PatientETags.of(patientService.getWatermark())))) {
+            return notModified();
+        }
+        CursorPage<T> page = loader.get();
+        String pageTag = eTag(request, PatientETags.of(page, itemKey));
+        if (ifNoneMatch == null) {
+            return ResponseEntity.ok().eTag(pageTag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(page);
+        }
+        if (PatientETags.matches(ifNoneMatch, pageTag)) {
+            return notModified();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(page);
+    }
+
+    private static String eTag(WebRequest request, String etag) {
+        return PatientETags.inFormat(etag, request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    /**
+     * Stream all patients as newline-delimited JSON
+     * @return every patient, one JSON document per line, with 200 OK
+     * */
+    @Operation(summary = "Stream all patients", description = "Stream every patient as NDJSON, read through a database cursor")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed patients",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = PatientResponse.class)))
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPatients() {
+        log.info("Stream all patients");
+
+        // Every patient is written once, caching its JSON would only evict the patients that are read repeatedly
+        ObjectWriter writer = objectMapper.writerFor(PatientResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withAttribute(PatientJsonCache.BYPASS, Boolean.TRUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                patientService.streamPatients(patient -> {
+                    try {
+                        writer.writeValue(generator, PatientResponse.of(patient));
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 
     /**
-     * Get all patient as a list
-     * @return list of all patient with 200 OK
+     * Stream all patients as length-prefixed Smile documents
+     * @return every patient, one Smile document per frame, with 200 OK
      * */
-    @Operation(summary = "Get all patients", description = "Retrieve list of all patients")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved patients")
-    @GetMapping
-    public ResponseEntity<List<Patient>> getAllPatients() {
-        log.info("Get all patients");
-
-        List<Patient> patients = patientService.getPatientList();
-        return ResponseEntity.ok(patients);
+    @Operation(summary = "Stream all patients as Smile", description = "Stream every patient as Smile documents, each preceded "
+            + "by its length as a 4-byte big-endian integer, read through a database cursor")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed patients",
+            content = @Content(mediaType = PatientMediaTypes.SMILE_STREAM_VALUE, schema = @Schema(implementation = PatientResponse.class)))
+    @GetMapping(produces = PatientMediaTypes.SMILE_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPatientsAsSmile() {
+        log.info("Stream all patients as Smile");
+
+        ObjectWriter writer = smileConverter.getObjectMapper().writerFor(PatientResponse.class);
+        StreamingResponseBody body = outputStream -> {
+            DataOutputStream frames = new DataOutputStream(outputStream);
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(512);
+            patientService.streamPatients(patient -> {
+                try {
+                    writer.writeValue(frame, PatientResponse.of(patient));
+                    frames.writeInt(frame.size());
+                    frame.writeTo(frames);
+                    frame.reset();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            frames.flush();
+        };
+        return ResponseEntity.ok().contentType(PatientMediaTypes.SMILE_STREAM).body(body);
+    }
+
+    /**
+     * Get the patient cache counters.
+     * @return hit, miss and eviction counters with 200 OK
+     */
+    @Operation(summary = "Get patient cache statistics", description = "Hit, miss and eviction counters of the patient cache")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved cache statistics")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<PatientCacheStats> getCacheStats() {
+        return ResponseEntity.ok(patientService.getCacheStats());
     }
 
     /**
      * Get patient by Id.
+     * Conditional requests are answered from the patient's version alone, so a 304 never loads the patient; a 200 is
+     * tagged with the version of the patient it returns.
      * @param id patient Id
-     * @return patient entity data with 200 OK, or 404 if not found
+     * @return patient entity data with 200 OK, 304 if unchanged since If-None-Match / If-Modified-Since, or 404 if not found
      */
     @Operation(summary = "Get patient by Id", description = "Retrieve a specific patient by their Id")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Patient found",
-                    content = @Content(schema = @Schema(implementation = Patient.class))),
+            @ApiResponse(responseCode = "200", description = "Patient found", content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = PatientResponse.class)),
+                    @Content(mediaType = PatientMediaTypes.SMILE_VALUE, schema = @Schema(implementation = PatientResponse.class))}),
+            @ApiResponse(responseCode = "304", description = "Patient unchanged since the If-None-Match ETag or If-Modified-Since", content = @Content),
             @ApiResponse(responseCode = "404", description = "Patient not found", content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getPatientById(
-            @Parameter(description = "Id of the patient to be retrieved") @PathVariable int id) {
-        log.info("Get a patient by Id", id);
+    public ResponseEntity<PatientResponse> getPatientById(
+            @Parameter(description = "Id of the patient to be retrieved") @PathVariable int id, WebRequest request) {
+        log.info("Get a patient by id {}", id);
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifNoneMatch != null || ifModifiedSince != null) {
+            PatientVersion version = patientService.getPatientVersion(id);
+            String etag = eTag(request, PatientETags.of(version));
+            long lastModified = PatientETags.lastModified(version.updatedAt());
+            if (PatientETags.notModified(ifNoneMatch, ifModifiedSince, etag, lastModified)) {
+                ResponseEntity.HeadersBuilder<?> response = ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                        .cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT);
+                if (lastModified >= 0) {
+                    response.lastModified(lastModified);
+                }
+                return response.build();
+            }
+        }
 
+        // The validators describe the body sent, which may come from a source older than the version compared above
         Patient patient = patientService.getPatientById(id);
-        return ResponseEntity.ok(patient);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag(request, PatientETags.of(patient))).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT);
+        long lastModified = PatientETags.lastModified(patient.getUpdatedAt());
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(PatientResponse.of(patient));
     }
 
     /**
-     * Create a new patient.
+     * Create a new patient, checking first for existing patients that are probably the same person.
      * @param patient patient data to create
-     * @return created patient entity with 201 CREATED
+     * @param confirmed create even if probable duplicates exist, when patient.matching.on-create is REJECT
+     * @return created patient entity with 201 CREATED, with the ids of probable duplicates in Probable-Duplicates
      */
     @Operation(summary = "Create a new patient", description = "Create a new patient record")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Patient created successfully", content = @Content(schema = @Schema(implementation = Patient.class))),
+            @ApiResponse(responseCode = "201", description = "Patient created successfully", content = @Content(schema = @Schema(implementation = PatientResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
-            @ApiResponse(responseCode = "409", description = "Patient with email already exists", content = @Content)
+            @ApiResponse(responseCode = "409", description = "Patient with email already exists, or probably exists under another email", content = @Content)
     })
     @PostMapping
-    public ResponseEntity<Patient> createPatient( @Parameter(description = "Patient object to be created")
-                                                    @Valid @RequestBody Patient patient) {
+    public ResponseEntity<PatientResponse> createPatient( @Parameter(description = "Patient object to be created")
+                                                    @Valid @RequestBody Patient patient,
+                                                    @Parameter(description = "Create even if the patient probably exists already")
+                                                    @RequestParam(defaultValue = "false") boolean confirmed) {
         log.info("Creating new patient with email: {}", patient.getEmail());
 
+        List<PatientMatch> matches = matchingProperties.onCreate() == OnCreate.OFF ? List.of() : patientMatchingService.findMatches(patient);
+        if (!matches.isEmpty() && matchingProperties.onCreate() == OnCreate.REJECT && !confirmed) {
+            throw new ProbableDuplicatePatientException(matches);
+        }
         Patient createdPatient = patientService.createPatient(patient);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdPatient);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (!matches.isEmpty()) {
+            response.header(PROBABLE_DUPLICATES, matches.stream()
+                    .map(match -> Integer.toString(match.patientId()))
+                    .collect(Collectors.joining(",")));
+        }
+        return response.body(PatientResponse.of(createdPatient));
     }
 
     /**
-     * Update an existing patient.
+     * Update an existing patient, conditionally when If-Match carries the ETag of the version read.
      * @param id patient ID
      * @param patientDetails updated patient data
-     * @return updated patient with 200 OK
+     * @param ifMatch ETag the patient must still have, optional
+     * @return updated patient and its new ETag with 200 OK
      */
     @Operation(summary = "Update an existing patient", description = "Update a patient by Id")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Patient updated successfully", content = @Content(schema = @Schema(implementation = Patient.class))),
+            @ApiResponse(responseCode = "200", description = "Patient updated successfully", content = @Content(schema = @Schema(implementation = PatientResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
             @ApiResponse(responseCode = "404", description = "Patient not found", content = @Content),
-            @ApiResponse(responseCode = "409", description = "Email conflict", content = @Content)
+            @ApiResponse(responseCode = "409", description = "Email conflict", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Patient was modified since the If-Match ETag was read", content = @Content)
     })
     @PutMapping("/{id}")
-    public ResponseEntity<Patient> updatePatient(
+    public ResponseEntity<PatientResponse> updatePatient(
             @Parameter(description = "Id of the patient to be updated") @PathVariable int id, @Parameter(description = "Updated patient object")
-            @Valid @RequestBody Patient patientDetails) {
+            @Valid @RequestBody Patient patientDetails,
+            @Parameter(description = "ETag of the patient as last read") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            WebRequest request) {
 
         log.info("Updating patient - {}", id);
-        Patient updatedPatient = patientService.updatePatient(id, patientDetails);
-        return ResponseEntity.ok(updatedPatient);
+        Patient updatedPatient = patientService.updatePatient(id, patientDetails, PatientETags.expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(eTag(request, PatientETags.of(updatedPatient))).body(PatientResponse.of(updatedPatient));
     }
 
     /**
-     * Delete a patient.
+     * Change some fields of a patient, writing only those columns.
      * @param id patient ID
+     * @param patch fields to change; absent or null fields are left as they are
+     * @param ifMatch ETag the patient must still have, optional
+     * @return updated patient and its new ETag with 200 OK
+     */
+    @Operation(summary = "Partially update a patient", description = "Change only the given fields of a patient")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patient updated successfully", content = @Content(schema = @Schema(implementation = PatientResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Patient not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Email conflict", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Patient was modified since the If-Match ETag was read", content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<PatientResponse> patchPatient(
+            @Parameter(description = "Id of the patient to be updated") @PathVariable int id,
+            @Parameter(description = "Fields to change") @RequestBody PatientPatch patch,
+            @Parameter(description = "ETag of the patient as last read") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            WebRequest request) {
+
+        log.info("Patching patient - {}", id);
+        Patient updatedPatient = patientService.patchPatient(id, patch, PatientETags.expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(eTag(request, PatientETags.of(updatedPatient))).body(PatientResponse.of(updatedPatient));
+    }
+
+    /**
+     * Delete a patient, conditionally when If-Match carries the ETag of the version read.
+     * @param id patient ID
+     * @param ifMatch ETag the patient must still have, optional
      * @return 204 NO CONTENT on success
      */
     @Operation(summary = "Delete a patient", description = "Delete a patient record by Id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Patient deleted successfully"),
-            @ApiResponse(responseCode = "404", description = "Patient not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Patient not found", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Patient was modified since the If-Match ETag was read", content = @Content)
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePatient(
             @Parameter(description = "Id of the patient to be deleted", example = "1")
-            @PathVariable int id) {
+            @PathVariable int id,
+            @Parameter(description = "ETag of the patient as last read") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Deleting patient - {}", id);
-        patientService.deletePatient(id);
+        patientService.deletePatient(id, PatientETags.expectedVersion(ifMatch, id));
         return ResponseEntity.noContent().build();
     }
 }
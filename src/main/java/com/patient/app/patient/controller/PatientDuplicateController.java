@@ -0,0 +1,69 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.config.PatientMatchingProperties;
+import com.patient.app.patient.dto.PatientDuplicateReport;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientMatchingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/patients")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientDuplicateController {
+
+    private final PatientMatchingService patientMatchingService;
+    private final PatientMatchingProperties matchingProperties;
+
+    /**
+     * Find existing patients that are probably the same person, without creating anything
+     * @param patient patient data as it would be created
+     * @return probable matches, best first, with 200 OK
+     */
+    @Operation(summary = "Find probable duplicates of a patient", description = "Score existing patients sharing a "
+            + "blocking key (phonetic last name and ZIP code, phone number, name prefixes) with the patient")
+    @PostMapping("/matches")
+    public ResponseEntity<List<PatientMatch>> findMatches(@Parameter(description = "Patient to compare") @RequestBody Patient patient) {
+        log.info("Find probable duplicates of patient with email: {}", patient.getEmail());
+        return ResponseEntity.ok(patientMatchingService.findMatches(patient));
+    }
+
+    /**
+     * Compare all patients for duplicates
+     * @param minScore score from which a pair is reported, patient.matching.threshold when omitted
+     * @param limit maximum number of pairs listed
+     * @return counts and the best pairs with 200 OK
+     */
+    @Operation(summary = "Report duplicate patients", description = "Compare all patients block by block in parallel "
+            + "and list the most similar pairs")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Report computed"),
+            @ApiResponse(responseCode = "400", description = "Score outside 0 to 1", content = @Content),
+            @ApiResponse(responseCode = "409", description = "A report is already running", content = @Content)
+    })
+    @GetMapping("/duplicates")
+    public ResponseEntity<PatientDuplicateReport> duplicateReport(
+            @Parameter(description = "Score from 0 to 1 from which a pair is reported") @RequestParam(required = false) Double minScore,
+            @Parameter(description = "Maximum number of pairs listed") @RequestParam(defaultValue = "100") int limit) {
+        double score = minScore == null ? matchingProperties.threshold() : minScore;
+        if (score < 0 || score > 1 || limit < 0) {
+            throw new InvalidPatientRequestException("minScore must lie between 0 and 1 and limit must not be negative");
+        }
+        log.info("Duplicate report from score {}", score);
+        return ResponseEntity.ok(patientMatchingService.duplicateReport(score, limit));
+    }
+}
@@ -0,0 +1,195 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.dto.PatientWatermark;
+import com.patient.app.patient.exception.PatientVersionConflictException;
+import com.patient.app.patient.json.PatientMediaTypes;
+import com.patient.app.patient.model.Patient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Validators of patient resources for conditional requests.
+ * A patient's strong ETag is derived from id and version, {@code "<id>-<version>"}. List and search responses are
+ * validated by the table watermark, {@code "n<count>-<latest update nanos>"}, or by a digest of the page they returned,
+ * {@code "p<hex>"}. Strong ETags promise identical bytes, so tags of Smile representations end in {@code -s}, e.g.
+ * {@code "7-2-s"}.
+ * */
+final class PatientETags {
+
+    private static final String SMILE_SUFFIX = "-s";
+
+    private PatientETags() {
+    }
+
+    /**
+     * @param patient patient with id and version
+     * @return quoted strong ETag of the patient
+     */
+    static String of(Patient patient) {
+        return of(patient.getId(), patient.getVersion());
+    }
+
+    static String of(int id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    static String of(PatientVersion version) {
+        return of(version.id(), version.version());
+    }
+
+    static String of(PatientWatermark watermark) {
+        LocalDateTime last = watermark.lastUpdatedAt();
+        long nanos = last == null ? 0 : last.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() * 1_000_000
+                + last.getNano() % 1_000_000;
+        return "\"n" + watermark.count() + "-" + nanos + "\"";
+    }
+
+    /**
+     * @param page page of a list or search response
+     * @param itemKey text that changes whenever the item would be written differently
+     * @return quoted strong ETag of the page
+     */
+    static <T> String of(CursorPage<T> page, Function<T, String> itemKey) {
+        MessageDigest digest = sha256();
+        for (T item : page.items()) {
+            digest.update(itemKey.apply(item).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        digest.update(String.valueOf(page.nextCursor()).getBytes(StandardCharsets.UTF_8));
+        return "\"p" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * @param etag quoted ETag of the JSON representation
+     * @param accept Accept header of the request, may be null
+     * @return the ETag of the representation the request negotiates
+     */
+    static String inFormat(String etag, String accept) {
+        return smile(accept) ? etag.substring(0, etag.length() - 1) + SMILE_SUFFIX + "\"" : etag;
+    }
+
+    /**
+     * Negotiate as Spring MVC does for the handlers, which produce JSON and then Smile: the most specific accepted type
+     * with the highest quality decides, and wildcards select JSON.
+     * @param accept Accept header of the request, may be null
+     * @return true if the response is written as Smile
+     */
+    static boolean smile(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        for (MediaType type : accepted) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (type.isCompatibleWith(PatientMediaTypes.SMILE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weak comparison of an If-None-Match header with an ETag, as for GET.
+     * @param ifNoneMatch header value, a list of ETags or "*"
+     * @param etag quoted ETag of the current representation
+     * @return true if the header names the ETag
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluate If-None-Match, or without it If-Modified-Since, as for GET. Unlike WebRequest.checkNotModified this
+     * sets no validators on the response, so a 200 can carry those of the body it actually sends.
+     * @param ifNoneMatch If-None-Match header, may be null
+     * @param ifModifiedSince If-Modified-Since header, may be null
+     * @param etag quoted ETag of the current representation
+     * @param lastModified epoch millis of the last change, or -1 if unknown
+     * @return true if the client's copy is current and 304 can be answered
+     */
+    static boolean notModified(String ifNoneMatch, String ifModifiedSince, String etag, long lastModified) {
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        if (ifModifiedSince == null || lastModified < 0) {
+            return false;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        long since = headers.getIfModifiedSince();
+        // HTTP dates have whole seconds
+        return since >= 0 && lastModified / 1000 * 1000 <= since;
+    }
+
+    /**
+     * @param time update time as stored, in the JVM time zone Hibernate writes with
+     * @return epoch millis for Last-Modified, or -1 if unknown
+     */
+    static long lastModified(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Turn an If-Match header into the version a conditional write must match.
+     * @param ifMatch header value, may be null; the ETag of either the JSON or the Smile representation
+     * @param id id of the addressed patient
+     * @return expected version, or null when the header is absent or "*"
+     * @throws PatientVersionConflictException if the header cannot match the patient, e.g. a weak or foreign tag
+     */
+    static Long expectedVersion(String ifMatch, int id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new PatientVersionConflictException(id);
+        }
+        String version = tag.substring(prefix.length(), tag.length() - 1);
+        if (version.endsWith(SMILE_SUFFIX)) {
+            version = version.substring(0, version.length() - SMILE_SUFFIX.length());
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            throw new PatientVersionConflictException(id);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.exception.PatientRequestConflictException;
+import com.patient.app.patient.exception.PatientVersionConflictException;
+import com.patient.app.patient.exception.ProbableDuplicatePatientException;
+import com.patient.app.patient.exception.ServiceOverloadedException;
+import com.patient.app.patient.exception.ShardingUnsupportedException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Maps patient service exceptions to HTTP responses.
+ * */
+@RestControllerAdvice
+@Slf4j
+public class PatientExceptionHandler {
+
+    /**
+     * Shed load: 503 with Retry-After so clients back off instead of piling up.
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ProblemDetail> handleOverloaded(ServiceOverloadedException e) {
+        log.debug("Request shed: {}", e.getMessage());
+        long retryAfterSeconds = Math.max(1, e.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<ProblemDetail> handleNotFound(NoSuchElementException e) {
+        return problem(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    /**
+     * Another patient already holds the email.
+     */
+    @ExceptionHandler(PatientEmailTakenException.class)
+    public ResponseEntity<ProblemDetail> handleEmailTaken(PatientEmailTakenException e) {
+        return problem(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    /**
+     * Invalid request or patient data, e.g. an unknown export field or a rejected callback URL. Other
+     * IllegalArgumentExceptions are bugs and stay 500.
+     */
+    @ExceptionHandler(InvalidPatientRequestException.class)
+    public ResponseEntity<ProblemDetail> handleBadRequest(InvalidPatientRequestException e) {
+        return problem(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    /**
+     * Request does not fit the current state, e.g. resuming a finished export or a second duplicate report.
+     */
+    @ExceptionHandler(PatientRequestConflictException.class)
+    public ResponseEntity<ProblemDetail> handleConflict(PatientRequestConflictException e) {
+        return problem(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    /**
+     * The patient probably exists under another email: the matches let the client pick it or confirm the create.
+     */
+    @ExceptionHandler(ProbableDuplicatePatientException.class)
+    public ResponseEntity<ProblemDetail> handleProbableDuplicate(ProbableDuplicatePatientException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+        problem.setProperty("matches", e.getMatches());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(problem);
+    }
+
+    /**
+     * If-Match named a version that is no longer current: the client must re-read before writing.
+     */
+    @ExceptionHandler(PatientVersionConflictException.class)
+    public ResponseEntity<ProblemDetail> handleVersionConflict(PatientVersionConflictException e) {
+        return problem(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+    }
+
+    /**
+     * Feature not available while patients are sharded.
+     */
+    @ExceptionHandler(ShardingUnsupportedException.class)
+    public ResponseEntity<ProblemDetail> handleShardingUnsupported(ShardingUnsupportedException e) {
+        return problem(HttpStatus.NOT_IMPLEMENTED, e.getMessage());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ProblemDetail> handleInvalid(ConstraintViolationException e) {
+        String detail = e.getConstraintViolations().stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((a, b) -> a + " " + b)
+                .orElse(e.getMessage());
+        return problem(HttpStatus.BAD_REQUEST, detail);
+    }
+
+    private static ResponseEntity<ProblemDetail> problem(HttpStatus status, String detail) {
+        return ResponseEntity.status(status).body(ProblemDetail.forStatusAndDetail(status, detail));
+    }
+}
@@ -0,0 +1,158 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.dto.PatientExportJob;
+import com.patient.app.patient.dto.PatientExportRequest;
+import com.patient.app.patient.export.PatientExportColumn;
+import com.patient.app.patient.export.PatientExportCompression;
+import com.patient.app.patient.export.PatientExportFormat;
+import com.patient.app.patient.service.PatientExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/patients/exports")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientExportController {
+
+    private final PatientExportService patientExportService;
+
+    /**
+     * Stream an export directly in the response
+     * @return export file contents with 200 OK, written while rows are read from the database
+     */
+    @Operation(summary = "Download a patient export", description = "Stream patients as CSV or NDJSON, optionally gzip-compressed, "
+            + "restricted to some fields and to patients changed since a time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed"),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
+    })
+    @GetMapping("/download")
+    public ResponseEntity<StreamingResponseBody> download(
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") PatientExportFormat format,
+            @Parameter(description = "NONE or GZIP") @RequestParam(defaultValue = "NONE") PatientExportCompression compression,
+            @Parameter(description = "Fields to export, e.g. id,lastName,email; all when omitted") @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Only patients updated at or after this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime changedSince) {
+        log.info("Download patient export as {} changed since {}", format, changedSince);
+
+        PatientExportRequest request = new PatientExportRequest(format, compression, fields, changedSince);
+        // Reject unknown fields before the response is committed
+        PatientExportColumn.project(request.fields());
+        StreamingResponseBody body = outputStream -> patientExportService.exportTo(request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType(request)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment("patients", request))
+                .body(body);
+    }
+
+    /**
+     * Start an export job writing to a file on the server
+     * @param request format, compression, projection and filter
+     * @return the queued job with 202 Accepted and its location
+     */
+    @Operation(summary = "Start a patient export job", description = "Export patients to a file in the background; "
+            + "poll the job for progress and download the file once it completed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job queued"),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
+    })
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PatientExportJob> startExport(@RequestBody PatientExportRequest request) {
+        log.info("Start patient export job as {}", request.format());
+
+        PatientExportJob job = patientExportService.startExport(request);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+
+    @Operation(summary = "List patient export jobs", description = "All known export jobs, newest first")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved export jobs")
+    @GetMapping
+    public ResponseEntity<List<PatientExportJob>> getExports() {
+        return ResponseEntity.ok(patientExportService.getExports());
+    }
+
+    @Operation(summary = "Get a patient export job", description = "Status and progress of an export job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export job found"),
+            @ApiResponse(responseCode = "404", description = "Export job not found", content = @Content)
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<PatientExportJob> getExport(@PathVariable String id) {
+        return ResponseEntity.ok(patientExportService.getExport(id));
+    }
+
+    /**
+     * Download the file of a completed export job
+     * @param id job id
+     * @return export file with 200 OK, 404 if the job is unknown or 409 if it has not completed
+     */
+    @Operation(summary = "Download a patient export file", description = "File written by a completed export job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export file"),
+            @ApiResponse(responseCode = "404", description = "Export job not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Export job has not completed", content = @Content)
+    })
+    @GetMapping("/{id}/file")
+    public ResponseEntity<FileSystemResource> getExportFile(@PathVariable String id) {
+        PatientExportJob job = patientExportService.getExport(id);
+        Path file = patientExportService.getExportFile(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType(job.request())))
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment("patients-" + id, job.request()))
+                .body(new FileSystemResource(file));
+    }
+
+    @Operation(summary = "Resume a patient export job", description = "Continue a failed, cancelled or interrupted export from its last checkpoint")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job queued"),
+            @ApiResponse(responseCode = "404", description = "Export job not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Export job cannot be resumed", content = @Content)
+    })
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<PatientExportJob> resumeExport(@PathVariable String id) {
+        return ResponseEntity.accepted().body(patientExportService.resumeExport(id));
+    }
+
+    @Operation(summary = "Cancel a patient export job", description = "Stop a queued or running export; it can be resumed later")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export job cancelled or stopping"),
+            @ApiResponse(responseCode = "404", description = "Export job not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Export job already finished", content = @Content)
+    })
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<PatientExportJob> cancelExport(@PathVariable String id) {
+        return ResponseEntity.ok(patientExportService.cancelExport(id));
+    }
+
+    private static String contentType(PatientExportRequest request) {
+        return request.compression() == PatientExportCompression.GZIP ? "application/gzip" : request.format().contentType();
+    }
+
+    private static String attachment(String name, PatientExportRequest request) {
+        String filename = name + "." + request.format().extension() + request.compression().suffix();
+        return ContentDisposition.attachment().filename(filename).build().toString();
+    }
+}
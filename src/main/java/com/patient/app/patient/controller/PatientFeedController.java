@@ -0,0 +1,67 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.config.PatientListProperties;
+import com.patient.app.patient.dto.PatientFeedEvent;
+import com.patient.app.patient.dto.PatientFeedPage;
+import com.patient.app.patient.service.PatientFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/patients/changes")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientFeedController {
+
+    private final PatientFeedService patientFeedService;
+    private final PatientListProperties listProperties;
+
+    /**
+     * Get one page of patient changes in commit order
+     * @param after sequence of the last change already seen (nextCursor of the previous page)
+     * @param limit maximum number of changes to return, clamped to the configured range
+     * @return page of changes with the next cursor with 200 OK
+     * */
+    @Operation(summary = "Get patient changes", description = "Read created, updated and deleted patients after a feed position. "
+            + "Old changes superseded by a later change of the same patient are compacted away")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved changes")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PatientFeedPage> getChanges(
+            @Parameter(description = "Return changes after this sequence (nextCursor of the previous page)") @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of changes to return") @RequestParam(required = false) Integer limit) {
+        log.info("Get patient changes after {} limit {}", after, limit);
+        int pageSize = limit == null ? listProperties.defaultLimit() : Math.max(1, Math.min(limit, listProperties.maxLimit()));
+        return ResponseEntity.ok(patientFeedService.getChanges(after, pageSize));
+    }
+
+    /**
+     * Stream patient changes as Server-Sent Events
+     * @param after sequence to start after; defaults to the Last-Event-ID of a reconnecting client, else only new changes
+     * @return event stream, one event per change named after its type, with the sequence as event id
+     * */
+    @Operation(summary = "Stream patient changes", description = "Receive patient changes as Server-Sent Events. "
+            + "Reconnecting clients resume after their Last-Event-ID")
+    @ApiResponse(responseCode = "200", description = "Event stream opened",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = PatientFeedEvent.class)))
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @Parameter(description = "Send changes after this sequence") @RequestParam(required = false) Long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return patientFeedService.streamChanges(after != null ? after : lastEventId);
+    }
+}
@@ -0,0 +1,72 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.dto.BulkImportReport;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/patients/bulk")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientImportController {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final PatientImportService patientImportService;
+
+    /**
+     * Import many patients from a JSON array.
+     * @param body JSON array of patients, read as a stream
+     * @return per-row import report with 200 OK
+     */
+    @Operation(summary = "Bulk import patients from JSON", description = "Validate and insert a JSON array of patients in batches")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON array of patients",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = Patient.class))))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import processed, see the per-row report",
+                    content = @Content(schema = @Schema(implementation = BulkImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "Unreadable document", content = @Content)
+    })
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportReport> importPatientsJson(InputStream body) {
+        log.info("Bulk import of patients from JSON");
+        return ResponseEntity.ok(patientImportService.importJson(body));
+    }
+
+    /**
+     * Import many patients from CSV.
+     * @param body CSV with a header row of patient field names, read as a stream
+     * @return per-row import report with 200 OK
+     */
+    @Operation(summary = "Bulk import patients from CSV", description = "Validate and insert CSV rows of patients in batches. "
+            + "The header row names the fields: firstName,lastName,address,city,state,zipCode,phoneNumber,email")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "CSV document with a header row",
+            content = @Content(mediaType = TEXT_CSV_VALUE, schema = @Schema(type = "string")))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import processed, see the per-row report",
+                    content = @Content(schema = @Schema(implementation = BulkImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "Unreadable document", content = @Content)
+    })
+    @PostMapping(consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<BulkImportReport> importPatientsCsv(InputStream body) {
+        log.info("Bulk import of patients from CSV");
+        return ResponseEntity.ok(patientImportService.importCsv(body));
+    }
+}
@@ -0,0 +1,66 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.dto.PatientIngestStatus;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientIngestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/v1/patients/ingest")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientIngestController {
+
+    private final PatientIngestService patientIngestService;
+
+    /**
+     * Queue a patient for asynchronous creation
+     * @param patient patient to create
+     * @param callback URL the outcome is posted to once written, optional
+     * @return the queued create with 202 Accepted and the location to poll
+     */
+    @Operation(summary = "Queue a patient create", description = "Accept a patient for group-committed creation in the background; "
+            + "poll the returned location or pass a callback URL for the outcome. Only exact email repeats are rejected; "
+            + "probable duplicates are not looked for, as with imports")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Create queued"),
+            @ApiResponse(responseCode = "400", description = "Invalid input or callback", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Asynchronous ingestion is disabled", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Ingestion queue is full", content = @Content)
+    })
+    @PostMapping
+    public ResponseEntity<PatientIngestStatus> ingestPatient(
+            @Parameter(description = "Patient object to be created") @Valid @RequestBody Patient patient,
+            @Parameter(description = "URL the outcome is posted to; its origin must be allowed") @RequestParam(required = false) URI callback) {
+        log.debug("Queueing patient with email: {}", patient.getEmail());
+
+        PatientIngestStatus status = patientIngestService.submit(patient, callback);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(status.id()).toUri())
+                .body(status);
+    }
+
+    @Operation(summary = "Get a queued patient create", description = "Whether a queued patient was created, and its id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Create found"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired tracking id", content = @Content)
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<PatientIngestStatus> getIngestStatus(@PathVariable String id) {
+        return ResponseEntity.ok(patientIngestService.getStatus(id));
+    }
+}
@@ -0,0 +1,56 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.dto.PatientShardMove;
+import com.patient.app.patient.dto.PatientShardRange;
+import com.patient.app.patient.shard.PatientShardDirectory;
+import com.patient.app.patient.shard.PatientShardRebalancer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/patients/shards")
+@ConditionalOnProperty(prefix = "patient.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management App", description = "APIs for managing patient records. CRUD")
+public class PatientShardController {
+
+    private final PatientShardDirectory directory;
+    private final PatientShardRebalancer rebalancer;
+
+    @Operation(summary = "List patient shard ranges", description = "Which shard holds which block of patient ids")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved shard ranges")
+    @GetMapping
+    public ResponseEntity<List<PatientShardRange>> getRanges() {
+        return ResponseEntity.ok(directory.ranges());
+    }
+
+    /**
+     * Move the patients of an id range to another shard
+     * @param move id range and receiving shard
+     * @return shard ranges after the move with 200 OK
+     */
+    @Operation(summary = "Move patients between shards", description = "Copy the patients of an id range to another shard, "
+            + "re-assign the range and delete them from the shard that held them")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patients moved"),
+            @ApiResponse(responseCode = "400", description = "Range spans several shard ranges, unknown shard or ids still being allocated", content = @Content)
+    })
+    @PostMapping("/moves")
+    public ResponseEntity<List<PatientShardRange>> move(@RequestBody PatientShardMove move) {
+        log.info("Moving patient ids {} to {} to shard {}", move.from(), move.to(), move.shard());
+
+        rebalancer.move(move);
+        return ResponseEntity.ok(directory.ranges());
+    }
+}
@@ -0,0 +1,13 @@
+package com.patient.app.patient.dto;
+
+import java.util.List;
+
+/**
+ * Result of a bulk import with one entry per uploaded row.
+ * @param total number of rows read
+ * @param created number of patients created
+ * @param rejected number of rows not imported
+ * @param rows per-row outcomes in upload order
+ */
+public record BulkImportReport(long total, long created, long rejected, List<BulkImportRowResult> rows) {
+}
@@ -0,0 +1,21 @@
+package com.patient.app.patient.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of one row of a bulk import.
+ * @param row 1-based position of the row in the uploaded document (header excluded)
+ * @param status what happened to the row
+ * @param id id of the created patient, null unless created
+ * @param email email of the row, when it could be read
+ * @param errors validation or persistence messages, empty when created
+ */
+public record BulkImportRowResult(long row, Status status, Integer id, String email, List<String> errors) {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE,
+        FAILED
+    }
+}
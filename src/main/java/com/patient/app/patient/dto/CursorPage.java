@@ -0,0 +1,36 @@
+package com.patient.app.patient.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ * @param items rows of this page, ordered by id
+ * @param nextCursor id to pass as {@code after} to fetch the next page, or null on the last page
+ */
+public record CursorPage<T>(List<T> items, Integer nextCursor) {
+
+    /**
+     * Build a page from a slice fetched with one extra row to detect whether more rows exist.
+     * @param rows up to limit + 1 rows ordered by id
+     * @param limit requested page size
+     * @param idOf id extractor used for the next cursor
+     * @return page holding at most limit rows
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Integer> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), idOf.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * Convert the items of this page, keeping the cursor.
+     * @param mapper item conversion
+     * @return page of converted items
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,11 @@
+package com.patient.app.patient.dto;
+
+import java.util.List;
+
+/**
+ * Patients read by one batch request.
+ * @param patients patients found, in the order their ids were asked for
+ * @param missing ids asked for without a patient
+ */
+public record PatientBatch(List<PatientResponse> patients, List<Integer> missing) {
+}
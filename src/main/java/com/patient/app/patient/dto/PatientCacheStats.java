@@ -0,0 +1,12 @@
+package com.patient.app.patient.dto;
+
+/**
+ * Counters of the patient cache since startup.
+ * @param hitCount lookups served from the cache
+ * @param missCount lookups that went to the database
+ * @param evictionCount entries removed because of size or TTL
+ * @param hitRate hits divided by all lookups, 1.0 when there were no lookups
+ * @param size current number of cached patients (approximate)
+ */
+public record PatientCacheStats(long hitCount, long missCount, long evictionCount, double hitRate, long size) {
+}
@@ -0,0 +1,10 @@
+package com.patient.app.patient.dto;
+
+/**
+ * Two patients that are probably the same person.
+ * @param firstId lower patient id
+ * @param secondId higher patient id
+ * @param score similarity from 0 to 1
+ */
+public record PatientDuplicatePair(int firstId, int secondId, double score) {
+}
@@ -0,0 +1,24 @@
+package com.patient.app.patient.dto;
+
+import java.util.List;
+
+/**
+ * Result of comparing all patients for duplicates.
+ * @param patients patients read
+ * @param blocks blocks compared
+ * @param oversizedBlocks blocks skipped for holding more patients than allowed; their pairs are only compared when
+ *                        they share another block
+ * @param comparisons patient pairs scored
+ * @param pairsFound pairs scoring at least the minimum score
+ * @param pairs the best of them, highest score first
+ * @param durationMillis time taken
+ */
+public record PatientDuplicateReport(
+        long patients,
+        int blocks,
+        int oversizedBlocks,
+        long comparisons,
+        int pairsFound,
+        List<PatientDuplicatePair> pairs,
+        long durationMillis) {
+}
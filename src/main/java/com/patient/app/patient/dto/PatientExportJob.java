@@ -0,0 +1,48 @@
+package com.patient.app.patient.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of an asynchronous patient export.
+ * @param id job id
+ * @param status current state
+ * @param request what is exported
+ * @param totalRows number of matching patients when the job (last) started; an estimate while patients change
+ * @param rowsWritten rows written up to the last checkpoint, or in total once completed
+ * @param lastId id of the last patient written up to the last checkpoint; a resumed job continues after it
+ * @param bytesWritten file length at the last checkpoint
+ * @param createdAt when the job was submitted
+ * @param finishedAt when the job completed, failed or was cancelled
+ * @param error failure message of a failed job
+ */
+public record PatientExportJob(
+        String id,
+        Status status,
+        PatientExportRequest request,
+        long totalRows,
+        long rowsWritten,
+        int lastId,
+        long bytesWritten,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt,
+        String error) {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED,
+        /**
+         * The application stopped while the job was running.
+         */
+        INTERRUPTED;
+
+        /**
+         * @return whether a job in this state can be resumed from its last checkpoint
+         */
+        public boolean resumable() {
+            return this == FAILED || this == CANCELLED || this == INTERRUPTED;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.patient.app.patient.dto;
+
+import com.patient.app.patient.export.PatientExportCompression;
+import com.patient.app.patient.export.PatientExportFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * What to export.
+ * @param format file format, CSV when null
+ * @param compression compression of the output, none when null
+ * @param fields Patient fields to export in this order, all when null or empty; the id is always included
+ * @param changedSince only export patients updated at or after this time, all when null
+ */
+public record PatientExportRequest(
+        PatientExportFormat format,
+        PatientExportCompression compression,
+        List<String> fields,
+        LocalDateTime changedSince) {
+
+    public PatientExportRequest {
+        format = format == null ? PatientExportFormat.CSV : format;
+        compression = compression == null ? PatientExportCompression.NONE : compression;
+        fields = fields == null ? List.of() : List.copyOf(fields);
+    }
+}
@@ -0,0 +1,30 @@
+package com.patient.app.patient.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.patient.app.patient.event.PatientChangedEvent.ChangeType;
+import com.patient.app.patient.model.PatientOutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the patient change feed.
+ * @param sequence feed position; pass it as {@code after} (or Last-Event-ID) to resume behind this change
+ * @param type kind of change
+ * @param patientId id of the changed patient
+ * @param version version of the patient after the change, null for deletes
+ * @param occurredAt time of the change
+ * @param patient the patient as written, null for deletes; embedded as stored, without re-serialization
+ */
+public record PatientFeedEvent(
+        long sequence,
+        ChangeType type,
+        int patientId,
+        Long version,
+        LocalDateTime occurredAt,
+        @JsonRawValue String patient) {
+
+    public static PatientFeedEvent of(PatientOutboxEvent event) {
+        return new PatientFeedEvent(event.getSequence(), event.getType(), event.getPatientId(),
+                event.getPatientVersion(), event.getOccurredAt(), event.getPayload());
+    }
+}
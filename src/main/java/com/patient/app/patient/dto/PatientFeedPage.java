@@ -0,0 +1,12 @@
+package com.patient.app.patient.dto;
+
+import java.util.List;
+
+/**
+ * One page of the patient change feed.
+ * @param items changes in sequence order
+ * @param nextCursor position to pass as {@code after} for the next page; unchanged when there are no new changes
+ * @param hasMore whether more changes are already available after this page
+ */
+public record PatientFeedPage(List<PatientFeedEvent> items, long nextCursor, boolean hasMore) {
+}
@@ -0,0 +1,44 @@
+package com.patient.app.patient.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a patient create accepted for asynchronous ingestion.
+ * @param id tracking id returned when the create was accepted
+ * @param status current state
+ * @param patientId id of the created patient, null unless created
+ * @param email email of the patient to create
+ * @param error why the patient was not created
+ * @param acceptedAt when the create was queued
+ * @param completedAt when the create was written or rejected
+ */
+public record PatientIngestStatus(
+        String id,
+        Status status,
+        Integer patientId,
+        String email,
+        String error,
+        LocalDateTime acceptedAt,
+        LocalDateTime completedAt) {
+
+    public enum Status {
+        QUEUED,
+        CREATED,
+        DUPLICATE,
+        FAILED
+    }
+
+    /**
+     * @return a create that was just queued
+     */
+    public static PatientIngestStatus queued(String id, String email) {
+        return new PatientIngestStatus(id, Status.QUEUED, null, email, null, LocalDateTime.now(), null);
+    }
+
+    /**
+     * @return this create after it was written or rejected
+     */
+    public PatientIngestStatus complete(Status status, Integer patientId, String error) {
+        return new PatientIngestStatus(id, status, patientId, email, error, acceptedAt, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,9 @@
+package com.patient.app.patient.dto;
+
+/**
+ * An existing patient that is probably the same person as the one compared.
+ * @param patientId id of the existing patient
+ * @param score similarity from 0 to 1
+ */
+public record PatientMatch(int patientId, double score) {
+}
@@ -0,0 +1,40 @@
+package com.patient.app.patient.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Partial update of a patient: only non-null fields are changed.
+ */
+public record PatientPatch(
+        String firstName,
+        String lastName,
+        String address,
+        String city,
+        String state,
+        String zipCode,
+        String phoneNumber,
+        String email) {
+
+    /**
+     * @return new values keyed by Patient property name, for the fields present in the patch
+     */
+    public Map<String, Object> changes() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfPresent(changes, "firstName", firstName);
+        putIfPresent(changes, "lastName", lastName);
+        putIfPresent(changes, "address", address);
+        putIfPresent(changes, "city", city);
+        putIfPresent(changes, "state", state);
+        putIfPresent(changes, "zipCode", zipCode);
+        putIfPresent(changes, "phoneNumber", phoneNumber);
+        putIfPresent(changes, "email", email);
+        return changes;
+    }
+
+    private static void putIfPresent(Map<String, Object> changes, String property, String value) {
+        if (value != null) {
+            changes.put(property, value);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.patient.app.patient.dto;
+
+import com.patient.app.patient.model.Patient;
+
+import java.time.LocalDateTime;
+
+/**
+ * Patient as returned by the API. Immutable and free of persistence concerns, so serializing it
+ * never touches Hibernate; the JSON has the same properties as the Patient entity.
+ */
+public record PatientResponse(
+        Integer id,
+        String firstName,
+        String lastName,
+        String address,
+        String city,
+        String state,
+        String zipCode,
+        String phoneNumber,
+        String email,
+        Long version,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public static PatientResponse of(Patient patient) {
+        return new PatientResponse(
+                patient.getId(),
+                patient.getFirstName(),
+                patient.getLastName(),
+                patient.getAddress(),
+                patient.getCity(),
+                patient.getState(),
+                patient.getZipCode(),
+                patient.getPhoneNumber(),
+                patient.getEmail(),
+                patient.getVersion(),
+                patient.getCreatedAt(),
+                patient.getUpdatedAt());
+    }
+}
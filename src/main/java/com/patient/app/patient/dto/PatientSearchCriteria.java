@@ -0,0 +1,19 @@
+package com.patient.app.patient.dto;
+
+/**
+ * Combinable patient search filters; null or blank filters are ignored.
+ * @param lastName last name, matched case-insensitively
+ * @param namePrefix case-insensitive prefix of the last name; "Last, First" also narrows by first name prefix
+ * @param city city, matched exactly
+ * @param state state code, matched exactly
+ * @param zipCode ZIP code, matched exactly
+ * @param phone phone number in any format, matched on its digits
+ */
+public record PatientSearchCriteria(
+        String lastName,
+        String namePrefix,
+        String city,
+        String state,
+        String zipCode,
+        String phone) {
+}
@@ -0,0 +1,10 @@
+package com.patient.app.patient.dto;
+
+/**
+ * Request to move the patients of an id range to another shard.
+ * @param from first id to move
+ * @param to id after the last id to move
+ * @param shard name of the shard receiving the patients
+ */
+public record PatientShardMove(int from, int to, String shard) {
+}
@@ -0,0 +1,18 @@
+package com.patient.app.patient.dto;
+
+/**
+ * Block of patient ids held by one shard.
+ * @param start first id of the range
+ * @param end id after the last id of the range
+ * @param shard name of the shard holding the patients of the range
+ * @param home whether the shard allocates the ids of new patients from this range
+ */
+public record PatientShardRange(long start, long end, String shard, boolean home) {
+
+    /**
+     * @return whether the id falls into this range
+     */
+    public boolean contains(long id) {
+        return id >= start && id < end;
+    }
+}
@@ -0,0 +1,15 @@
+package com.patient.app.patient.dto;
+
+/**
+ * Search result row: the columns needed to identify a patient, read without loading the entity.
+ */
+public record PatientSummary(
+        Integer id,
+        String firstName,
+        String lastName,
+        String city,
+        String state,
+        String zipCode,
+        String phoneNumber,
+        String email) {
+}
@@ -0,0 +1,12 @@
+package com.patient.app.patient.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Validators of one patient for conditional requests, read without loading the patient.
+ * @param id the patient ID
+ * @param version optimistic lock version
+ * @param updatedAt time of the last write, null if unknown
+ */
+public record PatientVersion(Integer id, Long version, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,12 @@
+package com.patient.app.patient.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Collection-level validator of the patients table: any insert, update or delete changes it.
+ * Inserts and updates advance the latest update time, deletes lower the row count.
+ * @param count number of patients
+ * @param lastUpdatedAt latest update time of any patient, null when there are none
+ */
+public record PatientWatermark(Long count, LocalDateTime lastUpdatedAt) {
+}
@@ -0,0 +1,31 @@
+package com.patient.app.patient.event;
+
+import com.patient.app.patient.model.Patient;
+
+/**
+ * Published by the service layer whenever a patient is created, updated or deleted.
+ * Listeners that must only observe committed data should use a transactional event listener.
+ * @param type kind of change
+ * @param patientId id of the changed patient
+ * @param patient the written patient, or null when the change did not produce a full entity (e.g. deletes)
+ */
+public record PatientChangedEvent(ChangeType type, Integer patientId, Patient patient) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static PatientChangedEvent created(Patient patient) {
+        return new PatientChangedEvent(ChangeType.CREATED, patient.getId(), patient);
+    }
+
+    public static PatientChangedEvent updated(Patient patient) {
+        return new PatientChangedEvent(ChangeType.UPDATED, patient.getId(), patient);
+    }
+
+    public static PatientChangedEvent deleted(Integer patientId) {
+        return new PatientChangedEvent(ChangeType.DELETED, patientId, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.patient.app.patient.exception;
+
+/**
+ * Thrown when a request carries parameters or data the service cannot accept, e.g. an unknown export field, too many
+ * ids or a rejected callback URL.
+ * */
+public class InvalidPatientRequestException extends RuntimeException {
+
+    public InvalidPatientRequestException(String message) {
+        super(message);
+    }
+}
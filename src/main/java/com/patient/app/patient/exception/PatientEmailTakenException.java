@@ -0,0 +1,11 @@
+package com.patient.app.patient.exception;
+
+/**
+ * Thrown when a create or update would give a patient an email another patient already holds.
+ * */
+public class PatientEmailTakenException extends RuntimeException {
+
+    public PatientEmailTakenException(String message) {
+        super(message);
+    }
+}
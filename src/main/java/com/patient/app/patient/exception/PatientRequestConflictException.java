@@ -0,0 +1,12 @@
+package com.patient.app.patient.exception;
+
+/**
+ * Thrown when a request does not fit the current state of the service, e.g. resuming a finished export or starting a
+ * second duplicate report.
+ * */
+public class PatientRequestConflictException extends RuntimeException {
+
+    public PatientRequestConflictException(String message) {
+        super(message);
+    }
+}
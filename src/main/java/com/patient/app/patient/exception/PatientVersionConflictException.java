@@ -0,0 +1,21 @@
+package com.patient.app.patient.exception;
+
+/**
+ * Thrown when a conditional write names a patient version that is no longer current.
+ * */
+public class PatientVersionConflictException extends RuntimeException {
+
+    private final int patientId;
+
+    public PatientVersionConflictException(int patientId) {
+        super("Patient " + patientId + " was modified by another request");
+        this.patientId = patientId;
+    }
+
+    /**
+     * Id of the patient whose version did not match.
+     */
+    public int getPatientId() {
+        return patientId;
+    }
+}
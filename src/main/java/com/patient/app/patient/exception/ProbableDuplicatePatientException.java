@@ -0,0 +1,25 @@
+package com.patient.app.patient.exception;
+
+import com.patient.app.patient.dto.PatientMatch;
+
+import java.util.List;
+
+/**
+ * Thrown when a patient to be created probably exists already under another email.
+ * */
+public class ProbableDuplicatePatientException extends RuntimeException {
+
+    private final List<PatientMatch> matches;
+
+    public ProbableDuplicatePatientException(List<PatientMatch> matches) {
+        super("Patient probably exists already");
+        this.matches = matches;
+    }
+
+    /**
+     * Existing patients that are probably the same person, best match first.
+     */
+    public List<PatientMatch> getMatches() {
+        return matches;
+    }
+}
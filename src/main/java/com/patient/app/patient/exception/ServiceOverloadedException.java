@@ -0,0 +1,23 @@
+package com.patient.app.patient.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is shed because the database work it needs cannot be admitted in time.
+ * */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * How long the client should wait before retrying.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package com.patient.app.patient.exception;
+
+/**
+ * Thrown by operations that cannot run while patients are spread over several shards.
+ * */
+public class ShardingUnsupportedException extends RuntimeException {
+
+    public ShardingUnsupportedException(String message) {
+        super(message);
+    }
+}
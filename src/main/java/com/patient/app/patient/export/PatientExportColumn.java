@@ -0,0 +1,105 @@
+package com.patient.app.patient.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Patient fields that can be exported, with the column each is read from.
+ * Exported values are copied straight from the JDBC result set to the output, without building entities.
+ * */
+public enum PatientExportColumn {
+
+    ID("id", "id", Type.INT),
+    FIRST_NAME("firstName", "first_name", Type.TEXT),
+    LAST_NAME("lastName", "last_name", Type.TEXT),
+    ADDRESS("address", "address", Type.TEXT),
+    CITY("city", "city", Type.TEXT),
+    STATE("state", "state", Type.TEXT),
+    ZIP_CODE("zipCode", "zip_code", Type.TEXT),
+    PHONE_NUMBER("phoneNumber", "phone_number", Type.TEXT),
+    EMAIL("email", "email", Type.TEXT),
+    VERSION("version", "version", Type.LONG),
+    CREATED_AT("createdAt", "created_at", Type.TIMESTAMP),
+    UPDATED_AT("updatedAt", "updated_at", Type.TIMESTAMP);
+
+    private enum Type { INT, LONG, TEXT, TIMESTAMP }
+
+    private final String field;
+    private final String column;
+    private final Type type;
+
+    PatientExportColumn(String field, String column, Type type) {
+        this.field = field;
+        this.column = column;
+        this.type = type;
+    }
+
+    /**
+     * @return name of the field in the export, matching the Patient JSON property
+     */
+    public String field() {
+        return field;
+    }
+
+    /**
+     * @return name of the patients table column
+     */
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Resolve a projection. The id is always exported first, because resuming an export relies on it.
+     * @param fields requested field names; null or empty for all fields
+     * @return columns in the requested order
+     * @throws InvalidPatientRequestException if a field is unknown
+     */
+    public static List<PatientExportColumn> project(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return List.of(values());
+        }
+        List<PatientExportColumn> columns = new ArrayList<>();
+        columns.add(ID);
+        for (String field : fields) {
+            PatientExportColumn column = Arrays.stream(values())
+                    .filter(c -> c.field.equals(field.strip()))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidPatientRequestException("Unknown export field " + field));
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return List.copyOf(columns);
+    }
+
+    /**
+     * Copy the value of this column from the current row to the generator.
+     * @param rs result set positioned on a row that selected this column at {@code index}
+     * @param index 1-based column index in the result set
+     */
+    void write(ResultSet rs, int index, JsonGenerator generator) throws SQLException, IOException {
+        switch (type) {
+            case INT -> {
+                int value = rs.getInt(index);
+                if (rs.wasNull()) generator.writeNull(); else generator.writeNumber(value);
+            }
+            case LONG -> {
+                long value = rs.getLong(index);
+                if (rs.wasNull()) generator.writeNull(); else generator.writeNumber(value);
+            }
+            case TEXT -> generator.writeString(rs.getString(index));
+            case TIMESTAMP -> {
+                Timestamp value = rs.getTimestamp(index);
+                if (value == null) generator.writeNull(); else generator.writeString(value.toLocalDateTime().toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.patient.app.patient.export;
+
+/**
+ * Compression applied to a patient export.
+ * */
+public enum PatientExportCompression {
+
+    NONE(""),
+
+    /**
+     * Gzip; files of resumed jobs consist of several gzip members, which gzip readers decode as one stream.
+     */
+    GZIP(".gz");
+
+    private final String suffix;
+
+    PatientExportCompression(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+}
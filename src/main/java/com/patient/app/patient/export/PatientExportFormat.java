@@ -0,0 +1,35 @@
+package com.patient.app.patient.export;
+
+import org.springframework.http.MediaType;
+
+/**
+ * File formats of patient exports.
+ * */
+public enum PatientExportFormat {
+
+    /**
+     * Comma-separated values with a header row of the exported field names.
+     */
+    CSV("text/csv", "csv"),
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    PatientExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
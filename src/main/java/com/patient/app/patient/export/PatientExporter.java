@@ -0,0 +1,200 @@
+package com.patient.app.patient.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.patient.app.patient.dto.PatientExportRequest;
+import com.patient.app.patient.repository.PatientJdbcRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes patients from a database cursor to an output stream as CSV or NDJSON.
+ * Each row goes from the result set straight to the generator, so memory use does not grow with the export,
+ * and a slow output stream blocks the cursor instead of buffering rows.
+ * Exports are written in segments that end at checkpoints: everything before a checkpoint is complete output,
+ * so an interrupted export can be cut back to its last checkpoint and continued after the last id written.
+ * */
+@Component
+public class PatientExporter {
+
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    public PatientExporter(PatientJdbcRepository patientJdbcRepository, PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper) {
+        this.patientJdbcRepository = patientJdbcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Observer of a running export.
+     */
+    public interface Progress {
+
+        /**
+         * Called whenever all rows so far are complete in the output stream.
+         * @param lastId id of the last row written
+         * @param rows rows written by this export call
+         */
+        void checkpoint(int lastId, long rows) throws IOException;
+
+        /**
+         * @return true to stop the export before the next row
+         */
+        boolean cancelled();
+    }
+
+    /**
+     * Export the patients matching a request.
+     * @param request format, compression, projection and filter
+     * @param afterId only export patients with a larger id, 0 for a new export
+     * @param header whether a CSV export starts with a header row; false when continuing an export
+     * @param out target; flushed but not closed
+     * @param checkpointRows rows between checkpoints, 0 to only checkpoint at the end
+     * @param progress receives checkpoints and is asked for cancellation
+     * @return number of rows written
+     * @throws CancellationException if progress reported cancellation
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the request names an unknown field
+     */
+    public long export(PatientExportRequest request, int afterId, boolean header, OutputStream out,
+                       int checkpointRows, Progress progress) throws IOException {
+        List<PatientExportColumn> columns = PatientExportColumn.project(request.fields());
+        Run run = new Run(request, columns, out, checkpointRows, progress);
+        try {
+            run.open(header);
+            readOnlyTransaction.executeWithoutResult(status -> patientJdbcRepository.streamColumns(
+                    columns.stream().map(PatientExportColumn::column).toList(),
+                    request.changedSince(), afterId, run::row));
+            run.checkpoint();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // The repository translates the cancellation thrown from the row callback into a data access exception
+            if (run.cancelled) {
+                throw new CancellationException("Export cancelled after patient " + run.lastId);
+            }
+            throw e;
+        }
+        return run.rows;
+    }
+
+    /**
+     * State of one export call; rows arrive on the thread that called export.
+     */
+    private final class Run {
+
+        private final PatientExportRequest request;
+        private final List<PatientExportColumn> columns;
+        private final OutputStream out;
+        private final int checkpointRows;
+        private final Progress progress;
+        private GZIPOutputStream gzip;
+        private JsonGenerator generator;
+        private long rows;
+        private int lastId;
+        private int sinceCheckpoint;
+        private boolean cancelled;
+
+        private Run(PatientExportRequest request, List<PatientExportColumn> columns, OutputStream out,
+                    int checkpointRows, Progress progress) {
+            this.request = request;
+            this.columns = columns;
+            this.out = out;
+            this.checkpointRows = checkpointRows;
+            this.progress = progress;
+        }
+
+        private void open(boolean header) throws IOException {
+            OutputStream target = out;
+            if (request.compression() == PatientExportCompression.GZIP) {
+                gzip = new GZIPOutputStream(out, 64 * 1024);
+                target = gzip;
+            }
+            if (request.format() == PatientExportFormat.CSV) {
+                CsvSchema.Builder schema = CsvSchema.builder();
+                columns.forEach(column -> schema.addColumn(column.field()));
+                CsvGenerator csv = csvMapper.getFactory().createGenerator(target);
+                csv.setSchema(schema.build().withoutHeader());
+                generator = csv;
+                if (header) {
+                    generator.writeStartArray();
+                    for (PatientExportColumn column : columns) {
+                        generator.writeString(column.field());
+                    }
+                    generator.writeEndArray();
+                }
+            } else {
+                generator = objectMapper.getFactory().createGenerator(target);
+                // Lines are terminated explicitly; no space between root values
+                generator.setRootValueSeparator(null);
+            }
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        private void row(ResultSet rs) throws SQLException {
+            if (progress.cancelled()) {
+                cancelled = true;
+                throw new CancellationException("Export cancelled after patient " + lastId);
+            }
+            try {
+                if (request.format() == PatientExportFormat.CSV) {
+                    generator.writeStartArray();
+                    for (int i = 0; i < columns.size(); i++) {
+                        columns.get(i).write(rs, i + 1, generator);
+                    }
+                    generator.writeEndArray();
+                } else {
+                    generator.writeStartObject();
+                    for (int i = 0; i < columns.size(); i++) {
+                        generator.writeFieldName(columns.get(i).field());
+                        columns.get(i).write(rs, i + 1, generator);
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+                lastId = rs.getInt(1);
+                rows++;
+                if (++sinceCheckpoint == checkpointRows) {
+                    checkpoint();
+                    open(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * End the current segment: a gzip member is finished so the bytes so far decode on their own.
+         */
+        private void checkpoint() {
+            try {
+                generator.close();
+                if (gzip != null) {
+                    gzip.finish();
+                }
+                out.flush();
+                sinceCheckpoint = 0;
+                progress.checkpoint(lastId, rows);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
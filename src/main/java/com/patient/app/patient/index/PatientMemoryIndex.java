@@ -0,0 +1,204 @@
+package com.patient.app.patient.index;
+
+import com.patient.app.patient.config.PatientMemoryIndexProperties;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.event.PatientChangedEvent;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.repository.PatientJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Optional in-memory copy of every patient, serving reads by id and email without touching the database.
+ * Loaded once the application is ready and kept current from committed service writes; until the load
+ * has finished {@link #isServing()} is false and callers must go to the database.
+ * Rows are held in a {@link PatientStore} rather than as Patient objects to keep the heap small.
+ * */
+@Component
+@Slf4j
+public class PatientMemoryIndex implements MeterBinder {
+
+    private final PatientMemoryIndexProperties properties;
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PatientStore store = new PatientStore(1024);
+
+    // Ids written while the initial load is running; the load must not overwrite them with older rows
+    private Set<Integer> changedDuringLoad;
+    private volatile boolean serving;
+
+    public PatientMemoryIndex(PatientMemoryIndexProperties properties, PatientJdbcRepository patientJdbcRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.patientJdbcRepository = patientJdbcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return true once all patients are loaded and reads can be served from memory
+     */
+    public boolean isServing() {
+        return serving;
+    }
+
+    /**
+     * Get a patient from memory.
+     * @param id the patient ID
+     * @return detached copy of the patient, or null if there is no such patient
+     */
+    public Patient get(int id) {
+        lock.readLock().lock();
+        try {
+            return store.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the version and update time of a patient from memory.
+     * @param id the patient ID
+     * @return validators of the patient, or null if there is no such patient
+     */
+    public PatientVersion version(int id) {
+        lock.readLock().lock();
+        try {
+            return store.version(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Look up the patient holding an email.
+     * @param email the email
+     * @return id of the patient with that email, empty if none
+     */
+    public OptionalInt findIdByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            int id = store.findIdByEmail(email);
+            return id < 0 ? OptionalInt.empty() : OptionalInt.of(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load every patient through the streaming JDBC cursor, applying rows in batches
+     * so readers and writers are never blocked for the whole load.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.enabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Patient> batch = new ArrayList<>(properties.loadBatchSize());
+        readOnlyTransaction.executeWithoutResult(status -> patientJdbcRepository.streamAll(patient -> {
+            batch.add(patient);
+            if (batch.size() == properties.loadBatchSize()) {
+                applyLoaded(batch);
+                batch.clear();
+            }
+        }));
+        applyLoaded(batch);
+
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = null;
+            serving = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Patient memory index loaded {} patients ({} KiB) in {} ms", store.size(),
+                store.retainedBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void applyLoaded(List<Patient> patients) {
+        lock.writeLock().lock();
+        try {
+            for (Patient patient : patients) {
+                if (!changedDuringLoad.contains(patient.getId())) {
+                    store.put(patient);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply committed writes so the index never holds uncommitted data.
+     * @param event change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (!properties.enabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(event.patientId());
+            }
+            if (event.patient() == null) {
+                store.remove(event.patientId());
+            } else {
+                store.put(event.patient());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Patient memory index updated for {} of patient {}", event.type(), event.patientId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!properties.enabled()) {
+            return;
+        }
+        Gauge.builder("patient.memory.index.size", this, index -> index.read(PatientStore::size))
+                .description("Patients held by the in-memory index")
+                .register(registry);
+        Gauge.builder("patient.memory.index.bytes", this, index -> index.read(PatientStore::retainedBytes))
+                .description("Approximate heap retained by the in-memory index")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private double read(ToDoubleFunction<PatientStore> metric) {
+        lock.readLock().lock();
+        try {
+            return metric.applyAsDouble(store);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
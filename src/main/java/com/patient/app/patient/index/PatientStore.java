@@ -0,0 +1,444 @@
+package com.patient.app.patient.index;
+
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.model.Patient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compact column-oriented storage of patients, keyed by id and by lower-cased email, as the database compares emails.
+ * Instead of one Patient with ten String fields per row, each row is a slot in a handful of primitive arrays:
+ * free text fields are UTF-8 bytes in one shared byte array, low cardinality fields (city, state, ZIP code)
+ * are codes into a shared dictionary and timestamps are epoch nanos. Replaced text is reclaimed by
+ * compacting the byte array once more than half of it is garbage.
+ * Not thread-safe; see {@link PatientMemoryIndex} for the concurrent wrapper.
+ * */
+public final class PatientStore {
+
+    private static final int FIRST_NAME = 0;
+    private static final int LAST_NAME = 1;
+    private static final int ADDRESS = 2;
+    private static final int PHONE_NUMBER = 3;
+    private static final int EMAIL = 4;
+    // Lower-cased email, only stored when it differs from the email
+    private static final int EMAIL_KEY = 5;
+    private static final int TEXT_FIELDS = 6;
+
+    private static final int CITY = 0;
+    private static final int STATE = 1;
+    private static final int ZIP_CODE = 2;
+    private static final int CODED_FIELDS = 3;
+
+    private static final int FREE_SLOT = -1;
+    private static final short NULL_LENGTH = -1;
+    private static final short SAME_AS_EMAIL = -2;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long NULL_VERSION = -1;
+    private static final int MIN_COMPACTION_GARBAGE = 64 * 1024;
+
+    private final IntIntHashMap slotById;
+    private final Dictionary dictionary = new Dictionary();
+
+    private int[] ids;
+    private int[] textOffsets;
+    private short[] textLengths;
+    private int[] codes;
+    private long[] versions;
+    private long[] createdAt;
+    private long[] updatedAt;
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+
+    private byte[] text;
+    private int textSize;
+    private long textGarbage;
+
+    private int[] emailTable;
+    private int emailMask;
+    private int emailCount;
+
+    public PatientStore(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        slotById = new IntIntHashMap(capacity);
+        ids = new int[capacity];
+        textOffsets = new int[capacity * TEXT_FIELDS];
+        textLengths = new short[capacity * TEXT_FIELDS];
+        codes = new int[capacity * CODED_FIELDS];
+        versions = new long[capacity];
+        createdAt = new long[capacity];
+        updatedAt = new long[capacity];
+        text = new byte[Math.max(capacity * 64, 1024)];
+        emailTable = new int[IntIntHashMap.tableSizeFor(capacity)];
+        emailMask = emailTable.length - 1;
+    }
+
+    /**
+     * @return number of stored patients
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Insert or replace a patient.
+     * An email already held by another stored patient is moved to this one, so the latest write wins.
+     * @param patient patient with an id
+     */
+    public void put(Patient patient) {
+        int id = patient.getId();
+        int slot = slotById.get(id);
+        if (slot == IntIntHashMap.MISSING) {
+            slot = allocateSlot();
+            ids[slot] = id;
+            slotById.put(id, slot);
+        } else {
+            removeEmail(slot);
+            for (int field = 0; field < TEXT_FIELDS; field++) {
+                releaseText(slot, field);
+            }
+        }
+
+        writeText(slot, FIRST_NAME, patient.getFirstName());
+        writeText(slot, LAST_NAME, patient.getLastName());
+        writeText(slot, ADDRESS, patient.getAddress());
+        writeText(slot, PHONE_NUMBER, patient.getPhoneNumber());
+        writeText(slot, EMAIL, patient.getEmail());
+        writeEmailKey(slot, patient.getEmail());
+        codes[slot * CODED_FIELDS + CITY] = dictionary.code(patient.getCity());
+        codes[slot * CODED_FIELDS + STATE] = dictionary.code(patient.getState());
+        codes[slot * CODED_FIELDS + ZIP_CODE] = dictionary.code(patient.getZipCode());
+        versions[slot] = patient.getVersion() == null ? NULL_VERSION : patient.getVersion();
+        createdAt[slot] = toNanos(patient.getCreatedAt());
+        updatedAt[slot] = toNanos(patient.getUpdatedAt());
+        addEmail(slot);
+
+        if (textGarbage > MIN_COMPACTION_GARBAGE && textGarbage > textSize / 2) {
+            compactText();
+        }
+    }
+
+    /**
+     * Remove a patient.
+     * @param id the patient ID
+     * @return true if the patient was stored
+     */
+    public boolean remove(int id) {
+        int slot = slotById.remove(id);
+        if (slot == IntIntHashMap.MISSING) {
+            return false;
+        }
+        removeEmail(slot);
+        for (int field = 0; field < TEXT_FIELDS; field++) {
+            releaseText(slot, field);
+        }
+        ids[slot] = FREE_SLOT;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+        return true;
+    }
+
+    /**
+     * @param id the patient ID
+     * @return true if the patient is stored
+     */
+    public boolean contains(int id) {
+        return slotById.get(id) != IntIntHashMap.MISSING;
+    }
+
+    /**
+     * Materialize a stored patient.
+     * @param id the patient ID
+     * @return a new detached Patient, or null if not stored
+     */
+    public Patient get(int id) {
+        int slot = slotById.get(id);
+        if (slot == IntIntHashMap.MISSING) {
+            return null;
+        }
+        return Patient.builder()
+                .id(ids[slot])
+                .firstName(readText(slot, FIRST_NAME))
+                .lastName(readText(slot, LAST_NAME))
+                .address(readText(slot, ADDRESS))
+                .city(dictionary.value(codes[slot * CODED_FIELDS + CITY]))
+                .state(dictionary.value(codes[slot * CODED_FIELDS + STATE]))
+                .zipCode(dictionary.value(codes[slot * CODED_FIELDS + ZIP_CODE]))
+                .phoneNumber(readText(slot, PHONE_NUMBER))
+                .email(readText(slot, EMAIL))
+                .version(versions[slot] == NULL_VERSION ? null : versions[slot])
+                .createdAt(fromNanos(createdAt[slot]))
+                .updatedAt(fromNanos(updatedAt[slot]))
+                .build();
+    }
+
+    /**
+     * Read only the version and update time of a stored patient.
+     * @param id the patient ID
+     * @return validators of the patient, or null if not stored
+     */
+    public PatientVersion version(int id) {
+        int slot = slotById.get(id);
+        if (slot == IntIntHashMap.MISSING) {
+            return null;
+        }
+        return new PatientVersion(id, versions[slot] == NULL_VERSION ? null : versions[slot], fromNanos(updatedAt[slot]));
+    }
+
+    /**
+     * Look up a patient id by email, ignoring case.
+     * @param email the email
+     * @return id of the patient with that email, or -1 if none is stored
+     */
+    public int findIdByEmail(String email) {
+        if (email == null) {
+            return -1;
+        }
+        byte[] bytes = email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        int index = hash(bytes, 0, bytes.length) & emailMask;
+        while (emailTable[index] != 0) {
+            int slot = emailTable[index] - 1;
+            int key = emailKeyIndex(slot);
+            if (textLengths[key] == bytes.length
+                    && Arrays.equals(text, textOffsets[key], textOffsets[key] + bytes.length, bytes, 0, bytes.length)) {
+                return ids[slot];
+            }
+            index = (index + 1) & emailMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Approximate heap retained by the store, excluding the object headers of its arrays.
+     * @return bytes
+     */
+    public long retainedBytes() {
+        long slots = ids.length;
+        return slots * (4 + TEXT_FIELDS * (4 + 2) + CODED_FIELDS * 4 + 8 + 8 + 8)
+                + 4L * freeSlots.length
+                + text.length
+                + 4L * emailTable.length
+                + slotById.tableBytes()
+                + dictionary.retainedBytes();
+    }
+
+    /**
+     * @return bytes of the shared text array holding replaced or deleted values
+     */
+    public long garbageBytes() {
+        return textGarbage;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity * TEXT_FIELDS);
+            textLengths = Arrays.copyOf(textLengths, capacity * TEXT_FIELDS);
+            codes = Arrays.copyOf(codes, capacity * CODED_FIELDS);
+            versions = Arrays.copyOf(versions, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void writeText(int slot, int field, String value) {
+        int index = slot * TEXT_FIELDS + field;
+        if (value == null) {
+            textLengths[index] = NULL_LENGTH;
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value of " + bytes.length + " bytes is too long to index");
+        }
+        if (textSize + bytes.length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textSize + bytes.length));
+        }
+        System.arraycopy(bytes, 0, text, textSize, bytes.length);
+        textOffsets[index] = textSize;
+        textLengths[index] = (short) bytes.length;
+        textSize += bytes.length;
+    }
+
+    private String readText(int slot, int field) {
+        int index = slot * TEXT_FIELDS + field;
+        short length = textLengths[index];
+        return length == NULL_LENGTH ? null : new String(text, textOffsets[index], length, StandardCharsets.UTF_8);
+    }
+
+    private void releaseText(int slot, int field) {
+        short length = textLengths[slot * TEXT_FIELDS + field];
+        if (length > 0) {
+            textGarbage += length;
+        }
+    }
+
+    private void writeEmailKey(int slot, String email) {
+        String key = email == null ? null : email.toLowerCase(Locale.ROOT);
+        if (key != null && key.equals(email)) {
+            textLengths[slot * TEXT_FIELDS + EMAIL_KEY] = SAME_AS_EMAIL;
+        } else {
+            writeText(slot, EMAIL_KEY, key);
+        }
+    }
+
+    /**
+     * @return index into textOffsets and textLengths of the lower-cased email of the slot
+     */
+    private int emailKeyIndex(int slot) {
+        int index = slot * TEXT_FIELDS + EMAIL_KEY;
+        return textLengths[index] == SAME_AS_EMAIL ? slot * TEXT_FIELDS + EMAIL : index;
+    }
+
+    private void compactText() {
+        byte[] compacted = new byte[Math.max((int) ((textSize - textGarbage) * 3 / 2), 1024)];
+        int size = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] == FREE_SLOT) {
+                continue;
+            }
+            for (int field = 0; field < TEXT_FIELDS; field++) {
+                int index = slot * TEXT_FIELDS + field;
+                short length = textLengths[index];
+                if (length > 0) {
+                    System.arraycopy(text, textOffsets[index], compacted, size, length);
+                }
+                textOffsets[index] = size;
+                size += Math.max(length, 0);
+            }
+        }
+        text = compacted;
+        textSize = size;
+        textGarbage = 0;
+    }
+
+    private void addEmail(int slot) {
+        int emailIndex = emailKeyIndex(slot);
+        if (textLengths[emailIndex] == NULL_LENGTH) {
+            return;
+        }
+        int index = emailHash(slot) & emailMask;
+        while (emailTable[index] != 0) {
+            int other = emailTable[index] - 1;
+            int otherIndex = emailKeyIndex(other);
+            if (textLengths[otherIndex] == textLengths[emailIndex]
+                    && Arrays.equals(text, textOffsets[otherIndex], textOffsets[otherIndex] + textLengths[otherIndex],
+                    text, textOffsets[emailIndex], textOffsets[emailIndex] + textLengths[emailIndex])) {
+                emailTable[index] = slot + 1;
+                return;
+            }
+            index = (index + 1) & emailMask;
+        }
+        emailTable[index] = slot + 1;
+        if (++emailCount > emailTable.length * 0.6) {
+            rehashEmails(emailTable.length * 2);
+        }
+    }
+
+    private void removeEmail(int slot) {
+        if (textLengths[emailKeyIndex(slot)] == NULL_LENGTH) {
+            return;
+        }
+        int index = emailHash(slot) & emailMask;
+        while (emailTable[index] != slot + 1) {
+            if (emailTable[index] == 0) {
+                // The email was moved to a newer patient
+                return;
+            }
+            index = (index + 1) & emailMask;
+        }
+        emailCount--;
+        int hole = index;
+        int next = (hole + 1) & emailMask;
+        while (emailTable[next] != 0) {
+            int home = emailHash(emailTable[next] - 1) & emailMask;
+            if (((next - home) & emailMask) >= ((next - hole) & emailMask)) {
+                emailTable[hole] = emailTable[next];
+                hole = next;
+            }
+            next = (next + 1) & emailMask;
+        }
+        emailTable[hole] = 0;
+    }
+
+    private void rehashEmails(int capacity) {
+        int[] old = emailTable;
+        emailTable = new int[capacity];
+        emailMask = capacity - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int index = emailHash(entry - 1) & emailMask;
+                while (emailTable[index] != 0) {
+                    index = (index + 1) & emailMask;
+                }
+                emailTable[index] = entry;
+            }
+        }
+    }
+
+    private int emailHash(int slot) {
+        int index = emailKeyIndex(slot);
+        return hash(text, textOffsets[index], textLengths[index]);
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return IntIntHashMap.mix(h);
+    }
+
+    private static long toNanos(LocalDateTime time) {
+        return time == null ? NULL_TIME : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        return nanos == NULL_TIME ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Shared values of low cardinality fields; every distinct value is held once.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private long valueBytes;
+
+        int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                valueBytes += 56L + key.length();
+                return values.size() - 1;
+            });
+        }
+
+        String value(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+
+        long retainedBytes() {
+            return valueBytes;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.patient.app.patient.json;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.patient.app.patient.config.PatientJsonCacheProperties;
+import com.patient.app.patient.event.PatientChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of each patient's encoded JSON, keyed by id and valid for one version.
+ * Because every write bumps the version, an entry can never be served for changed data;
+ * change events only evict entries early to free memory.
+ * Published to the meter registry as cache "patient-json".
+ * */
+@Component
+public class PatientJsonCache implements MeterBinder {
+
+    /**
+     * Serialization attribute that, set to true on an ObjectWriter, bypasses the cache,
+     * e.g. for streams of all patients that would only churn it.
+     */
+    public static final String BYPASS = PatientJsonCache.class.getName() + ".bypass";
+
+    private final boolean enabled;
+    private final Cache<Integer, Entry> cache;
+
+    public PatientJsonCache(PatientJsonCacheProperties properties) {
+        this.enabled = properties.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the JSON of a patient version, encoding and caching it on a miss.
+     * @param id the patient ID
+     * @param version version the JSON must have been encoded from
+     * @param encoder encodes the patient at this version
+     * @return encoded JSON
+     */
+    public PreEncodedJson get(int id, long version, Supplier<PreEncodedJson> encoder) {
+        Entry entry = cache.getIfPresent(id);
+        if (entry != null && entry.version == version) {
+            return entry.json;
+        }
+        PreEncodedJson json = encoder.get();
+        cache.put(id, new Entry(version, json));
+        return json;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        cache.invalidate(event.patientId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, cache, "patient-json");
+        }
+    }
+
+    private record Entry(long version, PreEncodedJson json) {
+    }
+}
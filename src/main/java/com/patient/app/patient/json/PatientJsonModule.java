@@ -0,0 +1,29 @@
+package com.patient.app.patient.json;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.patient.app.patient.dto.PatientResponse;
+
+/**
+ * Jackson module that serves {@link PatientResponse} from the pre-encoded JSON cache when it is enabled.
+ * */
+public class PatientJsonModule extends SimpleModule {
+
+    public PatientJsonModule(PatientJsonCache cache) {
+        super("patient-json");
+        if (cache.isEnabled()) {
+            setSerializerModifier(new BeanSerializerModifier() {
+                @Override
+                public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                          JsonSerializer<?> serializer) {
+                    return description.getBeanClass() == PatientResponse.class
+                            ? new PreEncodedPatientSerializer(serializer, cache)
+                            : serializer;
+                }
+            });
+        }
+    }
+}
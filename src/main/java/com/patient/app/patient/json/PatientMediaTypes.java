@@ -0,0 +1,25 @@
+package com.patient.app.patient.json;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types of the patient API besides JSON.
+ * */
+public final class PatientMediaTypes {
+
+    /**
+     * Smile, Jackson's binary JSON: the same documents as JSON, about half the size and cheaper to encode and decode.
+     */
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    /**
+     * A stream of Smile documents, one per patient, each preceded by its length in bytes as a 4-byte big-endian
+     * integer, so clients can decode patients as they arrive.
+     */
+    public static final String SMILE_STREAM_VALUE = "application/vnd.patient.smile-stream";
+    public static final MediaType SMILE_STREAM = MediaType.parseMediaType(SMILE_STREAM_VALUE);
+
+    private PatientMediaTypes() {
+    }
+}
@@ -0,0 +1,77 @@
+package com.patient.app.patient.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.patient.app.patient.dto.PatientResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a {@link PatientResponse} by copying its cached JSON bytes, encoding them with the regular
+ * bean serializer only when the cache has no entry for the patient's version.
+ * Falls back to the bean serializer for unsaved patients, pretty printing, writers with
+ * {@link PatientJsonCache#BYPASS} set and generators of other formats, such as Smile, that share the modules.
+ * */
+final class PreEncodedPatientSerializer extends StdSerializer<PatientResponse>
+        implements ResolvableSerializer, ContextualSerializer {
+
+    private static final JsonFactory DEFAULT_FACTORY = new JsonFactory();
+
+    private final JsonSerializer<Object> delegate;
+    private final PatientJsonCache cache;
+
+    @SuppressWarnings("unchecked")
+    PreEncodedPatientSerializer(JsonSerializer<?> delegate, PatientJsonCache cache) {
+        super(PatientResponse.class);
+        this.delegate = (JsonSerializer<Object>) delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void serialize(PatientResponse patient, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (patient.id() == null || patient.version() == null || !(gen instanceof JsonGeneratorImpl) || gen.getPrettyPrinter() != null
+                || Boolean.TRUE.equals(provider.getAttribute(PatientJsonCache.BYPASS))) {
+            delegate.serialize(patient, gen, provider);
+            return;
+        }
+        PreEncodedJson json = cache.get(patient.id(), patient.version(), () -> encode(patient, gen, provider));
+        gen.writeRawValue(json);
+    }
+
+    private PreEncodedJson encode(PatientResponse patient, JsonGenerator gen, SerializerProvider provider) {
+        ObjectCodec codec = gen.getCodec();
+        JsonFactory factory = codec == null ? DEFAULT_FACTORY : codec.getFactory();
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(factory._getBufferRecycler(), 512)) {
+            try (JsonGenerator encoder = factory.createGenerator(bytes)) {
+                delegate.serialize(patient, encoder, provider);
+            }
+            return new PreEncodedJson(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer resolvable) {
+            resolvable.resolve(provider);
+        }
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+        JsonSerializer<?> contextual = provider.handlePrimaryContextualization(delegate, property);
+        return contextual == delegate ? this : new PreEncodedPatientSerializer(contextual, cache);
+    }
+}
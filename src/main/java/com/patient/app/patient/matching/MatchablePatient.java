@@ -0,0 +1,70 @@
+package com.patient.app.patient.matching;
+
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PhoneNumbers;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The fields of a patient that matching compares, normalized once: names folded to lower-case ASCII letters,
+ * address to letters and digits, phone number to its digits and ZIP code to its first five characters.
+ * @param blockingKeys keys of the blocks the patient belongs to, in ascending order
+ */
+public record MatchablePatient(
+        int id,
+        String firstName,
+        String lastName,
+        String address,
+        String zipCode,
+        String phoneDigits,
+        String email,
+        List<String> blockingKeys) {
+
+    /**
+     * @param id patient id, 0 for a patient not yet created
+     */
+    public static MatchablePatient of(int id, String firstName, String lastName, String address, String zipCode,
+                                      String phoneNumber, String email) {
+        String first = letters(firstName);
+        String last = letters(lastName);
+        String zip = zipCode == null ? "" : zipCode.substring(0, Math.min(5, zipCode.length()));
+        String phone = phoneNumber == null ? "" : PhoneNumbers.normalize(phoneNumber);
+        return new MatchablePatient(id, first, last, lettersAndDigits(address), zip, phone,
+                email == null ? "" : email.toLowerCase(Locale.ROOT), PatientMatcher.blockingKeys(first, last, zip, phone));
+    }
+
+    public static MatchablePatient of(Patient patient) {
+        return of(patient.getId() == null ? 0 : patient.getId(), patient.getFirstName(), patient.getLastName(),
+                patient.getAddress(), patient.getZipCode(), patient.getPhoneNumber(), patient.getEmail());
+    }
+
+    static String letters(String value) {
+        StringBuilder folded = new StringBuilder();
+        for (char c : fold(value).toCharArray()) {
+            if (c >= 'a' && c <= 'z') {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    private static String lettersAndDigits(String value) {
+        StringBuilder folded = new StringBuilder();
+        for (char c : fold(value).toCharArray()) {
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    private static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        // "Müller" and "Muller" block and compare alike
+        return Normalizer.normalize(value, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,157 @@
+package com.patient.app.patient.matching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Blocking keys and weighted fuzzy scoring of patient pairs.
+ * Only patients sharing a block are compared, which turns the all-pairs comparison into many small ones. A patient
+ * belongs to up to three blocks: Soundex of the last name with the ZIP code, the phone number, and the first three
+ * letters of last and first name. There is no date of birth to block or score on.
+ * The score weighs Jaro-Winkler similarity of last name (0.30), first name (0.20), address (0.10) and email (0.10)
+ * with equality of phone number (0.20) and ZIP code (0.10), from 0 for nothing alike to 1 for identical patients.
+ * */
+public final class PatientMatcher {
+
+    private static final double LAST_NAME = 0.30;
+    private static final double FIRST_NAME = 0.20;
+    private static final double PHONE = 0.20;
+    private static final double ADDRESS = 0.10;
+    private static final double ZIP_CODE = 0.10;
+    private static final double EMAIL = 0.10;
+
+    private static final int MIN_PHONE_DIGITS = 7;
+    private static final String SOUNDEX_CODES = "01230120022455012623010202";
+
+    private PatientMatcher() {
+    }
+
+    /**
+     * @return similarity of two patients, from 0 to 1
+     */
+    public static double score(MatchablePatient a, MatchablePatient b) {
+        double phone = a.phoneDigits().length() >= MIN_PHONE_DIGITS && a.phoneDigits().equals(b.phoneDigits()) ? 1 : 0;
+        double zip = !a.zipCode().isEmpty() && a.zipCode().equals(b.zipCode()) ? 1 : 0;
+        return LAST_NAME * jaroWinkler(a.lastName(), b.lastName())
+                + FIRST_NAME * jaroWinkler(a.firstName(), b.firstName())
+                + PHONE * phone
+                + ADDRESS * jaroWinkler(a.address(), b.address())
+                + ZIP_CODE * zip
+                + EMAIL * jaroWinkler(a.email(), b.email());
+    }
+
+    /**
+     * Whether a pair was already compared in the block of a smaller key they share, whose block is compared.
+     * Lets every pair be scored once however many blocks it shares.
+     * @param key key of the block being compared
+     * @param compared whether the block of a key is compared, i.e. not too large
+     */
+    public static boolean comparedBefore(MatchablePatient a, MatchablePatient b, String key,
+                                         Predicate<String> compared) {
+        for (String shared : a.blockingKeys()) {
+            if (shared.compareTo(key) >= 0) {
+                return false;
+            }
+            if (b.blockingKeys().contains(shared) && compared.test(shared)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static List<String> blockingKeys(String firstName, String lastName, String zipCode, String phoneDigits) {
+        List<String> keys = new ArrayList<>(3);
+        if (!lastName.isEmpty() && !zipCode.isEmpty()) {
+            keys.add("S:" + soundex(lastName) + ":" + zipCode);
+        }
+        if (phoneDigits.length() >= MIN_PHONE_DIGITS) {
+            keys.add("P:" + phoneDigits);
+        }
+        if (lastName.length() >= 2 && firstName.length() >= 2) {
+            keys.add("N:" + prefix(lastName) + ":" + prefix(firstName));
+        }
+        Collections.sort(keys);
+        return List.copyOf(keys);
+    }
+
+    /**
+     * American Soundex: first letter and three digits for the consonant sounds that follow.
+     * @param letters lower-case ASCII letters, not empty
+     */
+    static String soundex(String letters) {
+        StringBuilder code = new StringBuilder(4).append(Character.toUpperCase(letters.charAt(0)));
+        char previous = SOUNDEX_CODES.charAt(letters.charAt(0) - 'a');
+        for (int i = 1; i < letters.length() && code.length() < 4; i++) {
+            char c = letters.charAt(i);
+            char digit = SOUNDEX_CODES.charAt(c - 'a');
+            if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            // h and w do not separate equal codes, vowels do
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    /**
+     * Jaro-Winkler similarity with the usual prefix scale 0.1 over up to four characters.
+     * @return 1 for equal strings, 0 when nothing matches or either is empty
+     */
+    static double jaroWinkler(String s, String t) {
+        if (s.equals(t)) {
+            return s.isEmpty() ? 0 : 1;
+        }
+        if (s.isEmpty() || t.isEmpty()) {
+            return 0;
+        }
+        int window = Math.max(0, Math.max(s.length(), t.length()) / 2 - 1);
+        boolean[] sMatched = new boolean[s.length()];
+        boolean[] tMatched = new boolean[t.length()];
+        int matches = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(t.length(), i + window + 1);
+            for (int j = from; j < to; j++) {
+                if (!tMatched[j] && s.charAt(i) == t.charAt(j)) {
+                    sMatched[i] = true;
+                    tMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < s.length(); i++) {
+            if (sMatched[i]) {
+                while (!tMatched[j]) {
+                    j++;
+                }
+                if (s.charAt(i) != t.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / s.length() + m / t.length() + (m - transpositions / 2.0) / m) / 3;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(s.length(), t.length())) && s.charAt(prefix) == t.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    private static String prefix(String letters) {
+        return letters.substring(0, Math.min(3, letters.length()));
+    }
+}
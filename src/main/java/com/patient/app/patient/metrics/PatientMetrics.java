@@ -0,0 +1,65 @@
+package com.patient.app.patient.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Business counters of the patient service that are not covered by the per-method timers.
+ * */
+@Component
+public class PatientMetrics {
+
+    private final Counter createEmailConflicts;
+    private final Counter updateEmailConflicts;
+    private final Counter outboxPublished;
+    private final Counter outboxCompacted;
+
+    public PatientMetrics(MeterRegistry registry) {
+        this.createEmailConflicts = emailConflictCounter(registry, "create");
+        this.updateEmailConflicts = emailConflictCounter(registry, "update");
+        this.outboxPublished = Counter.builder("patient.outbox.published")
+                .description("Patient changes published to the change feed")
+                .register(registry);
+        this.outboxCompacted = Counter.builder("patient.outbox.compacted")
+                .description("Superseded patient changes removed from the change feed")
+                .register(registry);
+    }
+
+    private static Counter emailConflictCounter(MeterRegistry registry, String operation) {
+        return Counter.builder("patient.email.conflicts")
+                .description("Requests rejected because the email already belongs to another patient")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Record a create rejected by the existsByEmail check.
+     */
+    public void createEmailConflict() {
+        createEmailConflicts.increment();
+    }
+
+    /**
+     * Record an update rejected by the uk_patient_email constraint.
+     */
+    public void updateEmailConflict() {
+        updateEmailConflicts.increment();
+    }
+
+    /**
+     * Record changes published by the outbox relay.
+     * @param count number of published changes
+     */
+    public void outboxPublished(int count) {
+        outboxPublished.increment(count);
+    }
+
+    /**
+     * Record changes removed by outbox compaction.
+     * @param count number of removed changes
+     */
+    public void outboxCompacted(int count) {
+        outboxCompacted.increment(count);
+    }
+}
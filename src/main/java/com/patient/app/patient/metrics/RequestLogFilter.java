@@ -0,0 +1,97 @@
+package com.patient.app.patient.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tags every log line of a request with a correlation id (MDC key requestId) and writes one line per sampled
+ * request to the logger patient.requests, with method, URI pattern, status and duration as key-value pairs.
+ * The correlation id is taken from the request header when the client sent a usable one and echoed on the response.
+ * Asynchronous requests such as streams are logged when their async dispatch completes.
+ * */
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    public static final String MDC_KEY = "requestId";
+
+    private static final Logger REQUESTS = LoggerFactory.getLogger("patient.requests");
+    private static final String REQUEST_ID = RequestLogFilter.class.getName() + ".requestId";
+    private static final String STARTED = RequestLogFilter.class.getName() + ".started";
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    private final double sampleRate;
+    private final String header;
+
+    public RequestLogFilter(double sampleRate, String header) {
+        this.sampleRate = sampleRate;
+        this.header = header;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId;
+        if (isAsyncDispatch(request)) {
+            requestId = (String) request.getAttribute(REQUEST_ID);
+        } else {
+            requestId = requestId(request.getHeader(header));
+            request.setAttribute(REQUEST_ID, requestId);
+            request.setAttribute(STARTED, System.nanoTime());
+            response.setHeader(header, requestId);
+        }
+        MDC.put(MDC_KEY, requestId);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!isAsyncStarted(request)) {
+                log(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus());
+            }
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    private void log(HttpServletRequest request, int status) {
+        if (!REQUESTS.isInfoEnabled() || status < 500 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        Object started = request.getAttribute(STARTED);
+        long millis = started == null ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long) started);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? request.getRequestURI() : pattern.toString();
+        REQUESTS.atInfo()
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("uri", uri)
+                .addKeyValue("status", status)
+                .addKeyValue("durationMs", millis)
+                .log("{} {} {} in {} ms", request.getMethod(), uri, status, millis);
+    }
+
+    private static String requestId(String sent) {
+        if (sent != null && !sent.isBlank() && sent.length() <= MAX_REQUEST_ID_LENGTH && sent.chars().allMatch(RequestLogFilter::isIdChar)) {
+            return sent;
+        }
+        return HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static boolean isIdChar(int c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_' || c == '.';
+    }
+}
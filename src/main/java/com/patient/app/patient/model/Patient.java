@@ -1,5 +1,7 @@
 package com.patient.app.patient.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -9,6 +11,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,11 +20,13 @@ import java.time.LocalDateTime;
 
 /**
  * Entity class representing a Patient in the system.
+ * Cached in the Hibernate second-level cache region "patient".
+ * The table, its uk_patient_email constraint and its indexes are created by the migrations in db/migration.
  */
 @Entity
-@Table(name = "patients", uniqueConstraints = {
-        @UniqueConstraint(name = "uk_patient_email", columnNames = "email")
-})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patient")
+@Table(name = "patients")
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,10 +35,11 @@ public class Patient {
 
     /**
      * Primary key identifier for the patient.
-     * Uses database identity generation for auto-increment.
+     * Uses a pooled database sequence so ids are known before insert and inserts can be JDBC-batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_id_generator")
+    @SequenceGenerator(name = "patient_id_generator", sequenceName = "patients_seq", allocationSize = 50)
     private Integer id;
 
     /**
@@ -89,16 +96,34 @@ public class Patient {
     @Column(name = "phone_number", nullable = false, length = 15)
     private String phoneNumber;
 
+    /**
+     * Digits-only form of the phone number, used to look patients up by phone regardless of formatting.
+     * Derived from phoneNumber on every insert and update.
+     */
+    @JsonIgnore
+    @Column(name = "phone_digits", length = 15)
+    private String phoneDigits;
+
     /**
      * Patient's email address.
      * Validation: Required, valid email format, unique in system
+     * Unique regardless of case; the case as entered is kept.
      */
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
     @Size(max = 100, message = "Email must not exceed 100 characters")
-    @Column(nullable = false, length = 100, unique = true)
+    @Column(nullable = false, length = 100)
     private String email;
 
+    /**
+     * Optimistic lock version, incremented by every update.
+     * Clients see it in the ETag and send it back in If-Match to make writes conditional.
+     */
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     /**
      * Timestamp when the patient record was created.
      * Automatically set by Hibernate on initial persist.
@@ -115,6 +140,12 @@ public class Patient {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @PrePersist
+    @PreUpdate
+    void normalizePhoneNumber() {
+        phoneDigits = PhoneNumbers.normalize(phoneNumber);
+    }
+
     @Override
     public String toString() {
         return "Patient{" +
@@ -127,16 +158,22 @@ public class Patient {
                 '}';
     }
 
+    /**
+     * Patients are the same patient when they have the same id; a new patient is only equal to itself.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (!(o instanceof Patient)) return false;
-        Patient patient = (Patient) o;
-        return email != null && email.equals(patient.email);
+        if (!(o instanceof Patient patient)) return false;
+        return id != null && id.equals(patient.id);
     }
 
+    /**
+     * The same hash for every patient, so it does not change when persisting assigns the id and a new patient
+     * held in a hash-based collection is still found after a save. Large sets of patients should be keyed by id.
+     */
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return Patient.class.hashCode();
     }
 }
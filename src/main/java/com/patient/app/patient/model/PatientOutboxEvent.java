@@ -0,0 +1,59 @@
+package com.patient.app.patient.model;
+
+import com.patient.app.patient.event.PatientChangedEvent.ChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One patient change, written in the same transaction as the change itself.
+ * The relay later assigns the sequence, which orders changes by commit and is the position consumers of the
+ * change feed resume from. Rows without a sequence are not visible in the feed yet.
+ */
+@Entity
+@Table(name = "patient_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientOutboxEvent {
+
+    /**
+     * Insertion id. Ids are allocated before commit, so they do not reflect the order changes become visible.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_outbox_id_generator")
+    @SequenceGenerator(name = "patient_outbox_id_generator", sequenceName = "patient_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Publication order assigned by the relay after commit; null until published.
+     */
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ChangeType type;
+
+    @Column(name = "patient_id", nullable = false)
+    private Integer patientId;
+
+    /**
+     * Version of the patient written by the change, null for deletes.
+     */
+    @Column(name = "patient_version")
+    private Long patientVersion;
+
+    /**
+     * JSON of the patient as written, null for deletes.
+     */
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
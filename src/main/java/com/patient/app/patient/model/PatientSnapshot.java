@@ -0,0 +1,64 @@
+package com.patient.app.patient.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a patient's state, safe to share between threads.
+ * Used wherever patient data is kept outside a persistence context, e.g. in caches.
+ */
+public record PatientSnapshot(
+        Integer id,
+        String firstName,
+        String lastName,
+        String address,
+        String city,
+        String state,
+        String zipCode,
+        String phoneNumber,
+        String email,
+        Long version,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    /**
+     * Copy the current state of a patient.
+     * @param patient patient entity, managed or detached
+     * @return snapshot of the patient
+     */
+    public static PatientSnapshot of(Patient patient) {
+        return new PatientSnapshot(
+                patient.getId(),
+                patient.getFirstName(),
+                patient.getLastName(),
+                patient.getAddress(),
+                patient.getCity(),
+                patient.getState(),
+                patient.getZipCode(),
+                patient.getPhoneNumber(),
+                patient.getEmail(),
+                patient.getVersion(),
+                patient.getCreatedAt(),
+                patient.getUpdatedAt());
+    }
+
+    /**
+     * Build a new detached patient holding this snapshot's state.
+     * @return a fresh Patient instance owned by the caller
+     */
+    public Patient toPatient() {
+        return Patient.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName(lastName)
+                .address(address)
+                .city(city)
+                .state(state)
+                .zipCode(zipCode)
+                .phoneNumber(phoneNumber)
+                .email(email)
+                .version(version)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.patient.app.patient.model;
+
+/**
+ * Normalization of phone numbers for indexing and lookup.
+ */
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Reduce a phone number to its digits so differently formatted numbers compare equal,
+     * e.g. "(123) 456-7890", "123.456.7890" and "+1 123 456 7890" all become "1234567890".
+     * @param phoneNumber phone number as entered, may be null
+     * @return digits only, without a leading US country code on 11-digit numbers; null for null input
+     */
+    public static String normalize(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() == 11 && digits.charAt(0) == '1') {
+            digits.deleteCharAt(0);
+        }
+        return digits.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package com.patient.app.patient.outbox;
+
+import com.patient.app.patient.config.PatientOutboxProperties;
+import com.patient.app.patient.dto.PatientFeedEvent;
+import com.patient.app.patient.repository.PatientOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes published changes to Server-Sent Events subscribers of the change feed.
+ * Each subscriber first catches up from the outbox table and then receives the batches of the relay.
+ * Delivery per subscriber is serialized on a virtual thread, so a slow client delays only itself;
+ * a subscriber that missed batches (e.g. it was still catching up) fills the gap from the table.
+ * */
+@Component
+@Slf4j
+public class PatientFeedBroadcaster implements MeterBinder {
+
+    private final PatientOutboxRepository outboxRepository;
+    private final PatientOutboxProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PatientFeedBroadcaster(PatientOutboxRepository outboxRepository, PatientOutboxProperties properties) {
+        this.outboxRepository = outboxRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Open a stream of changes.
+     * @param after send changes after this sequence; null to send only changes published from now on
+     * @return emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long after) {
+        long position = after == null ? outboxRepository.findLastSequence() : after;
+        Subscriber subscriber = new Subscriber(new SseEmitter(properties.streamTimeout().toMillis()), position);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // An empty batch still triggers the catch-up from the table
+        subscriber.offer(List.of());
+        return subscriber.emitter;
+    }
+
+    /**
+     * Hand a committed batch of changes to every subscriber.
+     * @param batch changes in sequence order
+     */
+    public void broadcast(List<PatientFeedEvent> batch) {
+        subscribers.forEach(subscriber -> subscriber.offer(batch));
+    }
+
+    /**
+     * Keep idle connections open through proxies that close silent streams.
+     */
+    @Scheduled(fixedDelayString = "${patient.outbox.heartbeat:15s}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscriber.close(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("patient.feed.subscribers", subscribers, Set::size)
+                .description("Open Server-Sent Events connections of the patient change feed")
+                .register(registry);
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<List<PatientFeedEvent>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Only touched by the single draining thread
+        private long lastSent;
+
+        private Subscriber(SseEmitter emitter, long lastSent) {
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+        }
+
+        private void offer(List<PatientFeedEvent> batch) {
+            pending.add(batch);
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    List<PatientFeedEvent> batch;
+                    while ((batch = pending.poll()) != null) {
+                        deliver(batch);
+                    }
+                    draining.set(false);
+                    // A batch offered after the last poll but before the flag was cleared is picked up here
+                } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | RuntimeException e) {
+                close(e);
+            }
+        }
+
+        private void deliver(List<PatientFeedEvent> batch) throws IOException {
+            if (batch.isEmpty()) {
+                catchUp();
+                return;
+            }
+            long first = batch.getFirst().sequence();
+            if (first > lastSent + 1) {
+                for (var event : outboxRepository.findBySequenceGreaterThanAndSequenceLessThanOrderBySequenceAsc(lastSent, first)) {
+                    send(PatientFeedEvent.of(event));
+                }
+            }
+            for (PatientFeedEvent event : batch) {
+                if (event.sequence() > lastSent) {
+                    send(event);
+                }
+            }
+        }
+
+        private void catchUp() throws IOException {
+            int batchSize = properties.relayBatchSize();
+            List<PatientFeedEvent> page;
+            do {
+                page = outboxRepository.findBySequenceGreaterThanOrderBySequenceAsc(lastSent, Limit.of(batchSize))
+                        .stream().map(PatientFeedEvent::of).toList();
+                for (PatientFeedEvent event : page) {
+                    send(event);
+                }
+            } while (page.size() == batchSize);
+        }
+
+        private void send(PatientFeedEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.sequence()))
+                    .name(event.type().name().toLowerCase())
+                    .data(event, MediaType.APPLICATION_JSON));
+            lastSent = event.sequence();
+        }
+
+        private void close(Exception cause) {
+            log.debug("Closing patient feed subscriber after {}", cause.toString());
+            subscribers.remove(this);
+            pending.clear();
+            emitter.completeWithError(cause);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.patient.app.patient.outbox;
+
+import com.patient.app.patient.config.PatientOutboxProperties;
+import com.patient.app.patient.dto.PatientFeedEvent;
+import com.patient.app.patient.metrics.PatientMetrics;
+import com.patient.app.patient.model.PatientOutboxEvent;
+import com.patient.app.patient.repository.PatientOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publishes committed outbox rows to the change feed.
+ * Sequences are assigned here, after the writing transactions have committed, so the feed order is the
+ * order in which changes became visible: a consumer that has read up to a sequence never later finds a
+ * change with a smaller one. Published batches are pushed to live stream subscribers.
+ * */
+@Component
+@Slf4j
+public class PatientOutboxRelay {
+
+    private final PatientOutboxRepository outboxRepository;
+    private final PatientFeedBroadcaster broadcaster;
+    private final PatientMetrics patientMetrics;
+    private final PatientOutboxProperties properties;
+    private final TransactionTemplate transaction;
+
+    public PatientOutboxRelay(PatientOutboxRepository outboxRepository, PatientFeedBroadcaster broadcaster,
+                              PatientMetrics patientMetrics, PatientOutboxProperties properties,
+                              PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.broadcaster = broadcaster;
+        this.patientMetrics = patientMetrics;
+        this.properties = properties;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Publish all unpublished outbox rows, one batch per transaction.
+     * @return number of published changes
+     */
+    @Scheduled(fixedDelayString = "${patient.outbox.relay-interval:200ms}")
+    public int relay() {
+        int published = 0;
+        List<PatientFeedEvent> batch;
+        do {
+            batch = transaction.execute(status -> publishBatch());
+            if (!batch.isEmpty()) {
+                // Only committed sequences may reach subscribers
+                broadcaster.broadcast(batch);
+                published += batch.size();
+            }
+        } while (batch.size() == properties.relayBatchSize());
+        return published;
+    }
+
+    /**
+     * Give the next batch of unpublished rows their sequences; must run in a transaction.
+     * The high-water mark is locked before the rows are read: a concurrent relay, on this or another instance, waits
+     * for the commit and then continues after the last sequence handed out, so batches commit in sequence order.
+     * @return the published changes
+     */
+    List<PatientFeedEvent> publishBatch() {
+        long sequence = outboxRepository.lockLastSequence();
+        List<PatientOutboxEvent> pending = outboxRepository.findBySequenceIsNullOrderByIdAsc(Limit.of(properties.relayBatchSize()));
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        for (PatientOutboxEvent event : pending) {
+            event.setSequence(++sequence);
+        }
+        outboxRepository.updateLastSequence(sequence);
+        patientMetrics.outboxPublished(pending.size());
+        log.debug("Published {} patient changes up to sequence {}", pending.size(), sequence);
+        return pending.stream().map(PatientFeedEvent::of).toList();
+    }
+
+    /**
+     * Compact the feed: remove old changes that a later change of the same patient supersedes,
+     * and delete events whose tombstone retention has passed.
+     * @return number of removed changes
+     */
+    @Scheduled(fixedDelayString = "${patient.outbox.compaction-interval:1h}", initialDelayString = "${patient.outbox.compaction-interval:1h}")
+    public int compact() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer removed = transaction.execute(status ->
+                outboxRepository.deleteSuperseded(now.minus(properties.retention()))
+                        + outboxRepository.deleteTombstones(now.minus(properties.tombstoneRetention())));
+        patientMetrics.outboxCompacted(removed);
+        log.info("Compacted {} patient changes from the outbox", removed);
+        return removed;
+    }
+}
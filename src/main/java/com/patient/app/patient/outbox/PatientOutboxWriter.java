@@ -0,0 +1,74 @@
+package com.patient.app.patient.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.event.PatientChangedEvent;
+import com.patient.app.patient.event.PatientChangedEvent.ChangeType;
+import com.patient.app.patient.json.PatientJsonCache;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PatientOutboxEvent;
+import com.patient.app.patient.repository.PatientOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records every patient change in the outbox inside the transaction that makes the change,
+ * so a change and its feed entry are committed or rolled back together.
+ * */
+@Component
+@Slf4j
+public class PatientOutboxWriter {
+
+    private final PatientOutboxRepository outboxRepository;
+    private final ObjectWriter patientWriter;
+
+    public PatientOutboxWriter(PatientOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        // The change is not committed yet: its version could still be rolled back and reused, so keep it out of the JSON cache
+        this.patientWriter = objectMapper.writerFor(PatientResponse.class).withAttribute(PatientJsonCache.BYPASS, Boolean.TRUE);
+    }
+
+    /**
+     * Append a change to the outbox. Runs synchronously in the publisher's transaction; a change published
+     * outside of a transaction is a bug, because its feed entry could not be committed atomically with it.
+     * @param event change published by the service layer
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientChanged(PatientChangedEvent event) {
+        Patient patient = event.patient();
+        PatientOutboxEvent outboxEvent = PatientOutboxEvent.builder()
+                .type(event.type())
+                .patientId(event.patientId())
+                .patientVersion(patient == null ? null : patient.getVersion())
+                .payload(patient == null ? null : toJson(patient))
+                .occurredAt(occurredAt(event))
+                .build();
+        outboxRepository.save(outboxEvent);
+        log.debug("Outbox event recorded for {} of patient {}", event.type(), event.patientId());
+    }
+
+    private static LocalDateTime occurredAt(PatientChangedEvent event) {
+        Patient patient = event.patient();
+        if (patient == null) {
+            return LocalDateTime.now();
+        }
+        LocalDateTime changedAt = event.type() == ChangeType.CREATED ? patient.getCreatedAt() : patient.getUpdatedAt();
+        return changedAt == null ? LocalDateTime.now() : changedAt;
+    }
+
+    private String toJson(Patient patient) {
+        try {
+            return patientWriter.writeValueAsString(PatientResponse.of(patient));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Patient " + patient.getId() + " cannot be serialized for the outbox", e);
+        }
+    }
+}
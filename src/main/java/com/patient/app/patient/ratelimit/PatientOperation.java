@@ -0,0 +1,45 @@
+package com.patient.app.patient.ratelimit;
+
+/**
+ * Kinds of patient API requests that get their own rate limit budget, from cheap to expensive.
+ * */
+public enum PatientOperation {
+    /** One patient or a batch of patients by id, and other small lookups */
+    READ,
+    /** Pages and streams of the whole table: listings, searches and the duplicate report */
+    LIST,
+    /** The change feed, including its long-lived stream */
+    FEED,
+    /** Export jobs and downloads */
+    EXPORT,
+    /** Bulk imports and queued creates */
+    BULK,
+    /** Single-patient creates, updates and deletes */
+    WRITE;
+
+    private static final String PATIENTS = "/api/v1/patients";
+
+    /**
+     * Classify a request.
+     * @param method HTTP method
+     * @param path request path below the context path
+     * @return operation of the request
+     */
+    public static PatientOperation of(String method, String path) {
+        String rest = path.startsWith(PATIENTS) ? path.substring(PATIENTS.length()) : path;
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (rest.startsWith("/exports")) {
+            return EXPORT;
+        }
+        if (rest.startsWith("/bulk") || rest.startsWith("/ingest") && !read) {
+            return BULK;
+        }
+        if (rest.startsWith("/changes")) {
+            return FEED;
+        }
+        if (read) {
+            return rest.isEmpty() || rest.equals("/") || rest.startsWith("/search") || rest.startsWith("/duplicates") ? LIST : READ;
+        }
+        return WRITE;
+    }
+}
@@ -0,0 +1,135 @@
+package com.patient.app.patient.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patient.app.patient.ratelimit.PatientRateLimiter.Permit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Applies the per-client budgets of {@link PatientRateLimiter} to the patient API.
+ * Every response carries RateLimit-Limit, RateLimit-Remaining and RateLimit-Reset for the budget of its operation;
+ * a refused request gets 429 with Retry-After. The in-flight slot of a request is held until its response is
+ * complete, including streams that finish asynchronously.
+ * */
+@Slf4j
+public class PatientRateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT = "RateLimit-Limit";
+    static final String REMAINING = "RateLimit-Remaining";
+    static final String RESET = "RateLimit-Reset";
+
+    private final PatientRateLimiter limiter;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    public PatientRateLimitFilter(PatientRateLimiter limiter, String apiKeyHeader, Set<String> apiKeys,
+                                  ObjectMapper objectMapper, MeterRegistry registry) {
+        this.limiter = limiter;
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = apiKeys;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PatientOperation operation = PatientOperation.of(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        Permit permit = limiter.acquire(client(request), operation);
+        if (permit.limit() >= 0) {
+            response.setHeader(LIMIT, Long.toString(permit.limit()));
+            response.setHeader(REMAINING, Long.toString(permit.remaining()));
+            response.setHeader(RESET, Long.toString(permit.resetSeconds()));
+        }
+        if (!permit.granted()) {
+            reject(response, operation, permit);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Release(permit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * A listed API key identifies the client; anything else is limited by the address it comes from, so inventing
+     * keys does not buy fresh budgets.
+     */
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, PatientOperation operation, Permit permit) throws IOException {
+        Counter.builder("patient.rate-limit.rejected")
+                .description("Patient API requests refused because the client exceeded its budget")
+                .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                .tag("reason", permit.reason().name().toLowerCase(Locale.ROOT))
+                .register(registry)
+                .increment();
+        log.debug("Rate limited {} request: {}", operation, permit.reason());
+
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS,
+                permit.reason() == PatientRateLimiter.Reason.CONCURRENCY
+                        ? "Too many " + operation.name().toLowerCase(Locale.ROOT) + " requests in progress for this client"
+                        : "Rate limit of " + permit.limit() + " " + operation.name().toLowerCase(Locale.ROOT) + " requests exceeded");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, permit.retryAfterSeconds())));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    /**
+     * Releases the in-flight slot of an asynchronous request once its response is complete.
+     */
+    private record Release(Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
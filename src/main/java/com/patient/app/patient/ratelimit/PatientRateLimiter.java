@@ -0,0 +1,201 @@
+package com.patient.app.patient.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.patient.app.patient.config.PatientRateLimitProperties;
+import com.patient.app.patient.config.PatientRateLimitProperties.Budget;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-client token buckets and in-flight counters, one of each per operation.
+ * A bucket is kept as the time at which it will be full again (the generic cell rate algorithm): taking a token moves
+ * that time one token's worth of refill later, with a single compare-and-set, and is refused when the time would lie
+ * further ahead than a full bucket's worth. Client state lives in a bounded concurrent cache and is dropped once the
+ * client has been idle for a while, so no lock is shared between requests, not even of the same client.
+ * */
+public class PatientRateLimiter {
+
+    private static final PatientOperation[] OPERATIONS = PatientOperation.values();
+
+    private final Limit[] limits = new Limit[OPERATIONS.length];
+    private final Cache<String, Client> clients;
+
+    public PatientRateLimiter(PatientRateLimitProperties properties) {
+        properties.budgets().forEach((operation, budget) -> limits[operation.ordinal()] = new Limit(budget));
+        this.clients = Caffeine.newBuilder()
+                .expireAfterAccess(properties.idleTimeout())
+                .maximumSize(properties.maxClients())
+                .build();
+    }
+
+    /**
+     * Take a token and an in-flight slot of the client's budget for the operation.
+     * @param client key of the client
+     * @param operation operation of the request
+     * @return the decision; when granted, {@link Permit#release()} must be called once the request is done
+     */
+    public Permit acquire(String client, PatientOperation operation) {
+        Limit limit = limits[operation.ordinal()];
+        if (limit == null) {
+            return Permit.UNLIMITED;
+        }
+        Client state = clients.get(client, key -> new Client());
+        int index = operation.ordinal();
+
+        if (limit.concurrent > 0 && state.inFlight.incrementAndGet(index) > limit.concurrent) {
+            state.inFlight.decrementAndGet(index);
+            return new Permit(false, Reason.CONCURRENCY, limit.requests, 0, 0, 1, null, index);
+        }
+
+        long now = System.nanoTime();
+        while (true) {
+            long full = state.fullAt.get(index);
+            long after = Math.max(full, now) + limit.interval;
+            long ahead = after - now;
+            if (ahead > limit.capacity) {
+                if (limit.concurrent > 0) {
+                    state.inFlight.decrementAndGet(index);
+                }
+                long remaining = Math.max(0, limit.capacity - (full - now)) / limit.interval;
+                return new Permit(false, Reason.RATE, limit.requests, remaining, seconds(full - now),
+                        seconds(ahead - limit.capacity), null, index);
+            }
+            if (state.fullAt.compareAndSet(index, full, after)) {
+                return new Permit(true, null, limit.requests, (limit.capacity - ahead) / limit.interval, seconds(ahead),
+                        0, limit.concurrent > 0 ? state.inFlight : null, index);
+            }
+        }
+    }
+
+    private static long seconds(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Why a request was refused.
+     */
+    public enum Reason {
+        /** The client used up its requests for the period */
+        RATE,
+        /** The client has as many requests of the operation in progress as it may */
+        CONCURRENCY
+    }
+
+    /**
+     * Outcome of {@link #acquire}, with the values of the rate limit response headers.
+     */
+    public static final class Permit {
+
+        static final Permit UNLIMITED = new Permit(true, null, -1, 0, 0, 0, null, 0);
+
+        private final boolean granted;
+        private final Reason reason;
+        private final long limit;
+        private final long remaining;
+        private final long resetSeconds;
+        private final long retryAfterSeconds;
+        private final AtomicIntegerArray inFlight;
+        private final int index;
+
+        Permit(boolean granted, Reason reason, long limit, long remaining, long resetSeconds, long retryAfterSeconds,
+               AtomicIntegerArray inFlight, int index) {
+            this.granted = granted;
+            this.reason = reason;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetSeconds = resetSeconds;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.inFlight = inFlight;
+            this.index = index;
+        }
+
+        /**
+         * @return whether the request may proceed
+         */
+        public boolean granted() {
+            return granted;
+        }
+
+        /**
+         * @return why the request may not proceed, or null
+         */
+        public Reason reason() {
+            return reason;
+        }
+
+        /**
+         * @return requests per period, or -1 when the operation is not limited
+         */
+        public long limit() {
+            return limit;
+        }
+
+        /**
+         * @return requests the client could still make right now
+         */
+        public long remaining() {
+            return remaining;
+        }
+
+        /**
+         * @return seconds until all of the client's requests are available again
+         */
+        public long resetSeconds() {
+            return resetSeconds;
+        }
+
+        /**
+         * @return seconds after which a refused request may succeed
+         */
+        public long retryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        /**
+         * Give back the in-flight slot of a granted request; call exactly once.
+         */
+        public void release() {
+            if (inFlight != null) {
+                inFlight.decrementAndGet(index);
+            }
+        }
+    }
+
+    /**
+     * Budget of one operation in the units the buckets work in.
+     */
+    private static final class Limit {
+        final long requests;
+        final long interval;
+        final long capacity;
+        final int concurrent;
+
+        Limit(Budget budget) {
+            if (budget.requests() <= 0 || budget.period().isNegative() || budget.period().isZero()) {
+                throw new IllegalStateException("A patient rate limit budget needs a positive number of requests and period");
+            }
+            this.requests = budget.requests();
+            this.interval = Math.max(1, budget.period().toNanos() / budget.requests());
+            this.capacity = interval * budget.requests();
+            this.concurrent = budget.concurrent();
+        }
+    }
+
+    /**
+     * State of one client: per operation, the time its bucket is full again and its requests in progress.
+     */
+    private static final class Client {
+        final AtomicLongArray fullAt = new AtomicLongArray(OPERATIONS.length);
+        final AtomicIntegerArray inFlight = new AtomicIntegerArray(OPERATIONS.length);
+
+        Client() {
+            long now = System.nanoTime();
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                fullAt.set(i, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.patient.app.patient.replica;
+
+/**
+ * Whether the current thread's read-only transactions must use the primary, e.g. because its client just wrote.
+ * Must be set before a transaction starts: its connection is chosen when the transaction first touches the database.
+ * */
+public final class PatientReplicaContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private PatientReplicaContext() {
+    }
+
+    /**
+     * @return whether reads of this thread are pinned to the primary
+     */
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    /**
+     * Route the reads of this thread to the primary until {@link #unpin()}.
+     */
+    public static void pinToPrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    /**
+     * Let the reads of this thread use the replicas again.
+     */
+    public static void unpin() {
+        PRIMARY.remove();
+    }
+}
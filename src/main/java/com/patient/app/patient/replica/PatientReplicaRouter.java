@@ -0,0 +1,164 @@
+package com.patient.app.patient.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the database a read-only transaction runs on.
+ * Reads take the replicas in turn, skipping replicas that lag more than the allowed lag or cannot be reached, and
+ * fall back to the primary when none is left or the thread is pinned to the primary. Lag is measured periodically
+ * rather than per read; a replica counts as lagging until its first measurement.
+ * Publishes patient.replica.lag per replica and patient.replica.reads per target and reason.
+ * */
+@Slf4j
+public class PatientReplicaRouter implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final double maxLagSeconds;
+    private final String lagQuery;
+    private final MeterRegistry registry;
+    private final Map<String, Double> lags = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final DataSource readDataSource = new ReadDataSource();
+    private volatile List<String> usable = List.of();
+
+    /**
+     * @param primary data source of the primary
+     * @param replicas replica data sources by name
+     * @param maxLag replicas lagging further are skipped
+     * @param lagQuery query returning a replica's lag in seconds
+     */
+    public PatientReplicaRouter(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, String lagQuery,
+                                MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.lagQuery = lagQuery;
+        this.registry = registry;
+        for (String replica : replicas.keySet()) {
+            Gauge.builder("patient.replica.lag", lags, lag -> lag.getOrDefault(replica, Double.POSITIVE_INFINITY))
+                    .description("Replication lag of a read replica; +Inf while it cannot be measured")
+                    .baseUnit("seconds")
+                    .tag("replica", replica)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * @return data source handing out connections for read-only transactions
+     */
+    public DataSource readDataSource() {
+        return readDataSource;
+    }
+
+    /**
+     * @return names of the replicas reads are currently balanced over
+     */
+    public List<String> usableReplicas() {
+        return usable;
+    }
+
+    /**
+     * Measure the lag of every replica and recompute which of them reads may use.
+     */
+    @Scheduled(fixedDelayString = "${patient.replicas.lag-check-interval:1s}")
+    public void checkLag() {
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            double lag;
+            try {
+                Double measured = new JdbcTemplate(replica.getValue()).queryForObject(lagQuery, Double.class);
+                lag = measured == null ? Double.POSITIVE_INFINITY : measured;
+            } catch (RuntimeException e) {
+                log.warn("Lag of replica {} could not be measured: {}", replica.getKey(), e.getMessage());
+                lag = Double.POSITIVE_INFINITY;
+            }
+            lags.put(replica.getKey(), lag);
+        }
+        updateUsable();
+    }
+
+    /**
+     * Close the replica pools.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection readConnection() throws SQLException {
+        if (PatientReplicaContext.isPinnedToPrimary()) {
+            return onPrimary("sticky");
+        }
+        List<String> candidates = usable;
+        for (int attempt = 0; attempt < candidates.size(); attempt++) {
+            String replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+            try {
+                Connection connection = replicas.get(replica).getConnection();
+                count(replica, "balanced");
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Replica {} refused a connection, skipping it until its next lag check: {}", replica, e.getMessage());
+                lags.put(replica, Double.POSITIVE_INFINITY);
+                updateUsable();
+            }
+        }
+        return onPrimary(candidates.isEmpty() ? "lag" : "unavailable");
+    }
+
+    private Connection onPrimary(String reason) throws SQLException {
+        Connection connection = primary.getConnection();
+        count(PRIMARY, reason);
+        return connection;
+    }
+
+    private void count(String target, String reason) {
+        registry.counter("patient.replica.reads", "target", target, "reason", reason).increment();
+    }
+
+    private synchronized void updateUsable() {
+        List<String> within = new ArrayList<>();
+        for (String replica : replicas.keySet()) {
+            if (lags.getOrDefault(replica, Double.POSITIVE_INFINITY) <= maxLagSeconds) {
+                within.add(replica);
+            }
+        }
+        if (!within.equals(usable)) {
+            log.info("Reads now balanced over replicas {}", within);
+        }
+        usable = List.copyOf(within);
+    }
+
+    private final class ReadDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Replica connections use the configured credentials");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.patient.app.patient.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Gives clients read-your-writes on top of replica reads.
+ * A request that may write marks its client with a short-lived cookie; while the cookie lasts, the client's reads
+ * are pinned to the primary, on whichever instance they arrive.
+ * */
+public class PatientReplicaStickinessFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "patient-read-primary";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final int stickySeconds;
+
+    public PatientReplicaStickinessFilter(Duration stickiness) {
+        this.stickySeconds = (int) Math.max(1, (stickiness.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            // Set before the chain runs: once the body is written, headers can no longer be added
+            Cookie cookie = new Cookie(COOKIE, "1");
+            cookie.setMaxAge(stickySeconds);
+            cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+        if (!write && !hasCookie(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        PatientReplicaContext.pinToPrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PatientReplicaContext.unpin();
+        }
+    }
+
+    private static boolean hasCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
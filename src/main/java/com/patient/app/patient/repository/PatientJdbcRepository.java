@@ -0,0 +1,173 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.config.PatientListProperties;
+import com.patient.app.patient.matching.MatchablePatient;
+import com.patient.app.patient.model.Patient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the patients table for paths that must not build managed entities.
+ * */
+@Repository
+public class PatientJdbcRepository {
+
+    static final String SELECT_COLUMNS = "select id, first_name, last_name, address, city, state, zip_code, " +
+            "phone_number, email, version, created_at, updated_at from patients";
+
+    /**
+     * Columns duplicate matching compares.
+     */
+    public static final List<String> MATCH_COLUMNS = List.of("id", "first_name", "last_name", "address", "zip_code",
+            "phone_number", "email");
+
+    /**
+     * Maps one patients row to a detached {@link Patient}.
+     */
+    public static final RowMapper<Patient> ROW_MAPPER = PatientJdbcRepository::mapRow;
+
+    private final JdbcTemplate cursorTemplate;
+
+    public PatientJdbcRepository(DataSource dataSource, PatientListProperties properties) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(properties.fetchSize());
+    }
+
+    /**
+     * Read every patient in id order through a forward-only cursor, handing each row to the consumer as it arrives.
+     * Must run inside a transaction so the driver keeps the cursor open instead of buffering the whole result.
+     * @param consumer receives one detached patient per row
+     */
+    public void streamAll(Consumer<Patient> consumer) {
+        cursorTemplate.query(SELECT_COLUMNS + " order by id", rs -> {
+            consumer.accept(mapRow(rs, rs.getRow()));
+        });
+    }
+
+    /**
+     * Read selected columns of the patients after an id in id order through a forward-only cursor.
+     * Must run inside a transaction so the driver keeps the cursor open instead of buffering the whole result.
+     * @param columns column names to select; must come from a fixed whitelist, they are not escaped
+     * @param changedSince only patients updated at or after this time, or null for all
+     * @param afterId only patients with a larger id
+     * @param handler receives the result set positioned on each row
+     */
+    public void streamColumns(List<String> columns, LocalDateTime changedSince, int afterId, RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>();
+        String sql = "select " + String.join(", ", columns) + " from patients" + where(changedSince, afterId, args) + " order by id";
+        cursorTemplate.query(sql, handler, args.toArray());
+    }
+
+    /**
+     * Read the patients with the given ids in one query.
+     * @param ids patient ids
+     * @return detached patients in no particular order; ids without a patient are left out
+     */
+    public List<Patient> findAllById(Collection<Integer> ids) {
+        return cursorTemplate.query(SELECT_COLUMNS + " where id = any(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", ids.toArray())), ROW_MAPPER);
+    }
+
+    /**
+     * Count the patients an export with the same filter would read.
+     */
+    public long count(LocalDateTime changedSince, int afterId) {
+        List<Object> args = new ArrayList<>();
+        Long count = cursorTemplate.queryForObject("select count(*) from patients" + where(changedSince, afterId, args),
+                Long.class, args.toArray());
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Candidates for duplicate matching: patients with the phone number, with the ZIP code and the last name
+     * initial, or with the last and first name prefixes. Each condition is served by an index on PostgreSQL.
+     * @param phoneDigits normalized phone number, or null
+     * @param zipCode ZIP code, or null
+     * @param lastName last name as entered, or null
+     * @param firstName first name as entered, or null
+     * @param limit maximum number of candidates
+     * @return candidates in id order
+     */
+    public List<MatchablePatient> findMatchCandidates(String phoneDigits, String zipCode, String lastName, String firstName, int limit) {
+        List<String> conditions = new ArrayList<>(3);
+        List<Object> args = new ArrayList<>();
+        String last = lastName == null ? "" : lastName.strip().toLowerCase(Locale.ROOT);
+        String first = firstName == null ? "" : firstName.strip().toLowerCase(Locale.ROOT);
+        if (phoneDigits != null && !phoneDigits.isEmpty()) {
+            conditions.add("phone_digits = ?");
+            args.add(phoneDigits);
+        }
+        if (zipCode != null && !zipCode.isEmpty() && !last.isEmpty()) {
+            conditions.add("(zip_code = ? and lower(last_name) like ? escape '\\')");
+            args.add(zipCode);
+            args.add(prefixPattern(last, 1));
+        }
+        if (last.length() >= 2 && first.length() >= 2) {
+            conditions.add("(lower(last_name) like ? escape '\\' and lower(first_name) like ? escape '\\')");
+            args.add(prefixPattern(last, 3));
+            args.add(prefixPattern(first, 3));
+        }
+        if (conditions.isEmpty()) {
+            return List.of();
+        }
+        args.add(limit);
+        return cursorTemplate.query("select " + String.join(", ", MATCH_COLUMNS) + " from patients where "
+                + String.join(" or ", conditions) + " order by id limit ?", PatientJdbcRepository::mapMatchable, args.toArray());
+    }
+
+    /**
+     * Maps a row of {@link #MATCH_COLUMNS} to a {@link MatchablePatient}.
+     */
+    public static MatchablePatient mapMatchable(ResultSet rs, int rowNum) throws SQLException {
+        return MatchablePatient.of(rs.getInt("id"), rs.getString("first_name"), rs.getString("last_name"),
+                rs.getString("address"), rs.getString("zip_code"), rs.getString("phone_number"), rs.getString("email"));
+    }
+
+    private static String prefixPattern(String value, int length) {
+        String prefix = value.substring(0, Math.min(length, value.length()));
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static String where(LocalDateTime changedSince, int afterId, List<Object> args) {
+        args.add(afterId);
+        if (changedSince == null) {
+            return " where id > ?";
+        }
+        args.add(Timestamp.valueOf(changedSince));
+        return " where id > ? and updated_at >= ?";
+    }
+
+    private static Patient mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return Patient.builder()
+                .id(rs.getInt("id"))
+                .firstName(rs.getString("first_name"))
+                .lastName(rs.getString("last_name"))
+                .address(rs.getString("address"))
+                .city(rs.getString("city"))
+                .state(rs.getString("state"))
+                .zipCode(rs.getString("zip_code"))
+                .phoneNumber(rs.getString("phone_number"))
+                .email(rs.getString("email"))
+                .version(rs.getLong("version"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,87 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.model.PatientOutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository of the patient change outbox.
+ * */
+@Repository
+public interface PatientOutboxRepository extends JpaRepository<PatientOutboxEvent, Long> {
+
+    /**
+     * Oldest unpublished changes, locked until the relay transaction has given them their sequences.
+     * @param limit maximum number of rows
+     * @return unpublished changes in insertion order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<PatientOutboxEvent> findBySequenceIsNullOrderByIdAsc(Limit limit);
+
+    /**
+     * @return last sequence handed out, which compaction never takes back
+     */
+    @Query(value = "select last_sequence from patient_outbox_relay where id = 1", nativeQuery = true)
+    long findLastSequence();
+
+    /**
+     * Lock the feed's high-water mark until the transaction ends; other relays wait here.
+     * @return last sequence handed out
+     */
+    @Query(value = "select last_sequence from patient_outbox_relay where id = 1 for update", nativeQuery = true)
+    long lockLastSequence();
+
+    /**
+     * @param sequence last sequence handed out by the current relay transaction
+     */
+    @Modifying
+    @Query(value = "update patient_outbox_relay set last_sequence = :sequence where id = 1", nativeQuery = true)
+    void updateLastSequence(@Param("sequence") long sequence);
+
+    /**
+     * Published changes after a feed position.
+     * @param after exclusive lower bound on sequence
+     * @param limit maximum number of rows
+     * @return changes in sequence order
+     */
+    List<PatientOutboxEvent> findBySequenceGreaterThanOrderBySequenceAsc(long after, Limit limit);
+
+    /**
+     * Published changes between two feed positions, used to fill gaps of live consumers.
+     * @param after exclusive lower bound on sequence
+     * @param before exclusive upper bound on sequence
+     * @return changes in sequence order
+     */
+    List<PatientOutboxEvent> findBySequenceGreaterThanAndSequenceLessThanOrderBySequenceAsc(long after, long before);
+
+    /**
+     * Compact the feed: drop old changes of patients that have a later published change.
+     * Replaying the compacted feed still ends in the current state of every patient.
+     * @param cutoff only changes that occurred before this are removed
+     * @return number of removed changes
+     */
+    @Modifying
+    @Query("delete from PatientOutboxEvent e where e.sequence is not null and e.occurredAt < :cutoff " +
+            "and exists (select 1 from PatientOutboxEvent later where later.patientId = e.patientId " +
+            "and later.sequence > e.sequence)")
+    int deleteSuperseded(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Drop delete events that are the last change of their patient once consumers had time to see them.
+     * @param cutoff only deletes that occurred before this are removed
+     * @return number of removed changes
+     */
+    @Modifying
+    @Query("delete from PatientOutboxEvent e where e.sequence is not null and e.occurredAt < :cutoff " +
+            "and e.type = com.patient.app.patient.event.PatientChangedEvent.ChangeType.DELETED")
+    int deleteTombstones(@Param("cutoff") LocalDateTime cutoff);
+}
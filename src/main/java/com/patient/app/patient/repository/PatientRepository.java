@@ -1,18 +1,71 @@
 package com.patient.app.patient.repository;
 
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.dto.PatientWatermark;
 import com.patient.app.patient.model.Patient;
-import jakarta.validation.constraints.Email;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Size;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 /**
  * Repository interface for Patient entity.
  * */
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Integer> {
-    boolean existsByEmail(String email);
+public interface PatientRepository extends JpaRepository<Patient, Integer>, PatientSearchRepository,
+        PatientWriteRepository {
+
+    /**
+     * Keyset page: patients with an id greater than the cursor, in id order.
+     * @param after exclusive lower bound on id
+     * @param limit maximum number of rows
+     * @return matching patients ordered by id
+     */
+    List<Patient> findByIdGreaterThanOrderByIdAsc(int after, Limit limit);
+
+    /**
+     * Whether a patient has this email, ignoring case like the unique index on lower(email).
+     * Held in the query cache until the next write to the patients table.
+     * @param email email to check
+     * @return true if a patient has the email in any case
+     */
+    @Query("select case when count(p) > 0 then true else false end from Patient p where lower(p.email) = lower(:email)")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    boolean existsByEmail(@Param("email") String email);
+
+    /**
+     * Which of the given emails already belong to a patient, checked in one query and ignoring case.
+     * @param emails candidate emails in lower case
+     * @return the subset of emails already in use, in lower case
+     */
+    @Query("select lower(p.email) from Patient p where lower(p.email) in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Version and update time of one patient, for answering conditional requests without loading the row.
+     * Held in the query cache until the next write to the patients table.
+     * @param id the patient ID
+     * @return validators of the patient, empty if not found
+     */
+    @Query("select new com.patient.app.patient.dto.PatientVersion(p.id, p.version, p.updatedAt) from Patient p where p.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<PatientVersion> findVersionById(@Param("id") int id);
 
-    boolean existsByEmailAndIdNot(@NotBlank(message = "Email is required") @Email(message = "Email should be valid") @Size(max = 100, message = "Email must not exceed 100 characters") String email, Integer id);
+    /**
+     * Row count and latest update time of all patients, used as validator of list and search responses.
+     * Held in the query cache until the next write to the patients table, so repeated revalidation does not count rows.
+     * @return current watermark of the patients table
+     */
+    @Query("select new com.patient.app.patient.dto.PatientWatermark(count(p), max(p.updatedAt)) from Patient p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    PatientWatermark findWatermark();
 }
@@ -0,0 +1,21 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+
+import java.util.List;
+
+/**
+ * Search queries over patients that return projections instead of managed entities.
+ * */
+public interface PatientSearchRepository {
+
+    /**
+     * Keyset page of patients matching all given filters, ordered by id.
+     * @param criteria filters to combine with AND
+     * @param after exclusive lower bound on id
+     * @param limit maximum number of rows
+     * @return matching patient summaries ordered by id
+     */
+    List<PatientSummary> search(PatientSearchCriteria criteria, int after, int limit);
+}
@@ -0,0 +1,93 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PhoneNumbers;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Criteria API implementation of {@link PatientSearchRepository}.
+ * Selects straight into {@link PatientSummary} so no entity is hydrated or tracked by the persistence context.
+ * Each filter maps onto one of the indexes declared on the patients table.
+ * */
+public class PatientSearchRepositoryImpl implements PatientSearchRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PatientSummary> search(PatientSearchCriteria criteria, int after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PatientSummary> query = cb.createQuery(PatientSummary.class);
+        Root<Patient> patient = query.from(Patient.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(patient.get("id"), after));
+        if (hasText(criteria.lastName())) {
+            predicates.add(cb.equal(cb.lower(patient.get("lastName")), lower(criteria.lastName())));
+        }
+        if (hasText(criteria.namePrefix())) {
+            String[] parts = criteria.namePrefix().split(",", 2);
+            if (parts.length == 2 && hasText(parts[1])) {
+                predicates.add(cb.equal(cb.lower(patient.get("lastName")), lower(parts[0])));
+                predicates.add(cb.like(cb.lower(patient.get("firstName")), prefixPattern(parts[1]), LIKE_ESCAPE));
+            } else {
+                predicates.add(cb.like(cb.lower(patient.get("lastName")), prefixPattern(parts[0]), LIKE_ESCAPE));
+            }
+        }
+        if (hasText(criteria.city())) {
+            predicates.add(cb.equal(patient.get("city"), criteria.city().trim()));
+        }
+        if (hasText(criteria.state())) {
+            predicates.add(cb.equal(patient.get("state"), criteria.state().trim()));
+        }
+        if (hasText(criteria.zipCode())) {
+            predicates.add(cb.equal(patient.get("zipCode"), criteria.zipCode().trim()));
+        }
+        if (hasText(criteria.phone())) {
+            predicates.add(cb.equal(patient.get("phoneDigits"), PhoneNumbers.normalize(criteria.phone())));
+        }
+
+        query.select(cb.construct(PatientSummary.class,
+                        patient.get("id"),
+                        patient.get("firstName"),
+                        patient.get("lastName"),
+                        patient.get("city"),
+                        patient.get("state"),
+                        patient.get("zipCode"),
+                        patient.get("phoneNumber"),
+                        patient.get("email")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(patient.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String lower(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String prefixPattern(String prefix) {
+        String escaped = lower(prefix)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+}
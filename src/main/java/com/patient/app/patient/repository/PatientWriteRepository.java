@@ -0,0 +1,29 @@
+package com.patient.app.patient.repository;
+
+import java.util.Map;
+
+/**
+ * Single-statement conditional writes that bypass loading the entity first.
+ * */
+public interface PatientWriteRepository {
+
+    /**
+     * Update the given columns of a patient and bump its version, in one UPDATE statement.
+     * Uniqueness of the email is left to the uk_patient_email constraint. Later reads of the same transaction
+     * bypass the second-level cache, which still holds the patient as it was.
+     * @param id the patient ID
+     * @param expectedVersion version the patient must still have, or null to update unconditionally
+     * @param changes new values keyed by Patient property name
+     * @return number of updated rows, 0 if the patient does not exist or has another version
+     * @throws org.springframework.dao.DataIntegrityViolationException if a constraint is violated
+     */
+    int updateColumns(int id, Long expectedVersion, Map<String, Object> changes);
+
+    /**
+     * Delete a patient in one DELETE statement.
+     * @param id the patient ID
+     * @param expectedVersion version the patient must still have, or null to delete unconditionally
+     * @return number of deleted rows, 0 if the patient does not exist or has another version
+     */
+    int deleteConditionally(int id, Long expectedVersion);
+}
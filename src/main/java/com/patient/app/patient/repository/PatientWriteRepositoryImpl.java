@@ -0,0 +1,71 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PhoneNumbers;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Criteria API implementation of {@link PatientWriteRepository}.
+ * Statements are executed directly against the database, so the persistence context is not consulted or updated.
+ * */
+public class PatientWriteRepositoryImpl implements PatientWriteRepository {
+
+    private static final Set<String> UPDATABLE = Set.of(
+            "firstName", "lastName", "address", "city", "state", "zipCode", "phoneNumber", "email");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateColumns(int id, Long expectedVersion, Map<String, Object> changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Patient> update = cb.createCriteriaUpdate(Patient.class);
+        Root<Patient> patient = update.from(Patient.class);
+
+        changes.forEach((property, value) -> {
+            if (!UPDATABLE.contains(property)) {
+                throw new IllegalArgumentException("Property " + property + " cannot be updated");
+            }
+            update.set(property, value);
+        });
+        if (changes.containsKey("phoneNumber")) {
+            // Entity callbacks do not run for bulk updates, so keep the derived column in step here
+            update.set("phoneDigits", PhoneNumbers.normalize((String) changes.get("phoneNumber")));
+        }
+        update.set("updatedAt", LocalDateTime.now());
+        update.set(patient.<Long>get("version"), cb.sum(patient.<Long>get("version"), 1L));
+        update.where(matches(cb, patient, id, expectedVersion));
+
+        int updated = entityManager.createQuery(update).executeUpdate();
+        // The second-level cache drops its patients only once the transaction completes: the rest of the
+        // transaction, such as reading the patient back, must not be served the entry from before the update
+        entityManager.setProperty("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+        return updated;
+    }
+
+    @Override
+    public int deleteConditionally(int id, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Patient> delete = cb.createCriteriaDelete(Patient.class);
+        Root<Patient> patient = delete.from(Patient.class);
+        delete.where(matches(cb, patient, id, expectedVersion));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    private static Predicate matches(CriteriaBuilder cb, Root<Patient> patient, int id, Long expectedVersion) {
+        Predicate byId = cb.equal(patient.get("id"), id);
+        return expectedVersion == null ? byId : cb.and(byId, cb.equal(patient.get("version"), expectedVersion));
+    }
+}
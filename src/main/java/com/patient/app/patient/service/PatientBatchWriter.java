@@ -0,0 +1,106 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.event.PatientChangedEvent;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.repository.PatientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inserts already validated patients in batches, one transaction per batch.
+ * Email uniqueness is checked for the whole batch with a single query and inserts are JDBC-batched
+ * through the pooled id sequence, so a batch costs a handful of round trips instead of three per patient.
+ * */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PatientBatchWriter {
+
+    private final PatientRepository patientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Outcome of writing one patient of a batch.
+     * @param status what happened to the patient
+     * @param id id of the created patient, null unless created
+     * @param message reason when the patient was not created
+     */
+    public record WriteResult(Status status, Integer id, String message) {
+
+        public enum Status {
+            CREATED,
+            DUPLICATE
+        }
+
+        static WriteResult created(Integer id) {
+            return new WriteResult(Status.CREATED, id, null);
+        }
+
+        static WriteResult duplicate(String message) {
+            return new WriteResult(Status.DUPLICATE, null, message);
+        }
+    }
+
+    /**
+     * Insert a batch of patients in a new transaction.
+     * Patients whose email repeats inside the batch or already exists are skipped; all others are inserted.
+     * @param patients validated patients without ids
+     * @return one result per patient, in the same order
+     * @throws org.springframework.dao.DataIntegrityViolationException if an insert still violates a constraint,
+     *         e.g. because a concurrent writer took an email; nothing of the batch is committed then
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<WriteResult> writeAll(List<Patient> patients) {
+        WriteResult[] results = new WriteResult[patients.size()];
+
+        // Emails are unique regardless of case, so they are compared in lower case
+        Map<String, Integer> firstIndexByEmail = new HashMap<>();
+        for (int i = 0; i < patients.size(); i++) {
+            Integer first = firstIndexByEmail.putIfAbsent(lowerCaseEmail(patients.get(i)), i);
+            if (first != null) {
+                results[i] = WriteResult.duplicate("Email appears more than once in the batch");
+            }
+        }
+
+        Set<String> existingEmails = patientRepository.findExistingEmails(firstIndexByEmail.keySet());
+        List<Patient> toInsert = new ArrayList<>(patients.size());
+        for (int i = 0; i < patients.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            if (existingEmails.contains(lowerCaseEmail(patients.get(i)))) {
+                results[i] = WriteResult.duplicate("Patient already exists");
+            } else {
+                toInsert.add(patients.get(i));
+            }
+        }
+
+        patientRepository.saveAll(toInsert);
+        patientRepository.flush();
+        // Listeners such as the in-memory index only see the batch once its transaction commits
+        toInsert.forEach(patient -> eventPublisher.publishEvent(PatientChangedEvent.created(patient)));
+
+        for (int i = 0; i < patients.size(); i++) {
+            if (results[i] == null) {
+                results[i] = WriteResult.created(patients.get(i).getId());
+            }
+        }
+        log.debug("Batch of {} patients written, {} inserted", patients.size(), toInsert.size());
+        return List.of(results);
+    }
+
+    private static String lowerCaseEmail(Patient patient) {
+        return patient.getEmail().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,138 @@
+package com.patient.app.patient.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.patient.app.patient.config.PatientCacheProperties;
+import com.patient.app.patient.config.PatientReplicaProperties;
+import com.patient.app.patient.dto.PatientCacheStats;
+import com.patient.app.patient.event.PatientChangedEvent;
+import com.patient.app.patient.model.PatientSnapshot;
+import com.patient.app.patient.replica.PatientReplicaContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of patient snapshots keyed by patient id.
+ * Entries are evicted by size and by time since the last write. Writes made through the service
+ * are applied once their transaction commits, so the cache never holds uncommitted data. With read replicas,
+ * misses are only filled by reads pinned to the primary: a replica's copy may be older than the last write.
+ * Hit, miss and eviction counters are also published to the meter registry as cache "patients".
+ * */
+@Component
+@Slf4j
+public class PatientCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final boolean replicaReads;
+    private final AsyncCache<Integer, PatientSnapshot> cache;
+
+    public PatientCache(PatientCacheProperties properties, PatientReplicaProperties replicaProperties) {
+        this.enabled = properties.enabled();
+        this.replicaReads = replicaProperties.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Get a patient from the cache, loading and caching it on a miss.
+     * Concurrent misses for the same id share a single load. The load runs on the calling thread, in its transaction
+     * and routing, and holds no lock of the cache, so a slow load does not hold up misses for other ids; a patient
+     * evicted while it is loaded is not cached. Loads that may be served by a replica are not cached either.
+     * @param id the patient ID
+     * @param loader loads the snapshot from the database; exceptions are propagated and nothing is cached
+     * @return snapshot of the patient
+     */
+    public PatientSnapshot get(int id, Function<Integer, PatientSnapshot> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        if (replicaReads && !PatientReplicaContext.isPinnedToPrimary()) {
+            PatientSnapshot cached = getIfPresent(id);
+            return cached != null ? cached : loader.apply(id);
+        }
+        CompletableFuture<PatientSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<PatientSnapshot> result = cache.get(id, (key, executor) -> load);
+        if (result == load) {
+            try {
+                load.complete(loader.apply(id));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Get a patient from the cache without loading it on a miss.
+     * @param id the patient ID
+     * @return cached snapshot, or null; also null while the patient is being loaded
+     */
+    public PatientSnapshot getIfPresent(int id) {
+        CompletableFuture<PatientSnapshot> cached = enabled ? cache.getIfPresent(id) : null;
+        return cached != null && cached.isDone() && !cached.isCompletedExceptionally() ? cached.join() : null;
+    }
+
+    /**
+     * Write-through a patient snapshot.
+     * @param snapshot snapshot of the committed patient
+     */
+    public void put(PatientSnapshot snapshot) {
+        if (enabled) {
+            cache.put(snapshot.id(), CompletableFuture.completedFuture(snapshot));
+        }
+    }
+
+    /**
+     * Remove a patient from the cache.
+     * @param id the patient ID
+     */
+    public void evict(int id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Keep the cache coherent with committed writes.
+     * @param event change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (event.patient() == null) {
+            evict(event.patientId());
+        } else {
+            put(PatientSnapshot.of(event.patient()));
+        }
+        log.debug("Patient cache updated for {} of patient {}", event.type(), event.patientId());
+    }
+
+    /**
+     * Get the cache counters
+     * @return hit, miss and eviction counters
+     */
+    public PatientCacheStats stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return new PatientCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                stats.hitRate(), cache.synchronous().estimatedSize());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "patients");
+    }
+}
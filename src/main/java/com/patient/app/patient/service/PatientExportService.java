@@ -0,0 +1,68 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientExportJob;
+import com.patient.app.patient.dto.PatientExportRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface PatientExportService {
+
+    /**
+     * Stream an export to the caller's output stream, e.g. an HTTP response
+     * @param request format, compression, projection and filter
+     * @param out target, written as rows are read
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the request names an unknown field
+     */
+    void exportTo(PatientExportRequest request, OutputStream out) throws IOException;
+
+    /**
+     * Submit an export job that writes to a file in the export directory
+     * @param request format, compression, projection and filter
+     * @return the queued job
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the request names an unknown field
+     */
+    PatientExportJob startExport(PatientExportRequest request);
+
+    /**
+     * Get the progress of an export job
+     * @param id job id
+     * @return the job
+     * @throws java.util.NoSuchElementException if there is no such job
+     */
+    PatientExportJob getExport(String id);
+
+    /**
+     * @return all known export jobs, newest first
+     */
+    List<PatientExportJob> getExports();
+
+    /**
+     * Continue a failed, cancelled or interrupted export job from its last checkpoint
+     * @param id job id
+     * @return the queued job
+     * @throws java.util.NoSuchElementException if there is no such job
+     * @throws com.patient.app.patient.exception.PatientRequestConflictException if the job is not resumable
+     */
+    PatientExportJob resumeExport(String id);
+
+    /**
+     * Cancel a queued or running export job; it stops at the next row and can be resumed later
+     * @param id job id
+     * @return the job
+     * @throws java.util.NoSuchElementException if there is no such job
+     * @throws com.patient.app.patient.exception.PatientRequestConflictException if the job already finished
+     */
+    PatientExportJob cancelExport(String id);
+
+    /**
+     * Get the file of a completed export job
+     * @param id job id
+     * @return path of the export file
+     * @throws java.util.NoSuchElementException if there is no such job
+     * @throws com.patient.app.patient.exception.PatientRequestConflictException if the job has not completed
+     */
+    Path getExportFile(String id);
+}
@@ -0,0 +1,332 @@
+package com.patient.app.patient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patient.app.patient.config.PatientExportProperties;
+import com.patient.app.patient.dto.PatientExportJob;
+import com.patient.app.patient.dto.PatientExportJob.Status;
+import com.patient.app.patient.dto.PatientExportRequest;
+import com.patient.app.patient.exception.PatientRequestConflictException;
+import com.patient.app.patient.export.PatientExportColumn;
+import com.patient.app.patient.export.PatientExporter;
+import com.patient.app.patient.repository.PatientJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Service layer for patient exports.
+ * Export jobs run on a small pool of virtual threads, each streaming one database cursor to a file.
+ * Progress is saved as a JSON manifest next to the file at every checkpoint, so jobs survive restarts:
+ * a job that was running when the application stopped is reported as interrupted and can be resumed.
+ * */
+@Service
+@Slf4j
+public class PatientExportServiceImpl implements PatientExportService {
+
+    private static final String MANIFEST_SUFFIX = ".json";
+
+    private final PatientExporter exporter;
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int checkpointRows;
+    private final ExecutorService executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public PatientExportServiceImpl(PatientExporter exporter, PatientJdbcRepository patientJdbcRepository,
+                                    ObjectMapper objectMapper, PatientExportProperties properties) {
+        this.exporter = exporter;
+        this.patientJdbcRepository = patientJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.directory = properties.directory() != null ? properties.directory()
+                : Path.of(System.getProperty("java.io.tmpdir"), "patient-exports");
+        this.checkpointRows = properties.checkpointRows();
+        this.executor = Executors.newFixedThreadPool(properties.concurrency(),
+                Thread.ofVirtual().name("patient-export-", 0).factory());
+    }
+
+    /**
+     * Pick up the jobs of earlier runs from their manifests.
+     */
+    @PostConstruct
+    void loadJobs() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> manifests = Files.list(directory)) {
+            manifests.filter(path -> path.getFileName().toString().endsWith(MANIFEST_SUFFIX)).forEach(path -> {
+                try {
+                    PatientExportJob saved = objectMapper.readValue(path.toFile(), PatientExportJob.class);
+                    Job job = new Job(saved);
+                    if (saved.status() == Status.QUEUED || saved.status() == Status.RUNNING) {
+                        job.status = Status.INTERRUPTED;
+                    }
+                    jobs.put(saved.id(), job);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable export manifest {}: {}", path, e.getMessage());
+                }
+            });
+        }
+        log.info("Loaded {} patient export jobs from {}", jobs.size(), directory);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Running jobs stay RUNNING in their manifests and come back as interrupted
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stream an export to the caller's output stream, e.g. an HTTP response
+     * @param request format, compression, projection and filter
+     * @param out target, written as rows are read
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the request names an unknown field
+     */
+    public void exportTo(PatientExportRequest request, OutputStream out) throws IOException {
+        long rows = exporter.export(request, 0, true, out, 0, new PatientExporter.Progress() {
+            @Override
+            public void checkpoint(int lastId, long rows) {
+            }
+
+            @Override
+            public boolean cancelled() {
+                return false;
+            }
+        });
+        log.info("Streamed {} patients as {}", rows, request.format());
+    }
+
+    /**
+     * Submit an export job that writes to a file in the export directory
+     * @param request format, compression, projection and filter
+     * @return the queued job
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the request names an unknown field
+     */
+    public PatientExportJob startExport(PatientExportRequest request) {
+        PatientExportColumn.project(request.fields());
+        Job job = new Job(UUID.randomUUID().toString(), request);
+        jobs.put(job.id, job);
+        log.info("Export job {} submitted as {}", job.id, request.format());
+        return submit(job);
+    }
+
+    public PatientExportJob getExport(String id) {
+        return job(id).snapshot();
+    }
+
+    public List<PatientExportJob> getExports() {
+        return jobs.values().stream()
+                .map(Job::snapshot)
+                .sorted(Comparator.comparing(PatientExportJob::createdAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Continue a failed, cancelled or interrupted export job from its last checkpoint
+     * @param id job id
+     * @return the queued job
+     * @throws NoSuchElementException if there is no such job
+     * @throws PatientRequestConflictException if the job is not resumable
+     */
+    public PatientExportJob resumeExport(String id) {
+        Job job = job(id);
+        synchronized (job) {
+            if (!job.status.resumable()) {
+                throw new PatientRequestConflictException("Export " + id + " is " + job.status + " and cannot be resumed");
+            }
+            log.info("Export job {} resumed after patient {}", id, job.lastId);
+            return submit(job);
+        }
+    }
+
+    /**
+     * Cancel a queued or running export job; it stops at the next row and can be resumed later
+     * @param id job id
+     * @return the job
+     * @throws NoSuchElementException if there is no such job
+     * @throws PatientRequestConflictException if the job already finished
+     */
+    public PatientExportJob cancelExport(String id) {
+        Job job = job(id);
+        synchronized (job) {
+            switch (job.status) {
+                case QUEUED -> {
+                    job.future.cancel(false);
+                    finish(job, Status.CANCELLED, null);
+                }
+                case RUNNING -> job.cancelRequested = true;
+                default -> throw new PatientRequestConflictException("Export " + id + " is " + job.status + " and cannot be cancelled");
+            }
+            return job.snapshot();
+        }
+    }
+
+    /**
+     * Get the file of a completed export job
+     * @param id job id
+     * @return path of the export file
+     * @throws NoSuchElementException if there is no such job
+     * @throws PatientRequestConflictException if the job has not completed
+     */
+    public Path getExportFile(String id) {
+        Job job = job(id);
+        if (job.status != Status.COMPLETED) {
+            throw new PatientRequestConflictException("Export " + id + " is " + job.status);
+        }
+        return file(job);
+    }
+
+    private Job job(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new NoSuchElementException("Export not found");
+        }
+        return job;
+    }
+
+    private PatientExportJob submit(Job job) {
+        synchronized (job) {
+            job.status = Status.QUEUED;
+            job.cancelRequested = false;
+            job.error = null;
+            job.finishedAt = null;
+            save(job);
+            job.future = executor.submit(() -> run(job));
+            return job.snapshot();
+        }
+    }
+
+    private void run(Job job) {
+        synchronized (job) {
+            if (job.status != Status.QUEUED) {
+                return;
+            }
+            job.status = Status.RUNNING;
+        }
+        PatientExportRequest request = job.request;
+        long rowsBefore = job.rowsWritten;
+        try (FileChannel channel = FileChannel.open(file(job), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            job.totalRows = rowsBefore + patientJdbcRepository.count(request.changedSince(), job.lastId);
+            save(job);
+            // Drop whatever was written after the last checkpoint; the export continues after its last id
+            channel.truncate(job.bytesWritten);
+            channel.position(job.bytesWritten);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            exporter.export(request, job.lastId, job.bytesWritten == 0, out, checkpointRows, new PatientExporter.Progress() {
+                @Override
+                public void checkpoint(int lastId, long rows) throws IOException {
+                    job.lastId = lastId;
+                    job.rowsWritten = rowsBefore + rows;
+                    job.bytesWritten = channel.position();
+                    save(job);
+                }
+
+                @Override
+                public boolean cancelled() {
+                    return job.cancelRequested || Thread.currentThread().isInterrupted();
+                }
+            });
+            finish(job, Status.COMPLETED, null);
+            log.info("Export job {} completed with {} patients, {} bytes", job.id, job.rowsWritten, job.bytesWritten);
+        } catch (CancellationException e) {
+            finish(job, job.cancelRequested ? Status.CANCELLED : Status.INTERRUPTED, null);
+            log.info("Export job {} stopped after patient {}", job.id, job.lastId);
+        } catch (Exception e) {
+            finish(job, Status.FAILED, e.getMessage());
+            log.error("Export job {} failed after patient {}", job.id, job.lastId, e);
+        }
+    }
+
+    private void finish(Job job, Status status, String error) {
+        synchronized (job) {
+            job.status = status;
+            job.error = error;
+            job.finishedAt = LocalDateTime.now();
+            save(job);
+        }
+    }
+
+    private Path file(Job job) {
+        return directory.resolve(job.id + "." + job.request.format().extension() + job.request.compression().suffix());
+    }
+
+    /**
+     * Write the manifest atomically, so a crash never leaves a half-written one behind.
+     */
+    private void save(Job job) {
+        Path manifest = directory.resolve(job.id + MANIFEST_SUFFIX);
+        Path temp = directory.resolve(job.id + MANIFEST_SUFFIX + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), job.snapshot());
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save export manifest " + manifest, e);
+        }
+    }
+
+    /**
+     * Mutable state of one export job; progress fields are written by the job's thread only.
+     */
+    private static final class Job {
+
+        private final String id;
+        private final PatientExportRequest request;
+        private final LocalDateTime createdAt;
+        private volatile Status status;
+        private volatile long totalRows;
+        private volatile long rowsWritten;
+        private volatile int lastId;
+        private volatile long bytesWritten;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile boolean cancelRequested;
+        private Future<?> future;
+
+        private Job(String id, PatientExportRequest request) {
+            this.id = id;
+            this.request = request;
+            this.createdAt = LocalDateTime.now();
+            this.status = Status.QUEUED;
+        }
+
+        private Job(PatientExportJob saved) {
+            this.id = saved.id();
+            this.request = saved.request();
+            this.createdAt = saved.createdAt();
+            this.status = saved.status();
+            this.totalRows = saved.totalRows();
+            this.rowsWritten = saved.rowsWritten();
+            this.lastId = saved.lastId();
+            this.bytesWritten = saved.bytesWritten();
+            this.finishedAt = saved.finishedAt();
+            this.error = saved.error();
+        }
+
+        private PatientExportJob snapshot() {
+            return new PatientExportJob(id, status, request, totalRows, rowsWritten, lastId, bytesWritten,
+                    createdAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientFeedPage;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface PatientFeedService {
+
+    /**
+     * Get published patient changes after a feed position
+     * @param after sequence of the last change already seen, 0 to read from the start
+     * @param limit maximum number of changes to return
+     * @return changes in sequence order with the cursor of the next page
+     */
+    PatientFeedPage getChanges(long after, int limit);
+
+    /**
+     * Stream published patient changes as Server-Sent Events
+     * @param after sequence of the last change already seen; null to receive only new changes
+     * @return emitter delivering one event per change, with the sequence as event id
+     */
+    SseEmitter streamChanges(Long after);
+}
@@ -0,0 +1,56 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientFeedEvent;
+import com.patient.app.patient.dto.PatientFeedPage;
+import com.patient.app.patient.outbox.PatientFeedBroadcaster;
+import com.patient.app.patient.repository.PatientOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Service layer for the patient change feed, read from the published rows of the outbox.
+ * */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class PatientFeedServiceImpl implements PatientFeedService {
+
+    private final PatientOutboxRepository outboxRepository;
+    private final PatientFeedBroadcaster broadcaster;
+
+    /**
+     * Get published patient changes after a feed position
+     * @param after sequence of the last change already seen, 0 to read from the start
+     * @param limit maximum number of changes to return
+     * @return changes in sequence order with the cursor of the next page
+     */
+    public PatientFeedPage getChanges(long after, int limit) {
+        log.debug("Get patient changes after {} limit {}", after, limit);
+
+        List<PatientFeedEvent> rows = outboxRepository.findBySequenceGreaterThanOrderBySequenceAsc(after, Limit.of(limit + 1))
+                .stream().map(PatientFeedEvent::of).toList();
+        boolean hasMore = rows.size() > limit;
+        List<PatientFeedEvent> items = hasMore ? rows.subList(0, limit) : rows;
+        long nextCursor = items.isEmpty() ? after : items.getLast().sequence();
+        return new PatientFeedPage(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Stream published patient changes as Server-Sent Events
+     * @param after sequence of the last change already seen; null to receive only new changes
+     * @return emitter delivering one event per change, with the sequence as event id
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter streamChanges(Long after) {
+        log.info("Stream patient changes after {}", after);
+        return broadcaster.subscribe(after);
+    }
+}
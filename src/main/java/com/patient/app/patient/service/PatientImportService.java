@@ -0,0 +1,24 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.BulkImportReport;
+
+import java.io.InputStream;
+
+public interface PatientImportService {
+
+    /**
+     * Import patients from a JSON array, reading it as a stream
+     * @param json JSON array of patient objects
+     * @return per-row import report
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the document is not a readable JSON array
+     */
+    BulkImportReport importJson(InputStream json);
+
+    /**
+     * Import patients from CSV with a header row naming the patient fields
+     * @param csv CSV document
+     * @return per-row import report
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the document is not readable CSV
+     */
+    BulkImportReport importCsv(InputStream csv);
+}
@@ -0,0 +1,183 @@
+package com.patient.app.patient.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.patient.app.patient.config.PatientImportProperties;
+import com.patient.app.patient.dto.BulkImportReport;
+import com.patient.app.patient.dto.BulkImportRowResult;
+import com.patient.app.patient.dto.BulkImportRowResult.Status;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.model.Patient;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service layer for bulk patient imports.
+ * Rows are read one at a time from the uploaded stream, validated against the Patient constraints
+ * and written in chunks through {@link PatientBatchWriter}.
+ * */
+@Service
+@Slf4j
+public class PatientImportServiceImpl implements PatientImportService {
+
+    private final PatientBatchWriter batchWriter;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final int chunkSize;
+
+    public PatientImportServiceImpl(PatientBatchWriter batchWriter, Validator validator, ObjectMapper objectMapper,
+                                    PatientImportProperties properties) {
+        this.batchWriter = batchWriter;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        this.chunkSize = properties.chunkSize();
+    }
+
+    /**
+     * Import patients from a JSON array, reading it as a stream
+     * @param json JSON array of patient objects
+     * @return per-row import report
+     * @throws InvalidPatientRequestException if the document is not a readable JSON array
+     */
+    public BulkImportReport importJson(InputStream json) {
+        try (MappingIterator<Patient> rows = objectMapper.readerFor(Patient.class).readValues(json)) {
+            return importRows(rows);
+        } catch (IOException e) {
+            throw new InvalidPatientRequestException("Unreadable JSON import: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Import patients from CSV with a header row naming the patient fields
+     * @param csv CSV document
+     * @return per-row import report
+     * @throws InvalidPatientRequestException if the document is not readable CSV
+     */
+    public BulkImportReport importCsv(InputStream csv) {
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        try (MappingIterator<Patient> rows = csvMapper.readerFor(Patient.class).with(schema).readValues(csv)) {
+            return importRows(rows);
+        } catch (IOException e) {
+            throw new InvalidPatientRequestException("Unreadable CSV import: " + e.getMessage());
+        }
+    }
+
+    private BulkImportReport importRows(MappingIterator<Patient> rows) {
+        List<BulkImportRowResult> results = new ArrayList<>();
+        List<Patient> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+
+        while (true) {
+            Patient patient;
+            try {
+                if (!rows.hasNextValue()) {
+                    break;
+                }
+            } catch (IOException e) {
+                // The stream cannot be resynchronised, so everything after this point is lost
+                log.warn("Bulk import stopped at row {}: {}", results.size() + 1, e.getMessage());
+                results.add(new BulkImportRowResult(results.size() + 1, Status.FAILED, null, null,
+                        List.of("Unreadable input: " + messageOf(e))));
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Bulk import stopped at row {}: {}", results.size() + 1, e.getMessage());
+                results.add(new BulkImportRowResult(results.size() + 1, Status.FAILED, null, null,
+                        List.of("Unreadable input: " + e.getMessage())));
+                break;
+            }
+
+            long row = results.size() + 1;
+            try {
+                patient = rows.nextValue();
+            } catch (IOException e) {
+                results.add(new BulkImportRowResult(row, Status.INVALID, null, null, List.of(messageOf(e))));
+                continue;
+            }
+
+            Set<ConstraintViolation<Patient>> violations = validator.validate(patient);
+            if (!violations.isEmpty()) {
+                List<String> errors = violations.stream().map(ConstraintViolation::getMessage).sorted().toList();
+                results.add(new BulkImportRowResult(row, Status.INVALID, null, patient.getEmail(), errors));
+                continue;
+            }
+
+            // Ids and timestamps are always assigned by the database side, never taken from the upload
+            patient.setId(null);
+            patient.setVersion(null);
+            patient.setCreatedAt(null);
+            patient.setUpdatedAt(null);
+
+            chunkIndexes.add(results.size());
+            results.add(null);
+            chunk.add(patient);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, chunkIndexes, results);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkIndexes, results);
+        }
+
+        long created = results.stream().filter(result -> result.status() == Status.CREATED).count();
+        log.info("Bulk import finished: {} rows, {} created", results.size(), created);
+        return new BulkImportReport(results.size(), created, results.size() - created, results);
+    }
+
+    private void writeChunk(List<Patient> chunk, List<Integer> chunkIndexes, List<BulkImportRowResult> results) {
+        try {
+            List<PatientBatchWriter.WriteResult> written = batchWriter.writeAll(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                results.set(chunkIndexes.get(i), toRowResult(chunkIndexes.get(i), chunk.get(i), written.get(i)));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Another writer raced us on an email; isolate the offending rows by writing them one by one
+            log.warn("Batch insert of {} patients failed, retrying row by row: {}", chunk.size(), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                Patient patient = chunk.get(i);
+                // Undo what the failed flush assigned so the row is persisted as new again
+                patient.setId(null);
+                patient.setVersion(null);
+                int index = chunkIndexes.get(i);
+                try {
+                    PatientBatchWriter.WriteResult written = batchWriter.writeAll(List.of(patient)).get(0);
+                    results.set(index, toRowResult(index, patient, written));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    results.set(index, new BulkImportRowResult(index + 1, Status.FAILED, null, patient.getEmail(),
+                            List.of("Invalid patient data provided")));
+                }
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private static BulkImportRowResult toRowResult(int index, Patient patient, PatientBatchWriter.WriteResult written) {
+        return switch (written.status()) {
+            case CREATED -> new BulkImportRowResult(index + 1, Status.CREATED, written.id(), patient.getEmail(), List.of());
+            case DUPLICATE -> new BulkImportRowResult(index + 1, Status.DUPLICATE, null, patient.getEmail(),
+                    List.of(written.message()));
+        };
+    }
+
+    private static String messageOf(IOException e) {
+        return e instanceof JsonProcessingException processingException ? processingException.getOriginalMessage() : e.getMessage();
+    }
+}
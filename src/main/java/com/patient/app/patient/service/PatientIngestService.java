@@ -0,0 +1,30 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientIngestStatus;
+import com.patient.app.patient.model.Patient;
+
+import java.net.URI;
+
+public interface PatientIngestService {
+
+    /**
+     * Queue a validated patient for creation by the background writer.
+     * Like imports, and unlike single creates, it is not checked for probable duplicates under another email:
+     * scoring every queued patient would undo the group commit. Exact email repeats end as DUPLICATE.
+     * @param patient patient to create; id, version and timestamps are ignored
+     * @param callback where the outcome is posted once written, or null to only poll for it
+     * @return the queued create and its tracking id
+     * @throws com.patient.app.patient.exception.PatientRequestConflictException if asynchronous ingestion is disabled
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if the callback is not an allowed origin
+     * @throws com.patient.app.patient.exception.ServiceOverloadedException if the queue is full
+     */
+    PatientIngestStatus submit(Patient patient, URI callback);
+
+    /**
+     * Get the outcome of a queued create
+     * @param id tracking id
+     * @return the create, queued or completed
+     * @throws java.util.NoSuchElementException if the id is unknown or its outcome expired
+     */
+    PatientIngestStatus getStatus(String id);
+}
@@ -0,0 +1,267 @@
+package com.patient.app.patient.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.patient.app.patient.config.PatientIngestProperties;
+import com.patient.app.patient.dto.PatientIngestStatus;
+import com.patient.app.patient.dto.PatientIngestStatus.Status;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientRequestConflictException;
+import com.patient.app.patient.exception.ServiceOverloadedException;
+import com.patient.app.patient.model.Patient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous patient creates with group commit.
+ * Accepted creates wait in a bounded queue; a single writer thread drains it into batches written by
+ * {@link PatientBatchWriter}, so a batch shares one transaction, one commit and one email uniqueness query
+ * instead of paying them per patient. Outcomes are kept for polling and optionally posted to a callback.
+ * */
+@Service
+@Slf4j
+public class PatientIngestServiceImpl implements PatientIngestService {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final PatientBatchWriter batchWriter;
+    private final PatientIngestProperties properties;
+    private final BlockingQueue<Pending> queue;
+    private final Cache<String, PatientIngestStatus> statuses;
+    private final Set<String> callbackOrigins;
+    private final RestClient callbackClient;
+    private final ExecutorService callbackExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final DistributionSummary batchSizes;
+    private final Timer latency;
+    private final Counter rejected;
+    private final Thread writer;
+    private volatile boolean running;
+
+    /**
+     * A create waiting for the writer.
+     */
+    private record Pending(PatientIngestStatus accepted, Patient patient, URI callback, long acceptedNanos) {
+    }
+
+    public PatientIngestServiceImpl(PatientBatchWriter batchWriter, PatientIngestProperties properties,
+                                    RestClient.Builder restClientBuilder, MeterRegistry registry) {
+        this.batchWriter = batchWriter;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(properties.statusMaxSize())
+                .expireAfterWrite(properties.statusRetention())
+                .build();
+        this.callbackOrigins = properties.callbackOrigins().stream()
+                .map(origin -> origin.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.callbackTimeout());
+        requestFactory.setReadTimeout(properties.callbackTimeout());
+        this.callbackClient = restClientBuilder.requestFactory(requestFactory).build();
+
+        this.batchSizes = DistributionSummary.builder("patient.ingest.batch.size")
+                .description("Patients per group-committed ingestion batch")
+                .baseUnit("patients")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.latency = Timer.builder("patient.ingest.latency")
+                .description("Time from accepting a create until its batch committed")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejected = Counter.builder("patient.ingest.rejected")
+                .description("Creates shed because the ingestion queue was full")
+                .register(registry);
+        Gauge.builder("patient.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Creates waiting for the ingestion writer")
+                .register(registry);
+
+        this.writer = Thread.ofPlatform().name("patient-ingest-writer").daemon().unstarted(this::drain);
+        this.running = properties.enabled();
+        if (running) {
+            writer.start();
+        }
+        log.info("Asynchronous patient ingestion {}", running
+                ? "enabled with queue capacity " + properties.queueCapacity() + " and batch size " + properties.batchSize()
+                : "disabled");
+    }
+
+    public PatientIngestStatus submit(Patient patient, URI callback) {
+        if (!running) {
+            throw new PatientRequestConflictException("Asynchronous ingestion is disabled");
+        }
+        checkCallback(callback);
+
+        // Ids and timestamps are always assigned by the database side, never taken from the request
+        patient.setId(null);
+        patient.setVersion(null);
+        patient.setCreatedAt(null);
+        patient.setUpdatedAt(null);
+
+        PatientIngestStatus status = PatientIngestStatus.queued(UUID.randomUUID().toString(), patient.getEmail());
+        statuses.put(status.id(), status);
+        if (!queue.offer(new Pending(status, patient, callback, System.nanoTime()))) {
+            statuses.invalidate(status.id());
+            rejected.increment();
+            throw new ServiceOverloadedException("Patient ingestion queue is full", properties.retryAfter());
+        }
+        return status;
+    }
+
+    public PatientIngestStatus getStatus(String id) {
+        PatientIngestStatus status = statuses.getIfPresent(id);
+        if (status == null) {
+            throw new NoSuchElementException("No ingestion with id " + id);
+        }
+        return status;
+    }
+
+    private void checkCallback(URI callback) {
+        if (callback == null) {
+            return;
+        }
+        String scheme = callback.getScheme();
+        if (!callback.isAbsolute() || callback.getHost() == null
+                || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            throw new InvalidPatientRequestException("Callback must be an absolute http(s) URL");
+        }
+        String origin = scheme + "://" + callback.getHost() + (callback.getPort() == -1 ? "" : ":" + callback.getPort());
+        if (!callbackOrigins.contains(origin.toLowerCase(Locale.ROOT))) {
+            throw new InvalidPatientRequestException("Callback origin " + origin + " is not allowed");
+        }
+    }
+
+    /**
+     * Writer loop: wait for a first create, then gather more until the batch is full or maxWait passed.
+     * Keeps writing after shutdown began until the queue is empty.
+     */
+    private void drain() {
+        int batchSize = properties.batchSize();
+        long maxWaitNanos = properties.maxWait().toNanos();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Patient ingestion writer interrupted with {} creates queued", queue.size());
+                break;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("Patient ingestion batch of {} failed", batch.size(), e);
+                batch.forEach(pending -> complete(pending, Status.FAILED, null, "Patient could not be written"));
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        try {
+            List<PatientBatchWriter.WriteResult> written = batchWriter.writeAll(batch.stream().map(Pending::patient).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), written.get(i));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Another writer raced us on an email; isolate the offending creates by writing them one by one
+            log.warn("Ingestion batch of {} patients failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                // Undo what the failed flush assigned so the patient is persisted as new again
+                pending.patient().setId(null);
+                pending.patient().setVersion(null);
+                try {
+                    complete(pending, batchWriter.writeAll(List.of(pending.patient())).get(0));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    complete(pending, Status.FAILED, null, "Invalid patient data provided");
+                }
+            }
+        }
+        log.debug("Ingestion batch of {} patients written, {} queued", batch.size(), queue.size());
+    }
+
+    private void complete(Pending pending, PatientBatchWriter.WriteResult written) {
+        switch (written.status()) {
+            case CREATED -> complete(pending, Status.CREATED, written.id(), null);
+            case DUPLICATE -> complete(pending, Status.DUPLICATE, null, written.message());
+        }
+    }
+
+    private void complete(Pending pending, Status status, Integer patientId, String error) {
+        latency.record(System.nanoTime() - pending.acceptedNanos(), TimeUnit.NANOSECONDS);
+        PatientIngestStatus completed = pending.accepted().complete(status, patientId, error);
+        statuses.put(completed.id(), completed);
+        if (pending.callback() != null) {
+            callbackExecutor.execute(() -> notify(pending.callback(), completed));
+        }
+    }
+
+    /**
+     * Post the outcome once; clients that miss it can still poll until the status expires.
+     */
+    private void notify(URI callback, PatientIngestStatus status) {
+        try {
+            callbackClient.post().uri(callback).contentType(MediaType.APPLICATION_JSON).body(status)
+                    .retrieve().toBodilessEntity();
+        } catch (RuntimeException e) {
+            log.warn("Ingestion callback for {} to {} failed: {}", status.id(), callback, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Duration timeout = properties.shutdownTimeout();
+        writer.join(timeout);
+        if (writer.isAlive()) {
+            log.warn("Patient ingestion writer still busy after {}, {} creates not written", timeout, queue.size());
+        }
+        callbackExecutor.shutdown();
+    }
+}
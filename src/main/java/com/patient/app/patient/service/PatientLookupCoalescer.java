@@ -0,0 +1,222 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.config.PatientLookupProperties;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PatientSnapshot;
+import com.patient.app.patient.replica.PatientReplicaContext;
+import com.patient.app.patient.repository.PatientJdbcRepository;
+import com.patient.app.patient.shard.PatientShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads patients by id in batches, merging concurrent single-patient lookups into one query.
+ * The first lookup of a batch waits up to the coalescing window, or until the batch is full, for others to join,
+ * then reads all their ids on its own thread; the shard and replica routing of that thread therefore apply to the
+ * whole batch, and only lookups with the same routing share a batch. A lookup of an id that is already being read
+ * waits for that read instead of adding the id again. Lookups inside a transaction are not coalesced, as they must
+ * see its own changes and not hand them to other requests.
+ * */
+@Component
+public class PatientLookupCoalescer {
+
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final TransactionTemplate readTransaction;
+    private final boolean coalesce;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock: the batch each routing is filling, and the pending read of each id
+    private final Map<Route, Batch> open = new HashMap<>();
+    private final Map<Lookup, CompletableFuture<PatientSnapshot>> inFlight = new HashMap<>();
+
+    private final Counter batched;
+    private final Counter deduplicated;
+    private final DistributionSummary batchSize;
+    private final Timer delay;
+
+    public PatientLookupCoalescer(PatientJdbcRepository patientJdbcRepository, PlatformTransactionManager transactionManager,
+                                  PatientLookupProperties properties, MeterRegistry registry) {
+        this.patientJdbcRepository = patientJdbcRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.coalesce = properties.coalesce();
+        this.windowNanos = properties.window().toNanos();
+        this.maxBatchSize = properties.maxBatchSize();
+        this.batched = lookupCounter(registry, "batched");
+        this.deduplicated = lookupCounter(registry, "deduplicated");
+        this.batchSize = DistributionSummary.builder("patient.lookup.batch.size")
+                .description("Patient ids read per coalesced query; the mean is the coalescing ratio")
+                .register(registry);
+        this.delay = Timer.builder("patient.lookup.delay")
+                .description("Time coalesced lookups waited for their batch to be read")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("patient.lookup.requests")
+                .description("Single-patient lookups read through the coalescing loader")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * @return whether a lookup on this thread would be coalesced
+     */
+    public boolean isCoalescing() {
+        return coalesce && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Read one patient together with the concurrent lookups of other threads.
+     * @param id the patient ID
+     * @return snapshot of the patient, or null if there is none
+     */
+    public PatientSnapshot load(int id) {
+        Route route = Route.current();
+        Lookup lookup = new Lookup(route, id);
+        CompletableFuture<PatientSnapshot> result;
+        Batch lead = null;
+        lock.lock();
+        try {
+            result = inFlight.get(lookup);
+            if (result != null) {
+                deduplicated.increment();
+            } else {
+                result = new CompletableFuture<>();
+                inFlight.put(lookup, result);
+                Batch batch = open.get(route);
+                if (batch == null) {
+                    batch = new Batch(route);
+                    open.put(route, batch);
+                    lead = batch;
+                }
+                batch.pending.put(id, new Pending(result, System.nanoTime()));
+                if (batch.pending.size() >= maxBatchSize) {
+                    open.remove(route);
+                    batch.full.countDown();
+                }
+                batched.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (lead != null) {
+            read(lead);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Read patients by id with one query in a read-only transaction, without coalescing.
+     * @param ids patient ids
+     * @return snapshots of the patients found by id
+     */
+    public Map<Integer, PatientSnapshot> readAll(Collection<Integer> ids) {
+        List<Patient> patients = readTransaction.execute(status -> patientJdbcRepository.findAllById(ids));
+        Map<Integer, PatientSnapshot> found = new HashMap<>();
+        if (patients != null) {
+            for (Patient patient : patients) {
+                found.put(patient.getId(), PatientSnapshot.of(patient));
+            }
+        }
+        return found;
+    }
+
+    private void read(Batch batch) {
+        boolean interrupted = false;
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // The other lookups of the batch still need it read
+            interrupted = true;
+        }
+        lock.lock();
+        try {
+            open.remove(batch.route, batch);
+        } finally {
+            lock.unlock();
+        }
+
+        long started = System.nanoTime();
+        for (Pending pending : batch.pending.values()) {
+            delay.record(started - pending.queuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.pending.size());
+        Map<Integer, PatientSnapshot> found = null;
+        RuntimeException failure = null;
+        try {
+            found = readAll(batch.pending.keySet());
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        lock.lock();
+        try {
+            for (Integer id : batch.pending.keySet()) {
+                inFlight.remove(new Lookup(batch.route, id));
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Map.Entry<Integer, Pending> entry : batch.pending.entrySet()) {
+            if (failure != null) {
+                entry.getValue().result().completeExceptionally(failure);
+            } else {
+                entry.getValue().result().complete(found.get(entry.getKey()));
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Database a lookup is routed to: lookups are only merged when it is the same.
+     */
+    private record Route(String shard, boolean primary) {
+        static Route current() {
+            return new Route(PatientShardContext.current(), PatientReplicaContext.isPinnedToPrimary());
+        }
+    }
+
+    private record Lookup(Route route, int id) {
+    }
+
+    private record Pending(CompletableFuture<PatientSnapshot> result, long queuedAt) {
+    }
+
+    private static final class Batch {
+        final Route route;
+        // Filled under the coalescer's lock until the batch is no longer open
+        final Map<Integer, Pending> pending = new LinkedHashMap<>();
+        final CountDownLatch full = new CountDownLatch(1);
+
+        Batch(Route route) {
+            this.route = route;
+        }
+    }
+}
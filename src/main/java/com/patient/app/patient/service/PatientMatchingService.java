@@ -0,0 +1,27 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientDuplicateReport;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.model.Patient;
+
+import java.util.List;
+
+public interface PatientMatchingService {
+
+    /**
+     * Find existing patients that are probably the same person, e.g. before creating a patient.
+     * Only patients sharing a blocking key with the patient are read and scored.
+     * @param patient patient to compare, created or not
+     * @return probable matches, best first, at most patient.matching.max-matches
+     */
+    List<PatientMatch> findMatches(Patient patient);
+
+    /**
+     * Compare all patients for duplicates, block by block in parallel.
+     * @param minScore score from which a pair is reported
+     * @param limit maximum number of pairs listed
+     * @return counts and the best pairs
+     * @throws com.patient.app.patient.exception.PatientRequestConflictException if a report is already running
+     */
+    PatientDuplicateReport duplicateReport(double minScore, int limit);
+}
@@ -0,0 +1,205 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.config.PatientMatchingProperties;
+import com.patient.app.patient.dto.PatientDuplicatePair;
+import com.patient.app.patient.dto.PatientDuplicateReport;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.exception.PatientRequestConflictException;
+import com.patient.app.patient.matching.MatchablePatient;
+import com.patient.app.patient.matching.PatientMatcher;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PhoneNumbers;
+import com.patient.app.patient.repository.PatientJdbcRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Duplicate patient detection by blocking and fuzzy scoring, see {@link PatientMatcher}.
+ * */
+@Service
+@Timed(value = "patient.matching", description = "Patient matching latency", percentiles = {0.5, 0.99})
+@Slf4j
+public class PatientMatchingServiceImpl implements PatientMatchingService {
+
+    // Blocks per fork-join task; below this a task compares its blocks itself
+    private static final int BLOCKS_PER_TASK = 64;
+
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final PatientMatchingProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter probableDuplicates;
+    private final Semaphore reportPermit = new Semaphore(1);
+
+    public PatientMatchingServiceImpl(PatientJdbcRepository patientJdbcRepository, PatientMatchingProperties properties,
+                                      PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.patientJdbcRepository = patientJdbcRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.probableDuplicates = Counter.builder("patient.matching.probable")
+                .description("Pre-checks that found probable duplicates")
+                .register(registry);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PatientMatch> findMatches(Patient patient) {
+        MatchablePatient candidate = MatchablePatient.of(patient);
+        if (candidate.blockingKeys().isEmpty()) {
+            return List.of();
+        }
+        List<MatchablePatient> existing = patientJdbcRepository.findMatchCandidates(PhoneNumbers.normalize(patient.getPhoneNumber()),
+                patient.getZipCode(), patient.getLastName(), patient.getFirstName(), properties.maxCandidates());
+        List<PatientMatch> matches = new ArrayList<>();
+        for (MatchablePatient other : existing) {
+            if (other.id() != candidate.id() && sharesBlock(candidate, other)) {
+                double score = PatientMatcher.score(candidate, other);
+                if (score >= properties.threshold()) {
+                    matches.add(new PatientMatch(other.id(), round(score)));
+                }
+            }
+        }
+        if (matches.isEmpty()) {
+            return matches;
+        }
+        probableDuplicates.increment();
+        matches.sort(Comparator.comparingDouble(PatientMatch::score).reversed());
+        return List.copyOf(matches.subList(0, Math.min(properties.maxMatches(), matches.size())));
+    }
+
+    /**
+     * Reads all patients into their blocks, then compares the blocks on a fork-join pool outside the transaction.
+     * Memory grows with the number of patients, roughly 300 bytes each.
+     */
+    public PatientDuplicateReport duplicateReport(double minScore, int limit) {
+        if (!reportPermit.tryAcquire()) {
+            throw new PatientRequestConflictException("A duplicate report is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            Map<String, List<MatchablePatient>> blocks = new HashMap<>();
+            long[] patients = {0};
+            readOnlyTransaction.executeWithoutResult(status -> patientJdbcRepository.streamColumns(
+                    PatientJdbcRepository.MATCH_COLUMNS, null, 0, rs -> {
+                        MatchablePatient patient = PatientJdbcRepository.mapMatchable(rs, rs.getRow());
+                        patients[0]++;
+                        for (String key : patient.blockingKeys()) {
+                            blocks.computeIfAbsent(key, k -> new ArrayList<>(1)).add(patient);
+                        }
+                    }));
+
+            Predicate<String> compared = key -> {
+                List<MatchablePatient> block = blocks.get(key);
+                return block.size() > 1 && block.size() <= properties.maxBlockSize();
+            };
+            List<String> keys = blocks.keySet().stream().filter(compared).sorted().toList();
+            int oversized = (int) blocks.values().stream().filter(block -> block.size() > properties.maxBlockSize()).count();
+
+            int parallelism = properties.reportParallelism() > 0 ? properties.reportParallelism() : Runtime.getRuntime().availableProcessors();
+            BlockResult result;
+            try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+                result = pool.invoke(new CompareBlocks(blocks, keys, 0, keys.size(), minScore, compared));
+            }
+            List<PatientDuplicatePair> pairs = result.pairs();
+            pairs.sort(Comparator.comparingDouble(PatientDuplicatePair::score).reversed()
+                    .thenComparingInt(PatientDuplicatePair::firstId).thenComparingInt(PatientDuplicatePair::secondId));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info("Duplicate report compared {} pairs of {} patients in {} blocks, found {} in {} ms",
+                    result.comparisons(), patients[0], keys.size(), pairs.size(), millis);
+            return new PatientDuplicateReport(patients[0], keys.size(), oversized, result.comparisons(), pairs.size(),
+                    List.copyOf(pairs.subList(0, Math.min(limit, pairs.size()))), millis);
+        } finally {
+            reportPermit.release();
+        }
+    }
+
+    private static boolean sharesBlock(MatchablePatient a, MatchablePatient b) {
+        for (String key : a.blockingKeys()) {
+            if (b.blockingKeys().contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double round(double score) {
+        return Math.round(score * 1000) / 1000.0;
+    }
+
+    private record BlockResult(long comparisons, List<PatientDuplicatePair> pairs) {
+    }
+
+    /**
+     * Compares the blocks of keys[from, to), splitting the range while it is large.
+     */
+    private static final class CompareBlocks extends RecursiveTask<BlockResult> {
+
+        private final Map<String, List<MatchablePatient>> blocks;
+        private final List<String> keys;
+        private final int from;
+        private final int to;
+        private final double minScore;
+        private final Predicate<String> compared;
+
+        CompareBlocks(Map<String, List<MatchablePatient>> blocks, List<String> keys, int from, int to, double minScore,
+                      Predicate<String> compared) {
+            this.blocks = blocks;
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.minScore = minScore;
+            this.compared = compared;
+        }
+
+        @Override
+        protected BlockResult compute() {
+            if (to - from > BLOCKS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                CompareBlocks upper = new CompareBlocks(blocks, keys, middle, to, minScore, compared);
+                upper.fork();
+                BlockResult lower = new CompareBlocks(blocks, keys, from, middle, minScore, compared).compute();
+                BlockResult higher = upper.join();
+                List<PatientDuplicatePair> pairs = lower.pairs();
+                pairs.addAll(higher.pairs());
+                return new BlockResult(lower.comparisons() + higher.comparisons(), pairs);
+            }
+            long comparisons = 0;
+            List<PatientDuplicatePair> pairs = new ArrayList<>();
+            for (int k = from; k < to; k++) {
+                String key = keys.get(k);
+                List<MatchablePatient> block = blocks.get(key);
+                for (int i = 0; i < block.size(); i++) {
+                    for (int j = i + 1; j < block.size(); j++) {
+                        MatchablePatient a = block.get(i);
+                        MatchablePatient b = block.get(j);
+                        if (PatientMatcher.comparedBefore(a, b, key, compared)) {
+                            continue;
+                        }
+                        comparisons++;
+                        double score = PatientMatcher.score(a, b);
+                        if (score >= minScore) {
+                            pairs.add(new PatientDuplicatePair(Math.min(a.id(), b.id()), Math.max(a.id(), b.id()), round(score)));
+                        }
+                    }
+                }
+            }
+            return new BlockResult(comparisons, pairs);
+        }
+    }
+}
@@ -1,30 +1,84 @@
 package com.patient.app.patient.service;
 
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientCacheStats;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.dto.PatientWatermark;
 import com.patient.app.patient.model.Patient;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface PatientService {
 
     /**
-     * Get all patients as a list
-     * @return A list of all Patients
+     * Get one keyset page of patients ordered by id
+     * @param after id of the last patient of the previous page, or null for the first page
+     * @param limit maximum number of patients in the page
+     * @return page of patients with the cursor of the next page
      */
-    List<Patient> getPatientList();
+    CursorPage<Patient> getPatientList(Integer after, int limit);
+
+    /**
+     * Search patients by combinable filters, one keyset page at a time
+     * @param criteria filters combined with AND
+     * @param after id of the last patient of the previous page, or null for the first page
+     * @param limit maximum number of patients in the page
+     * @return page of matching patient summaries with the cursor of the next page
+     */
+    CursorPage<PatientSummary> searchPatients(PatientSearchCriteria criteria, Integer after, int limit);
+
+    /**
+     * Stream all patients ordered by id, one row at a time
+     * @param consumer receives each patient as it is read from the database
+     */
+    void streamPatients(Consumer<Patient> consumer);
 
     /**
      * Get patient by ID
      * @param id the patient ID
-     * @return Patient entity
+     * @return detached copy of the patient, possibly served from the patient cache
      * @throws java.util.NoSuchElementException if patient is not found
      */
     Patient getPatientById(int id);
 
+    /**
+     * Get several patients by ID at once
+     * @param ids patient IDs, repeated IDs are returned once
+     * @return detached copies of the patients found, in the order of their IDs; IDs without a patient are left out
+     */
+    List<Patient> getPatientsByIds(Collection<Integer> ids);
+
+    /**
+     * Get only the version and update time of a patient, to answer conditional requests cheaply
+     * @param id the patient ID
+     * @return validators of the patient
+     * @throws java.util.NoSuchElementException if patient is not found
+     */
+    PatientVersion getPatientVersion(int id);
+
+    /**
+     * Get the watermark of all patients, which changes with every insert, update and delete
+     * @return row count and latest update time
+     */
+    PatientWatermark getWatermark();
+
+    /**
+     * Get the patient cache counters
+     * @return hit, miss and eviction counters
+     */
+    PatientCacheStats getCacheStats();
+
     /**
      * Create new patient
      * @param patient Patient entity to create
      * @return Created patient entity
-     * @throws IllegalArgumentException if patient already exists or data integrity violation occurs
+     * @throws com.patient.app.patient.exception.PatientEmailTakenException if patient already exists
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if data integrity violation occurs
      */
     Patient createPatient(Patient patient);
 
@@ -32,16 +86,35 @@ public interface PatientService {
      * Update patient by ID
      * @param id the patient ID to update
      * @param patientDetails Patient entity with updated details
+     * @param expectedVersion version the patient must still have, or null to update unconditionally
+     * @return Updated patient entity
+     * @throws java.util.NoSuchElementException if patient is not found
+     * @throws com.patient.app.patient.exception.PatientVersionConflictException if the patient has another version
+     * @throws com.patient.app.patient.exception.PatientEmailTakenException if email already exists for another patient
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if data integrity violation occurs
+     */
+    Patient updatePatient(Integer id, Patient patientDetails, Long expectedVersion);
+
+    /**
+     * Change only the fields present in the patch
+     * @param id the patient ID to update
+     * @param patch new values of the fields to change
+     * @param expectedVersion version the patient must still have, or null to update unconditionally
      * @return Updated patient entity
      * @throws java.util.NoSuchElementException if patient is not found
-     * @throws IllegalArgumentException if email already exists or data integrity violation occurs
+     * @throws com.patient.app.patient.exception.PatientVersionConflictException if the patient has another version
+     * @throws jakarta.validation.ConstraintViolationException if a new value is invalid
+     * @throws com.patient.app.patient.exception.PatientEmailTakenException if email already exists for another patient
+     * @throws com.patient.app.patient.exception.InvalidPatientRequestException if data integrity violation occurs
      */
-    Patient updatePatient(Integer id, Patient patientDetails);
+    Patient patchPatient(Integer id, PatientPatch patch, Long expectedVersion);
 
     /**
      * Delete patient by ID
      * @param id the patient ID to delete
+     * @param expectedVersion version the patient must still have, or null to delete unconditionally
      * @throws java.util.NoSuchElementException if patient is not found
+     * @throws com.patient.app.patient.exception.PatientVersionConflictException if the patient has another version
      */
-    void deletePatient(Integer id);
+    void deletePatient(Integer id, Long expectedVersion);
 }
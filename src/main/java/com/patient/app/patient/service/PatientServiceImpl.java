@@ -1,130 +1,376 @@
 package com.patient.app.patient.service;
 
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientCacheStats;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.dto.PatientWatermark;
+import com.patient.app.patient.event.PatientChangedEvent;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.exception.PatientVersionConflictException;
+import com.patient.app.patient.index.PatientMemoryIndex;
+import com.patient.app.patient.metrics.PatientMetrics;
 import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PatientSnapshot;
+import com.patient.app.patient.repository.PatientJdbcRepository;
 import com.patient.app.patient.repository.PatientRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service layer for patient business operations.
  * */
 @Service
 @Transactional(readOnly = true)
+@Timed(value = "patient.service", description = "Patient service method latency", percentiles = {0.5, 0.99, 0.999})
 @RequiredArgsConstructor
 @Slf4j
 public class PatientServiceImpl implements PatientService {
 
+    private static final String EMAIL_CONSTRAINT = "uk_patient_email";
+
     private final PatientRepository patientRepository;
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final PatientCache patientCache;
+    private final PatientLookupCoalescer patientLookupCoalescer;
+    private final PatientMemoryIndex patientMemoryIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientMetrics patientMetrics;
+    private final Validator validator;
+
+    /**
+     * Get one keyset page of patients ordered by id
+     * @param after id of the last patient of the previous page, or null for the first page
+     * @param limit maximum number of patients in the page
+     * @return page of patients with the cursor of the next page
+     */
+    public CursorPage<Patient> getPatientList(Integer after, int limit){
+        // Fetch one extra row so the next cursor is only handed out when another page really exists
+        List<Patient> rows = patientRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, Patient::getId);
+    }
 
     /**
-     * Get all patients as a list
-     * @return A list of all Patients
+     * Search patients by combinable filters, one keyset page at a time
+     * @param criteria filters combined with AND
+     * @param after id of the last patient of the previous page, or null for the first page
+     * @param limit maximum number of patients in the page
+     * @return page of matching patient summaries with the cursor of the next page
      */
-    public List<Patient> getPatientList(){
-        return patientRepository.findAll();
+    public CursorPage<PatientSummary> searchPatients(PatientSearchCriteria criteria, Integer after, int limit){
+        List<PatientSummary> rows = patientRepository.search(criteria, after == null ? 0 : after, limit + 1);
+        return CursorPage.of(rows, limit, PatientSummary::id);
     }
 
     /**
-     * Get patient by ID
+     * Stream all patients ordered by id, one row at a time
+     * @param consumer receives each patient as it is read from the database
+     */
+    public void streamPatients(Consumer<Patient> consumer){
+        patientJdbcRepository.streamAll(consumer);
+    }
+
+    /**
+     * Get patient by ID, served from the in-memory index when it is enabled and otherwise from the patient cache when possible.
+     * Runs without its own transaction so memory and cache hits never borrow a database connection.
      * @param id the patient ID
-     * @return Patient entity
+     * @return detached copy of the patient
      * @throws java.util.NoSuchElementException if patient is not found
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Patient getPatientById(int id){
-        log.info("Request received for id: {}"+ id);
+        log.debug("Request received for id: {}", id);
 
-        return  patientRepository.findById(id).orElseThrow(() -> {log.info("Patient not found");
-            return new NoSuchElementException("Patient not found");});
+        if (patientMemoryIndex.isServing()) {
+            Patient patient = patientMemoryIndex.get(id);
+            if (patient == null) {
+                throw new NoSuchElementException("Patient not found");
+            }
+            return patient;
+        }
+        return patientCache.get(id, this::loadPatient).toPatient();
+    }
+
+    /**
+     * Get several patients at once: patients in the memory index or the patient cache are served from there,
+     * the rest are read with one query.
+     * @param ids patient ids, repeated ids are returned once
+     * @return detached copies of the patients found, in the order of their ids; ids without a patient are left out
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Patient> getPatientsByIds(Collection<Integer> ids){
+        Set<Integer> distinct = new LinkedHashSet<>(ids);
+        if (patientMemoryIndex.isServing()) {
+            return distinct.stream().map(patientMemoryIndex::get).filter(Objects::nonNull).toList();
+        }
+
+        Map<Integer, PatientSnapshot> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer id : distinct) {
+            PatientSnapshot cached = patientCache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            // Not cached: a snapshot read here could overwrite a newer one put by a concurrent update
+            found.putAll(patientLookupCoalescer.readAll(misses));
+        }
+        return distinct.stream().map(found::get).filter(Objects::nonNull).map(PatientSnapshot::toPatient).toList();
+    }
+
+    /**
+     * Get only the version and update time of a patient.
+     * Answered from the memory index or the patient cache when they hold the patient, otherwise with a
+     * version-only query that does not load or hydrate the row.
+     * @param id the patient ID
+     * @return validators of the patient
+     * @throws java.util.NoSuchElementException if patient is not found
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PatientVersion getPatientVersion(int id){
+        if (patientMemoryIndex.isServing()) {
+            PatientVersion version = patientMemoryIndex.version(id);
+            if (version == null) {
+                throw new NoSuchElementException("Patient not found");
+            }
+            return version;
+        }
+        PatientSnapshot cached = patientCache.getIfPresent(id);
+        if (cached != null) {
+            return new PatientVersion(cached.id(), cached.version(), cached.updatedAt());
+        }
+        return patientRepository.findVersionById(id).orElseThrow(() -> new NoSuchElementException("Patient not found"));
+    }
+
+    /**
+     * Get the watermark of all patients with one aggregate query
+     * @return row count and latest update time
+     */
+    public PatientWatermark getWatermark(){
+        return patientRepository.findWatermark();
+    }
+
+    /**
+     * Get the patient cache counters
+     * @return hit, miss and eviction counters
+     */
+    public PatientCacheStats getCacheStats(){
+        return patientCache.stats();
     }
 
     /**
      * Create new patient
      * @param patient Patient entity to create
      * @return Created patient entity
-     * @throws IllegalArgumentException if patient already exists or data integrity violation occurs
+     * @throws PatientEmailTakenException if patient already exists
+     * @throws InvalidPatientRequestException if data integrity violation occurs
      */
     @Transactional
     public Patient createPatient(Patient patient){
-        log.info("Request received for patient: {}"+ patient);
+        log.debug("Request received for patient with email: {}", patient.getEmail());
 
-        if (patientRepository.existsByEmail(patient.getEmail())) {
-            throw new IllegalArgumentException("Patient already exists");
+        if (emailTaken(patient.getEmail())) {
+            patientMetrics.createEmailConflict();
+            throw new PatientEmailTakenException("Patient already exists");
         }
 
         try {
             Patient savedPatient = patientRepository.save(patient);
+            eventPublisher.publishEvent(PatientChangedEvent.created(savedPatient));
             log.info("Successfully created patient with id: {}", savedPatient.getId());
             return savedPatient;
 
         }catch (DataIntegrityViolationException e){
+            if (isEmailConflict(e)) {
+                // Raced with another create, or the email differs from an existing one only in case
+                patientMetrics.createEmailConflict();
+                throw new PatientEmailTakenException("Patient already exists");
+            }
             log.error("Data integrity violation while creating patient: {}", e.getMessage());
-            throw new IllegalArgumentException("Invalid patient data provided");
+            throw new InvalidPatientRequestException("Invalid patient data provided");
         }
     }
 
     /**
-     * Update patient by ID
+     * Update patient by ID with a single conditional UPDATE statement.
+     * Email conflicts are detected by the uk_patient_email constraint rather than a query up front.
      * @param id the patient ID to update
      * @param patientDetails Patient entity with updated details
+     * @param expectedVersion version the patient must still have, or null to update unconditionally
      * @return Updated patient entity
      * @throws java.util.NoSuchElementException if patient is not found
-     * @throws IllegalArgumentException if email already exists or data integrity violation occurs
+     * @throws PatientVersionConflictException if the patient has another version
+     * @throws PatientEmailTakenException if email already exists for another patient
+     * @throws InvalidPatientRequestException if data integrity violation occurs
      */
     @Transactional
-    public Patient updatePatient(Integer id, Patient patientDetails){
-        log.info("Request received for id: {}"+ id);
+    public Patient updatePatient(Integer id, Patient patientDetails, Long expectedVersion){
+        log.debug("Request received for id: {}", id);
 
-        Patient existingPatient = getPatientById(id);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("firstName", patientDetails.getFirstName());
+        changes.put("lastName", patientDetails.getLastName());
+        changes.put("address", patientDetails.getAddress());
+        changes.put("city", patientDetails.getCity());
+        changes.put("state", patientDetails.getState());
+        changes.put("zipCode", patientDetails.getZipCode());
+        changes.put("phoneNumber", patientDetails.getPhoneNumber());
+        changes.put("email", patientDetails.getEmail());
 
-        // Check if email is being changed and conflicts with another patient
-        if (!existingPatient.getEmail().equals(patientDetails.getEmail()) &&
-                patientRepository.existsByEmailAndIdNot(patientDetails.getEmail(), id)) {
-            log.error("Email conflict during update for patient id: {}", id);
-            throw new IllegalArgumentException("Email " + patientDetails.getEmail() + " already exists for another patient");
-        }
-
-        existingPatient.setFirstName(patientDetails.getFirstName());
-        existingPatient.setLastName(patientDetails.getLastName());
-        existingPatient.setAddress(patientDetails.getAddress());
-        existingPatient.setCity(patientDetails.getCity());
-        existingPatient.setState(patientDetails.getState());
-        existingPatient.setZipCode(patientDetails.getZipCode());
-        existingPatient.setPhoneNumber(patientDetails.getPhoneNumber());
-        existingPatient.setEmail(patientDetails.getEmail());
+        return applyChanges(id, changes, expectedVersion);
+    }
 
-        try {
-            Patient updatedPatient = patientRepository.save(existingPatient);
-            log.info("Successfully updated patient with id: {}", id);
-            return updatedPatient;
+    /**
+     * Change only the fields present in the patch, writing just those columns.
+     * New values are validated against the constraints declared on {@link Patient}.
+     * @param id the patient ID to update
+     * @param patch new values of the fields to change
+     * @param expectedVersion version the patient must still have, or null to update unconditionally
+     * @return Updated patient entity
+     * @throws java.util.NoSuchElementException if patient is not found
+     * @throws PatientVersionConflictException if the patient has another version
+     * @throws ConstraintViolationException if a new value is invalid
+     * @throws PatientEmailTakenException if email already exists for another patient
+     * @throws InvalidPatientRequestException if data integrity violation occurs
+     */
+    @Transactional
+    public Patient patchPatient(Integer id, PatientPatch patch, Long expectedVersion){
+        log.info("Patching patient with id: {}", id);
 
-        } catch (DataIntegrityViolationException e) {
-            log.error("Data integrity violation while updating patient: {}", e.getMessage());
-            throw new IllegalArgumentException("Invalid patient data provided");
+        Map<String, Object> changes = patch.changes();
+        Set<ConstraintViolation<Patient>> violations = new HashSet<>();
+        changes.forEach((property, value) -> violations.addAll(validator.validateValue(Patient.class, property, value)));
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        if (changes.isEmpty()) {
+            // Nothing to write, but a stale If-Match must still fail as it would for a non-empty patch
+            Patient patient = findPatient(id);
+            if (expectedVersion != null && !expectedVersion.equals(patient.getVersion())) {
+                throw new PatientVersionConflictException(id);
+            }
+            return patient;
         }
+        return applyChanges(id, changes, expectedVersion);
     }
 
     /**
-     * Delete patient by ID
+     * Delete patient by ID with a single conditional DELETE statement
      * @param id the patient ID to delete
+     * @param expectedVersion version the patient must still have, or null to delete unconditionally
      * @throws java.util.NoSuchElementException if patient is not found
+     * @throws PatientVersionConflictException if the patient has another version
      */
     @Transactional
-    public void deletePatient(Integer id){
+    public void deletePatient(Integer id, Long expectedVersion){
         log.info("Deleting patient with id: {}", id);
 
-        // Check if patient exists before deleting
-        if (!patientRepository.existsById(id)) {
-            log.error("Patient with id {} not found for deletion", id);
-            throw new NoSuchElementException("Patient not found");
+        if (patientRepository.deleteConditionally(id, expectedVersion) == 0) {
+            log.error("Patient with id {} not deleted", id);
+            throw notWritten(id);
         }
 
-        patientRepository.deleteById(id);
+        eventPublisher.publishEvent(PatientChangedEvent.deleted(id));
         log.info("Successfully deleted patient with id: {}", id);
     }
+
+    private Patient applyChanges(int id, Map<String, Object> changes, Long expectedVersion){
+        int updated;
+        try {
+            updated = patientRepository.updateColumns(id, expectedVersion, changes);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConflict(e)) {
+                log.error("Email conflict during update for patient id: {}", id);
+                patientMetrics.updateEmailConflict();
+                throw new PatientEmailTakenException("Email " + changes.get("email") + " already exists for another patient");
+            }
+            log.error("Data integrity violation while updating patient: {}", e.getMessage());
+            throw new InvalidPatientRequestException("Invalid patient data provided");
+        }
+        if (updated == 0) {
+            throw notWritten(id);
+        }
+
+        // Read the committed state back once: the response, cache and index all need the full row
+        Patient updatedPatient = findPatient(id);
+        eventPublisher.publishEvent(PatientChangedEvent.updated(updatedPatient));
+        log.info("Successfully updated patient with id: {}", id);
+        return updatedPatient;
+    }
+
+    /**
+     * Explain a conditional write that matched no row; only this failure path pays for the extra query.
+     */
+    private RuntimeException notWritten(int id){
+        if (patientRepository.existsById(id)) {
+            return new PatientVersionConflictException(id);
+        }
+        return new NoSuchElementException("Patient not found");
+    }
+
+    private static boolean isEmailConflict(DataIntegrityViolationException e){
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(EMAIL_CONSTRAINT);
+    }
+
+    /**
+     * Whether a patient already holds the email, answered from the in-memory index when it is serving.
+     * The unique constraint on email still guards against races with concurrent writers.
+     */
+    private boolean emailTaken(String email){
+        if (patientMemoryIndex.isServing()) {
+            return patientMemoryIndex.findIdByEmail(email).isPresent();
+        }
+        return patientRepository.existsByEmail(email);
+    }
+
+    /**
+     * Load a patient missing from the cache, together with concurrent lookups of other requests when possible.
+     */
+    private PatientSnapshot loadPatient(int id){
+        if (!patientLookupCoalescer.isCoalescing()) {
+            return PatientSnapshot.of(findPatient(id));
+        }
+        PatientSnapshot snapshot = patientLookupCoalescer.load(id);
+        if (snapshot == null) {
+            throw new NoSuchElementException("Patient not found");
+        }
+        return snapshot;
+    }
+
+    private Patient findPatient(int id){
+        return patientRepository.findById(id).orElseThrow(() -> {log.info("Patient not found");
+            return new NoSuchElementException("Patient not found");});
+    }
 }
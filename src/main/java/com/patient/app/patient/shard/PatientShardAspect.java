@@ -0,0 +1,353 @@
+package com.patient.app.patient.shard;
+
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.dto.PatientWatermark;
+import com.patient.app.patient.exception.ShardingUnsupportedException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientBatchWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Routes patient service calls to shards before their transaction starts.
+ * Calls on one patient go to the shard holding its id, creates to the shard chosen by their email, batch reads
+ * to the shards holding their ids, and listings,
+ * searches and the watermark are asked of every shard in parallel and merged. Creates and email changes reserve
+ * their email in the directory, which sees every shard's patients. Runs right after admission control
+ * and outside the transaction advisor, so each shard call opens its own transaction on its own pool.
+ * */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class PatientShardAspect {
+
+    private static final String SERVICE = "com.patient.app.patient.service.PatientService";
+
+    private final PatientShardDirectory directory;
+    private final PatientShardRebalancer rebalancer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PatientShardAspect(PatientShardDirectory directory, PatientShardRebalancer rebalancer) {
+        this.directory = directory;
+        this.rebalancer = rebalancer;
+    }
+
+    @Around("execution(* " + SERVICE + ".getPatientById(..)) || execution(* " + SERVICE + ".getPatientVersion(..))")
+    public Object routeById(ProceedingJoinPoint joinPoint) throws Throwable {
+        int id = (Integer) joinPoint.getArgs()[0];
+        return onShard(directory.shardForId(id), joinPoint);
+    }
+
+    /**
+     * A new email is reserved in the directory before the change, as the patient's shard only knows its own
+     * patients' emails; the previous one is released once the change is written.
+     */
+    @Around("execution(* " + SERVICE + ".updatePatient(..)) || execution(* " + SERVICE + ".patchPatient(..))")
+    public Object routeChange(ProceedingJoinPoint joinPoint) throws Throwable {
+        int id = (Integer) joinPoint.getArgs()[0];
+        Object details = joinPoint.getArgs()[1];
+        String email = details instanceof PatientPatch patch ? patch.email() : ((Patient) details).getEmail();
+        boolean claimed = email != null && directory.claimEmail(email, id);
+        Patient changed;
+        try {
+            changed = (Patient) onShard(directory.shardForId(id), joinPoint);
+        } catch (Throwable e) {
+            if (claimed) {
+                directory.releaseEmails(List.of(email));
+            }
+            throw e;
+        }
+        if (claimed) {
+            directory.releaseEmailsOf(id, changed.getEmail());
+        }
+        return changed;
+    }
+
+    @Around("execution(* " + SERVICE + ".deletePatient(..))")
+    public Object routeDelete(ProceedingJoinPoint joinPoint) throws Throwable {
+        int id = (Integer) joinPoint.getArgs()[0];
+        Object result = onShard(directory.shardForId(id), joinPoint);
+        directory.releaseEmailsOf(id, null);
+        return result;
+    }
+
+    /**
+     * Splits the ids by the shard holding them, reads the parts in parallel and keeps the order of the ids.
+     */
+    @Around("execution(* " + SERVICE + ".getPatientsByIds(..))")
+    public List<Patient> splitIds(ProceedingJoinPoint joinPoint) throws Throwable {
+        @SuppressWarnings("unchecked")
+        Collection<Integer> ids = (Collection<Integer>) joinPoint.getArgs()[0];
+        Map<String, List<Integer>> idsByShard = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            idsByShard.computeIfAbsent(directory.shardForId(id), shard -> new ArrayList<>()).add(id);
+        }
+
+        List<Future<Object>> parts = new ArrayList<>();
+        idsByShard.forEach((shard, part) -> parts.add(executor.submit(() -> proceedOn(shard, joinPoint, part))));
+        Map<Integer, Patient> found = new HashMap<>();
+        for (Future<Object> part : parts) {
+            @SuppressWarnings("unchecked")
+            List<Patient> patients = (List<Patient>) join(part);
+            patients.forEach(patient -> found.put(patient.getId(), patient));
+        }
+        return new LinkedHashSet<>(ids).stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * The email is reserved in the directory first: a patient on another shard may hold it after an email
+     * change or a move. A patient whose id has been moved to another shard since it was allocated is relocated.
+     */
+    @Around("execution(* " + SERVICE + ".createPatient(..))")
+    public Object routeByEmail(ProceedingJoinPoint joinPoint) throws Throwable {
+        Patient patient = (Patient) joinPoint.getArgs()[0];
+        String email = patient.getEmail();
+        String shard = directory.shardForEmail(email);
+        if (email == null) {
+            return onShard(shard, joinPoint);
+        }
+        directory.claimEmail(email, null);
+        Patient created;
+        try {
+            created = (Patient) onShard(shard, joinPoint);
+        } catch (Throwable e) {
+            directory.releaseEmails(List.of(email));
+            throw e;
+        }
+        directory.ownEmails(Map.of(email, created.getId()));
+        rebalancer.relocate(created.getId(), shard);
+        return created;
+    }
+
+    /**
+     * Each shard returns its own first page after the cursor; the merged page is the lowest ids of all of them.
+     */
+    @Around("execution(* " + SERVICE + ".getPatientList(..))")
+    public CursorPage<Patient> scatterPatientList(ProceedingJoinPoint joinPoint) throws Throwable {
+        return mergePages(scatter(joinPoint), (Integer) joinPoint.getArgs()[1], Patient::getId);
+    }
+
+    @Around("execution(* " + SERVICE + ".searchPatients(..))")
+    public CursorPage<PatientSummary> scatterSearch(ProceedingJoinPoint joinPoint) throws Throwable {
+        return mergePages(scatter(joinPoint), (Integer) joinPoint.getArgs()[2], PatientSummary::id);
+    }
+
+    @Around("execution(* " + SERVICE + ".getWatermark())")
+    public PatientWatermark scatterWatermark(ProceedingJoinPoint joinPoint) throws Throwable {
+        long count = 0;
+        LocalDateTime lastUpdatedAt = null;
+        for (Object result : scatter(joinPoint)) {
+            PatientWatermark watermark = (PatientWatermark) result;
+            count += watermark.count();
+            if (watermark.lastUpdatedAt() != null && (lastUpdatedAt == null || watermark.lastUpdatedAt().isAfter(lastUpdatedAt))) {
+                lastUpdatedAt = watermark.lastUpdatedAt();
+            }
+        }
+        return new PatientWatermark(count, lastUpdatedAt);
+    }
+
+    /**
+     * A patient's duplicates may be on any shard: each shard's matches are merged, best first.
+     */
+    @Around("execution(* com.patient.app.patient.service.PatientMatchingService.findMatches(..))")
+    public List<PatientMatch> scatterMatches(ProceedingJoinPoint joinPoint) throws Throwable {
+        List<PatientMatch> matches = new ArrayList<>();
+        for (Object result : scatter(joinPoint)) {
+            @SuppressWarnings("unchecked")
+            List<PatientMatch> shardMatches = (List<PatientMatch>) result;
+            matches.addAll(shardMatches);
+        }
+        matches.sort(Comparator.comparingDouble(PatientMatch::score).reversed());
+        return matches;
+    }
+
+    /**
+     * Streams shard after shard on the calling thread, as the consumer is not thread-safe;
+     * patients are in id order within each shard only.
+     */
+    @Around("execution(* " + SERVICE + ".streamPatients(..))")
+    public Object streamShards(ProceedingJoinPoint joinPoint) throws Throwable {
+        for (String shard : directory.shards()) {
+            onShard(shard, joinPoint);
+        }
+        return null;
+    }
+
+    /**
+     * Splits a batch by the shard of each email, writes the parts in parallel and puts the results back in order.
+     * A repeated email always lands in the same part, so in-batch duplicates are still detected. The emails are
+     * reserved in the directory first; patients whose email another shard holds are reported as duplicates.
+     * Created patients whose id has been moved to another shard since it was allocated are relocated.
+     */
+    @Around("execution(* com.patient.app.patient.service.PatientBatchWriter.writeAll(..))")
+    public List<PatientBatchWriter.WriteResult> splitBatch(ProceedingJoinPoint joinPoint) throws Throwable {
+        @SuppressWarnings("unchecked")
+        List<Patient> patients = (List<Patient>) joinPoint.getArgs()[0];
+        Set<String> claimed = directory.claimEmails(patients.stream().map(Patient::getEmail).toList());
+        PatientBatchWriter.WriteResult[] results = new PatientBatchWriter.WriteResult[patients.size()];
+        Map<String, List<Integer>> indexesByShard = new LinkedHashMap<>();
+        for (int i = 0; i < patients.size(); i++) {
+            String email = patients.get(i).getEmail();
+            if (claimed.contains(email.toLowerCase(Locale.ROOT))) {
+                indexesByShard.computeIfAbsent(directory.shardForEmail(email), shard -> new ArrayList<>()).add(i);
+            } else {
+                results[i] = new PatientBatchWriter.WriteResult(PatientBatchWriter.WriteResult.Status.DUPLICATE, null,
+                        "Patient already exists");
+            }
+        }
+
+        Map<String, Future<Object>> parts = new LinkedHashMap<>();
+        indexesByShard.forEach((shard, indexes) -> {
+            List<Patient> part = indexes.stream().map(patients::get).toList();
+            parts.put(shard, executor.submit(() -> proceedOn(shard, joinPoint, part)));
+        });
+
+        // Every part is waited for, so the emails of written patients are kept even when another part failed
+        Map<String, Integer> created = new HashMap<>();
+        Map<Integer, String> shardsById = new HashMap<>();
+        Throwable failure = null;
+        for (Map.Entry<String, Future<Object>> part : parts.entrySet()) {
+            Object joined;
+            try {
+                joined = join(part.getValue());
+            } catch (Throwable e) {
+                failure = failure == null ? e : failure;
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            List<PatientBatchWriter.WriteResult> written = (List<PatientBatchWriter.WriteResult>) joined;
+            List<Integer> indexes = indexesByShard.get(part.getKey());
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = written.get(i);
+                if (written.get(i).status() == PatientBatchWriter.WriteResult.Status.CREATED) {
+                    created.put(patients.get(indexes.get(i)).getEmail().toLowerCase(Locale.ROOT), written.get(i).id());
+                    shardsById.put(written.get(i).id(), part.getKey());
+                }
+            }
+        }
+        directory.ownEmails(created);
+        claimed.removeAll(created.keySet());
+        directory.releaseEmails(claimed);
+        shardsById.forEach(rebalancer::relocate);
+        if (failure != null) {
+            throw failure;
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Publishes and compacts the outbox of every shard; each shard numbers its own changes.
+     */
+    @Around("execution(int com.patient.app.patient.outbox.PatientOutboxRelay.*())")
+    public int eachShardOutbox(ProceedingJoinPoint joinPoint) throws Throwable {
+        int total = 0;
+        for (String shard : directory.shards()) {
+            total += (Integer) onShard(shard, joinPoint);
+        }
+        return total;
+    }
+
+    /**
+     * Exports and the change feed read one database in id or commit order, which shards cannot provide yet;
+     * the duplicate report would only compare patients within each shard.
+     */
+    @Around("execution(* com.patient.app.patient.service.PatientExportService.*(..))"
+            + " || execution(* com.patient.app.patient.service.PatientFeedService.*(..))"
+            + " || execution(* com.patient.app.patient.service.PatientMatchingService.duplicateReport(..))")
+    public Object rejectUnsharded(ProceedingJoinPoint joinPoint) {
+        throw new ShardingUnsupportedException("Not supported while patients are sharded");
+    }
+
+    private List<Object> scatter(ProceedingJoinPoint joinPoint) throws Throwable {
+        List<Future<Object>> futures = new ArrayList<>();
+        for (String shard : directory.shards()) {
+            futures.add(executor.submit(() -> proceedOn(shard, joinPoint)));
+        }
+        List<Object> results = new ArrayList<>(futures.size());
+        for (Future<Object> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    /**
+     * A next cursor is handed out when the shards together have more rows than fit, or one of them has more
+     * rows than it returned; in both cases the page is full and its last id is the cursor.
+     */
+    private static <T> CursorPage<T> mergePages(List<Object> pages, int limit, Function<T, Integer> idOf) {
+        List<T> rows = new ArrayList<>();
+        boolean more = false;
+        for (Object result : pages) {
+            @SuppressWarnings("unchecked")
+            CursorPage<T> page = (CursorPage<T>) result;
+            rows.addAll(page.items());
+            more |= page.nextCursor() != null;
+        }
+        rows.sort(Comparator.comparing(idOf));
+        if (rows.size() > limit || more) {
+            List<T> items = List.copyOf(rows.subList(0, Math.min(limit, rows.size())));
+            return new CursorPage<>(items, idOf.apply(items.get(items.size() - 1)));
+        }
+        return new CursorPage<>(rows, null);
+    }
+
+    private static Object onShard(String shard, ProceedingJoinPoint joinPoint, Object... args) throws Throwable {
+        try {
+            return proceedOn(shard, joinPoint, args);
+        } catch (ShardCallException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object proceedOn(String shard, ProceedingJoinPoint joinPoint, Object... args) {
+        return PatientShardContext.callOn(shard, () -> {
+            try {
+                return args.length == 0 ? joinPoint.proceed() : joinPoint.proceed(args);
+            } catch (Throwable e) {
+                throw new ShardCallException(e);
+            }
+        });
+    }
+
+    private static Object join(Future<Object> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof ShardCallException shardCall ? shardCall.getCause() : e.getCause();
+        }
+    }
+
+    /**
+     * Carries the throwable of a shard call through {@link PatientShardContext#callOn} and executor tasks.
+     */
+    private static final class ShardCallException extends RuntimeException {
+        ShardCallException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
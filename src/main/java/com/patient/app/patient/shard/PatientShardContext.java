@@ -0,0 +1,42 @@
+package com.patient.app.patient.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread's database work is routed to.
+ * Must be set before a transaction starts: the routing data source is asked for a connection once per transaction.
+ * */
+public final class PatientShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private PatientShardContext() {
+    }
+
+    /**
+     * @return name of the shard bound to this thread, or null to use the default shard
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run work with a shard bound to this thread, restoring the previous binding afterwards.
+     * @param shard shard name
+     * @param work database work, typically a transactional call
+     * @return result of the work
+     */
+    public static <T> T callOn(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
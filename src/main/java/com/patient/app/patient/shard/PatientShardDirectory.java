@@ -0,0 +1,361 @@
+package com.patient.app.patient.shard;
+
+import com.patient.app.patient.dto.PatientShardRange;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Which shard holds which patients.
+ * Patient ids are split into ranges, each held by one shard; a shard allocates the ids of new patients from its
+ * home range through its own patients_seq, so ids stay unique across shards without coordination. New patients
+ * are placed by a hash of their email, so a repeated email reaches the shard whose uk_patient_email can reject it.
+ * The ranges live in patient_shard_ranges on the first shard and are re-read periodically.
+ * */
+@Slf4j
+public class PatientShardDirectory implements AutoCloseable {
+
+    /**
+     * Ids Hibernate takes from patients_seq at a time; must match the allocationSize of the Patient id generator.
+     */
+    static final int ID_ALLOCATION = 50;
+
+    private static final String SELECT_RANGES = "select range_start, range_end, shard, home from patient_shard_ranges order by range_start";
+    private static final String INSERT_EMAIL = "insert into patient_shard_emails (email, patient_id) values (?, ?)";
+    private static final String SELECT_EMAILS = "select email, patient_id from patient_shard_emails where email in (:emails)";
+    private static final int EMAIL_CHUNK = 1000;
+
+    private final Map<String, DataSource> shards;
+    private final List<String> names;
+    private final int rangeSize;
+    private final JdbcTemplate directory;
+    private final NamedParameterJdbcTemplate namedDirectory;
+    private final TransactionTemplate directoryTransaction;
+    private volatile NavigableMap<Long, PatientShardRange> ranges = new TreeMap<>();
+
+    /**
+     * @param shards shard data sources by name, the directory shard first
+     * @param rangeSize size of the home range given to a shard that has none yet
+     */
+    public PatientShardDirectory(Map<String, DataSource> shards, int rangeSize) {
+        this.shards = shards;
+        this.names = List.copyOf(shards.keySet());
+        this.rangeSize = rangeSize;
+        DataSource directorySource = shards.get(names.get(0));
+        this.directory = new JdbcTemplate(directorySource);
+        this.namedDirectory = new NamedParameterJdbcTemplate(directory);
+        this.directoryTransaction = new TransactionTemplate(new DataSourceTransactionManager(directorySource));
+    }
+
+    /**
+     * @return names of all shards, the directory shard first
+     */
+    public List<String> shards() {
+        return names;
+    }
+
+    /**
+     * @return data sources of all shards by name, the directory shard first
+     */
+    public Map<String, DataSource> dataSources() {
+        return shards;
+    }
+
+    /**
+     * @return the data source of a shard, for work outside the routed transactions
+     */
+    public DataSource dataSource(String shard) {
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null) {
+            throw new InvalidPatientRequestException("Unknown shard " + shard);
+        }
+        return dataSource;
+    }
+
+    /**
+     * @return the shard holding the patient with this id; the first shard for ids outside every range
+     */
+    public String shardForId(int id) {
+        Map.Entry<Long, PatientShardRange> entry = ranges.floorEntry((long) id);
+        return entry != null && entry.getValue().contains(id) ? entry.getValue().shard() : names.get(0);
+    }
+
+    /**
+     * @return the shard a new patient with this email is created in
+     */
+    public String shardForEmail(String email) {
+        int hash = email == null ? 0 : email.toLowerCase(Locale.ROOT).hashCode();
+        return names.get(Math.floorMod(hash, names.size()));
+    }
+
+    /**
+     * @return all ranges in id order
+     */
+    public List<PatientShardRange> ranges() {
+        return List.copyOf(ranges.values());
+    }
+
+    /**
+     * Give every shard without a range a home range after the highest one, and move the id sequence of
+     * shards that have not allocated from their home range yet into it. Safe to repeat and to run concurrently
+     * on several instances: a range lost to another instance is simply re-read. An empty email directory is
+     * filled from the patients of every shard, e.g. those written before it existed.
+     */
+    public synchronized void initialize() {
+        refresh();
+        for (String shard : names) {
+            if (ranges.values().stream().noneMatch(range -> range.shard().equals(shard))) {
+                long start = ranges.isEmpty() ? 1 : ranges.lastEntry().getValue().end();
+                try {
+                    directory.update("insert into patient_shard_ranges (range_start, range_end, shard, home) values (?, ?, ?, true)",
+                            start, start + rangeSize, shard);
+                    log.info("Shard {} allocates patient ids from {}", shard, start);
+                } catch (DuplicateKeyException e) {
+                    log.info("Shard {} got its range from another instance", shard);
+                }
+                refresh();
+            }
+        }
+        for (PatientShardRange home : ranges.values()) {
+            if (home.home()) {
+                JdbcTemplate shard = new JdbcTemplate(dataSource(home.shard()));
+                long next = nextId(shard);
+                if (next < home.start()) {
+                    // Hibernate's pooled optimizer hands out the allocation ending at the value read
+                    shard.execute("alter sequence patients_seq restart with " + (home.start() + ID_ALLOCATION - 1));
+                }
+            }
+        }
+        fillEmails();
+    }
+
+    /**
+     * Re-read the ranges, e.g. after another instance moved patients.
+     */
+    @Scheduled(fixedDelayString = "${patient.sharding.directory-refresh:10s}", initialDelayString = "${patient.sharding.directory-refresh:10s}")
+    public void refresh() {
+        NavigableMap<Long, PatientShardRange> loaded = new TreeMap<>();
+        directory.query(SELECT_RANGES, rs -> {
+            PatientShardRange range = new PatientShardRange(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBoolean(4));
+            loaded.put(range.start(), range);
+        });
+        ranges = loaded;
+    }
+
+    /**
+     * Record that a shard now holds [from, to), splitting the range that held it.
+     * @param from first id
+     * @param to id after the last id
+     * @param shard shard now holding the ids
+     * @throws InvalidPatientRequestException if the ids do not lie within one range
+     */
+    public synchronized void assign(long from, long to, String shard) {
+        PatientShardRange current = rangeOf(from, to);
+        directoryTransaction.executeWithoutResult(status -> {
+            directory.update("delete from patient_shard_ranges where range_start = ?", current.start());
+            List<PatientShardRange> split = new ArrayList<>(3);
+            if (current.start() < from) {
+                split.add(new PatientShardRange(current.start(), from, current.shard(), false));
+            }
+            split.add(new PatientShardRange(from, to, shard, false));
+            if (to < current.end()) {
+                split.add(new PatientShardRange(to, current.end(), current.shard(), current.home()));
+            }
+            for (PatientShardRange range : split) {
+                directory.update("insert into patient_shard_ranges (range_start, range_end, shard, home) values (?, ?, ?, ?)",
+                        range.start(), range.end(), range.shard(), range.home());
+            }
+        });
+        refresh();
+    }
+
+    /**
+     * @return the single range holding all of [from, to)
+     * @throws InvalidPatientRequestException if there is none
+     */
+    public PatientShardRange rangeOf(long from, long to) {
+        Map.Entry<Long, PatientShardRange> entry = ranges.floorEntry(from);
+        if (from >= to || entry == null || to > entry.getValue().end()) {
+            throw new InvalidPatientRequestException("Ids " + from + " to " + to + " do not lie within one shard range");
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Reserve an email before a patient is created with it or changed to it, so no other shard hands it out meanwhile.
+     * @param email email of the new or changed patient
+     * @param patientId id of the patient changing its email, null for a patient about to be created
+     * @return whether this call reserved the email; it must then be released if the write fails
+     * @throws PatientEmailTakenException if another patient holds the email or is being created with it
+     */
+    public boolean claimEmail(String email, Integer patientId) {
+        String key = key(email);
+        List<Integer> owners = directory.query("select patient_id from patient_shard_emails where email = ?",
+                (rs, rowNum) -> rs.getObject(1, Integer.class), key);
+        if (!owners.isEmpty()) {
+            if (patientId != null && patientId.equals(owners.get(0))) {
+                return false;
+            }
+            throw taken(email, patientId);
+        }
+        try {
+            directory.update(INSERT_EMAIL, key, patientId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            throw taken(email, patientId);
+        }
+    }
+
+    /**
+     * Reserve the emails of a batch of patients about to be created.
+     * @param emails emails of the batch
+     * @return the emails reserved, in lower case; the others are held by other patients
+     */
+    public Set<String> claimEmails(Collection<String> emails) {
+        Set<String> claimed = new LinkedHashSet<>();
+        emails.forEach(email -> claimed.add(key(email)));
+        List<String> keys = List.copyOf(claimed);
+        for (int from = 0; from < keys.size(); from += EMAIL_CHUNK) {
+            List<String> chunk = keys.subList(from, Math.min(from + EMAIL_CHUNK, keys.size()));
+            namedDirectory.query(SELECT_EMAILS, Map.of("emails", chunk), rs -> {
+                claimed.remove(rs.getString(1));
+            });
+        }
+        try {
+            directoryTransaction.executeWithoutResult(status -> directory.batchUpdate(INSERT_EMAIL,
+                    claimed.stream().map(email -> new Object[]{email, null}).toList()));
+        } catch (DuplicateKeyException e) {
+            // A concurrent writer took some of them: reserve one at a time
+            claimed.removeIf(email -> {
+                try {
+                    directory.update(INSERT_EMAIL, email, null);
+                    return false;
+                } catch (DuplicateKeyException taken) {
+                    return true;
+                }
+            });
+        }
+        return claimed;
+    }
+
+    /**
+     * Record the ids of created patients on their reserved emails.
+     * @param idsByEmail patient ids by email
+     */
+    public void ownEmails(Map<String, Integer> idsByEmail) {
+        directory.batchUpdate("update patient_shard_emails set patient_id = ? where email = ?", idsByEmail.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), key(entry.getKey())}).toList());
+    }
+
+    /**
+     * Release reserved emails whose write failed.
+     */
+    public void releaseEmails(Collection<String> emails) {
+        directory.batchUpdate("delete from patient_shard_emails where email = ?",
+                emails.stream().map(email -> new Object[]{key(email)}).toList());
+    }
+
+    /**
+     * Drop the emails a patient no longer holds, after an email change or its deletion.
+     * @param patientId id of the patient
+     * @param keep email the patient holds now, null once it is deleted
+     */
+    public void releaseEmailsOf(int patientId, String keep) {
+        if (keep == null) {
+            directory.update("delete from patient_shard_emails where patient_id = ?", patientId);
+        } else {
+            directory.update("delete from patient_shard_emails where patient_id = ? and email <> ?", patientId, key(keep));
+        }
+    }
+
+    /**
+     * Record the emails of patients already written, e.g. before the directory existed or while their ids are moved.
+     * @param idsByEmail patient ids by email, at most one id per email regardless of case
+     * @throws PatientEmailTakenException if one of the emails is held by another patient
+     */
+    public void adoptEmails(Map<String, Integer> idsByEmail) {
+        Map<String, Integer> missing = new HashMap<>();
+        idsByEmail.forEach((email, id) -> missing.put(key(email), id));
+        List<String> keys = List.copyOf(missing.keySet());
+        for (int from = 0; from < keys.size(); from += EMAIL_CHUNK) {
+            List<String> chunk = keys.subList(from, Math.min(from + EMAIL_CHUNK, keys.size()));
+            namedDirectory.query(SELECT_EMAILS, Map.of("emails", chunk), rs -> {
+                Integer id = missing.remove(rs.getString(1));
+                if (!id.equals(rs.getObject(2, Integer.class))) {
+                    throw taken(rs.getString(1), id);
+                }
+            });
+        }
+        directory.batchUpdate(INSERT_EMAIL, missing.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()}).toList());
+    }
+
+    /**
+     * Close the shard pools.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : shards.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void fillEmails() {
+        Integer held = directory.queryForObject("select count(*) from patient_shard_emails", Integer.class);
+        if (held != null && held > 0) {
+            return;
+        }
+        for (String shard : names) {
+            Map<String, Integer> idsByEmail = new HashMap<>();
+            new JdbcTemplate(dataSource(shard)).query("select email, id from patients",
+                    rs -> {
+                        idsByEmail.put(rs.getString(1), rs.getInt(2));
+                    });
+            try {
+                adoptEmails(idsByEmail);
+            } catch (DuplicateKeyException e) {
+                log.info("Emails of shard {} were recorded by another instance", shard);
+            } catch (PatientEmailTakenException e) {
+                log.warn("Shard {} holds an email of a patient on another shard: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static PatientEmailTakenException taken(String email, Integer patientId) {
+        return new PatientEmailTakenException(patientId == null
+                ? "Patient already exists"
+                : "Email " + email + " already exists for another patient");
+    }
+
+    /**
+     * Take an allocation from the shard's sequence: every id the shard hands out later is higher than the value.
+     */
+    static long nextId(JdbcTemplate shard) {
+        Long next = shard.queryForObject("select nextval('patients_seq')", Long.class);
+        return next == null ? 0 : next;
+    }
+}
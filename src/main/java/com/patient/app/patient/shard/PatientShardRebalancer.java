@@ -0,0 +1,159 @@
+package com.patient.app.patient.shard;
+
+import com.patient.app.patient.dto.PatientShardMove;
+import com.patient.app.patient.dto.PatientShardRange;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the patients of an id range from the shard holding them to another shard.
+ * The rows are locked on the source for the whole move, copied in chunks, re-assigned in the directory and
+ * only then deleted from the source, so a failed move leaves the source untouched. Writers to the moved rows
+ * wait for the move and then find the rows gone; other instances route to the new shard after their next
+ * directory refresh. The emails of the moved patients are checked against the directory's email reservations,
+ * as the receiving shard's uk_patient_email only sees its own.
+ * Instances may still hold ids of the range in their pooled id allocations and create patients with them on
+ * the source: the move sweeps such patients over once every instance has re-read the directory, and after that
+ * each create relocates them itself.
+ * */
+@Slf4j
+public class PatientShardRebalancer {
+
+    private static final String COLUMNS = "id, first_name, last_name, address, city, state, zip_code, phone_number, "
+            + "phone_digits, email, version, created_at, updated_at";
+    private static final String INSERT = "insert into patients (" + COLUMNS + ") values ("
+            + String.join(", ", Collections.nCopies(13, "?")) + ")";
+    private static final int EMAIL_COLUMN = 9;
+    private static final int CHUNK_SIZE = 1000;
+
+    private final PatientShardDirectory directory;
+    private final Duration directoryRefresh;
+
+    /**
+     * @param directory shard directory
+     * @param directoryRefresh how often instances re-read the directory
+     */
+    public PatientShardRebalancer(PatientShardDirectory directory, Duration directoryRefresh) {
+        this.directory = directory;
+        this.directoryRefresh = directoryRefresh;
+    }
+
+    /**
+     * Move the patients of [from, to) to another shard; returns once every instance routes the range to it.
+     * Ids the source's sequence has not handed out yet cannot be moved: part of a home range is only movable up to
+     * the ids already allocated.
+     * @param move id range and receiving shard
+     * @return number of patients moved
+     * @throws InvalidPatientRequestException if the range does not lie within one shard range, the shard is unknown
+     *         or the range holds ids the source may still allocate
+     * @throws com.patient.app.patient.exception.PatientEmailTakenException if a moved patient's email is held
+     *         by a patient outside the range
+     */
+    public long move(PatientShardMove move) {
+        PatientShardRange range = directory.rangeOf(move.from(), move.to());
+        String source = range.shard();
+        String target = move.shard();
+        directory.dataSource(target);
+        if (source.equals(target)) {
+            throw new InvalidPatientRequestException("Ids " + move.from() + " to " + move.to() + " are already on shard " + target);
+        }
+
+        if (range.home()) {
+            long allocated = PatientShardDirectory.nextId(new JdbcTemplate(directory.dataSource(source)));
+            if (move.to() > allocated + 1) {
+                throw new InvalidPatientRequestException("Shard " + source + " may still allocate ids below " + move.to()
+                        + "; only ids up to " + allocated + " can be moved");
+            }
+        }
+
+        long moved = transfer(move.from(), move.to(), source, target, () -> directory.assign(move.from(), move.to(), target));
+        log.info("Moved {} patients with ids {} to {} from shard {} to {}", moved, move.from(), move.to(), source, target);
+
+        // Instances that had not re-read the directory yet may have created patients of the range on the source
+        try {
+            Thread.sleep(directoryRefresh);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before patients created during the move were swept", e);
+        }
+        long late = transfer(move.from(), move.to(), source, target, () -> {});
+        if (late > 0) {
+            log.info("Swept {} patients created during the move from shard {} to {}", late, source, target);
+        }
+        return moved + late;
+    }
+
+    /**
+     * Move a patient just created on a shard to the shard holding its id, if that is another one: the id was taken
+     * from an allocation made before its range was moved.
+     * @param id id of the created patient
+     * @param shard shard it was created on
+     */
+    public void relocate(int id, String shard) {
+        String holder = directory.shardForId(id);
+        if (!holder.equals(shard)) {
+            log.info("Patient {} was created on shard {} with an id shard {} holds, relocating it", id, shard, holder);
+            transfer(id, id + 1, shard, holder, () -> {});
+        }
+    }
+
+    /**
+     * Copy the patients of [from, to) in chunks, run the step before their deletion and delete the copied rows from
+     * the source. The copies are removed again if anything fails.
+     */
+    private long transfer(int from, int to, String source, String target, Runnable beforeDelete) {
+        JdbcTemplate sourceJdbc = new JdbcTemplate(directory.dataSource(source));
+        JdbcTemplate targetJdbc = new JdbcTemplate(directory.dataSource(target));
+        TransactionTemplate sourceTransaction = new TransactionTemplate(new DataSourceTransactionManager(directory.dataSource(source)));
+        TransactionTemplate targetTransaction = new TransactionTemplate(new DataSourceTransactionManager(directory.dataSource(target)));
+        Integer moved = sourceTransaction.execute(status -> {
+            List<Object[]> copied = new ArrayList<>();
+            int after = from - 1;
+            try {
+                while (true) {
+                    List<Object[]> rows = sourceJdbc.query("select " + COLUMNS + " from patients where id > ? and id < ? "
+                            + "order by id limit " + CHUNK_SIZE + " for update", PatientShardRebalancer::row, after, to);
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    Map<String, Integer> idsByEmail = new HashMap<>();
+                    rows.forEach(row -> idsByEmail.put((String) row[EMAIL_COLUMN], ((Number) row[0]).intValue()));
+                    directory.adoptEmails(idsByEmail);
+                    targetTransaction.executeWithoutResult(targetStatus -> targetJdbc.batchUpdate(INSERT, rows));
+                    rows.forEach(row -> copied.add(new Object[]{row[0]}));
+                    after = ((Number) rows.get(rows.size() - 1)[0]).intValue();
+                }
+                beforeDelete.run();
+            } catch (RuntimeException e) {
+                log.error("Moving ids {} to {} from shard {} to {} failed, removing copies", from, to, source, target);
+                targetJdbc.batchUpdate("delete from patients where id = ?", copied);
+                throw e;
+            }
+            // Only the copied rows: patients created meanwhile are left for the sweep
+            sourceJdbc.batchUpdate("delete from patients where id = ?", copied);
+            return copied.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+    private static Object[] row(ResultSet rs, int rowNum) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        Object[] values = new Object[metaData.getColumnCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+        return values;
+    }
+}
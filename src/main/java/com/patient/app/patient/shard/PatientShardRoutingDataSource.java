@@ -0,0 +1,28 @@
+package com.patient.app.patient.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard bound in {@link PatientShardContext}, or of the first shard when none is bound.
+ * Work that is not routed, such as Hibernate's schema validation, therefore runs against the first shard.
+ * */
+public class PatientShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * @param shards shard data sources by name, the default shard first
+     */
+    public PatientShardRoutingDataSource(LinkedHashMap<String, DataSource> shards) {
+        setTargetDataSources(Map.copyOf(shards));
+        setDefaultTargetDataSource(shards.values().iterator().next());
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return PatientShardContext.current();
+    }
+}
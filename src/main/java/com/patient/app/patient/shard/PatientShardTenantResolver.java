@@ -0,0 +1,28 @@
+package com.patient.app.patient.shard;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Opens each Hibernate session under the name of the shard it is routed to.
+ * Hibernate keeps the pooled id allocation of the patients_seq generator per tenant, so ids handed out in a
+ * session always come from the sequence of the shard the session writes to.
+ * */
+public class PatientShardTenantResolver implements CurrentTenantIdentifierResolver<String> {
+
+    private final String defaultShard;
+
+    public PatientShardTenantResolver(String defaultShard) {
+        this.defaultShard = defaultShard;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        String shard = PatientShardContext.current();
+        return shard != null ? shard : defaultShard;
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+-- Patients and the change feed outbox, portable between PostgreSQL and H2.
+-- IF NOT EXISTS adopts a schema that Hibernate generated before migrations owned it (baseline version 0).
+
+CREATE SEQUENCE IF NOT EXISTS patients_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS patients (
+    id           INTEGER      NOT NULL,
+    first_name   VARCHAR(255) NOT NULL,
+    last_name    VARCHAR(255) NOT NULL,
+    address      VARCHAR(255) NOT NULL,
+    city         VARCHAR(255) NOT NULL,
+    state        VARCHAR(255) NOT NULL,
+    zip_code     VARCHAR(10)  NOT NULL,
+    phone_number VARCHAR(15)  NOT NULL,
+    phone_digits VARCHAR(15),
+    email        VARCHAR(100) NOT NULL,
+    version      BIGINT       NOT NULL,
+    created_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6),
+    CONSTRAINT patients_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_patient_email UNIQUE (email)
+);
+
+CREATE INDEX IF NOT EXISTS idx_patient_zip_code ON patients (zip_code);
+CREATE INDEX IF NOT EXISTS idx_patient_state_city ON patients (state, city);
+CREATE INDEX IF NOT EXISTS idx_patient_last_first_name ON patients (last_name, first_name);
+CREATE INDEX IF NOT EXISTS idx_patient_phone_digits ON patients (phone_digits);
+CREATE INDEX IF NOT EXISTS idx_patient_updated_at ON patients (updated_at);
+
+CREATE SEQUENCE IF NOT EXISTS patient_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS patient_outbox (
+    id              BIGINT        NOT NULL,
+    sequence        BIGINT,
+    type            VARCHAR(10)   NOT NULL,
+    patient_id      INTEGER       NOT NULL,
+    patient_version BIGINT,
+    payload         VARCHAR(4000),
+    occurred_at     TIMESTAMP(6)  NOT NULL,
+    CONSTRAINT patient_outbox_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_patient_outbox_sequence UNIQUE (sequence),
+    CONSTRAINT ck_patient_outbox_type CHECK (type IN ('CREATED', 'UPDATED', 'DELETED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_patient_outbox_patient ON patient_outbox (patient_id, sequence);
@@ -0,0 +1,10 @@
+-- Shard directory: which shard holds which block of patient ids. Only used, on the first shard,
+-- when patient.sharding.enabled is set; empty otherwise.
+
+CREATE TABLE IF NOT EXISTS patient_shard_ranges (
+    range_start BIGINT      NOT NULL,
+    range_end   BIGINT      NOT NULL,
+    shard       VARCHAR(64) NOT NULL,
+    home        BOOLEAN     NOT NULL,
+    CONSTRAINT patient_shard_ranges_pkey PRIMARY KEY (range_start)
+);
@@ -0,0 +1,12 @@
+-- Shard email directory: which patient holds which email, across all shards. Each shard's uk_patient_email only
+-- sees its own patients, while email changes and moved id ranges put patients on shards other than the one their
+-- email hashes to. Only used, on the first shard, when patient.sharding.enabled is set; empty otherwise.
+-- Emails are stored in lower case; patient_id is null while the patient is being created.
+
+CREATE TABLE IF NOT EXISTS patient_shard_emails (
+    email      VARCHAR(100) NOT NULL,
+    patient_id INTEGER,
+    CONSTRAINT patient_shard_emails_pkey PRIMARY KEY (email)
+);
+
+CREATE INDEX IF NOT EXISTS idx_patient_shard_emails_patient_id ON patient_shard_emails (patient_id);
@@ -0,0 +1,13 @@
+-- High-water mark of the change feed: the last sequence the outbox relay handed out. Relays lock this single row before
+-- they assign sequences, so relays of several instances take turns and their batches commit in sequence order. It also
+-- never goes back when compaction removes the change holding the highest sequence.
+
+CREATE TABLE IF NOT EXISTS patient_outbox_relay (
+    id            INTEGER NOT NULL,
+    last_sequence BIGINT  NOT NULL,
+    CONSTRAINT patient_outbox_relay_pkey PRIMARY KEY (id),
+    CONSTRAINT ck_patient_outbox_relay_single CHECK (id = 1)
+);
+
+INSERT INTO patient_outbox_relay (id, last_sequence)
+SELECT 1, COALESCE(MAX(sequence), 0) FROM patient_outbox;
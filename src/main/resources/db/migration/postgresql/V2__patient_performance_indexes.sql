@@ -0,0 +1,28 @@
+-- PostgreSQL-only indexes: expression, covering (INCLUDE) and trigram indexes have no H2 equivalent.
+
+-- Email uniqueness regardless of case. Keeps the uk_patient_email name, which the service matches on conflicts.
+ALTER TABLE patients DROP CONSTRAINT IF EXISTS uk_patient_email;
+CREATE UNIQUE INDEX uk_patient_email ON patients (lower(email));
+
+-- Searches filter on equality and page by id: keying on (filter, id) and carrying the summary columns
+-- lets a keyset page be read from the index alone, in order, without sorting or visiting the heap.
+DROP INDEX IF EXISTS idx_patient_state_city;
+CREATE INDEX idx_patient_state_city ON patients (state, city, id)
+    INCLUDE (first_name, last_name, zip_code, phone_number, email);
+
+DROP INDEX IF EXISTS idx_patient_zip_code;
+CREATE INDEX idx_patient_zip_code ON patients (zip_code, id)
+    INCLUDE (first_name, last_name, city, state, phone_number, email);
+
+DROP INDEX IF EXISTS idx_patient_phone_digits;
+CREATE INDEX idx_patient_phone_digits ON patients (phone_digits, id)
+    INCLUDE (first_name, last_name, city, state, zip_code, phone_number, email);
+
+-- Case-insensitive last name lookup and last name / first name prefix search (LIKE 'abc%')
+CREATE INDEX IF NOT EXISTS idx_patient_lower_name_prefix
+    ON patients (lower(last_name) text_pattern_ops, lower(first_name) text_pattern_ops);
+
+-- Trigram index for name search that does not anchor on the start of the last name
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_patient_name_trgm
+    ON patients USING gin ((lower(last_name || ' ' || first_name)) gin_trgm_ops);
@@ -0,0 +1,59 @@
+-- Optional, PostgreSQL only: hash-partition patients by id into ${patientPartitions} partitions.
+-- Applied only when patient.schema.partitions > 0 (see PatientSchemaConfiguration).
+--
+-- A unique index of a partitioned table must contain the partition key, so email uniqueness cannot stay on
+-- patients. It moves to patient_emails, kept in step by a trigger; its key keeps the uk_patient_email name.
+
+CREATE TABLE patients_partitioned (LIKE patients INCLUDING DEFAULTS) PARTITION BY HASH (id);
+
+DO $$
+BEGIN
+    FOR i IN 0..${patientPartitions} - 1 LOOP
+        EXECUTE format('CREATE TABLE patients_p%s PARTITION OF patients_partitioned '
+                       'FOR VALUES WITH (MODULUS %s, REMAINDER %s)', i, ${patientPartitions}, i);
+    END LOOP;
+END
+$$;
+
+INSERT INTO patients_partitioned SELECT * FROM patients;
+
+DROP TABLE patients;
+ALTER TABLE patients_partitioned RENAME TO patients;
+ALTER TABLE patients ADD CONSTRAINT patients_pkey PRIMARY KEY (id);
+
+CREATE INDEX idx_patient_state_city ON patients (state, city, id)
+    INCLUDE (first_name, last_name, zip_code, phone_number, email);
+CREATE INDEX idx_patient_zip_code ON patients (zip_code, id)
+    INCLUDE (first_name, last_name, city, state, phone_number, email);
+CREATE INDEX idx_patient_phone_digits ON patients (phone_digits, id)
+    INCLUDE (first_name, last_name, city, state, zip_code, phone_number, email);
+CREATE INDEX idx_patient_last_first_name ON patients (last_name, first_name);
+CREATE INDEX idx_patient_updated_at ON patients (updated_at);
+CREATE INDEX idx_patient_lower_name_prefix
+    ON patients (lower(last_name) text_pattern_ops, lower(first_name) text_pattern_ops);
+CREATE INDEX idx_patient_name_trgm
+    ON patients USING gin ((lower(last_name || ' ' || first_name)) gin_trgm_ops);
+
+CREATE TABLE patient_emails (
+    email      VARCHAR(100) NOT NULL,
+    patient_id INTEGER      NOT NULL,
+    CONSTRAINT uk_patient_email PRIMARY KEY (email)
+);
+
+INSERT INTO patient_emails (email, patient_id) SELECT lower(email), id FROM patients;
+
+CREATE FUNCTION patient_emails_sync() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND lower(OLD.email) <> lower(NEW.email)) THEN
+        DELETE FROM patient_emails WHERE email = lower(OLD.email) AND patient_id = OLD.id;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND lower(OLD.email) <> lower(NEW.email)) THEN
+        INSERT INTO patient_emails (email, patient_id) VALUES (lower(NEW.email), NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER patient_emails_sync
+    AFTER INSERT OR UPDATE OF email OR DELETE ON patients
+    FOR EACH ROW EXECUTE FUNCTION patient_emails_sync();
@@ -0,0 +1,38 @@
+package com.patient.app.patient;
+
+import com.patient.app.patient.model.Patient;
+
+/**
+ * Valid patients for tests, differing only in the fields a test cares about.
+ * */
+public final class TestPatients {
+
+    private TestPatients() {
+    }
+
+    /**
+     * @param email email of the patient, unique per test
+     * @return new patient without id, living in Colombo
+     */
+    public static Patient patient(String email) {
+        return patient(email, "Colombo");
+    }
+
+    /**
+     * @param email email of the patient, unique per test
+     * @param city city of the patient
+     * @return new patient without id
+     */
+    public static Patient patient(String email, String city) {
+        return Patient.builder()
+                .firstName("Ann")
+                .lastName("Lee")
+                .address("1 Main St")
+                .city(city)
+                .state("WP")
+                .zipCode("10100")
+                .phoneNumber("071-234-5670")
+                .email(email)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.patient.app.patient.controller;
+
+import com.patient.app.patient.config.PatientJsonCacheProperties;
+import com.patient.app.patient.config.PatientJsonConfiguration;
+import com.patient.app.patient.config.PatientListProperties;
+import com.patient.app.patient.config.PatientMatchingProperties;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.json.PatientJsonCache;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientMatchingService;
+import com.patient.app.patient.service.PatientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.patient.app.patient.controller.PatientControllerTest.PATIENT_JSON;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Creates with patient.matching.on-create=REJECT; the default WARN mode is covered by {@link PatientControllerTest}.
+ */
+@WebMvcTest(controllers = PatientController.class, properties = "patient.matching.on-create=REJECT")
+@Import({PatientJsonConfiguration.class, PatientJsonCache.class})
+@EnableConfigurationProperties({PatientListProperties.class, PatientMatchingProperties.class, PatientJsonCacheProperties.class})
+class PatientControllerMatchingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PatientService patientService;
+
+    @MockitoBean
+    private PatientMatchingService patientMatchingService;
+
+    @BeforeEach
+    void setUp() {
+        when(patientMatchingService.findMatches(any(Patient.class))).thenReturn(List.of(new PatientMatch(3, 0.97)));
+        when(patientService.createPatient(any(Patient.class)))
+                .thenReturn(Patient.builder().id(9).firstName("Ann").email("ann@example.com").version(0L).build());
+    }
+
+    @Test
+    @DisplayName("In REJECT mode a probable duplicate is refused with 409 and its matches")
+    void rejectsProbableDuplicate() throws Exception {
+        mockMvc.perform(post("/api/v1/patients").contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.matches[0].patientId").value(3))
+                .andExpect(jsonPath("$.matches[0].score").value(0.97));
+
+        verify(patientService, never()).createPatient(any(Patient.class));
+    }
+
+    @Test
+    @DisplayName("A confirmed create skips the rejection and still names the probable duplicates")
+    void confirmedCreateBypassesRejection() throws Exception {
+        mockMvc.perform(post("/api/v1/patients").param("confirmed", "true")
+                        .contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(PatientController.PROBABLE_DUPLICATES, "3"))
+                .andExpect(jsonPath("$.id").value(9));
+
+        verify(patientService).createPatient(any(Patient.class));
+    }
+}
@@ -0,0 +1,330 @@
+package com.patient.app.patient.controller;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.patient.app.patient.config.PatientJsonCacheProperties;
+import com.patient.app.patient.config.PatientJsonConfiguration;
+import com.patient.app.patient.config.PatientListProperties;
+import com.patient.app.patient.config.PatientMatchingProperties;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.dto.PatientWatermark;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.exception.PatientVersionConflictException;
+import com.patient.app.patient.json.PatientJsonCache;
+import com.patient.app.patient.json.PatientMediaTypes;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientMatchingService;
+import com.patient.app.patient.service.PatientService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PatientController.class)
+@Import({PatientJsonConfiguration.class, PatientJsonCache.class})
+@EnableConfigurationProperties({PatientListProperties.class, PatientMatchingProperties.class, PatientJsonCacheProperties.class})
+class PatientControllerTest {
+
+    static final String PATIENT_JSON = """
+            {"firstName": "Ann", "lastName": "Lee", "address": "1 Main St", "city": "Colombo", "state": "WP",
+             "zipCode": "10100", "phoneNumber": "071-234-5670", "email": "ann@example.com"}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PatientService patientService;
+
+    @MockitoBean
+    private PatientMatchingService patientMatchingService;
+
+    @Test
+    @DisplayName("List patients with default limit returns a cursor page")
+    void listPatientsDefault() throws Exception {
+        Patient patient = Patient.builder().id(7).firstName("Lahiru").email("lw@example.com").build();
+        when(patientService.getPatientList(isNull(), eq(50))).thenReturn(new CursorPage<>(List.of(patient), 7));
+
+        mockMvc.perform(get("/api/v1/patients"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.items[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value(7));
+        verify(patientService, never()).getWatermark();
+    }
+
+    @Test
+    @DisplayName("Stream patients as NDJSON")
+    @SuppressWarnings("unchecked")
+    void streamPatients() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Patient> consumer = invocation.getArgument(0);
+            consumer.accept(Patient.builder().id(1).email("a@example.com").build());
+            consumer.accept(Patient.builder().id(2).email("b@example.com").build());
+            return null;
+        }).when(patientService).streamPatients(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/patients").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"id\":2"));
+    }
+
+    @Test
+    @DisplayName("Get patient by id as Smile, with an ETag of its own")
+    void getPatientAsSmile() throws Exception {
+        Patient patient = Patient.builder().id(7).firstName("Lahiru").email("lw@example.com").version(2L).build();
+        when(patientService.getPatientById(7)).thenReturn(patient);
+        when(patientService.getPatientVersion(7)).thenReturn(new PatientVersion(7, 2L, null));
+
+        byte[] body = mockMvc.perform(get("/api/v1/patients/7").accept(PatientMediaTypes.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PatientMediaTypes.SMILE))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-2-s\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PatientResponse decoded = new SmileMapper().findAndRegisterModules().readValue(body, PatientResponse.class);
+        assertEquals(7, decoded.id());
+        assertEquals("lw@example.com", decoded.email());
+
+        mockMvc.perform(get("/api/v1/patients/7").accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-2\""));
+        mockMvc.perform(get("/api/v1/patients/7").accept(PatientMediaTypes.SMILE).header(HttpHeaders.IF_NONE_MATCH, "\"7-2\""))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PatientMediaTypes.SMILE));
+        mockMvc.perform(get("/api/v1/patients/7").accept(PatientMediaTypes.SMILE).header(HttpHeaders.IF_NONE_MATCH, "\"7-2-s\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/patients/7").header(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.5"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-2-s\""));
+        mockMvc.perform(get("/api/v1/patients/7").header(HttpHeaders.ACCEPT, "application/x-jackson-smile;q=0.5, application/json"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-2\""));
+    }
+
+    @Test
+    @DisplayName("List pages as Smile carry their own ETags")
+    void listPatientsAsSmile() throws Exception {
+        when(patientService.getPatientList(isNull(), eq(50)))
+                .thenReturn(new CursorPage<>(List.of(Patient.builder().id(7).email("lw@example.com").version(1L).build()), null));
+
+        String jsonTag = mockMvc.perform(get("/api/v1/patients").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smileTag = mockMvc.perform(get("/api/v1/patients").accept(PatientMediaTypes.SMILE))
+                .andExpect(content().contentType(PatientMediaTypes.SMILE))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertEquals(jsonTag.substring(0, jsonTag.length() - 1) + "-s\"", smileTag);
+    }
+
+    @Test
+    @DisplayName("Stream patients as length-prefixed Smile documents")
+    @SuppressWarnings("unchecked")
+    void streamPatientsAsSmile() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Patient> consumer = invocation.getArgument(0);
+            consumer.accept(Patient.builder().id(1).email("a@example.com").build());
+            consumer.accept(Patient.builder().id(2).email("b@example.com").build());
+            return null;
+        }).when(patientService).streamPatients(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/patients").accept(PatientMediaTypes.SMILE_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PatientMediaTypes.SMILE_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+        ObjectReader reader = new SmileMapper().findAndRegisterModules().readerFor(PatientResponse.class);
+        DataInputStream frames = new DataInputStream(new ByteArrayInputStream(body));
+        List<Integer> ids = new ArrayList<>();
+        while (frames.available() > 0) {
+            byte[] frame = new byte[frames.readInt()];
+            frames.readFully(frame);
+            ids.add(reader.<PatientResponse>readValue(frame).id());
+        }
+        assertEquals(List.of(1, 2), ids);
+    }
+
+    @Test
+    @DisplayName("Writes honour If-Match and return the new ETag")
+    void conditionalWrites() throws Exception {
+        Patient patched = Patient.builder().id(7).city("Kandy").email("lw@example.com").version(4L).build();
+        when(patientService.patchPatient(eq(7), eq(new PatientPatch(null, null, null, "Kandy", null, null, null, null)), eq(3L)))
+                .thenReturn(patched);
+        doThrow(new PatientVersionConflictException(7)).when(patientService).deletePatient(7, 3L);
+
+        mockMvc.perform(patch("/api/v1/patients/7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"7-3\"")
+                        .content("{\"city\": \"Kandy\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-4\""))
+                .andExpect(jsonPath("$.version").value(4));
+
+        mockMvc.perform(delete("/api/v1/patients/7").header(HttpHeaders.IF_MATCH, "\"7-3\""))
+                .andExpect(status().isPreconditionFailed());
+        // The tag of the Smile representation names the same version
+        mockMvc.perform(patch("/api/v1/patients/7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(PatientMediaTypes.SMILE)
+                        .header(HttpHeaders.IF_MATCH, "\"7-3-s\"")
+                        .content("{\"city\": \"Kandy\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-4-s\""));
+        mockMvc.perform(delete("/api/v1/patients/7").header(HttpHeaders.IF_MATCH, "W/\"7-3\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Conditional GET of an unchanged patient is answered from its version")
+    void conditionalGetById() throws Exception {
+        when(patientService.getPatientVersion(7)).thenReturn(new PatientVersion(7, 3L, LocalDateTime.of(2024, 1, 1, 8, 0)));
+
+        mockMvc.perform(get("/api/v1/patients/7").header(HttpHeaders.IF_NONE_MATCH, "\"7-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string(""));
+        HttpHeaders since = new HttpHeaders();
+        since.setIfModifiedSince(PatientETags.lastModified(LocalDateTime.of(2024, 1, 1, 8, 0)));
+        mockMvc.perform(get("/api/v1/patients/7").header(HttpHeaders.IF_MODIFIED_SINCE, since.getFirst(HttpHeaders.IF_MODIFIED_SINCE)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-3\""));
+        verify(patientService, never()).getPatientById(7);
+    }
+
+    @Test
+    @DisplayName("A conditional GET that loads the patient tags the body it sends, not the version it compared")
+    void conditionalGetTagsBodySent() throws Exception {
+        when(patientService.getPatientVersion(7)).thenReturn(new PatientVersion(7, 3L, LocalDateTime.of(2024, 1, 1, 9, 0)));
+        when(patientService.getPatientById(7)).thenReturn(Patient.builder().id(7).email("lw@example.com").version(2L)
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 8, 0)).build());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/patients/7").header(HttpHeaders.IF_NONE_MATCH, "\"7-1\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2))
+                .andReturn();
+
+        assertEquals(List.of("\"7-2\""), result.getResponse().getHeaders(HttpHeaders.ETAG));
+        assertEquals(1, result.getResponse().getHeaders(HttpHeaders.LAST_MODIFIED).size());
+        assertEquals(PatientETags.lastModified(LocalDateTime.of(2024, 1, 1, 8, 0)),
+                result.getResponse().getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    @DisplayName("Conditional list requests are validated against the table watermark or the page")
+    void conditionalList() throws Exception {
+        Patient patient = Patient.builder().id(7).email("lw@example.com").version(1L).build();
+        when(patientService.getWatermark()).thenReturn(new PatientWatermark(2L, LocalDateTime.of(2024, 1, 1, 8, 0)));
+        when(patientService.getPatientList(isNull(), eq(50))).thenReturn(new CursorPage<>(List.of(patient), null));
+
+        String pageTag = mockMvc.perform(get("/api/v1/patients"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        verify(patientService, never()).getWatermark();
+
+        // The page is unchanged although the watermark is not the tag the client holds: 304 hands out the watermark
+        String watermarkTag = mockMvc.perform(get("/api/v1/patients").header(HttpHeaders.IF_NONE_MATCH, pageTag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(pageTag, watermarkTag);
+        mockMvc.perform(get("/api/v1/patients").header(HttpHeaders.IF_NONE_MATCH, watermarkTag))
+                .andExpect(status().isNotModified());
+        verify(patientService, times(2)).getPatientList(isNull(), eq(50));
+
+        when(patientService.getWatermark()).thenReturn(new PatientWatermark(2L, LocalDateTime.of(2024, 1, 1, 9, 0)));
+        when(patientService.getPatientList(isNull(), eq(50)))
+                .thenReturn(new CursorPage<>(List.of(Patient.builder().id(7).email("lw@example.com").version(2L).build()), null));
+        mockMvc.perform(get("/api/v1/patients").header(HttpHeaders.IF_NONE_MATCH, watermarkTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].version").value(2));
+        mockMvc.perform(get("/api/v1/patients").header(HttpHeaders.IF_NONE_MATCH, pageTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("A taken email is a conflict, other invalid patient data a bad request, unexpected failures no client error")
+    void emailTakenAndInvalidData() throws Exception {
+        when(patientService.updatePatient(eq(7), any(Patient.class), isNull()))
+                .thenThrow(new PatientEmailTakenException("Email ann@example.com already exists for another patient"))
+                .thenThrow(new InvalidPatientRequestException("Invalid patient data provided"))
+                .thenThrow(new IllegalArgumentException("Bug in a library"));
+
+        mockMvc.perform(put("/api/v1/patients/7").contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Email ann@example.com already exists for another patient"));
+        mockMvc.perform(put("/api/v1/patients/7").contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isBadRequest());
+        // Not handled, so MockMvc rethrows it where a server answers 500
+        ServletException unhandled = assertThrows(ServletException.class, () -> mockMvc.perform(
+                put("/api/v1/patients/7").contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON)));
+        assertInstanceOf(IllegalArgumentException.class, unhandled.getCause());
+    }
+
+    @Test
+    @DisplayName("In WARN mode a probable duplicate is created and named in the Probable-Duplicates header")
+    void createWarnsOfProbableDuplicates() throws Exception {
+        when(patientMatchingService.findMatches(any(Patient.class)))
+                .thenReturn(List.of(new PatientMatch(3, 0.97), new PatientMatch(5, 0.91)))
+                .thenReturn(List.of());
+        when(patientService.createPatient(any(Patient.class)))
+                .thenReturn(Patient.builder().id(9).firstName("Ann").email("ann@example.com").version(0L).build());
+
+        mockMvc.perform(post("/api/v1/patients").contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(PatientController.PROBABLE_DUPLICATES, "3,5"))
+                .andExpect(jsonPath("$.id").value(9));
+        mockMvc.perform(post("/api/v1/patients").contentType(MediaType.APPLICATION_JSON).content(PATIENT_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(PatientController.PROBABLE_DUPLICATES));
+    }
+}
@@ -0,0 +1,178 @@
+package com.patient.app.patient.export;
+
+import com.patient.app.patient.dto.PatientExportJob;
+import com.patient.app.patient.dto.PatientExportRequest;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientRequestConflictException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.repository.PatientRepository;
+import com.patient.app.patient.service.PatientExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "patient.export.directory=${java.io.tmpdir}/patient-exports-test",
+        "patient.export.checkpoint-rows=2"
+})
+@ActiveProfiles("test")
+class PatientExporterTest {
+
+    @Autowired
+    private PatientExporter exporter;
+
+    @Autowired
+    private PatientExportService patientExportService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private List<Patient> patients;
+
+    @BeforeEach
+    void setUp() {
+        patientRepository.deleteAll();
+        patients = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            patients.add(patientRepository.save(patient(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("CSV export writes the projected fields of changed patients in id order")
+    void csvProjectionAndChangedSince() throws IOException {
+        // Given
+        PatientExportRequest request = new PatientExportRequest(PatientExportFormat.CSV, null,
+                List.of("lastName", "email"), LocalDateTime.now().minusHours(1));
+        PatientExportRequest none = new PatientExportRequest(PatientExportFormat.CSV, null,
+                List.of("email"), LocalDateTime.now().plusHours(1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+
+        // When
+        patientExportService.exportTo(request, out);
+        patientExportService.exportTo(none, empty);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(6, lines.length);
+        assertEquals("id,lastName,email", lines[0]);
+        assertEquals(patients.getFirst().getId() + ",Lee,export0@example.com", lines[1]);
+        assertEquals("id,email\n", empty.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Unknown fields are rejected")
+    void unknownField() {
+        PatientExportRequest request = new PatientExportRequest(null, null, List.of("password"), null);
+        assertThrows(InvalidPatientRequestException.class, () -> patientExportService.exportTo(request, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    @DisplayName("A gzip export cut at a checkpoint and continued after its last id equals the full export")
+    void resumeFromCheckpoint() throws IOException {
+        // Given
+        PatientExportRequest request = new PatientExportRequest(PatientExportFormat.NDJSON, PatientExportCompression.GZIP,
+                List.of("firstName", "city"), null);
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        exporter.export(request, 0, true, full, 0, progress(Integer.MAX_VALUE, new long[2], full));
+
+        // When: the first run stops after its first checkpoint (2 rows) plus some output
+        ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        long[] checkpoint = new long[2];
+        assertThrows(CancellationException.class,
+                () -> exporter.export(request, 0, true, partial, 2, progress(1, checkpoint, partial)));
+        ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+        resumed.write(partial.toByteArray(), 0, (int) checkpoint[1]);
+        exporter.export(request, (int) checkpoint[0], false, resumed, 2, progress(Integer.MAX_VALUE, new long[2], resumed));
+
+        // Then
+        assertEquals(patients.get(1).getId(), (int) checkpoint[0]);
+        String expected = gunzip(full.toByteArray());
+        assertEquals(expected, gunzip(resumed.toByteArray()));
+        assertEquals(5, expected.lines().count());
+        assertTrue(expected.startsWith("{\"id\":" + patients.getFirst().getId() + ",\"firstName\":\"Ann0\",\"city\":\"Colombo\"}"));
+    }
+
+    @Test
+    @DisplayName("Export jobs write the file in the background and report progress")
+    void exportJob() throws Exception {
+        // Given
+        PatientExportRequest request = new PatientExportRequest(PatientExportFormat.CSV, PatientExportCompression.NONE, null, null);
+
+        // When
+        PatientExportJob job = patientExportService.startExport(request);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (patientExportService.getExport(job.id()).status() != PatientExportJob.Status.COMPLETED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Then
+        PatientExportJob completed = patientExportService.getExport(job.id());
+        assertEquals(PatientExportJob.Status.COMPLETED, completed.status());
+        assertEquals(5, completed.totalRows());
+        assertEquals(5, completed.rowsWritten());
+        assertEquals(patients.getLast().getId(), completed.lastId());
+        List<String> lines = Files.readAllLines(patientExportService.getExportFile(job.id()));
+        assertEquals(6, lines.size());
+        assertTrue(lines.getFirst().startsWith("id,firstName,lastName,address"));
+        assertThrows(PatientRequestConflictException.class, () -> patientExportService.resumeExport(job.id()));
+    }
+
+    /**
+     * Records the last checkpoint (last id, bytes of out) and cancels after the given number of checkpoints.
+     */
+    private static PatientExporter.Progress progress(int cancelAfter, long[] checkpoint, ByteArrayOutputStream out) {
+        return new PatientExporter.Progress() {
+            private int checkpoints;
+
+            @Override
+            public void checkpoint(int lastId, long rows) {
+                checkpoints++;
+                checkpoint[0] = lastId;
+                checkpoint[1] = out.size();
+            }
+
+            @Override
+            public boolean cancelled() {
+                return checkpoints >= cancelAfter;
+            }
+        };
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Patient patient(int i) {
+        return Patient.builder()
+                .firstName("Ann" + i)
+                .lastName("Lee")
+                .address("1 Main St")
+                .city("Colombo")
+                .state("WP")
+                .zipCode("10100")
+                .phoneNumber("071-234-567" + i)
+                .email("export" + i + "@example.com")
+                .build();
+    }
+}
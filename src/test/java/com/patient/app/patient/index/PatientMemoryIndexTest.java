@@ -0,0 +1,39 @@
+package com.patient.app.patient.index;
+
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.OptionalInt;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "patient.memory-index.enabled=true")
+@ActiveProfiles("test")
+class PatientMemoryIndexTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientMemoryIndex patientMemoryIndex;
+
+    @Test
+    @DisplayName("While the index serves, a create whose email differs only in case is refused by the pre-check")
+    void emailsIgnoreCase() {
+        // Given
+        assertTrue(patientMemoryIndex.isServing());
+        Patient created = patientService.createPatient(patient("bob@example.com"));
+
+        // When & Then
+        assertEquals(OptionalInt.of(created.getId()), patientMemoryIndex.findIdByEmail("Bob@Example.com"));
+        assertThrows(PatientEmailTakenException.class, () -> patientService.createPatient(patient("Bob@example.com")));
+        assertEquals("bob@example.com", patientService.getPatientById(created.getId()).getEmail());
+    }
+}
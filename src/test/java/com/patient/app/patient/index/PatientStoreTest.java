@@ -0,0 +1,116 @@
+package com.patient.app.patient.index;
+
+import com.patient.app.patient.model.Patient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientStoreTest {
+
+    @Test
+    @DisplayName("Stored patients are materialized with all fields")
+    void putAndGet() {
+        // Given
+        PatientStore store = new PatientStore(4);
+        Patient patient = patient(7, "Zoë", "zoe@example.com");
+
+        // When
+        store.put(patient);
+
+        // Then
+        Patient stored = store.get(7);
+        assertNotSame(patient, stored);
+        assertEquals(patient.toString(), stored.toString());
+        assertEquals(patient.getCreatedAt(), stored.getCreatedAt());
+        assertNull(stored.getUpdatedAt());
+        assertEquals(7, store.findIdByEmail("zoe@example.com"));
+        assertNull(store.get(8));
+    }
+
+    @Test
+    @DisplayName("Updates move the email index and deletes free the row")
+    void updateAndRemove() {
+        // Given
+        PatientStore store = new PatientStore(4);
+        store.put(patient(1, "Ann", "ann@example.com"));
+        store.put(patient(2, "Bob", "bob@example.com"));
+
+        // When
+        store.put(patient(1, "Ann", "ann.lee@example.com"));
+        store.remove(2);
+        store.put(patient(3, "Cid", "bob@example.com"));
+
+        // Then
+        assertEquals(-1, store.findIdByEmail("ann@example.com"));
+        assertEquals(1, store.findIdByEmail("ann.lee@example.com"));
+        assertEquals(3, store.findIdByEmail("bob@example.com"));
+        assertFalse(store.contains(2));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("Emails are found ignoring case and read back as written")
+    void emailsIgnoreCase() {
+        // Given
+        PatientStore store = new PatientStore(4);
+        store.put(patient(1, "Ann", "Ann.Lee@Example.com"));
+        store.put(patient(2, "Bob", "bob@example.com"));
+
+        // When
+        store.put(patient(3, "Bob", "BOB@example.com"));
+
+        // Then
+        assertEquals(1, store.findIdByEmail("ann.lee@example.com"));
+        assertEquals(1, store.findIdByEmail("ANN.LEE@EXAMPLE.COM"));
+        assertEquals("Ann.Lee@Example.com", store.get(1).getEmail());
+        assertEquals(3, store.findIdByEmail("Bob@Example.com"));
+        store.remove(3);
+        assertEquals(-1, store.findIdByEmail("bob@example.com"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("Growing past the initial capacity and compacting keep every row readable")
+    void growAndCompact() {
+        // Given
+        PatientStore store = new PatientStore(16);
+        int rows = 5_000;
+
+        // When
+        for (int round = 0; round < 3; round++) {
+            for (int id = 1; id <= rows; id++) {
+                store.put(patient(id, "First" + round + "-" + id, "p" + id + "@example.com"));
+            }
+        }
+        for (int id = 1; id <= rows; id += 2) {
+            store.remove(id);
+        }
+
+        // Then
+        assertEquals(rows / 2, store.size());
+        for (int id = 2; id <= rows; id += 2) {
+            assertEquals("First2-" + id, store.get(id).getFirstName());
+            assertEquals(id, store.findIdByEmail("p" + id + "@example.com"));
+        }
+        assertEquals(-1, store.findIdByEmail("p1@example.com"));
+        assertTrue(store.garbageBytes() < store.retainedBytes());
+    }
+
+    private static Patient patient(int id, String firstName, String email) {
+        return Patient.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName("Lee")
+                .address("1 Main St")
+                .city("Springfield")
+                .state("IL")
+                .zipCode("62701")
+                .phoneNumber("123-456-7890")
+                .email(email)
+                .createdAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_789))
+                .build();
+    }
+}
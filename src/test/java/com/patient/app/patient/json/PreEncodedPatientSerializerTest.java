@@ -0,0 +1,137 @@
+package com.patient.app.patient.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.patient.app.patient.config.PatientJsonCacheProperties;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientResponse;
+import com.patient.app.patient.model.Patient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreEncodedPatientSerializerTest {
+
+    private final ObjectMapper plainMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cachingMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new BlackbirdModule(), new PatientJsonModule(new PatientJsonCache(new PatientJsonCacheProperties(true, 100))))
+            .build();
+
+    @Test
+    @DisplayName("The response record serializes like the Patient entity, with and without the JSON cache")
+    void sameJsonAsEntity() throws Exception {
+        // Given
+        Patient patient = patient(1, 3L, "Colombo");
+
+        // When
+        String entityJson = plainMapper.writeValueAsString(patient);
+        String recordJson = plainMapper.writeValueAsString(PatientResponse.of(patient));
+        String cachedJson = cachingMapper.writeValueAsString(PatientResponse.of(patient));
+        String cachedBytes = new String(cachingMapper.writeValueAsBytes(PatientResponse.of(patient)));
+
+        // Then
+        assertEquals(entityJson, recordJson);
+        assertEquals(entityJson, cachedJson);
+        assertEquals(entityJson, cachedBytes);
+    }
+
+    @Test
+    @DisplayName("Cached JSON is reused for the same version and re-encoded for a new one")
+    void cacheIsKeyedByVersion() throws Exception {
+        // Given
+        cachingMapper.writeValueAsBytes(PatientResponse.of(patient(2, 0L, "Colombo")));
+
+        // When: same id and version but different data can only come from the cache
+        String sameVersion = new String(cachingMapper.writeValueAsBytes(PatientResponse.of(patient(2, 0L, "Kandy"))));
+        String newVersion = new String(cachingMapper.writeValueAsBytes(PatientResponse.of(patient(2, 1L, "Kandy"))));
+        String bypass = new String(cachingMapper.writer().withAttribute(PatientJsonCache.BYPASS, Boolean.TRUE)
+                .writeValueAsBytes(PatientResponse.of(patient(2, 1L, "Galle"))));
+
+        // Then
+        assertTrue(sameVersion.contains("\"city\":\"Colombo\""));
+        assertTrue(newVersion.contains("\"city\":\"Kandy\""));
+        assertTrue(bypass.contains("\"city\":\"Galle\""));
+    }
+
+    @Test
+    @DisplayName("Pages are assembled from cached patients and stay valid JSON")
+    void pageOfCachedPatients() throws Exception {
+        // Given
+        CursorPage<PatientResponse> page = new CursorPage<>(List.of(
+                PatientResponse.of(patient(3, 0L, "Colombo")),
+                PatientResponse.of(patient(4, 0L, "Kandy")),
+                PatientResponse.of(patient(5, null, "Galle"))), 5);
+        cachingMapper.writeValueAsBytes(page);
+
+        // When
+        byte[] json = cachingMapper.writeValueAsBytes(page);
+        String pretty = cachingMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(page);
+
+        // Then
+        assertEquals(plainMapper.readTree(plainMapper.writeValueAsBytes(page)), plainMapper.readTree(json));
+        assertEquals(plainMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(page), pretty);
+    }
+
+    @Test
+    @DisplayName("Smile sharing the caching modules encodes patients itself, even when their JSON is cached")
+    void smileIsNotServedFromJsonCache() throws Exception {
+        // Given
+        ObjectMapper smileMapper = cachingMapper.copyWith(new SmileFactory());
+        PatientResponse patient = PatientResponse.of(patient(6, 0L, "Colombo"));
+        cachingMapper.writeValueAsBytes(patient);
+
+        // When
+        byte[] smile = smileMapper.writeValueAsBytes(new CursorPage<>(List.of(patient), 6));
+
+        // Then
+        assertEquals(plainMapper.readTree(plainMapper.writeValueAsBytes(new CursorPage<>(List.of(patient), 6))),
+                smileMapper.readTree(smile));
+    }
+
+    @Test
+    @DisplayName("Pre-encoded JSON written as a string value is escaped")
+    void preEncodedJsonAsString() throws Exception {
+        PreEncodedJson json = new PreEncodedJson("{\"city\":\"Gälle\"}".getBytes(StandardCharsets.UTF_8));
+        String escaped = "{\\\"city\\\":\\\"Gälle\\\"}";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = plainMapper.getFactory().createGenerator(out)) {
+            generator.writeString(json);
+        }
+
+        assertEquals("\"" + escaped + "\"", out.toString(StandardCharsets.UTF_8));
+        assertEquals(escaped, new String(json.asQuotedChars()));
+        assertArrayEquals(escaped.getBytes(StandardCharsets.UTF_8), json.asQuotedUTF8());
+        byte[] buffer = new byte[64];
+        assertEquals(json.asQuotedUTF8().length, json.appendQuotedUTF8(buffer, 0));
+        assertEquals(-1, json.appendQuotedUTF8(buffer, 60));
+        assertEquals(-1, json.appendQuoted(new char[4], 0));
+    }
+
+    private static Patient patient(int id, Long version, String city) {
+        return Patient.builder()
+                .id(id)
+                .firstName("Ann")
+                .lastName("Lee")
+                .address("1 Main St")
+                .city(city)
+                .state("WP")
+                .zipCode("10100")
+                .phoneNumber("071-234-5670")
+                .email("ann" + id + "@example.com")
+                .version(version)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 8, 0))
+                .updatedAt(LocalDateTime.of(2024, 6, 1, 8, 0, 0, 123_000_000))
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.patient.app.patient.loadtest;
+
+import com.patient.app.AppApplication;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientBatchWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the patient API over HTTP in both execution modes (platform-thread Tomcat pool and virtual threads)
+ * and prints throughput and tail latency for each. Excluded from the default build; run with
+ * {@code mvn -P load-test test}. Tune with -Dloadtest.clients, -Dloadtest.seconds and -Dloadtest.rows.
+ */
+@Tag("load")
+class ExecutionModeLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 400);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 10));
+    private static final int ROWS = Integer.getInteger("loadtest.rows", 5000);
+
+    private record ModeResult(String mode, long ok, long shed, long failed, double seconds, long[] latenciesNanos) {
+
+        double throughput() {
+            return ok / seconds;
+        }
+
+        double percentileMillis(double percentile) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        String row() {
+            return String.format("%-9s %10.0f %8d %8d %9.2f %9.2f %9.2f %9.2f", mode, throughput(), shed, failed,
+                    percentileMillis(0.5), percentileMillis(0.99), percentileMillis(0.999), percentileMillis(1.0));
+        }
+    }
+
+    @Test
+    @DisplayName("Compare throughput and tail latency of platform and virtual thread execution")
+    void compareExecutionModes() throws Exception {
+        ModeResult platform = run(false);
+        ModeResult virtual = run(true);
+
+        System.out.printf("%nPatient API load: %d closed-loop clients for %ds, %d patients (80%% get by id, 20%% list page)%n",
+                CLIENTS, DURATION.toSeconds(), ROWS);
+        System.out.printf("%-9s %10s %8s %8s %9s %9s %9s %9s%n", "mode", "req/s", "503", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        System.out.println(platform.row());
+        System.out.println(virtual.row());
+
+        for (ModeResult result : List.of(platform, virtual)) {
+            assertTrue(result.ok() > 0, result.mode() + " mode served no requests");
+            assertEquals(0, result.failed(), result.mode() + " mode returned unexpected errors");
+        }
+    }
+
+    private ModeResult run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AppApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "patient.cache.enabled=false",
+                        "logging.level.root=WARN")
+                .run()) {
+            int[] ids = seed(context.getBean(PatientBatchWriter.class));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            return drive(mode, "http://localhost:" + port + "/patient-api/api/v1/patients", ids);
+        }
+    }
+
+    private static int[] seed(PatientBatchWriter batchWriter) {
+        int[] ids = new int[ROWS];
+        for (int start = 0; start < ROWS; start += 1000) {
+            List<Patient> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(ROWS, start + 1000); i++) {
+                batch.add(Patient.builder()
+                        .firstName("Load").lastName("Patient" + i).address(i + " Main Street")
+                        .city("Springfield").state("IL").zipCode("62701").phoneNumber("555-000-0000")
+                        .email("load" + i + "@example.com").build());
+            }
+            List<PatientBatchWriter.WriteResult> results = batchWriter.writeAll(batch);
+            for (int i = 0; i < results.size(); i++) {
+                ids[start + i] = results.get(i).id();
+            }
+        }
+        return ids;
+    }
+
+    private static ModeResult drive(String mode, String baseUrl, int[] ids) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        long started = System.nanoTime();
+
+        List<Future<long[]>> futures = new ArrayList<>();
+        long[] counters = new long[3];
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long ok = 0, shed = 0, failed = 0;
+                    while (System.nanoTime() < deadline) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        String url = random.nextInt(100) < 80
+                                ? baseUrl + "/" + ids[random.nextInt(ids.length)]
+                                : baseUrl + "?limit=200&after=" + ids[random.nextInt(ids.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+                        long begin = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        long elapsed = System.nanoTime() - begin;
+                        if (status == 200) {
+                            ok++;
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = elapsed;
+                        } else if (status == 503) {
+                            shed++;
+                        } else {
+                            failed++;
+                        }
+                    }
+                    synchronized (counters) {
+                        counters[0] += ok;
+                        counters[1] += shed;
+                        counters[2] += failed;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] part = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + part.length);
+            System.arraycopy(part, 0, all, offset, part.length);
+        }
+        Arrays.sort(all);
+        return new ModeResult(mode, counters[0], counters[1], counters[2], seconds, all);
+    }
+}
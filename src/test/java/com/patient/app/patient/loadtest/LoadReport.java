@@ -0,0 +1,122 @@
+package com.patient.app.patient.loadtest;
+
+import com.patient.app.patient.loadtest.OpenLoadGenerator.OperationResult;
+import com.patient.app.patient.loadtest.OpenLoadGenerator.Result;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency and throughput report of one workload, checked against its service level objectives.
+ * The report is printed and written to {@code <directory>/<workload>.txt}, next to the full HdrHistogram percentile
+ * distribution of every operation ({@code <workload>-<operation>.hgrm}, in milliseconds), which can be plotted with
+ * the HdrHistogram plotter or compared between runs.
+ * */
+final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Objectives of a workload; latencies are of all its operations together, from the scheduled start of each request.
+     * @param p50Millis highest acceptable median
+     * @param p99Millis highest acceptable 99th percentile
+     * @param p999Millis highest acceptable 99.9th percentile
+     * @param minThroughputRatio lowest acceptable share of the offered rate completed successfully
+     * @param maxErrorRate highest acceptable share of requests shed, failed or dropped
+     */
+    record Slo(double p50Millis, double p99Millis, double p999Millis, double minThroughputRatio, double maxErrorRate) {
+    }
+
+    private final String workload;
+    private final String description;
+    private final Result result;
+    private final Slo slo;
+    private final List<String> violations = new ArrayList<>();
+    private final StringWriter text = new StringWriter();
+
+    LoadReport(String workload, String description, Result result, Slo slo) {
+        this.workload = workload;
+        this.description = description;
+        this.result = result;
+        this.slo = slo;
+        render(new PrintWriter(text));
+    }
+
+    /**
+     * @return the objectives the run missed, empty if it passed
+     */
+    List<String> violations() {
+        return violations;
+    }
+
+    /**
+     * Print the report and write it and the histograms of every operation to the directory.
+     */
+    void write(PrintStream out, Path directory) throws IOException {
+        out.print(text);
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(workload + ".txt"), text.toString());
+        for (Map.Entry<String, OperationResult> operation : result.operations().entrySet()) {
+            Path file = directory.resolve(workload + "-" + operation.getKey() + ".hgrm");
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file))) {
+                operation.getValue().latency().outputPercentileDistribution(hgrm, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    private void render(PrintWriter out) {
+        out.printf(Locale.ROOT, "%nWorkload %s: %s%n", workload, description);
+        out.printf(Locale.ROOT, "Offered %.0f req/s for %.0fs; latency from scheduled start, in ms%n",
+                result.offeredRate(), result.seconds());
+        out.printf(Locale.ROOT, "%-10s %9s %9s %7s %7s %8s %8s %8s %8s %8s %8s%n", "operation", "requests", "ok/s",
+                "shed", "errors", "dropped", "p50", "p90", "p99", "p99.9", "max");
+        result.operations().forEach((name, operation) -> row(out, name, operation));
+        OperationResult total = result.total();
+        row(out, "all", total);
+
+        Histogram latency = total.latency();
+        double throughput = total.ok() / result.seconds();
+        double errorRate = total.requests() == 0 ? 1 : (double) total.errors() / total.requests();
+        check(out, "p50", millis(latency, 50), slo.p50Millis(), "%.2f ms");
+        check(out, "p99", millis(latency, 99), slo.p99Millis(), "%.2f ms");
+        check(out, "p99.9", millis(latency, 99.9), slo.p999Millis(), "%.2f ms");
+        boolean throughputMet = throughput >= slo.minThroughputRatio() * result.offeredRate();
+        verdict(out, throughputMet, String.format(Locale.ROOT, "throughput %.1f req/s >= %.0f%% of offered",
+                throughput, slo.minThroughputRatio() * 100));
+        verdict(out, errorRate <= slo.maxErrorRate(), String.format(Locale.ROOT, "error rate %.3f%% <= %.3f%%",
+                errorRate * 100, slo.maxErrorRate() * 100));
+        out.flush();
+    }
+
+    private void row(PrintWriter out, String name, OperationResult operation) {
+        Histogram latency = operation.latency();
+        out.printf(Locale.ROOT, "%-10s %9d %9.1f %7d %7d %8d %8.2f %8.2f %8.2f %8.2f %8.2f%n", name, operation.requests(),
+                operation.ok() / result.seconds(), operation.shed(), operation.failed(), operation.dropped(),
+                millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                latency.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    private void check(PrintWriter out, String name, double actual, double limit, String format) {
+        verdict(out, actual <= limit, String.format(Locale.ROOT, "%s " + format + " <= " + format, name, actual, limit));
+    }
+
+    private void verdict(PrintWriter out, boolean met, String objective) {
+        out.printf(Locale.ROOT, "SLO %-4s %s%n", met ? "PASS" : "FAIL", objective);
+        if (!met) {
+            violations.add(workload + ": " + objective);
+        }
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getTotalCount() == 0 ? 0 : latency.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
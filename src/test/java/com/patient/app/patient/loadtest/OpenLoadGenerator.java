@@ -0,0 +1,172 @@
+package com.patient.app.patient.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load: requests start on a fixed schedule at the offered rate whether or not earlier ones have finished,
+ * as independent clients arrive. Latency is taken from each request's scheduled start, so time spent queued behind
+ * a stalled server or generator counts against the request instead of silently lowering the rate (no coordinated
+ * omission). Requests scheduled during the warm-up are sent but not recorded; requests that would exceed the cap on
+ * requests in flight are not sent and count as dropped.
+ * */
+final class OpenLoadGenerator {
+
+    /**
+     * One request of a workload.
+     * @param operation name the request is reported under
+     * @param request the request to send
+     */
+    record Call(String operation, HttpRequest request) {
+    }
+
+    /**
+     * Outcome of one operation during the measured period.
+     * @param latency nanoseconds from scheduled start to complete response, of successful requests
+     * @param ok 2xx responses
+     * @param shed 429 and 503 responses, requests the service refused under load
+     * @param failed other responses and transport errors
+     * @param dropped requests not sent because too many were in flight
+     */
+    record OperationResult(Histogram latency, long ok, long shed, long failed, long dropped) {
+
+        long requests() {
+            return ok + shed + failed + dropped;
+        }
+
+        long errors() {
+            return shed + failed + dropped;
+        }
+    }
+
+    /**
+     * Outcome of a run.
+     * @param offeredRate requests per second scheduled
+     * @param seconds length of the measured period
+     * @param operations results by operation name
+     */
+    record Result(double offeredRate, double seconds, Map<String, OperationResult> operations) {
+
+        OperationResult total() {
+            Histogram latency = new Histogram(3);
+            long ok = 0, shed = 0, failed = 0, dropped = 0;
+            for (OperationResult operation : operations.values()) {
+                latency.add(operation.latency());
+                ok += operation.ok();
+                shed += operation.shed();
+                failed += operation.failed();
+                dropped += operation.dropped();
+            }
+            return new OperationResult(latency, ok, shed, failed, dropped);
+        }
+    }
+
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    OpenLoadGenerator(int maxInFlight) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Send requests at a constant rate and wait for the last of them.
+     * @param calls next request to send; only called from the scheduling thread
+     * @param rate requests per second
+     * @param warmup time during which requests are sent but not recorded
+     * @param duration measured time after the warm-up
+     * @return latencies and counts of the measured requests by operation
+     */
+    Result run(Supplier<Call> calls, double rate, Duration warmup, Duration duration) {
+        Map<String, Recording> recordings = new ConcurrentHashMap<>();
+        Semaphore slots = new Semaphore(maxInFlight);
+        double interval = 1e9 / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + (long) (i * interval);
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Call call = calls.get();
+                Recording recording = scheduled >= measureFrom
+                        ? recordings.computeIfAbsent(call.operation(), operation -> new Recording())
+                        : null;
+                if (!slots.tryAcquire()) {
+                    if (recording != null) {
+                        recording.dropped.increment();
+                    }
+                    continue;
+                }
+                senders.execute(() -> {
+                    try {
+                        send(call.request(), scheduled, recording);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+
+        Map<String, OperationResult> operations = new TreeMap<>();
+        recordings.forEach((operation, recording) -> operations.put(operation, recording.result()));
+        return new Result(rate, duration.toNanos() / 1e9, operations);
+    }
+
+    private void send(HttpRequest request, long scheduled, Recording recording) {
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            status = -1;
+        }
+        if (recording == null) {
+            return;
+        }
+        if (status >= 200 && status < 300) {
+            recording.latency.recordValue(System.nanoTime() - scheduled);
+            recording.ok.increment();
+        } else if (status == 429 || status == 503) {
+            recording.shed.increment();
+        } else {
+            recording.failed.increment();
+        }
+    }
+
+    private static final class Recording {
+        final Histogram latency = new ConcurrentHistogram(3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        OperationResult result() {
+            return new OperationResult(latency.copy(), ok.sum(), shed.sum(), failed.sum(), dropped.sum());
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.patient.app.patient.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patient.app.AppApplication;
+import com.patient.app.patient.loadtest.OpenLoadGenerator.Call;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientBatchWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load-test harness of the patient API: boots the application against embedded H2, seeds synthetic patients and
+ * drives each workload over HTTP with an open-model load generator, then reports latency percentiles (HdrHistogram)
+ * and throughput and fails the workloads that miss their objectives. Reports and histograms are written to
+ * {@code target/loadtest}. Excluded from the default build; run with {@code mvn -P load-test test}, configured by
+ * {@code loadtest.properties} and -D overrides of its keys.
+ */
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PatientWorkloadLoadTest {
+
+    private static final Path REPORTS = Path.of("target", "loadtest");
+    private static final int SEED_BATCH = 1000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "sen", "tor", "vi", "da", "mor", "lin",
+            "pe", "su", "an", "bel", "cor", "el", "fin", "gar", "hu", "jo"};
+    private static final String[] STATES = {"IL", "WP", "TX", "CO", "OR", "WI", "NY", "CA", "WA", "FL"};
+
+    private final Properties settings = settings();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private int[] ids;
+    private int created;
+
+    /**
+     * Kinds of request the workloads mix.
+     */
+    enum Operation {
+        GET, LIST, SEARCH, CREATE, UPDATE, PATCH;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Request mixes, by share of the offered rate.
+     */
+    enum Workload {
+        READ_HEAVY("90% get by id, 5% list page, 5% patch", Map.of(Operation.GET, 90, Operation.LIST, 5, Operation.PATCH, 5)),
+        LIST_SEARCH("40% list page, 45% search, 15% get by id", Map.of(Operation.LIST, 40, Operation.SEARCH, 45, Operation.GET, 15)),
+        WRITE_HEAVY("40% create, 30% update, 20% patch, 10% get by id",
+                Map.of(Operation.CREATE, 40, Operation.UPDATE, 30, Operation.PATCH, 20, Operation.GET, 10));
+
+        private final String description;
+        private final Operation[] weighted;
+
+        Workload(String description, Map<Operation, Integer> mix) {
+            this.description = description;
+            this.weighted = mix.entrySet().stream()
+                    .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                    .toArray(Operation[]::new);
+        }
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+
+        Operation next(SplittableRandom random) {
+            return weighted[random.nextInt(weighted.length)];
+        }
+
+        static Workload of(String key) {
+            return Arrays.stream(values()).filter(workload -> workload.key().equals(key.trim())).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown workload " + key));
+        }
+    }
+
+    @BeforeAll
+    void startApplication() throws IOException {
+        int rows = Integer.parseInt(setting("loadtest.rows"));
+        List<String> properties = new ArrayList<>(List.of("server.port=0", "logging.level.root=WARN"));
+        if (setting("loadtest.database").equals("file")) {
+            Path database = REPORTS.resolve("db");
+            FileSystemUtils.deleteRecursively(database);
+            properties.add("spring.datasource.url=jdbc:h2:file:" + database.toAbsolutePath().resolve("patients")
+                    + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        }
+        settings.stringPropertyNames().stream()
+                .filter(key -> key.startsWith("loadtest.app."))
+                .forEach(key -> properties.add(key.substring("loadtest.app.".length()) + "=" + settings.getProperty(key)));
+
+        context = new SpringApplicationBuilder(AppApplication.class)
+                .profiles("test")
+                .properties(properties.toArray(String[]::new))
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port")
+                + context.getEnvironment().getProperty("server.servlet.context-path", "") + "/api/v1/patients";
+        seed(context.getBean(PatientBatchWriter.class), rows);
+    }
+
+    @AfterAll
+    void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    Stream<String> workloads() {
+        return Arrays.stream(settings.getProperty("loadtest.workloads").split(",")).map(String::trim);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("workloads")
+    void meetsObjectives(String name) throws IOException {
+        Workload workload = Workload.of(name);
+        String prefix = "loadtest." + workload.key() + ".";
+        LoadReport.Slo slo = new LoadReport.Slo(
+                Double.parseDouble(setting(prefix + "slo.p50")),
+                Double.parseDouble(setting(prefix + "slo.p99")),
+                Double.parseDouble(setting(prefix + "slo.p999")),
+                Double.parseDouble(setting(prefix + "slo.min-throughput")),
+                Double.parseDouble(setting(prefix + "slo.max-error-rate")));
+
+        SplittableRandom random = new SplittableRandom(workload.ordinal());
+        OpenLoadGenerator generator = new OpenLoadGenerator(Integer.parseInt(setting("loadtest.max-in-flight")));
+        OpenLoadGenerator.Result result = generator.run(() -> call(workload.next(random), random),
+                Double.parseDouble(setting(prefix + "rate")),
+                Duration.ofSeconds(Long.parseLong(setting("loadtest.warmup-seconds"))),
+                Duration.ofSeconds(Long.parseLong(setting("loadtest.seconds"))));
+
+        LoadReport report = new LoadReport(workload.key(), workload.description + ", " + ids.length + " patients", result, slo);
+        report.write(System.out, REPORTS);
+        assertTrue(report.violations().isEmpty(), () -> "Objectives missed:\n" + String.join("\n", report.violations()));
+    }
+
+    private Call call(Operation operation, SplittableRandom random) {
+        int index = random.nextInt(ids.length);
+        int id = ids[index];
+        HttpRequest.Builder request = switch (operation) {
+            case GET -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET();
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "?limit=50&after=" + id)).GET();
+            case SEARCH -> HttpRequest.newBuilder(URI.create(baseUrl + "/search?limit=50&" + searchQuery(random.nextInt(ids.length), random))).GET();
+            case CREATE -> {
+                int newIndex = ids.length + created++;
+                yield HttpRequest.newBuilder(URI.create(baseUrl))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json(patient(newIndex, "new"))));
+            }
+            case UPDATE -> {
+                Patient patient = patient(index, "seed");
+                patient.setAddress(random.nextInt(10_000) + " Updated Street");
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(json(patient)));
+            }
+            case PATCH -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + id))
+                    .header("Content-Type", "application/merge-patch+json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(json(Map.of("phoneNumber", phone(random.nextInt())))));
+        };
+        return new Call(operation.label(), request.header("Accept", "application/json").timeout(Duration.ofSeconds(30)).build());
+    }
+
+    private static String searchQuery(int index, SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> "lastName=" + lastName(index);
+            case 1 -> "namePrefix=" + lastName(index).substring(0, 3);
+            case 2 -> "city=" + city(index) + "&state=" + STATES[index % STATES.length];
+            default -> "zipCode=" + zipCode(index);
+        };
+    }
+
+    private void seed(PatientBatchWriter batchWriter, int rows) {
+        long started = System.nanoTime();
+        ids = new int[rows];
+        for (int start = 0; start < rows; start += SEED_BATCH) {
+            List<Patient> batch = new ArrayList<>(SEED_BATCH);
+            for (int i = start; i < Math.min(rows, start + SEED_BATCH); i++) {
+                batch.add(patient(i, "seed"));
+            }
+            List<PatientBatchWriter.WriteResult> results = batchWriter.writeAll(batch);
+            for (int i = 0; i < results.size(); i++) {
+                ids[start + i] = results.get(i).id();
+            }
+            if ((start / SEED_BATCH + 1) % Math.max(1, rows / SEED_BATCH / 10) == 0) {
+                System.out.printf("Seeded %d of %d patients%n", start + batch.size(), rows);
+            }
+        }
+        System.out.printf("Seeded %d patients in %.1fs%n", rows, (System.nanoTime() - started) / 1e9);
+    }
+
+    /**
+     * Synthetic patient number {@code index}; names, cities and ZIP codes repeat so that searches match several rows.
+     */
+    private static Patient patient(int index, String prefix) {
+        return Patient.builder()
+                .firstName(name(index * 31, 2))
+                .lastName(lastName(index))
+                .address(index + " Load Street")
+                .city(city(index))
+                .state(STATES[index % STATES.length])
+                .zipCode(zipCode(index))
+                .phoneNumber(phone(index))
+                .email(prefix + index + "@load.example.com")
+                .build();
+    }
+
+    private static String lastName(int index) {
+        return name(index, 3);
+    }
+
+    private static String city(int index) {
+        return name(index * 7 + 3, 2);
+    }
+
+    private static String zipCode(int index) {
+        return Integer.toString(10_000 + index % 2_000);
+    }
+
+    private static String phone(int seed) {
+        int n = Math.floorMod(seed, 10_000_000);
+        return String.format("555-%03d-%04d", n / 10_000, n % 10_000);
+    }
+
+    private static String name(int seed, int syllables) {
+        StringBuilder name = new StringBuilder();
+        // Spreads consecutive seeds over the syllables
+        long n = Math.floorMod(seed * 2_654_435_761L, 1L << 32);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[(int) (n % SYLLABLES.length)]);
+            n /= SYLLABLES.length;
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String setting(String key) {
+        String value = settings.getProperty(key);
+        if (value == null) {
+            throw new IllegalStateException("Load test setting " + key + " is missing");
+        }
+        return value;
+    }
+
+    /**
+     * loadtest.properties overlaid with the loadtest.* system properties.
+     */
+    private static Properties settings() {
+        Properties settings = new Properties();
+        try (InputStream defaults = PatientWorkloadLoadTest.class.getResourceAsStream("/loadtest.properties")) {
+            if (defaults != null) {
+                settings.load(defaults);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("loadtest."))
+                .forEach(key -> settings.setProperty(key, System.getProperty(key)));
+        return settings;
+    }
+}
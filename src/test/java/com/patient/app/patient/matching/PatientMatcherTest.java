@@ -0,0 +1,68 @@
+package com.patient.app.patient.matching;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientMatcherTest {
+
+    @Test
+    @DisplayName("Soundex codes names that sound alike the same")
+    void soundex() {
+        assertEquals("R163", PatientMatcher.soundex("robert"));
+        assertEquals("R163", PatientMatcher.soundex("rupert"));
+        assertEquals("A261", PatientMatcher.soundex("ashcraft"));
+        assertEquals("T522", PatientMatcher.soundex("tymczak"));
+        assertEquals("P236", PatientMatcher.soundex("pfister"));
+        assertEquals("L000", PatientMatcher.soundex("lee"));
+    }
+
+    @Test
+    @DisplayName("Jaro-Winkler gives the textbook similarities")
+    void jaroWinkler() {
+        assertEquals(0.961, PatientMatcher.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals(0.840, PatientMatcher.jaroWinkler("dwayne", "duane"), 0.001);
+        assertEquals(0.813, PatientMatcher.jaroWinkler("dixon", "dicksonx"), 0.001);
+        assertEquals(1.0, PatientMatcher.jaroWinkler("ann", "ann"));
+        assertEquals(0.0, PatientMatcher.jaroWinkler("", "ann"));
+    }
+
+    @Test
+    @DisplayName("Patients are blocked by phonetic last name and ZIP code, phone number and name prefixes")
+    void blockingKeys() {
+        MatchablePatient patient = MatchablePatient.of(1, "Ann-Marie", "Müller", "1 Main St", "62701-1234",
+                "(555) 123-4567", "ann@example.com");
+
+        assertEquals(List.of("N:mul:ann", "P:5551234567", "S:M460:62701"), patient.blockingKeys());
+    }
+
+    @Test
+    @DisplayName("A typo and another email still score as the same person, a relative at the same address does not")
+    void score() {
+        MatchablePatient patient = MatchablePatient.of(1, "Katherine", "Johnson", "12 Oak Avenue", "62701",
+                "555-123-4567", "kjohnson@example.com");
+        MatchablePatient typo = MatchablePatient.of(2, "Katherine", "Jonson", "12 Oak Ave", "62701",
+                "(555) 123-4567", "katherine.j@example.org");
+        MatchablePatient relative = MatchablePatient.of(3, "Robert", "Johnson", "12 Oak Avenue", "62701",
+                "555-123-4567", "rjohnson@example.com");
+
+        assertTrue(PatientMatcher.score(patient, typo) >= 0.9);
+        assertTrue(PatientMatcher.score(patient, relative) < 0.9);
+        assertEquals(1.0, PatientMatcher.score(patient, patient), 1e-9);
+    }
+
+    @Test
+    @DisplayName("A pair sharing several compared blocks is only compared in the first of them")
+    void comparedOnce() {
+        MatchablePatient a = MatchablePatient.of(1, "Ann", "Lee", "1 Main St", "62701", "555-123-4567", "a@example.com");
+        MatchablePatient b = MatchablePatient.of(2, "Ann", "Lee", "1 Main St", "62701", "555-123-4567", "b@example.com");
+
+        List<String> keys = a.blockingKeys();
+        assertFalse(PatientMatcher.comparedBefore(a, b, keys.get(0), key -> true));
+        assertTrue(PatientMatcher.comparedBefore(a, b, keys.get(1), key -> true));
+        assertFalse(PatientMatcher.comparedBefore(a, b, keys.get(1), key -> !key.equals(keys.get(0))));
+    }
+}
@@ -0,0 +1,52 @@
+package com.patient.app.patient.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogFilterTest {
+
+    private final RequestLogFilter filter = new RequestLogFilter(1.0, "X-Request-Id");
+
+    @Test
+    @DisplayName("A usable correlation id sent by the client is kept for the request and echoed")
+    void keepsClientRequestId() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/patients/1");
+        request.addHeader("X-Request-Id", "checkout-42.a_b");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // When
+        filter.doFilter(request, response, (req, res) -> logged.set(MDC.get(RequestLogFilter.MDC_KEY)));
+
+        // Then
+        assertEquals("checkout-42.a_b", logged.get());
+        assertEquals("checkout-42.a_b", response.getHeader("X-Request-Id"));
+        assertNull(MDC.get(RequestLogFilter.MDC_KEY));
+    }
+
+    @Test
+    @DisplayName("A missing or unsafe correlation id is replaced by a generated one")
+    void generatesRequestId() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/patients");
+        request.addHeader("X-Request-Id", "bad\nid");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, new MockFilterChain());
+
+        // Then
+        String requestId = response.getHeader("X-Request-Id");
+        assertNotNull(requestId);
+        assertTrue(requestId.matches("[0-9a-f]{16}"));
+    }
+}
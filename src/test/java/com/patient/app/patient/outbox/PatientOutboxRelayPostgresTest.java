@@ -0,0 +1,36 @@
+package com.patient.app.patient.outbox;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs the relay tests against PostgreSQL, whose row locks let concurrent relays pick disjoint pending rows, so only
+ * the high-water mark keeps them from handing out the same sequences. Needs Docker; run with mvn -P postgres-test test.
+ */
+@Tag("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "patient.outbox.relay-batch-size=1",
+        "patient.outbox.retention=0s",
+        "patient.outbox.tombstone-retention=0s",
+        "patient.outbox.relay-interval=1h"
+})
+@ActiveProfiles(inheritProfiles = false)
+class PatientOutboxRelayPostgresTest extends PatientOutboxRelayTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+}
@@ -0,0 +1,191 @@
+package com.patient.app.patient.outbox;
+
+import com.patient.app.patient.dto.PatientFeedEvent;
+import com.patient.app.patient.dto.PatientFeedPage;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.event.PatientChangedEvent.ChangeType;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.repository.PatientOutboxRepository;
+import com.patient.app.patient.service.PatientFeedService;
+import com.patient.app.patient.service.PatientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {
+        "patient.outbox.relay-batch-size=1",
+        "patient.outbox.retention=0s",
+        "patient.outbox.tombstone-retention=0s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PatientOutboxRelayTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientFeedService patientFeedService;
+
+    @Autowired
+    private PatientOutboxRelay relay;
+
+    @Autowired
+    private PatientOutboxRepository outboxRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        relay.relay();
+        start = outboxRepository.findLastSequence();
+    }
+
+    @Test
+    @DisplayName("Changes reach the feed in commit order once the relay has published them")
+    void relayPublishesChangesInOrder() {
+        // Given
+        Patient created = patientService.createPatient(patient("feed-order@example.com"));
+        patientService.patchPatient(created.getId(), new PatientPatch(null, null, null, "Kandy", null, null, null, null), 0L);
+        patientService.deletePatient(created.getId(), 1L);
+        assertTrue(patientFeedService.getChanges(start, 10).items().isEmpty());
+
+        // When
+        int published = relay.relay();
+
+        // Then
+        assertEquals(3, published);
+        PatientFeedPage page = patientFeedService.getChanges(start, 10);
+        List<PatientFeedEvent> items = page.items();
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED),
+                items.stream().map(PatientFeedEvent::type).toList());
+        assertEquals(List.of(start + 1, start + 2, start + 3), items.stream().map(PatientFeedEvent::sequence).toList());
+        assertTrue(items.get(1).patient().contains("\"city\":\"Kandy\""));
+        assertEquals(1L, items.get(1).version());
+        assertNull(items.get(2).patient());
+        assertEquals(start + 3, page.nextCursor());
+        assertFalse(page.hasMore());
+
+        PatientFeedPage firstPage = patientFeedService.getChanges(start, 2);
+        assertTrue(firstPage.hasMore());
+        assertEquals(start + 2, firstPage.nextCursor());
+    }
+
+    @Test
+    @DisplayName("A relay locking other rows still waits for the high-water mark and continues after it")
+    void concurrentRelaysTakeTurns() throws Exception {
+        // Given
+        patientService.createPatient(patient("feed-concurrent@example.com"));
+        long lowerId = jdbcTemplate.queryForObject("select min(id) from patient_outbox", Long.class) - 1;
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // When: while the first batch is published but not committed, another instance commits a change with an id
+        // from its own pool, lower than the locked row, and a second relay picks it up. PostgreSQL locks only that row
+        // for the second relay (PatientOutboxRelayPostgresTest); H2 also waits for the row of the first relay
+        CompletableFuture<List<PatientFeedEvent>> second = new CompletableFuture<>();
+        List<PatientFeedEvent> first = transaction.execute(status -> {
+            List<PatientFeedEvent> batch = relay.publishBatch();
+            CompletableFuture.runAsync(() -> jdbcTemplate.update("insert into patient_outbox "
+                    + "(id, type, patient_id, occurred_at) values (?, 'DELETED', 0, current_timestamp)", lowerId)).join();
+            CompletableFuture.supplyAsync(() -> transaction.execute(s -> relay.publishBatch()))
+                    .whenComplete((result, e) -> {
+                        if (e == null) {
+                            second.complete(result);
+                        } else {
+                            second.completeExceptionally(e);
+                        }
+                    });
+            assertThrows(TimeoutException.class, () -> second.get(300, TimeUnit.MILLISECONDS));
+            return batch;
+        });
+
+        // Then
+        assertEquals(List.of(start + 1), first.stream().map(PatientFeedEvent::sequence).toList());
+        PatientFeedEvent next = second.get(5, TimeUnit.SECONDS).getFirst();
+        assertEquals(start + 2, next.sequence());
+        assertEquals(0, next.patientId());
+    }
+
+    @Test
+    @DisplayName("Compaction keeps only the latest change per patient and drops expired tombstones")
+    void compactionKeepsLatestChange() {
+        // Given
+        Patient kept = patientService.createPatient(patient("feed-kept@example.com"));
+        patientService.patchPatient(kept.getId(), new PatientPatch(null, null, null, "Galle", null, null, null, null), 0L);
+        Patient deleted = patientService.createPatient(patient("feed-deleted@example.com"));
+        patientService.deletePatient(deleted.getId(), 0L);
+        relay.relay();
+
+        // When
+        int removed = relay.compact();
+
+        // Then
+        assertTrue(removed >= 3);
+        List<PatientFeedEvent> items = patientFeedService.getChanges(start, 10).items();
+        assertEquals(1, items.size());
+        assertEquals(kept.getId(), items.getFirst().patientId());
+        assertEquals(ChangeType.UPDATED, items.getFirst().type());
+    }
+
+    @Test
+    @DisplayName("Stream subscribers catch up from their position and then receive relayed changes")
+    void streamDeliversChanges() throws Exception {
+        // Given
+        Patient first = patientService.createPatient(patient("feed-stream-1@example.com"));
+        relay.relay();
+        MvcResult result = mockMvc.perform(get("/api/v1/patients/changes/stream").header("Last-Event-ID", start))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // When
+        Patient second = patientService.createPatient(patient("feed-stream-2@example.com"));
+        relay.relay();
+
+        // Then
+        String body = awaitContent(result, "id:" + (start + 2));
+        assertTrue(body.contains("id:" + (start + 1)));
+        assertTrue(body.contains("event:created"));
+        assertTrue(body.contains("\"patientId\":" + first.getId()));
+        assertTrue(body.contains("\"patientId\":" + second.getId()));
+        assertEquals(1, body.split("id:" + (start + 1) + "\n", -1).length - 1);
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), body);
+        return body;
+    }
+}
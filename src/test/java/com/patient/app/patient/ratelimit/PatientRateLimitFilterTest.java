@@ -0,0 +1,107 @@
+package com.patient.app.patient.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patient.app.patient.config.PatientRateLimitProperties;
+import com.patient.app.patient.config.PatientRateLimitProperties.Budget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientRateLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PatientRateLimitFilter filter = new PatientRateLimitFilter(new PatientRateLimiter(
+            new PatientRateLimitProperties(true, "X-Api-Key", List.of("partner-key"), Map.of(
+                    PatientOperation.READ, new Budget(3, Duration.ofMinutes(1), 0),
+                    PatientOperation.LIST, new Budget(100, Duration.ofMinutes(1), 1)),
+                    Duration.ofMinutes(10), 1000)),
+            "X-Api-Key", Set.of("partner-key"), new ObjectMapper(), registry);
+
+    @Test
+    @DisplayName("Point reads are refused with 429 once the client's bucket is empty, other clients are not")
+    void limitsRate() throws Exception {
+        // When
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = get("/api/v1/patients/" + i, "10.0.0.1", null);
+            assertEquals(200, response.getStatus());
+            assertEquals("3", response.getHeader("RateLimit-Limit"));
+            assertEquals(Integer.toString(2 - i), response.getHeader("RateLimit-Remaining"));
+        }
+        MockHttpServletResponse refused = get("/api/v1/patients/4", "10.0.0.1", null);
+
+        // Then
+        assertEquals(429, refused.getStatus());
+        assertEquals("0", refused.getHeader("RateLimit-Remaining"));
+        assertTrue(Long.parseLong(refused.getHeader("Retry-After")) >= 1);
+        assertTrue(refused.getContentAsString().contains("Rate limit of 3 read requests exceeded"));
+        assertEquals(1, registry.get("patient.rate-limit.rejected").tag("reason", "rate").counter().count());
+        assertEquals(200, get("/api/v1/patients/4", "10.0.0.2", null).getStatus());
+        assertEquals(200, get("/api/v1/patients", "10.0.0.1", null).getStatus());
+        assertNull(get("/api/v1/patients/1", "10.0.0.1", null, "POST").getHeader("RateLimit-Limit"));
+    }
+
+    @Test
+    @DisplayName("A listed API key has a budget of its own; unlisted keys share the budget of their address")
+    void keysClientsByListedApiKey() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            get("/api/v1/patients/1", "10.0.0.3", "invented-" + i);
+        }
+
+        // When / Then
+        assertEquals(429, get("/api/v1/patients/1", "10.0.0.3", "invented-x").getStatus());
+        assertEquals(200, get("/api/v1/patients/1", "10.0.0.3", "partner-key").getStatus());
+    }
+
+    @Test
+    @DisplayName("Concurrent requests over the in-flight cap are refused until the running one completes")
+    void limitsConcurrency() throws Exception {
+        // Given
+        AtomicReference<MockHttpServletResponse> overlapping = new AtomicReference<>();
+        MockHttpServletRequest request = request("/api/v1/patients", "10.0.0.4", null, "GET");
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> overlapping.set(get("/api/v1/patients/search", "10.0.0.4", null)));
+
+        // Then
+        assertEquals(429, overlapping.get().getStatus());
+        assertTrue(overlapping.get().getContentAsString().contains("Too many list requests in progress"));
+        assertEquals(200, get("/api/v1/patients/search", "10.0.0.4", null).getStatus());
+    }
+
+    private MockHttpServletResponse get(String uri, String address, String apiKey) {
+        return get(uri, address, apiKey, "GET");
+    }
+
+    private MockHttpServletResponse get(String uri, String address, String apiKey, String method) {
+        try {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request(uri, address, apiKey, method), response, new MockFilterChain());
+            return response;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MockHttpServletRequest request(String uri, String address, String apiKey, String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/patient-api" + uri);
+        request.setContextPath("/patient-api");
+        request.setRemoteAddr(address);
+        if (apiKey != null) {
+            request.addHeader("X-Api-Key", apiKey);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,152 @@
+package com.patient.app.patient.replica;
+
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The replica is a separate database here, so a patient inserted only there shows which database answered.
+ */
+@SpringBootTest(properties = {
+        "patient.replicas.enabled=true",
+        "patient.replicas.replicas[0].name=r1",
+        "patient.replicas.replicas[0].url=" + PatientReplicaRoutingTest.REPLICA_URL,
+        "patient.replicas.replicas[0].username=sa",
+        "patient.replicas.lag-query=select seconds from replica_lag",
+        "patient.replicas.max-lag=1s",
+        "patient.replicas.lag-check-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PatientReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:patient-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    private static final int REPLICA_ONLY_ID = 900001;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientReplicaRouter router;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUpReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration/common").load().migrate();
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("create table if not exists replica_lag (seconds double precision)");
+        replica.update("delete from replica_lag");
+        replica.update("insert into replica_lag values (0)");
+        replica.update("delete from patients where id = ?", REPLICA_ONLY_ID);
+        replica.update("insert into patients (id, first_name, last_name, address, city, state, zip_code, phone_number, email, version) "
+                + "values (?, 'Rae', 'Lee', '1 Main St', 'Galle', 'SP', '80000', '071-234-5670', 'rae@example.com', 0)", REPLICA_ONLY_ID);
+        router.checkLag();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions are served by a replica and writes by the primary")
+    void readsFromReplicaWritesToPrimary() {
+        // Given
+        double balanced = reads("r1", "balanced");
+
+        // When
+        List<Integer> listed = patientService.getPatientList(null, 50).items().stream().map(Patient::getId).toList();
+        Patient created = patientService.createPatient(patient("routed@example.com"));
+
+        // Then
+        assertTrue(listed.contains(REPLICA_ONLY_ID));
+        assertTrue(reads("r1", "balanced") > balanced);
+        assertEquals(0, replica.queryForObject("select count(*) from patients where id = ?", Integer.class, created.getId()));
+    }
+
+    @Test
+    @DisplayName("Patients read from a replica are not cached, as the replica may be behind the primary")
+    void replicaReadsNotCached() {
+        // Given
+        assertEquals("Galle", patientService.getPatientById(REPLICA_ONLY_ID).getCity());
+
+        // When
+        replica.update("update patients set city = 'Matara' where id = ?", REPLICA_ONLY_ID);
+
+        // Then
+        assertEquals("Matara", patientService.getPatientById(REPLICA_ONLY_ID).getCity());
+    }
+
+    @Test
+    @DisplayName("A replica lagging more than allowed is skipped until it catches up")
+    void fallsBackToPrimaryWhenLagging() {
+        // Given
+        replica.update("update replica_lag set seconds = 5");
+        router.checkLag();
+        double lagged = reads("primary", "lag");
+
+        // When
+        List<Integer> listed = patientService.getPatientList(null, 50).items().stream().map(Patient::getId).toList();
+
+        // Then
+        assertFalse(listed.contains(REPLICA_ONLY_ID));
+        assertTrue(reads("primary", "lag") > lagged);
+        assertEquals(5.0, registry.get("patient.replica.lag").tag("replica", "r1").gauge().value());
+        assertTrue(router.usableReplicas().isEmpty());
+
+        replica.update("update replica_lag set seconds = 0");
+        router.checkLag();
+        assertEquals(List.of("r1"), router.usableReplicas());
+    }
+
+    @Test
+    @DisplayName("A client that wrote reads from the primary while its cookie lasts")
+    void writerReadsItsWrites() throws Exception {
+        // When
+        Cookie sticky = mockMvc.perform(post("/api/v1/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"firstName": "Sam", "lastName": "Lee", "email": "sticky@example.com", "address": "1 Main St",
+                                 "city": "Galle", "state": "SP", "zipCode": "80000", "phoneNumber": "071-234-5671"}"""))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().maxAge(PatientReplicaStickinessFilter.COOKIE, 5))
+                .andReturn().getResponse().getCookie(PatientReplicaStickinessFilter.COOKIE);
+
+        // Then
+        mockMvc.perform(get("/api/v1/patients").param("limit", "500").cookie(sticky).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[?(@.email == 'sticky@example.com')]").exists())
+                .andExpect(jsonPath("$.items[?(@.id == " + REPLICA_ONLY_ID + ")]").doesNotExist());
+        mockMvc.perform(get("/api/v1/patients").param("limit", "500").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[?(@.id == " + REPLICA_ONLY_ID + ")]").exists());
+    }
+
+    private double reads(String target, String reason) {
+        var counter = registry.find("patient.replica.reads").tag("target", target).tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
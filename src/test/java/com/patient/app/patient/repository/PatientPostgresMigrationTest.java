@@ -0,0 +1,148 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.dto.BulkImportRowResult;
+import com.patient.app.patient.dto.BulkImportRowResult.Status;
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientImportService;
+import com.patient.app.patient.service.PatientService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the PostgreSQL migrations, which H2 never executes, against a PostgreSQL container: the application context
+ * migrates with hash partitioning (common, postgresql and partitioning locations), and one test migrates a second
+ * database without it. Needs Docker; run with mvn -P postgres-test test.
+ */
+@Tag("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {"patient.schema.partitions=4", "patient.outbox.relay-interval=1h"})
+class PatientPostgresMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientImportService patientImportService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Patients are hash partitioned and the email directory follows inserts, email changes and deletes")
+    void partitionedSchema() {
+        Integer partitions = jdbcTemplate.queryForObject(
+                "select count(*) from pg_inherits where inhparent = 'patients'::regclass", Integer.class);
+        assertEquals(4, partitions);
+
+        Patient created = patientService.createPatient(patient("Part@Example.com"));
+        assertEquals(List.of("part@example.com"), emailDirectory(created.getId()));
+
+        jdbcTemplate.update("update patients set email = 'moved@example.com' where id = ?", created.getId());
+        assertEquals(List.of("moved@example.com"), emailDirectory(created.getId()));
+
+        jdbcTemplate.update("delete from patients where id = ?", created.getId());
+        assertEquals(List.of(), emailDirectory(created.getId()));
+    }
+
+    @Test
+    @DisplayName("Emails differing only in case are taken, for single creates, imports and direct inserts")
+    void caseInsensitiveEmails() {
+        patientService.createPatient(patient("case@example.com"));
+
+        assertTrue(patientRepository.existsByEmail("CASE@example.com"));
+        assertThrows(PatientEmailTakenException.class, () -> patientService.createPatient(patient("Case@Example.com")));
+        String json = """
+                [{"firstName":"Ann","lastName":"Lee","address":"1 Main St","city":"Colombo","state":"WP",
+                  "zipCode":"10100","phoneNumber":"071-234-5670","email":"CASE@EXAMPLE.COM"}]""";
+        List<BulkImportRowResult> rows = patientImportService
+                .importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).rows();
+        assertEquals(Status.DUPLICATE, rows.getFirst().status());
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "insert into patients (id, first_name, last_name, address, city, state, zip_code, phone_number, email, version) "
+                        + "values (nextval('patients_seq'), 'Ann', 'Lee', '1 Main St', 'Colombo', 'WP', '10100', "
+                        + "'071-234-5670', 'cAsE@example.com', 0)"));
+        assertTrue(e.getMessage().contains("uk_patient_email"));
+    }
+
+    @Test
+    @DisplayName("Search runs on the PostgreSQL indexes")
+    void search() {
+        Patient created = patientService.createPatient(patient("search@example.com", "Kandy"));
+
+        List<PatientSummary> found = patientService.searchPatients(
+                new PatientSearchCriteria(null, "le", "Kandy", "WP", null, null), null, 10).items();
+
+        assertEquals(List.of(created.getId()), found.stream().map(PatientSummary::id).toList());
+    }
+
+    @Test
+    @DisplayName("Without partitions the unique index on lower(email) guards email case variants")
+    void unpartitionedSchema() {
+        jdbcTemplate.execute("create database patient_unpartitioned");
+        String url = POSTGRES.getJdbcUrl().replace("/" + POSTGRES.getDatabaseName(), "/patient_unpartitioned");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, POSTGRES.getUsername(), POSTGRES.getPassword());
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+
+        JdbcTemplate unpartitioned = new JdbcTemplate(dataSource);
+        String insert = "insert into patients (id, first_name, last_name, address, city, state, zip_code, phone_number, email, version) "
+                + "values (nextval('patients_seq'), 'Ann', 'Lee', '1 Main St', 'Colombo', 'WP', '10100', '071-234-5670', ?, 0)";
+        unpartitioned.update(insert, "plain@example.com");
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> unpartitioned.update(insert, "Plain@Example.com"));
+        assertTrue(e.getMessage().contains("uk_patient_email"));
+        Integer partitions = unpartitioned.queryForObject(
+                "select count(*) from pg_inherits where inhparent = 'patients'::regclass", Integer.class);
+        assertEquals(0, partitions);
+    }
+
+    private List<String> emailDirectory(int patientId) {
+        return jdbcTemplate.queryForList("select email from patient_emails where patient_id = ?", String.class, patientId);
+    }
+}
@@ -0,0 +1,72 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.config.PatientSchemaConfiguration;
+import com.patient.app.patient.config.PatientSchemaProperties;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class PatientSchemaMigrationTest {
+
+    private static final String INSERT = "insert into patients (id, first_name, last_name, address, city, state, zip_code, "
+            + "phone_number, email, version) values (?, 'Ann', 'Lee', '1 Main St', 'Colombo', 'WP', '10100', '071-234-5670', ?, 0)";
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("The schema is built by the versioned migrations, with none left pending")
+    void migrationsApplied() {
+        List<String> applied = Arrays.stream(flyway.info().applied()).map(MigrationInfo::getScript).toList();
+
+        assertTrue(applied.contains("V1__create_patient_tables.sql"), applied.toString());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    @DisplayName("uk_patient_email rejects a second patient with the same email")
+    void emailIsUnique() {
+        jdbcTemplate.update(INSERT, 1, "schema@example.com");
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update(INSERT, 2, "schema@example.com"));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(e).getMessage().toLowerCase().contains("uk_patient_email"));
+    }
+
+    @Test
+    @DisplayName("The partitioning migration is only added when partitions are configured")
+    void partitioningIsOptional() {
+        PatientSchemaConfiguration configuration = new PatientSchemaConfiguration();
+        FluentConfiguration unpartitioned = new FluentConfiguration().locations("classpath:db/migration/common");
+        FluentConfiguration partitioned = new FluentConfiguration().locations("classpath:db/migration/common");
+
+        configuration.patientPartitioningCustomizer(new PatientSchemaProperties(0)).customize(unpartitioned);
+        configuration.patientPartitioningCustomizer(new PatientSchemaProperties(16)).customize(partitioned);
+
+        assertEquals(List.of(new Location("classpath:db/migration/common")), List.of(unpartitioned.getLocations()));
+        assertEquals(List.of(new Location("classpath:db/migration/common"), new Location("classpath:db/partitioning")),
+                List.of(partitioned.getLocations()));
+        assertEquals("16", partitioned.getPlaceholders().get("patientPartitions"));
+    }
+}
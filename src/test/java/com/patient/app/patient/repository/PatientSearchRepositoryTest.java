@@ -0,0 +1,95 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class PatientSearchRepositoryTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    void setUp() {
+        patientRepository.saveAllAndFlush(List.of(
+                patient("John", "Smith", "Austin", "TX", "73301", "(512) 555-0100", "john@example.com"),
+                patient("Jane", "Smith", "Dallas", "TX", "75201", "512.555.0101", "jane@example.com"),
+                patient("Joan", "Smithers", "Austin", "TX", "73301", "+1 512 555 0102", "joan@example.com"),
+                patient("Mary", "Sm_th", "Boston", "MA", "02108", "617-555-0103", "mary@example.com")));
+    }
+
+    @Test
+    @DisplayName("Search by last name prefix and first name prefix")
+    void searchByNamePrefix() {
+        assertEquals(List.of("John", "Jane", "Joan"), firstNames(criteria(null, "smi", null, null, null, null)));
+        assertEquals(List.of("Jane"), firstNames(criteria(null, "Smith, Ja", null, null, null, null)));
+        assertEquals(List.of("John", "Jane"), firstNames(criteria("SMITH", null, null, null, null, null)));
+    }
+
+    @Test
+    @DisplayName("LIKE wildcards in the name prefix are matched literally")
+    void searchEscapesWildcards() {
+        assertEquals(List.of("Mary"), firstNames(criteria(null, "sm_", null, null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Search combines city/state and ZIP code filters")
+    void searchByLocation() {
+        assertEquals(List.of("John", "Joan"), firstNames(criteria(null, null, "Austin", "TX", null, null)));
+        assertEquals(List.of("Mary"), firstNames(criteria(null, null, null, null, "02108", null)));
+    }
+
+    @Test
+    @DisplayName("Search by phone ignores formatting and country code")
+    void searchByPhone() {
+        assertEquals(List.of("Joan"), firstNames(criteria(null, null, null, null, null, "512-555-0102")));
+        assertEquals(List.of("John"), firstNames(criteria(null, null, null, null, null, "1 (512) 555 0100")));
+    }
+
+    @Test
+    @DisplayName("Search pages by id")
+    void searchPagesById() {
+        List<PatientSummary> first = patientRepository.search(criteria(null, null, null, "TX", null, null), 0, 2);
+        List<PatientSummary> second = patientRepository.search(criteria(null, null, null, "TX", null, null), first.get(1).id(), 2);
+
+        assertEquals(List.of("John", "Jane"), first.stream().map(PatientSummary::firstName).toList());
+        assertEquals(List.of("Joan"), second.stream().map(PatientSummary::firstName).toList());
+    }
+
+    private List<String> firstNames(PatientSearchCriteria criteria) {
+        return patientRepository.search(criteria, 0, 10).stream().map(PatientSummary::firstName).toList();
+    }
+
+    private static PatientSearchCriteria criteria(String lastName, String namePrefix, String city, String state,
+                                                  String zipCode, String phone) {
+        return new PatientSearchCriteria(lastName, namePrefix, city, state, zipCode, phone);
+    }
+
+    private static Patient patient(String firstName, String lastName, String city, String state, String zipCode,
+                                   String phoneNumber, String email) {
+        return Patient.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .address("1 Main St")
+                .city(city)
+                .state(state)
+                .zipCode(zipCode)
+                .phoneNumber(phoneNumber)
+                .email(email)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.model.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction: the second-level cache is only filled by committed transactions.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatientSecondLevelCacheTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        patientRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("findById of a cached patient does not query the database")
+    void findByIdFromCache() {
+        // Given
+        Patient patient = patientRepository.save(patient("cache-find@example.com"));
+        long statements = statistics.getPrepareStatementCount();
+
+        // When
+        Patient found = patientRepository.findById(patient.getId()).orElseThrow();
+
+        // Then
+        assertEquals("cache-find@example.com", found.getEmail());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("patient").getHitCount());
+    }
+
+    @Test
+    @DisplayName("A patient read back in the transaction that updated its columns has the new values")
+    void updateColumnsReadBack() {
+        // Given
+        Patient patient = patientRepository.save(patient("cache-patch@example.com"));
+        patientRepository.findById(patient.getId()).orElseThrow();
+
+        // When
+        Patient readBack = new TransactionTemplate(transactionManager).execute(status -> {
+            patientRepository.updateColumns(patient.getId(), null, Map.of("city", "Kandy"));
+            return patientRepository.findById(patient.getId()).orElseThrow();
+        });
+
+        // Then
+        assertEquals("Kandy", readBack.getCity());
+        assertEquals("Kandy", patientRepository.findById(patient.getId()).orElseThrow().getCity());
+    }
+
+    @Test
+    @DisplayName("existsByEmail ignores case, is served from the query cache and sees email changes")
+    void existsByEmailFromQueryCache() {
+        // Given
+        Patient patient = patientRepository.save(patient("cache-old@example.com"));
+        assertTrue(patientRepository.existsByEmail("Cache-Old@Example.com"));
+        long statements = statistics.getPrepareStatementCount();
+
+        // When
+        boolean warm = patientRepository.existsByEmail("Cache-Old@Example.com");
+        long warmStatements = statistics.getPrepareStatementCount() - statements;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                patientRepository.updateColumns(patient.getId(), null, Map.of("email", "cache-new@example.com")));
+
+        // Then
+        assertTrue(warm);
+        assertEquals(0, warmStatements);
+        assertFalse(patientRepository.existsByEmail("cache-old@example.com"));
+        assertTrue(patientRepository.existsByEmail("CACHE-NEW@example.com"));
+    }
+
+    @Test
+    @DisplayName("The watermark is served from the query cache until the table changes")
+    void watermarkFromQueryCache() {
+        // Given
+        patientRepository.save(patient("cache-watermark-1@example.com"));
+        assertEquals(1L, patientRepository.findWatermark().count());
+
+        // When
+        long cachedCount = patientRepository.findWatermark().count();
+        long hits = statistics.getQueryCacheHitCount();
+        patientRepository.save(patient("cache-watermark-2@example.com"));
+
+        // Then
+        assertEquals(1L, cachedCount);
+        assertEquals(1, hits);
+        assertEquals(2L, patientRepository.findWatermark().count());
+    }
+
+    @Test
+    @DisplayName("Patients are equal by id and keep their hash across a save")
+    void identityContract() {
+        // Given
+        Patient first = patient("cache-id-1@example.com");
+        Patient second = patientRepository.save(patient("cache-id-2@example.com"));
+        Set<Patient> patients = new HashSet<>(Set.of(first, second));
+
+        // When
+        patientRepository.save(first);
+        Patient reloaded = patientRepository.findById(first.getId()).orElseThrow();
+        reloaded.setEmail("changed@example.com");
+        Patient unsaved = patient("cache-id-1@example.com");
+
+        // Then
+        assertTrue(patients.contains(first));
+        assertEquals(first, reloaded);
+        assertTrue(patients.contains(reloaded));
+        assertNotEquals(first, second);
+        assertNotEquals(first, unsaved);
+        assertEquals(unsaved, unsaved);
+    }
+}
@@ -0,0 +1,104 @@
+package com.patient.app.patient.repository;
+
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.dto.PatientWatermark;
+import com.patient.app.patient.model.Patient;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class PatientWriteRepositoryTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Conditional update bumps the version and only matches the current version")
+    void updateColumnsChecksVersion() {
+        // Given
+        Patient patient = patientRepository.saveAndFlush(patient("ann@example.com"));
+        assertEquals(0L, patient.getVersion());
+        entityManager.clear();
+
+        // When
+        int stale = patientRepository.updateColumns(patient.getId(), 5L, Map.of("city", "Kandy"));
+        int current = patientRepository.updateColumns(patient.getId(), 0L,
+                Map.of("city", "Kandy", "phoneNumber", "(071) 234-5678"));
+
+        // Then
+        assertEquals(0, stale);
+        assertEquals(1, current);
+        Patient updated = patientRepository.findById(patient.getId()).orElseThrow();
+        assertEquals("Kandy", updated.getCity());
+        assertEquals("Ann", updated.getFirstName());
+        assertEquals("0712345678", updated.getPhoneDigits());
+        assertEquals(1L, updated.getVersion());
+        assertNotNull(updated.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("Taking another patient's email violates uk_patient_email")
+    void updateColumnsRelyOnEmailConstraint() {
+        // Given
+        Patient ann = patientRepository.saveAndFlush(patient("ann@example.com"));
+        patientRepository.saveAndFlush(patient("bob@example.com"));
+
+        // When & Then
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> patientRepository.updateColumns(ann.getId(), null, Map.of("email", "bob@example.com")));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(e).getMessage().toLowerCase().contains("uk_patient_email"));
+    }
+
+    @Test
+    @DisplayName("Conditional delete only matches the current version")
+    void deleteConditionallyChecksVersion() {
+        // Given
+        Patient patient = patientRepository.saveAndFlush(patient("ann@example.com"));
+        entityManager.clear();
+
+        // When & Then
+        assertEquals(0, patientRepository.deleteConditionally(patient.getId(), 1L));
+        assertEquals(1, patientRepository.deleteConditionally(patient.getId(), 0L));
+        assertFalse(patientRepository.existsById(patient.getId()));
+    }
+
+    @Test
+    @DisplayName("Version and watermark queries see updates and deletes")
+    void versionAndWatermark() {
+        // Given
+        Patient ann = patientRepository.saveAndFlush(patient("ann@example.com"));
+        Patient bob = patientRepository.saveAndFlush(patient("bob@example.com"));
+        PatientWatermark before = patientRepository.findWatermark();
+
+        // When
+        patientRepository.updateColumns(ann.getId(), null, Map.of("city", "Kandy"));
+        PatientVersion version = patientRepository.findVersionById(ann.getId()).orElseThrow();
+        PatientWatermark afterUpdate = patientRepository.findWatermark();
+        patientRepository.deleteConditionally(bob.getId(), null);
+        PatientWatermark afterDelete = patientRepository.findWatermark();
+
+        // Then
+        assertEquals(1L, version.version());
+        assertEquals(2L, before.count());
+        assertTrue(afterUpdate.lastUpdatedAt().isAfter(before.lastUpdatedAt()));
+        assertEquals(1L, afterDelete.count());
+        assertTrue(patientRepository.findVersionById(bob.getId()).isEmpty());
+    }
+}
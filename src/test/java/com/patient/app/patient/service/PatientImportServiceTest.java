@@ -0,0 +1,105 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.BulkImportReport;
+import com.patient.app.patient.dto.BulkImportRowResult;
+import com.patient.app.patient.dto.BulkImportRowResult.Status;
+import com.patient.app.patient.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "patient.bulk-import.chunk-size=2")
+@ActiveProfiles("test")
+class PatientImportServiceTest {
+
+    @Autowired
+    private PatientImportService patientImportService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Import JSON array reports created, invalid and duplicate rows")
+    void importJsonArray() {
+        // Given
+        String json = "[" +
+                patientJson("Ann", "ann@example.com") + "," +
+                patientJson("", "blank@example.com") + "," +
+                patientJson("Bob", "bob@example.com") + "," +
+                patientJson("Ann", "ann@example.com") +
+                "]";
+
+        // When
+        BulkImportReport report = patientImportService.importJson(stream(json));
+
+        // Then
+        assertEquals(4, report.total());
+        assertEquals(2, report.created());
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.CREATED, Status.DUPLICATE),
+                report.rows().stream().map(BulkImportRowResult::status).toList());
+        assertEquals(List.of("First name is required."), report.rows().get(1).errors());
+        assertNotNull(report.rows().get(2).id());
+        assertEquals(2, patientRepository.count());
+    }
+
+    @Test
+    @DisplayName("Emails differing only in case are duplicates, within a chunk and across chunks")
+    void importCaseVariantEmails() {
+        // Given
+        String json = "[" +
+                patientJson("Ann", "ann.case@example.com") + "," +
+                patientJson("Ann", "Ann.Case@example.com") + "," +
+                patientJson("Ann", "ANN.CASE@EXAMPLE.COM") +
+                "]";
+
+        // When
+        BulkImportReport report = patientImportService.importJson(stream(json));
+
+        // Then
+        assertEquals(List.of(Status.CREATED, Status.DUPLICATE, Status.DUPLICATE),
+                report.rows().stream().map(BulkImportRowResult::status).toList());
+        assertEquals(1, patientRepository.count());
+    }
+
+    @Test
+    @DisplayName("Import CSV with header row")
+    void importCsv() {
+        // Given
+        String csv = "firstName,lastName,address,city,state,zipCode,phoneNumber,email\n" +
+                "Ann,Lee,1 Main St,Springfield,IL,62701,123-456-7890,ann.csv@example.com\n" +
+                "Bob,Lee,1 Main St,Springfield,IL,bad-zip,123-456-7890,bob.csv@example.com\n";
+
+        // When
+        BulkImportReport report = patientImportService.importCsv(stream(csv));
+
+        // Then
+        assertEquals(2, report.total());
+        assertEquals(Status.CREATED, report.rows().get(0).status());
+        assertEquals(Status.INVALID, report.rows().get(1).status());
+        assertTrue(patientRepository.existsByEmail("ann.csv@example.com"));
+    }
+
+    private static String patientJson(String firstName, String email) {
+        return """
+                {"firstName":"%s","lastName":"Lee","address":"1 Main St","city":"Springfield","state":"IL",
+                 "zipCode":"62701","phoneNumber":"123-456-7890","email":"%s"}""".formatted(firstName, email);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientIngestStatus;
+import com.patient.app.patient.dto.PatientIngestStatus.Status;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "patient.ingest.enabled=true",
+        "patient.ingest.batch-size=10",
+        "patient.ingest.max-wait=500ms",
+        "patient.ingest.callback-origins=https://registration.example.org"
+})
+@ActiveProfiles("test")
+class PatientIngestServiceTest {
+
+    @Autowired
+    private PatientIngestService patientIngestService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    @DisplayName("Queued creates are written together, skipping emails repeated in the batch or already taken")
+    void writesQueuedCreatesAsOneBatch() {
+        // Given
+        patientService.createPatient(patient("ingest-existing@example.com"));
+        DistributionSummary batchSizes = registry.get("patient.ingest.batch.size").summary();
+        long batchesBefore = batchSizes.count();
+
+        // When
+        List<PatientIngestStatus> accepted = List.of(
+                patientIngestService.submit(patient("ingest-1@example.com"), null),
+                patientIngestService.submit(patient("ingest-2@example.com"), null),
+                patientIngestService.submit(patient("ingest-1@example.com"), null),
+                patientIngestService.submit(patient("ingest-existing@example.com"), null));
+
+        // Then
+        assertTrue(accepted.stream().allMatch(status -> status.status() == Status.QUEUED));
+        List<PatientIngestStatus> completed = accepted.stream().map(this::awaitCompleted).toList();
+        assertEquals(List.of(Status.CREATED, Status.CREATED, Status.DUPLICATE, Status.DUPLICATE),
+                completed.stream().map(PatientIngestStatus::status).toList());
+        assertEquals("Email appears more than once in the batch", completed.get(2).error());
+        assertEquals("Patient already exists", completed.get(3).error());
+        assertEquals("ingest-2@example.com",
+                patientRepository.findById(completed.get(1).patientId()).orElseThrow().getEmail());
+        assertNotNull(completed.get(0).completedAt());
+
+        assertEquals(batchesBefore + 1, batchSizes.count());
+        assertEquals(4, batchSizes.max());
+        assertTrue(registry.get("patient.ingest.latency").timer().count() >= 4);
+    }
+
+    @Test
+    @DisplayName("Callbacks must use an allowed origin")
+    void rejectsCallbackToUnknownOrigin() {
+        assertThrows(InvalidPatientRequestException.class, () -> patientIngestService.submit(
+                patient("ingest-callback@example.com"), URI.create("http://169.254.169.254/latest")));
+        assertThrows(InvalidPatientRequestException.class, () -> patientIngestService.submit(
+                patient("ingest-callback@example.com"), URI.create("/relative")));
+    }
+
+    @Test
+    @DisplayName("Unknown tracking ids are not found")
+    void unknownTrackingId() {
+        assertThrows(NoSuchElementException.class, () -> patientIngestService.getStatus("missing"));
+    }
+
+    private PatientIngestStatus awaitCompleted(PatientIngestStatus accepted) {
+        long deadline = System.currentTimeMillis() + 5000;
+        PatientIngestStatus status = patientIngestService.getStatus(accepted.id());
+        while (status.status() == Status.QUEUED && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            status = patientIngestService.getStatus(accepted.id());
+        }
+        assertNotEquals(Status.QUEUED, status.status());
+        return status;
+    }
+}
@@ -0,0 +1,120 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.model.PatientSnapshot;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "patient.lookup.window=500ms")
+@ActiveProfiles("test")
+class PatientLookupCoalescerTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientLookupCoalescer patientLookupCoalescer;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Concurrent cache misses for different patients are read with one query")
+    void coalescesConcurrentLookups() throws Exception {
+        // Given
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(patientService.createPatient(patient("coalesced" + i + "@example.com")).getId());
+        }
+        ids.forEach(patientCache::evict);
+        DistributionSummary batches = meterRegistry.get("patient.lookup.batch.size").summary();
+        long queries = batches.count();
+        double read = batches.totalAmount();
+
+        // When
+        List<Object> results = concurrently(ids.size() + 1, i -> patientService.getPatientById(i < ids.size() ? ids.get(i) : Integer.MAX_VALUE));
+
+        // Then
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), ((Patient) results.get(i)).getId());
+        }
+        assertInstanceOf(NoSuchElementException.class, results.get(ids.size()));
+        assertEquals(1, batches.count() - queries);
+        assertEquals(ids.size() + 1, batches.totalAmount() - read);
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of the same patient share one read")
+    void deduplicatesInFlightLookups() throws Exception {
+        // Given
+        int id = patientService.createPatient(patient("shared@example.com")).getId();
+        double deduplicated = meterRegistry.get("patient.lookup.requests").tag("outcome", "deduplicated").counter().count();
+
+        // When
+        List<Object> results = concurrently(5, i -> patientLookupCoalescer.load(id));
+
+        // Then
+        results.forEach(result -> assertEquals("shared@example.com", ((PatientSnapshot) result).email()));
+        assertEquals(4, meterRegistry.get("patient.lookup.requests").tag("outcome", "deduplicated").counter().count() - deduplicated);
+    }
+
+    @Test
+    @DisplayName("A batch read returns cached and uncached patients in the order of their ids and leaves out unknown ids")
+    void readsBatch() {
+        // Given
+        int cached = patientService.createPatient(patient("cached@example.com")).getId();
+        int uncached = patientService.createPatient(patient("uncached@example.com")).getId();
+        patientCache.evict(uncached);
+
+        // When
+        List<Patient> patients = patientService.getPatientsByIds(List.of(uncached, Integer.MAX_VALUE, cached, uncached));
+
+        // Then
+        assertEquals(List.of(uncached, cached), patients.stream().map(Patient::getId).toList());
+        assertEquals("uncached@example.com", patients.get(0).getEmail());
+    }
+
+    private static List<Object> concurrently(int threads, IntFunction<Object> call) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return call.apply(index);
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+}
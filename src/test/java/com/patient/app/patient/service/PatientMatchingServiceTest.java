@@ -0,0 +1,80 @@
+package com.patient.app.patient.service;
+
+import com.patient.app.patient.dto.PatientDuplicatePair;
+import com.patient.app.patient.dto.PatientDuplicateReport;
+import com.patient.app.patient.dto.PatientMatch;
+import com.patient.app.patient.model.Patient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PatientMatchingServiceTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientMatchingService patientMatchingService;
+
+    @Test
+    @DisplayName("The pre-check finds a patient registered with another email and a typo in the last name")
+    void findsProbableMatch() {
+        // Given
+        Patient existing = patientService.createPatient(patient("Katherine", "Johnson", "12 Oak Avenue", "555-301-4567", "kj@example.com"));
+        patientService.createPatient(patient("Robert", "Johnson", "12 Oak Avenue", "555-301-4567", "rj@example.com"));
+
+        // When
+        List<PatientMatch> matches = patientMatchingService.findMatches(
+                patient("Katherine", "Jonson", "12 Oak Ave", "(555) 301-4567", "katherine@example.org"));
+
+        // Then
+        assertEquals(List.of(existing.getId()), matches.stream().map(PatientMatch::patientId).toList());
+        assertTrue(matches.get(0).score() >= 0.9);
+        assertTrue(patientMatchingService.findMatches(patient("Zed", "Quincy", "9 Elm St", "555-999-0000", "zq@example.com")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("The duplicate report compares all patients block by block and lists each probable pair once")
+    void reportsDuplicatePairs() {
+        // Given
+        Patient first = patientService.createPatient(patient("Marta", "Silva", "7 Lake Road", "555-402-1111", "marta@example.com"));
+        Patient second = patientService.createPatient(patient("Martha", "Silva", "7 Lake Rd", "555-402-1111", "msilva@example.org"));
+        for (int i = 0; i < 20; i++) {
+            patientService.createPatient(patient("Person" + (char) ('a' + i), "Other" + (char) ('a' + i), i + " Hill St",
+                    String.format("555-500-%04d", i), "other" + i + "@example.com"));
+        }
+
+        // When
+        PatientDuplicateReport report = patientMatchingService.duplicateReport(0.9, 100);
+
+        // Then
+        List<PatientDuplicatePair> pairs = report.pairs().stream()
+                .filter(pair -> pair.firstId() == first.getId() || pair.secondId() == first.getId())
+                .toList();
+        assertEquals(List.of(first.getId()), pairs.stream().map(PatientDuplicatePair::firstId).toList());
+        assertEquals(second.getId(), pairs.get(0).secondId());
+        assertTrue(report.patients() >= 22);
+        assertTrue(report.comparisons() < report.patients() * (report.patients() - 1) / 2);
+    }
+
+    private static Patient patient(String firstName, String lastName, String address, String phone, String email) {
+        return Patient.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .address(address)
+                .city("Springfield")
+                .state("IL")
+                .zipCode("62701")
+                .phoneNumber(phone)
+                .email(email)
+                .build();
+    }
+}
@@ -1,17 +1,40 @@
 package com.patient.app.patient.service;
 
+import com.patient.app.patient.config.PatientCacheProperties;
+import com.patient.app.patient.config.PatientReplicaProperties;
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientVersion;
+import com.patient.app.patient.event.PatientChangedEvent;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.exception.PatientVersionConflictException;
+import com.patient.app.patient.index.PatientMemoryIndex;
+import com.patient.app.patient.metrics.PatientMetrics;
 import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.repository.PatientJdbcRepository;
 import com.patient.app.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,6 +48,30 @@ public class PatientTestService {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private PatientJdbcRepository patientJdbcRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PatientMemoryIndex patientMemoryIndex;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private PatientLookupCoalescer patientLookupCoalescer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PatientMetrics patientMetrics = new PatientMetrics(meterRegistry);
+
+    @Spy
+    private PatientCache patientCache = new PatientCache(new PatientCacheProperties(true, 100, Duration.ofMinutes(1)),
+            new PatientReplicaProperties(false, List.of(), Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofSeconds(1), ""));
+
     @InjectMocks
     private PatientServiceImpl patientService;
 
@@ -70,12 +117,13 @@ public class PatientTestService {
         when(patientRepository.existsByEmail(anyString())).thenReturn(true);
 
         // When & Then
-        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+        PatientEmailTakenException exception = assertThrows(PatientEmailTakenException.class,
                 () -> patientService.createPatient(patientLahiru));
 
         assertEquals("Patient already exists", exception.getMessage());
         verify(patientRepository, times(1)).existsByEmail(patientLahiru.getEmail());
         verify(patientRepository, never()).save(any(Patient.class));
+        assertEquals(1.0, meterRegistry.get("patient.email.conflicts").tag("operation", "create").counter().count());
     }
 
     @Test
@@ -86,7 +134,7 @@ public class PatientTestService {
         when(patientRepository.save(any(Patient.class))).thenThrow(DataIntegrityViolationException.class);
 
         // When & Then
-        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+        InvalidPatientRequestException exception = assertThrows(InvalidPatientRequestException.class,
                 () -> patientService.createPatient(patientLahiru));
 
         assertEquals("Invalid patient data provided", exception.getMessage());
@@ -99,15 +147,14 @@ public class PatientTestService {
     void deletePatientWithValidId() {
         // Given
         int patientId = 1;
-        when(patientRepository.existsById(patientId)).thenReturn(true);
-        doNothing().when(patientRepository).deleteById(patientId);
+        when(patientRepository.deleteConditionally(patientId, null)).thenReturn(1);
 
         // When
-        patientService.deletePatient(patientId);
+        patientService.deletePatient(patientId, null);
 
         // Then
-        verify(patientRepository, times(1)).existsById(patientId);
-        verify(patientRepository, times(1)).deleteById(patientId);
+        verify(patientRepository, times(1)).deleteConditionally(patientId, null);
+        verify(patientRepository, never()).existsById(anyInt());
     }
 
     @Test
@@ -115,15 +162,27 @@ public class PatientTestService {
     void deletePatientWithInvalidId() {
         // Given
         int patientId = 99;
+        when(patientRepository.deleteConditionally(patientId, null)).thenReturn(0);
         when(patientRepository.existsById(patientId)).thenReturn(false);
 
         // When & Then
         NoSuchElementException exception = assertThrows(NoSuchElementException.class,
-                () -> patientService.deletePatient(patientId));
+                () -> patientService.deletePatient(patientId, null));
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(patientRepository, times(1)).existsById(patientId);
-        verify(patientRepository, never()).deleteById(anyInt());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Delete patient with a stale version")
+    void deletePatientWithStaleVersion() {
+        // Given
+        when(patientRepository.deleteConditionally(1, 3L)).thenReturn(0);
+        when(patientRepository.existsById(1)).thenReturn(true);
+
+        // When & Then
+        assertThrows(PatientVersionConflictException.class, () -> patientService.deletePatient(1, 3L));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -142,17 +201,184 @@ public class PatientTestService {
                 .zipCode("12345")
                 .build();
 
+        when(patientRepository.updateColumns(eq(patientId), eq(2L), anyMap())).thenReturn(1);
         when(patientRepository.findById(patientId)).thenReturn(java.util.Optional.of(patientLahiru));
-        when(patientRepository.existsByEmailAndIdNot(anyString(), anyInt())).thenReturn(false);
-        when(patientRepository.save(any(Patient.class))).thenReturn(patientLahiru);
 
         // When
-        Patient updatedPatient = patientService.updatePatient(patientId, updatedPatientData);
+        Patient updatedPatient = patientService.updatePatient(patientId, updatedPatientData, 2L);
 
         // Then
         assertNotNull(updatedPatient);
-        verify(patientRepository, times(1)).findById(patientId);
-        verify(patientRepository, times(1)).existsByEmailAndIdNot(updatedPatientData.getEmail(), patientId);
-        verify(patientRepository, times(1)).save(any(Patient.class));
+        verify(patientRepository, times(1)).updateColumns(eq(patientId), eq(2L),
+                argThat(changes -> changes.size() == 8 && "updated.email@aeturnum.com".equals(changes.get("email"))));
+        verify(patientRepository, never()).save(any(Patient.class));
+        verify(eventPublisher).publishEvent(PatientChangedEvent.updated(patientLahiru));
+    }
+
+    @Test
+    @DisplayName("Update rejected by the email constraint is reported as an email conflict")
+    void updatePatientWithTakenEmail() {
+        // Given
+        when(patientRepository.updateColumns(eq(1), isNull(), anyMap())).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new RuntimeException("Unique index or primary key violation: \"UK_PATIENT_EMAIL\"")));
+
+        // When & Then
+        PatientEmailTakenException exception = assertThrows(PatientEmailTakenException.class,
+                () -> patientService.updatePatient(1, patientLahiru, null));
+        assertEquals("Email lahiru.wa@aeturnum.com already exists for another patient", exception.getMessage());
+        assertEquals(1.0, meterRegistry.get("patient.email.conflicts").tag("operation", "update").counter().count());
+    }
+
+    @Test
+    @DisplayName("Update with a stale version fails without writing")
+    void updatePatientWithStaleVersion() {
+        // Given
+        when(patientRepository.updateColumns(eq(1), eq(1L), anyMap())).thenReturn(0);
+        when(patientRepository.existsById(1)).thenReturn(true);
+
+        // When & Then
+        assertThrows(PatientVersionConflictException.class, () -> patientService.updatePatient(1, patientLahiru, 1L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Patch writes only the given fields")
+    void patchPatientWritesChangedColumns() {
+        // Given
+        when(validator.validateValue(eq(Patient.class), anyString(), any())).thenReturn(Set.of());
+        when(patientRepository.updateColumns(eq(1), isNull(), anyMap())).thenReturn(1);
+        when(patientRepository.findById(1)).thenReturn(Optional.of(patientLahiru));
+
+        // When
+        patientService.patchPatient(1, new PatientPatch(null, null, null, "Kandy", null, null, null, null), null);
+
+        // Then
+        verify(patientRepository).updateColumns(1, null, Map.of("city", "Kandy"));
+    }
+
+    @Test
+    @DisplayName("An empty patch writes nothing but still checks the expected version")
+    void emptyPatchChecksVersion() {
+        // Given
+        patientLahiru.setVersion(2L);
+        when(patientRepository.findById(1)).thenReturn(Optional.of(patientLahiru));
+        PatientPatch empty = new PatientPatch(null, null, null, null, null, null, null, null);
+
+        // When & Then
+        assertEquals(patientLahiru, patientService.patchPatient(1, empty, 2L));
+        assertEquals(patientLahiru, patientService.patchPatient(1, empty, null));
+        assertThrows(PatientVersionConflictException.class, () -> patientService.patchPatient(1, empty, 1L));
+        verify(patientRepository, never()).updateColumns(anyInt(), any(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Get patient page returns next cursor when more rows exist")
+    void getPatientListWithMoreRows() {
+        // Given
+        Patient second = Patient.builder().id(2).email("second@example.com").build();
+        Patient third = Patient.builder().id(3).email("third@example.com").build();
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(3)))
+                .thenReturn(List.of(patientLahiru, second, third));
+
+        // When
+        CursorPage<Patient> page = patientService.getPatientList(null, 2);
+
+        // Then
+        assertEquals(List.of(1, 2), page.items().stream().map(Patient::getId).toList());
+        assertEquals(2, page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Get last patient page has no next cursor")
+    void getPatientListLastPage() {
+        // Given
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(3))).thenReturn(List.of(patientLahiru));
+
+        // When
+        CursorPage<Patient> page = patientService.getPatientList(0, 2);
+
+        // Then
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Get patient by ID is served from the cache after the first lookup")
+    void getPatientByIdUsesCache() {
+        // Given
+        when(patientRepository.findById(1)).thenReturn(Optional.of(patientLahiru));
+
+        // When
+        Patient first = patientService.getPatientById(1);
+        Patient second = patientService.getPatientById(1);
+
+        // Then
+        assertEquals(patientLahiru.getEmail(), second.getEmail());
+        assertNotSame(first, second);
+        assertNotSame(patientLahiru, first);
+        verify(patientRepository, times(1)).findById(1);
+        assertEquals(1, patientService.getCacheStats().hitCount());
+        assertEquals(1, patientService.getCacheStats().missCount());
+    }
+
+    @Test
+    @DisplayName("Get patient by ID does not cache missing patients")
+    void getPatientByIdNotFound() {
+        // Given
+        when(patientRepository.findById(99)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(NoSuchElementException.class, () -> patientService.getPatientById(99));
+        assertThrows(NoSuchElementException.class, () -> patientService.getPatientById(99));
+        verify(patientRepository, times(2)).findById(99);
+    }
+
+    @Test
+    @DisplayName("Write paths publish change events that keep the cache coherent")
+    void writesKeepCacheCoherent() {
+        // Given
+        when(patientRepository.findById(1)).thenReturn(Optional.of(patientLahiru));
+        when(patientRepository.deleteConditionally(1, null)).thenReturn(1);
+        patientService.getPatientById(1);
+
+        // When
+        patientService.deletePatient(1, null);
+
+        // Then
+        verify(eventPublisher).publishEvent(PatientChangedEvent.deleted(1));
+        patientCache.onPatientChanged(PatientChangedEvent.deleted(1));
+        patientService.getPatientById(1);
+        verify(patientRepository, times(2)).findById(1);
+    }
+
+    @Test
+    @DisplayName("Reads by id and email checks are served by the memory index once it is loaded")
+    void memoryIndexServesReads() {
+        // Given
+        when(patientMemoryIndex.isServing()).thenReturn(true);
+        when(patientMemoryIndex.get(1)).thenReturn(patientLahiru);
+        when(patientMemoryIndex.findIdByEmail(patientLahiru.getEmail())).thenReturn(OptionalInt.of(1));
+
+        // When & Then
+        assertEquals(patientLahiru.getEmail(), patientService.getPatientById(1).getEmail());
+        assertThrows(NoSuchElementException.class, () -> patientService.getPatientById(2));
+        assertThrows(PatientEmailTakenException.class, () -> patientService.createPatient(patientLahiru));
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    @DisplayName("Version of a cached patient is read without a query")
+    void getPatientVersionFromCache() {
+        // Given
+        patientLahiru.setVersion(2L);
+        when(patientRepository.findById(1)).thenReturn(Optional.of(patientLahiru));
+        patientService.getPatientById(1);
+
+        // When
+        PatientVersion version = patientService.getPatientVersion(1);
+
+        // Then
+        assertEquals(2L, version.version());
+        verify(patientRepository, never()).findVersionById(anyInt());
     }
 }
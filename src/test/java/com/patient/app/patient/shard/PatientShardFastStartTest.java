@@ -0,0 +1,68 @@
+package com.patient.app.patient.shard;
+
+import com.patient.app.patient.dto.PatientShardRange;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The fast-start profile leaves Flyway out: the shards are migrated here beforehand, as a regular instance or a
+ * migration job would, and the directory must still be set up at startup.
+ */
+@SpringBootTest(properties = {
+        "patient.sharding.enabled=true",
+        "patient.sharding.range-size=100000"
+})
+@ActiveProfiles({"test", "fast-start"})
+class PatientShardFastStartTest {
+
+    private static final List<String> SHARDS = List.of("a", "b");
+
+    /**
+     * The shard list binds from a single property source, so names and users are registered here with the urls.
+     */
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        for (int i = 0; i < SHARDS.size(); i++) {
+            String name = SHARDS.get(i);
+            String url = "jdbc:h2:mem:fast-start-" + name + "-" + UUID.randomUUID()
+                    + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+            Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration/common").load().migrate();
+            registry.add("patient.sharding.shards[" + i + "].name", () -> name);
+            registry.add("patient.sharding.shards[" + i + "].url", () -> url);
+            registry.add("patient.sharding.shards[" + i + "].username", () -> "sa");
+        }
+    }
+
+    @Autowired
+    private PatientShardDirectory directory;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Test
+    @DisplayName("Without Flyway the directory still gives every shard its home range at startup")
+    void initializesDirectoryWithoutFlyway() {
+        // When
+        Patient created = patientService.createPatient(patient("fast-start@example.com"));
+
+        // Then
+        assertEquals(List.of(new PatientShardRange(1, 100001, "a", true), new PatientShardRange(100001, 200001, "b", true)),
+                directory.ranges());
+        assertEquals(directory.shardForEmail(created.getEmail()), directory.shardForId(created.getId()));
+        assertEquals(created.getEmail(), patientService.getPatientById(created.getId()).getEmail());
+    }
+}
@@ -0,0 +1,216 @@
+package com.patient.app.patient.shard;
+
+import com.patient.app.patient.dto.CursorPage;
+import com.patient.app.patient.dto.PatientPatch;
+import com.patient.app.patient.dto.PatientSearchCriteria;
+import com.patient.app.patient.dto.PatientShardMove;
+import com.patient.app.patient.dto.PatientShardRange;
+import com.patient.app.patient.dto.PatientSummary;
+import com.patient.app.patient.exception.InvalidPatientRequestException;
+import com.patient.app.patient.exception.PatientEmailTakenException;
+import com.patient.app.patient.exception.ShardingUnsupportedException;
+import com.patient.app.patient.model.Patient;
+import com.patient.app.patient.service.PatientBatchWriter;
+import com.patient.app.patient.service.PatientExportService;
+import com.patient.app.patient.service.PatientMatchingService;
+import com.patient.app.patient.service.PatientService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.patient.app.patient.TestPatients.patient;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "patient.sharding.enabled=true",
+        "patient.sharding.range-size=100000",
+        "patient.sharding.directory-refresh=100ms",
+        "patient.sharding.shards[0].name=a",
+        "patient.sharding.shards[0].url=jdbc:h2:mem:shard-a-${random.uuid};MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "patient.sharding.shards[0].username=sa",
+        "patient.sharding.shards[1].name=b",
+        "patient.sharding.shards[1].url=jdbc:h2:mem:shard-b-${random.uuid};MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "patient.sharding.shards[1].username=sa"
+})
+@ActiveProfiles("test")
+class PatientShardingTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientShardDirectory directory;
+
+    @Autowired
+    private PatientShardRebalancer rebalancer;
+
+    @Autowired
+    private PatientExportService patientExportService;
+
+    @Autowired
+    private PatientMatchingService patientMatchingService;
+
+    @Autowired
+    private PatientBatchWriter batchWriter;
+
+    @Test
+    @DisplayName("Patients are spread over the shards with ids from each shard's range and read back by id")
+    void createsOnEveryShard() {
+        // When
+        List<Patient> created = createPatients("spread", "Galle");
+
+        // Then
+        List<String> shards = created.stream().map(patient -> directory.shardForId(patient.getId())).distinct().toList();
+        assertEquals(2, shards.size());
+        for (Patient patient : created) {
+            String shard = directory.shardForEmail(patient.getEmail());
+            assertEquals(shard, directory.shardForId(patient.getId()));
+            assertEquals(1, rowsOn(shard, patient.getId()));
+            assertEquals(patient.getEmail(), patientService.getPatientById(patient.getId()).getEmail());
+        }
+        assertTrue(created.stream().anyMatch(patient -> patient.getId() > 100000));
+    }
+
+    @Test
+    @DisplayName("Listing and search merge the shards into one keyset-paginated order")
+    void mergesPagesAcrossShards() {
+        // Given
+        List<Integer> ids = createPatients("search", "Matara").stream().map(Patient::getId).sorted().toList();
+
+        // When
+        List<Integer> listed = new ArrayList<>();
+        CursorPage<Patient> page = patientService.getPatientList(null, 3);
+        listed.addAll(page.items().stream().map(Patient::getId).toList());
+        while (page.nextCursor() != null) {
+            page = patientService.getPatientList(page.nextCursor(), 3);
+            listed.addAll(page.items().stream().map(Patient::getId).toList());
+        }
+        List<Integer> found = new ArrayList<>();
+        PatientSearchCriteria criteria = new PatientSearchCriteria(null, null, "Matara", null, null, null);
+        CursorPage<PatientSummary> results = patientService.searchPatients(criteria, null, 4);
+        found.addAll(results.items().stream().map(PatientSummary::id).toList());
+        while (results.nextCursor() != null) {
+            results = patientService.searchPatients(criteria, results.nextCursor(), 4);
+            found.addAll(results.items().stream().map(PatientSummary::id).toList());
+        }
+
+        // Then
+        assertEquals(listed.stream().sorted().toList(), listed);
+        assertTrue(listed.containsAll(ids));
+        assertEquals(ids, found);
+        assertEquals(listed.size(), patientService.getWatermark().count());
+    }
+
+    @Test
+    @DisplayName("A moved id range is served from its new shard")
+    void movesRangeToAnotherShard() {
+        // Given
+        List<Patient> created = createPatients("move", "Jaffna");
+        Patient onA = created.stream().filter(patient -> directory.shardForId(patient.getId()).equals("a"))
+                .max(Comparator.comparing(Patient::getId)).orElseThrow();
+
+        // When
+        long moved = rebalancer.move(new PatientShardMove(1, onA.getId() + 1, "b"));
+
+        // Then
+        assertTrue(moved > 0);
+        assertEquals("b", directory.shardForId(onA.getId()));
+        assertEquals(0, rowsOn("a", onA.getId()));
+        assertEquals(1, rowsOn("b", onA.getId()));
+        assertEquals(onA.getEmail(), patientService.getPatientById(onA.getId()).getEmail());
+        assertThrows(PatientEmailTakenException.class, () -> patientService.createPatient(patient(onA.getEmail())));
+        assertEquals(List.of(new PatientShardRange(1, onA.getId() + 1, "b", false),
+                        new PatientShardRange(onA.getId() + 1, 100001, "a", true)),
+                directory.ranges().subList(0, 2));
+
+        Patient patient = patientService.getPatientById(onA.getId());
+        patient.setCity("Kandy");
+        assertEquals("Kandy", patientService.updatePatient(onA.getId(), patient, null).getCity());
+        assertThrows(InvalidPatientRequestException.class,
+                () -> rebalancer.move(new PatientShardMove(onA.getId() + 1, 100001, "b")));
+    }
+
+    @Test
+    @DisplayName("A patient created with an id from an allocation taken before its range moved lands on the new shard")
+    void relocatesIdsAllocatedBeforeMove() {
+        // Given: this instance's pooled generator for shard a still holds the ids after the last one it handed out
+        List<Patient> onA = createPatients("pooled", "Batticaloa").stream()
+                .filter(patient -> directory.shardForId(patient.getId()).equals("a"))
+                .sorted(Comparator.comparing(Patient::getId)).toList();
+        int last = onA.getLast().getId();
+        rebalancer.move(new PatientShardMove(onA.getFirst().getId(), last + 10, "b"));
+
+        // When
+        Patient created = patientService.createPatient(patient(emailOn("a", "pooled-late")));
+        PatientBatchWriter.WriteResult written = batchWriter.writeAll(List.of(patient(emailOn("a", "pooled-batch")))).get(0);
+
+        // Then
+        assertEquals(last + 1, created.getId());
+        assertEquals(0, rowsOn("a", created.getId()));
+        assertEquals(1, rowsOn("b", created.getId()));
+        assertEquals(created.getEmail(), patientService.getPatientById(created.getId()).getEmail());
+        assertEquals(last + 2, written.id());
+        assertEquals(1, rowsOn("b", written.id()));
+    }
+
+    @Test
+    @DisplayName("An email held on one shard cannot be taken on another, by creates, batches, updates or patches")
+    void emailsAreUniqueAcrossShards() {
+        // Given
+        Patient onA = patientService.createPatient(patient(emailOn("a", "held")));
+        Patient onB = patientService.createPatient(patient(emailOn("b", "other")));
+        String movedEmail = emailOn("a", "moved");
+
+        // When
+        patientService.patchPatient(onB.getId(), new PatientPatch(null, null, null, null, null, null, null, movedEmail), null);
+
+        // Then
+        assertEquals("b", directory.shardForId(onB.getId()));
+        assertThrows(PatientEmailTakenException.class, () -> patientService.createPatient(patient(movedEmail.toUpperCase())));
+        assertEquals(PatientBatchWriter.WriteResult.Status.DUPLICATE,
+                batchWriter.writeAll(List.of(patient(movedEmail))).get(0).status());
+        Patient changed = patientService.getPatientById(onB.getId());
+        changed.setEmail(onA.getEmail().toUpperCase());
+        assertThrows(PatientEmailTakenException.class, () -> patientService.updatePatient(onB.getId(), changed, null));
+        assertThrows(PatientEmailTakenException.class, () -> patientService.patchPatient(onA.getId(),
+                new PatientPatch(null, null, null, null, null, null, null, movedEmail), null));
+
+        String released = onB.getEmail();
+        assertEquals(released, patientService.createPatient(patient(released)).getEmail());
+        patientService.deletePatient(onA.getId(), null);
+        assertEquals(PatientBatchWriter.WriteResult.Status.CREATED,
+                batchWriter.writeAll(List.of(patient(onA.getEmail()))).get(0).status());
+    }
+
+    @Test
+    @DisplayName("Exports and the duplicate report are refused while patients are sharded")
+    void refusesUnshardedOperations() {
+        assertThrows(ShardingUnsupportedException.class, () -> patientExportService.getExports());
+        assertThrows(ShardingUnsupportedException.class, () -> patientMatchingService.duplicateReport(0.9, 10));
+    }
+
+    private List<Patient> createPatients(String prefix, String city) {
+        return IntStream.range(0, 12)
+                .mapToObj(i -> patientService.createPatient(patient(prefix + "-" + i + "@example.com", city)))
+                .toList();
+    }
+
+    private String emailOn(String shard, String prefix) {
+        return IntStream.iterate(0, i -> i + 1).mapToObj(i -> prefix + "-" + i + "@example.com")
+                .filter(email -> directory.shardForEmail(email).equals(shard)).findFirst().orElseThrow();
+    }
+
+    private int rowsOn(String shard, int id) {
+        Integer rows = new JdbcTemplate(directory.dataSource(shard))
+                .queryForObject("select count(*) from patients where id = ?", Integer.class, id);
+        return rows == null ? 0 : rows;
+    }
+}